@@ -25,4 +25,11 @@ public class RandomProvider {
 		return this.random.nextDouble();
 	}
 
+	/**
+	 * @return a random double from the standard normal distribution
+	 */
+	public double nextGaussian() {
+		return this.random.nextGaussian();
+	}
+
 }
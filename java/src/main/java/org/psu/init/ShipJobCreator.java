@@ -1,6 +1,11 @@
 package org.psu.init;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
 import org.psu.miningmanager.MiningShipManager;
+import org.psu.probemanager.ProbeShipManager;
 import org.psu.shiporchestrator.ShipJob;
 import org.psu.shiporchestrator.ShipRole;
 import org.psu.shiporchestrator.ShipRoleManager;
@@ -27,9 +32,12 @@ public class ShipJobCreator {
 	@Inject
 	private TradeShipManager tradeShipManager;
 
+	@Inject
+	private ProbeShipManager probeShipManager;
+
 	/**
 	 * @param ship The ship to create a job for
-	 * @return The created {@link ShipJob}, or null if the input ship is a probe ship
+	 * @return The created {@link ShipJob}, or null if no job could be created
 	 */
 	public ShipJob createShipJob(final Ship ship) {
 		final ShipRole shipRole = shipRoleManager.determineRole(ship);
@@ -40,9 +48,33 @@ public class ShipJobCreator {
 		case TRADE:
 			return tradeShipManager.createJob(ship);
 		case PROBE:
-			// Probe ship jobs are created via user input, not this job creator
+			return probeShipManager.createJob(ship);
 		}
 		return null;
 	}
 
+	/**
+	 * @param ships The ships to create jobs for
+	 * @return The created {@link ShipJob}s, trade routes are assigned to the trade
+	 *         ships together
+	 */
+	public List<ShipJob> createShipJobs(final List<Ship> ships) {
+		final List<ShipJob> jobs = new ArrayList<>();
+		final List<Ship> tradeShips = new ArrayList<>();
+		for (final Ship ship : ships) {
+			final ShipRole shipRole = shipRoleManager.determineRole(ship);
+			if (shipRole == ShipRole.TRADE) {
+				tradeShips.add(ship);
+			} else if (shipRole == ShipRole.MINING) {
+				jobs.add(miningShipManager.createJob(ship));
+			} else if (shipRole == ShipRole.PROBE) {
+				jobs.add(probeShipManager.createJob(ship));
+			}
+		}
+		if (!tradeShips.isEmpty()) {
+			jobs.addAll(tradeShipManager.createJobs(tradeShips));
+		}
+		return jobs.stream().filter(Objects::nonNull).toList();
+	}
+
 }
@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -15,6 +14,7 @@ import org.psu.shiporchestrator.ShipJob;
 import org.psu.shiporchestrator.ShipJobQueue;
 import org.psu.shippurchase.ShipyardManager;
 import org.psu.spacetraders.api.ClientProducer;
+import org.psu.spacetraders.api.RequestPriority;
 import org.psu.spacetraders.api.RequestThrottler;
 import org.psu.spacetraders.api.ShipsClient;
 import org.psu.spacetraders.api.SpaceTradersUtils;
@@ -25,6 +25,7 @@ import org.psu.spacetraders.dto.Product;
 import org.psu.spacetraders.dto.Ship;
 import org.psu.spacetraders.dto.ShipNavigation;
 import org.psu.spacetraders.dto.Waypoint;
+import org.psu.trademanager.MarketRefresher;
 import org.psu.trademanager.MarketplaceManager;
 import org.psu.websocket.WebsocketReporter;
 
@@ -50,6 +51,7 @@ public class ShipLoader {
 	private final RefuelPathCalculator refuelPathCalculator;
 	private final ShipJobQueue jobQueue;
 	private final WebsocketReporter websocketReporter;
+	private final MarketRefresher marketRefresher;
 
 	@Inject
 	public ShipLoader(@ConfigProperty(name = "app.max-items-per-page") final int limit,
@@ -57,7 +59,7 @@ public class ShipLoader {
 			final ShipJobCreator shipJobCreator, final MarketplaceManager marketplaceManager,
 			final MiningSiteManager miningSiteManager, final ShipyardManager shipyardManager,
 			final ShipJobQueue jobQueue, final RefuelPathCalculator refuelPathCalculator,
-			final WebsocketReporter websocketReporter) {
+			final WebsocketReporter websocketReporter, final MarketRefresher marketRefresher) {
 		this.limit = limit;
 		this.shipsClient = clientProducer.produceShipsClient();
 		this.throttler = throttler;
@@ -69,6 +71,7 @@ public class ShipLoader {
 		this.jobQueue = jobQueue;
 		this.refuelPathCalculator = refuelPathCalculator;
 		this.websocketReporter = websocketReporter;
+		this.marketRefresher = marketRefresher;
 	}
 
 	/**
@@ -110,14 +113,16 @@ public class ShipLoader {
     			.filter(e -> e.getValue().sellsProduct(Product.FUEL)).map(Entry::getKey).toList();
     	refuelPathCalculator.loadRefuelWaypoints(waypointsWhichTradeFuel);
 
-		final List<ShipJob> jobs = ships.stream().map(shipJobCreator::createShipJob).filter(Objects::nonNull).toList();
+		final List<ShipJob> jobs = shipJobCreator.createShipJobs(ships);
 
 		jobQueue.establishJobs(jobs);
+		marketRefresher.start(ships);
 		jobQueue.beginJobQueue();
 	}
 
     public List<Ship> gatherShips() {
-		final DataWrapper<List<Ship>> initialPage = throttler.throttle(() -> shipsClient.getShips(limit, 1));
+		final DataWrapper<List<Ship>> initialPage = throttler.throttle(RequestPriority.BACKGROUND,
+				() -> shipsClient.getShips(limit, 1));
 		log.info("Gathered ship page 1");
 
 		final WrapperMetadata metaData = initialPage.getMeta();
@@ -130,7 +135,8 @@ public class ShipLoader {
 			// Make this final so it can be given to the throttler
 			final int page = i;
 
-			final DataWrapper<List<Ship>> nextPage = throttler.throttle(() -> shipsClient.getShips(limit, page));
+			final DataWrapper<List<Ship>> nextPage = throttler.throttle(RequestPriority.BACKGROUND,
+					() -> shipsClient.getShips(limit, page));
 			log.infof("Gathered ship page %s", i);
 			ships.addAll(nextPage.getData());
 		}
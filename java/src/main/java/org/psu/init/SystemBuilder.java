@@ -9,6 +9,7 @@ import java.util.stream.Collectors;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.psu.spacetraders.api.ClientProducer;
 import org.psu.spacetraders.api.MarketplaceClient;
+import org.psu.spacetraders.api.RequestPriority;
 import org.psu.spacetraders.api.RequestThrottler;
 import org.psu.spacetraders.api.SpaceTradersUtils;
 import org.psu.spacetraders.api.WaypointsClient;
@@ -46,7 +47,7 @@ public class SystemBuilder {
      */
 	public List<Waypoint> gatherWaypoints(final String systemId) {
 		final DataWrapper<List<Waypoint>> initialPage = throttler
-				.throttle(() -> waypointsClient.getWaypoints(systemId, limit, 1));
+				.throttle(RequestPriority.BACKGROUND, () -> waypointsClient.getWaypoints(systemId, limit, 1));
 
 		final WrapperMetadata metaData = initialPage.getMeta();
 		final int numPages = SpaceTradersUtils.getTotalNumPages(metaData);
@@ -59,7 +60,7 @@ public class SystemBuilder {
 			final int page = i;
 
 			final DataWrapper<List<Waypoint>> nextPage = throttler
-					.throttle(() -> waypointsClient.getWaypoints(systemId, limit, page));
+					.throttle(RequestPriority.BACKGROUND, () -> waypointsClient.getWaypoints(systemId, limit, page));
 			waypoints.addAll(nextPage.getData());
 		}
 
@@ -75,8 +76,9 @@ public class SystemBuilder {
 	public Map<Waypoint, MarketInfo> gatherMarketInfo(final List<Waypoint> waypoints) {
 		return waypoints.stream()
 				.filter(w -> w.getTraits().stream().anyMatch(t -> Trait.Type.MARKETPLACE.equals(t.getSymbol())))
-				.collect(Collectors.toMap(Function.identity(), waypoint -> throttler.throttle(
-						() -> marketClient.getMarketInfo(waypoint.getSystemSymbol(), waypoint.getSymbol()).getData())));
+				.collect(Collectors.toMap(Function.identity(),
+						waypoint -> throttler.throttle(RequestPriority.BACKGROUND, () -> marketClient
+								.getMarketInfo(waypoint.getSystemSymbol(), waypoint.getSymbol()).getData())));
 	}
 
 }
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.psu.miningmanager.dto.ExtractResponse;
@@ -21,6 +22,7 @@ import org.psu.spacetraders.api.NavigationHelper;
 import org.psu.spacetraders.api.RequestThrottler;
 import org.psu.spacetraders.api.SurveyClient;
 import org.psu.spacetraders.dto.CargoItem;
+import org.psu.spacetraders.dto.ErrorResponse;
 import org.psu.spacetraders.dto.MarketInfo;
 import org.psu.spacetraders.dto.Product;
 import org.psu.spacetraders.dto.Ship;
@@ -30,6 +32,9 @@ import org.psu.websocket.WebsocketReporter;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.Response;
 import lombok.extern.jbosslog.JBossLog;
 
 /**
@@ -39,6 +44,15 @@ import lombok.extern.jbosslog.JBossLog;
 @ApplicationScoped
 public class MiningShipManager {
 
+	static final int SURVEY_VERIFICATION_ERROR = 4220;
+	static final int SURVEY_EXPIRATION_ERROR = 4221;
+	static final int SURVEY_EXHAUSTED_ERROR = 4224;
+	/**
+	 * The error codes which mean no ship can extract with a survey
+	 */
+	private static final Set<Integer> SURVEY_ERRORS = Set.of(SURVEY_VERIFICATION_ERROR, SURVEY_EXPIRATION_ERROR,
+			SURVEY_EXHAUSTED_ERROR);
+
 	private Duration cooldownPad;
 	private SurveyClient surveyClient;
 	private RequestThrottler throttler;
@@ -47,13 +61,19 @@ public class MiningShipManager {
 	private MarketplaceManager marketplaceManager;
 	private MarketplaceRequester marketplaceRequester;
 	private WebsocketReporter websocketReporter;
+	private SurveyPool surveyPool;
+	private SurveyScorer surveyScorer;
+	private MiningSiteSelector siteSelector;
+	private SiteYieldTracker yieldTracker;
 
 	@Inject
 	public MiningShipManager(@ConfigProperty(name = "app.cooldown-pad-ms") final int cooldownPad,
 			final ClientProducer clientProducer, final RequestThrottler throttler,
 			final MiningSiteManager siteManager, final NavigationHelper navHelper,
 			final MarketplaceManager marketplaceManager, final MarketplaceRequester marketplaceRequester,
-			final WebsocketReporter websocketReporter) {
+			final WebsocketReporter websocketReporter, final SurveyPool surveyPool,
+			final SurveyScorer surveyScorer, final MiningSiteSelector siteSelector,
+			final SiteYieldTracker yieldTracker) {
 		this.cooldownPad = Duration.ofMillis(cooldownPad);
 		this.surveyClient = clientProducer.produceSurveyClient();
 		this.throttler = throttler;
@@ -62,6 +82,10 @@ public class MiningShipManager {
 		this.marketplaceManager = marketplaceManager;
 		this.marketplaceRequester = marketplaceRequester;
 		this.websocketReporter = websocketReporter;
+		this.surveyPool = surveyPool;
+		this.surveyScorer = surveyScorer;
+		this.siteSelector = siteSelector;
+		this.yieldTracker = yieldTracker;
 	}
 
 	public MiningShipJob createJob(final Ship ship) {
@@ -71,7 +95,8 @@ public class MiningShipManager {
 			final Deque<Waypoint> destinationPath = new LinkedList<>();
 			destinationPath.add(destination);
 
-			// The ship is at or traveling to a mining site
+			// The ship is at or traveling to a mining site, so it counts against the site's capacity
+			siteSelector.claim(ship, destination);
 			if (ship.getNav().getRoute().getArrival().compareTo(Instant.now()) > 0) {
 				// The ship will arrive in the future
 				final MiningShipJob job = new MiningShipJob(ship, destinationPath);
@@ -117,7 +142,7 @@ public class MiningShipManager {
 		}
 
 		// We're not in the middle of a mining job, make a new one
-		final Deque<Waypoint> extractionPath = siteManager.getClosestMiningSite(ship).get();
+		final Deque<Waypoint> extractionPath = siteSelector.selectSite(ship).get();
 		return new MiningShipJob(ship, extractionPath);
 	}
 
@@ -138,16 +163,23 @@ public class MiningShipManager {
 
 			if (ship.getNav().getWaypointSymbol().equals(job.getExtractionPoint().getSymbol())) {
 				// We've reached the extraction point
+				final String extractionPointId = job.getExtractionPoint().getSymbol();
+				job.setState(State.SURVEYING);
+				if (!surveyPool.needsSurvey(extractionPointId)) {
+					// Other ships' surveys of this site are still live, start extracting with them
+					log.infof("Ship %s using existing surveys of %s", shipId, extractionPointId);
+					job.setNextAction(Instant.now());
+					break;
+				}
 				final SurveyResponse surveyResponse = throttler.throttle(() -> surveyClient.survey(shipId)).getData();
-				job.setSurveys(surveyResponse.getSurveys());
+				surveyPool.addSurveys(extractionPointId, surveyResponse.getSurveys());
 				final Instant surveyCooldownComplete = Instant.now()
 						.plus(Duration.ofSeconds(surveyResponse.getCooldown().getTotalSeconds()));
 				job.setNextAction(surveyCooldownComplete);
-				job.setState(State.SURVEYING);
 
 				final String surveyMessage = String.format(
-						"Finished Surveying, found %s sites, ship %s in cooldown until %s", job.getSurveys().size(), shipId,
-						job.getNextAction());
+						"Finished Surveying, found %s sites, ship %s in cooldown until %s",
+						surveyResponse.getSurveys().size(), shipId, job.getNextAction());
 				websocketReporter.fireShipEvent(ship.getSymbol(), surveyMessage);
 				log.infof(surveyMessage);
 				break;
@@ -169,9 +201,10 @@ public class MiningShipManager {
 				job.setNextAction(arrival);
 				return job;
 			}
-			final Survey survey = job.getSurveys().get(0);
-			if (survey.getExpiration().isBefore(Instant.now())) {
-				// Survey has expired. Need to re-up the survey
+			final String siteId = job.getExtractionPoint().getSymbol();
+			final Survey survey = surveyScorer.getBestSurvey(ship, surveyPool.getSurveys(siteId));
+			if (survey == null) {
+				// Every survey of the site has expired. Need to re-up the survey
 				job.setState(State.TRAVELING_TO_RESOURCE);
 				job.setNextAction(Instant.now());
 				break;
@@ -179,8 +212,23 @@ public class MiningShipManager {
 			final String message = String.format("Ship %s extracting resources", shipId);
 			websocketReporter.fireShipEvent(ship.getSymbol(), message);
 			log.infof(message);
-			final ExtractResponse extractResponse = throttler.throttle(() -> surveyClient.extractSurvey(shipId, survey))
-					.getData();
+			final ExtractResponse extractResponse;
+			try {
+				extractResponse = throttler.throttle(() -> surveyClient.extractSurvey(shipId, survey)).getData();
+			} catch (WebApplicationException e) {
+				if (!isSurveyRejected(e)) {
+					// Rate limits and cooldowns say nothing about the survey, leave it for the job's retry
+					throw e;
+				}
+				// The deposit is exhausted or the survey is otherwise invalid, no ship should use it again
+				log.warnf("Survey %s of %s was rejected, ship %s will use another or survey again",
+						survey.getSignature(), siteId, shipId);
+				surveyPool.removeSurvey(siteId, survey);
+				job.setState(State.TRAVELING_TO_RESOURCE);
+				job.setNextAction(Instant.now());
+				break;
+			}
+			yieldTracker.recordExtraction(siteId, ship.getCargo(), extractResponse);
 			ship.setCargo(extractResponse.getCargo());
 
 			final Instant extractCooldownComplete = Instant.now()
@@ -198,6 +246,8 @@ public class MiningShipManager {
 			if (ship.getNav().getWaypointSymbol().equals(job.getSellingPoint().getSymbol())) {
 				// We've reached the market
 				sellItems(job);
+				// The queue may give the ship something other than mining to do next
+				siteSelector.release(ship);
 				// We've finished the job, now return null for the queue to determine what to do next
 				return null;
 			}
@@ -255,4 +305,23 @@ public class MiningShipManager {
 		marketplaceRequester.dockAndSellItems(ship, job.getSellingPoint(), ship.getCargo().getInventory());
 	}
 
+	/**
+	 * @param e the exception thrown by an extraction
+	 * @return true if the server rejected the survey itself, false for any other
+	 *         error or if the error can't be read
+	 */
+	static boolean isSurveyRejected(final WebApplicationException e) {
+		final Response response = e.getResponse();
+		if (response == null || !response.hasEntity()) {
+			return false;
+		}
+		try {
+			final ErrorResponse error = response.readEntity(ErrorResponse.class);
+			return error != null && error.error() != null && SURVEY_ERRORS.contains(error.error().code());
+		} catch (ProcessingException | IllegalStateException readFailure) {
+			log.debugf("Unable to read the error body of a %d response", response.getStatus());
+			return false;
+		}
+	}
+
 }
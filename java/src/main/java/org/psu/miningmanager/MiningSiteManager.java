@@ -1,15 +1,15 @@
 package org.psu.miningmanager;
 
-import java.util.Comparator;
+import java.util.BitSet;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 import org.psu.navigation.NavigationPath;
 import org.psu.navigation.RefuelPathCalculator;
+import org.psu.navigation.WaypointGrid;
+import org.psu.navigation.WaypointRegistry;
 import org.psu.spacetraders.dto.Ship;
 import org.psu.spacetraders.dto.Waypoint;
 
@@ -23,12 +23,20 @@ import jakarta.inject.Inject;
 public class MiningSiteManager {
 
 	private RefuelPathCalculator pathCalculator;
-	private Map<String, Waypoint> miningSitesById;
+	private WaypointRegistry waypointRegistry;
+
+	/**
+	 * The {@link WaypointRegistry} ids of the mining sites
+	 */
+	private BitSet miningSiteIds;
+	private WaypointGrid miningSiteGrid;
 
 	@Inject
-	public MiningSiteManager(final RefuelPathCalculator pathCalculator) {
+	public MiningSiteManager(final RefuelPathCalculator pathCalculator, final WaypointRegistry waypointRegistry) {
 		this.pathCalculator = pathCalculator;
-		this.miningSitesById = new HashMap<>();
+		this.waypointRegistry = waypointRegistry;
+		this.miningSiteIds = new BitSet();
+		this.miningSiteGrid = new WaypointGrid(List.of());
 	}
 
 	/**
@@ -39,7 +47,8 @@ public class MiningSiteManager {
 	 */
 	public void addSites(final List<Waypoint> waypoints) {
 		waypoints.stream().filter(w -> w.getTraits().stream().anyMatch(t -> t.getSymbol().isValuable()))
-				.forEach(w -> miningSitesById.put(w.getSymbol(), w));
+				.forEach(w -> miningSiteIds.set(waypointRegistry.register(w)));
+		this.miningSiteGrid = new WaypointGrid(getMiningSites());
 	}
 
 	/**
@@ -48,7 +57,15 @@ public class MiningSiteManager {
 	 *         into this manager, null otherwise
 	 */
 	public Waypoint getMiningSite(final String waypointId) {
-		return this.miningSitesById.get(waypointId);
+		final int id = waypointRegistry.getId(waypointId);
+		return id >= 0 && miningSiteIds.get(id) ? waypointRegistry.getWaypoint(id) : null;
+	}
+
+	/**
+	 * @return All of the mining sites loaded into this manager
+	 */
+	public List<Waypoint> getMiningSites() {
+		return miningSiteIds.stream().mapToObj(waypointRegistry::getWaypoint).toList();
 	}
 
 	/**
@@ -57,9 +74,19 @@ public class MiningSiteManager {
 	 *         there are no mining sites loaded or none are reachable by the ship
 	 */
 	public Optional<Deque<Waypoint>> getClosestMiningSite(final Ship ship) {
-		return this.miningSitesById.values().stream().map(w -> this.pathCalculator.determineShortestRoute(ship, w))
-				.filter(Objects::nonNull).min(Comparator.comparing(path -> path.getLength()))
-				.map(NavigationPath::getWaypoints);
+		return getClosestMiningSite(ship, w -> true);
+	}
+
+	/**
+	 * @param ship       a ship
+	 * @param candidates which mining sites may be chosen
+	 * @return The candidate mining site closest to the ship's current position,
+	 *         empty if no candidate is reachable by the ship
+	 */
+	public Optional<Deque<Waypoint>> getClosestMiningSite(final Ship ship, final Predicate<Waypoint> candidates) {
+		final NavigationPath path = this.miningSiteGrid.findShortestPath(ship, candidates,
+				w -> this.pathCalculator.determineShortestRoute(ship, w));
+		return Optional.ofNullable(path).map(NavigationPath::getWaypoints);
 	}
 
 }
@@ -0,0 +1,254 @@
+package org.psu.miningmanager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.psu.miningmanager.SiteYieldTracker.SiteYield;
+import org.psu.navigation.NavigationPath;
+import org.psu.navigation.RefuelPathCalculator;
+import org.psu.spacetraders.dto.Product;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.ShipRoute.RoutePoint;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.trademanager.MarketplaceManager;
+import org.psu.trademanager.MarketplaceManager.Sale;
+import org.psu.trademanager.RouteScorer;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+
+/**
+ * Chooses the mining site where a ship is expected to earn the most credits per
+ * hour, counting the flight to the site, the extractions needed to fill the
+ * ship and the flight on to the market which pays the most for the site's main
+ * product.
+ * <p>
+ * Until anything has been extracted, sites are chosen by distance alone. Sites
+ * which have not been extracted from yet are assumed to yield what all sites
+ * have yielded on average. Prices and the flight to market are found from the
+ * site, assuming the ship leaves it with a full tank. No site is given more
+ * ships than it can take unless every site is full, though ships choosing at
+ * the same moment may both take a site's last place.
+ */
+@JBossLog
+@ApplicationScoped
+public class MiningSiteSelector {
+
+	static final double SECONDS_PER_HOUR = 3600;
+
+	private final int defaultEngineSpeed;
+	private final int maxShipsPerSite;
+	private final MiningSiteManager siteManager;
+	private final SiteYieldTracker yieldTracker;
+	private final MarketplaceManager marketplaceManager;
+	private final RefuelPathCalculator pathCalculator;
+
+	/**
+	 * The symbol of the site each mining ship is working, by ship symbol
+	 */
+	private final Map<String, String> siteByShip;
+
+	@Inject
+	public MiningSiteSelector(
+			@ConfigProperty(name = "app.route-scoring.default-engine-speed") final int defaultEngineSpeed,
+			@ConfigProperty(name = "app.mining-site.max-ships") final int maxShipsPerSite,
+			final MiningSiteManager siteManager, final SiteYieldTracker yieldTracker,
+			final MarketplaceManager marketplaceManager, final RefuelPathCalculator pathCalculator) {
+		this.defaultEngineSpeed = defaultEngineSpeed;
+		this.maxShipsPerSite = maxShipsPerSite;
+		this.siteManager = siteManager;
+		this.yieldTracker = yieldTracker;
+		this.marketplaceManager = marketplaceManager;
+		this.pathCalculator = pathCalculator;
+		this.siteByShip = new HashMap<>();
+	}
+
+	/**
+	 * Chooses a mining site for the ship, and counts the ship against the site's
+	 * capacity until the ship is sent elsewhere or released
+	 *
+	 * @param ship a mining ship
+	 * @return The path to the chosen mining site, empty if no mining site is
+	 *         reachable by the ship
+	 */
+	public Optional<Deque<Waypoint>> selectSite(final Ship ship) {
+		// Paths are found outside the lock so that ships can choose sites at the same time
+		final Map<String, Integer> shipsBySite = countShips(ship);
+		Optional<Deque<Waypoint>> path = selectSite(ship, shipsBySite);
+		if (path.isEmpty() && !shipsBySite.isEmpty()) {
+			// Every reachable site is full, overloading one is better than leaving the ship idle
+			path = selectSite(ship, Map.of());
+		}
+		path.ifPresent(p -> claim(ship, p.peekLast()));
+		return path;
+	}
+
+	/**
+	 * Counts the ship against the site's capacity, used for ships which were
+	 * already working a site when the application started
+	 *
+	 * @param ship a mining ship
+	 * @param site the mining site the ship is working
+	 */
+	public synchronized void claim(final Ship ship, final Waypoint site) {
+		siteByShip.put(ship.getSymbol(), site.getSymbol());
+	}
+
+	/**
+	 * Stops counting the ship against any site, used when the ship is done mining
+	 *
+	 * @param ship a mining ship
+	 */
+	public synchronized void release(final Ship ship) {
+		siteByShip.remove(ship.getSymbol());
+	}
+
+	/**
+	 * @return The number of ships working each site, leaving out the given ship
+	 *         since it is leaving its site
+	 */
+	private synchronized Map<String, Integer> countShips(final Ship ship) {
+		final Map<String, Integer> shipsBySite = new HashMap<>();
+		siteByShip.forEach((shipSymbol, site) -> {
+			if (!shipSymbol.equals(ship.getSymbol())) {
+				shipsBySite.merge(site, 1, Integer::sum);
+			}
+		});
+		return shipsBySite;
+	}
+
+	private Optional<Deque<Waypoint>> selectSite(final Ship ship, final Map<String, Integer> shipsBySite) {
+		final SiteYield totalYield = yieldTracker.getTotalYield();
+		if (totalYield == null) {
+			return siteManager.getClosestMiningSite(ship, site -> hasCapacity(site, shipsBySite));
+		}
+
+		final RoutePoint start = ship.getNav().getRoute().getDestination();
+		final int speed = getSpeed(ship);
+		final List<SiteEstimate> estimates = new ArrayList<>();
+		for (final Waypoint site : siteManager.getMiningSites()) {
+			if (hasCapacity(site, shipsBySite)) {
+				final SiteYield siteYield = yieldTracker.getYield(site.getSymbol());
+				estimates.add(estimateSite(ship, site, siteYield == null ? totalYield : siteYield));
+			}
+		}
+		// No path is shorter than a straight line, so once a site's straight line estimate
+		// can't beat the best site found, neither it nor any site after it needs a path
+		final Comparator<SiteEstimate> byStraightLine = Comparator
+				.comparingDouble(e -> e.creditsPerHour(getStraightFlightSeconds(start, e.site(), speed)));
+		estimates.sort(byStraightLine.reversed());
+
+		NavigationPath bestPath = null;
+		double bestCreditsPerHour = Double.NEGATIVE_INFINITY;
+		for (final SiteEstimate estimate : estimates) {
+			final Waypoint site = estimate.site();
+			if (estimate.creditsPerHour(getStraightFlightSeconds(start, site, speed)) < bestCreditsPerHour) {
+				break;
+			}
+			final NavigationPath path = pathCalculator.determineShortestRoute(ship, site);
+			if (path == null) {
+				continue;
+			}
+			final double creditsPerHour = estimate.creditsPerHour(getFlightSeconds(start, path, speed));
+			if (creditsPerHour > bestCreditsPerHour
+					|| (creditsPerHour == bestCreditsPerHour && path.getLength() < bestPath.getLength())) {
+				bestPath = path;
+				bestCreditsPerHour = creditsPerHour;
+			}
+		}
+		if (bestPath != null) {
+			log.infof("Ship %s mining at %s, expecting %.0f credits per hour", ship.getSymbol(),
+					bestPath.getWaypoints().peekLast().getSymbol(), bestCreditsPerHour);
+		}
+		return Optional.ofNullable(bestPath).map(NavigationPath::getWaypoints);
+	}
+
+	private boolean hasCapacity(final Waypoint site, final Map<String, Integer> shipsBySite) {
+		return shipsBySite.getOrDefault(site.getSymbol(), 0) < maxShipsPerSite;
+	}
+
+	/**
+	 * Estimates everything about mining the site except for the flight there,
+	 * which depends on where the ship is
+	 */
+	private SiteEstimate estimateSite(final Ship ship, final Waypoint site, final SiteYield siteYield) {
+		final double unitsPerExtraction = siteYield.unitsPerExtraction();
+		if (unitsPerExtraction == 0) {
+			return new SiteEstimate(site, 0, 0);
+		}
+		final int capacity = ship.getCargo().getCapacity();
+		final int fuelCapacity = ship.getFuel().capacity();
+
+		double creditsPerUnit = 0;
+		Sale mainSale = null;
+		int mainProductUnits = 0;
+		for (final Entry<String, Integer> productUnits : siteYield.unitsByProduct().entrySet()) {
+			final Optional<Sale> sale = marketplaceManager.getBestSale(site, fuelCapacity,
+					new Product(productUnits.getKey()));
+			creditsPerUnit += sale.map(Sale::price).orElse(0) * (double) productUnits.getValue() / siteYield.units();
+			if (productUnits.getValue() > mainProductUnits) {
+				mainSale = sale.orElse(null);
+				mainProductUnits = productUnits.getValue();
+			}
+		}
+
+		final double extractingSeconds = Math.ceil(capacity / unitsPerExtraction) * siteYield.secondsPerExtraction();
+		final double toMarketSeconds = mainSale == null ? 0
+				: getFlightSeconds(site.getX(), site.getY(), mainSale.path(), getSpeed(ship));
+		return new SiteEstimate(site, capacity * creditsPerUnit, extractingSeconds + toMarketSeconds);
+	}
+
+	private int getSpeed(final Ship ship) {
+		return ship.getEngine() == null ? defaultEngineSpeed : ship.getEngine().speed();
+	}
+
+	private static double getStraightFlightSeconds(final RoutePoint start, final Waypoint site, final int speed) {
+		return getFlightSeconds(Math.hypot(site.getX() - start.getX(), site.getY() - start.getY()), speed);
+	}
+
+	private double getFlightSeconds(final RoutePoint start, final NavigationPath path, final int speed) {
+		return getFlightSeconds(start.getX(), start.getY(), path, speed);
+	}
+
+	private double getFlightSeconds(final double startX, final double startY, final NavigationPath path,
+			final int speed) {
+		double seconds = 0;
+		double x = startX;
+		double y = startY;
+		for (final Waypoint waypoint : path.getWaypoints()) {
+			seconds += getFlightSeconds(Math.hypot(waypoint.getX() - x, waypoint.getY() - y), speed);
+			x = waypoint.getX();
+			y = waypoint.getY();
+		}
+		return seconds;
+	}
+
+	private static double getFlightSeconds(final double distance, final int speed) {
+		return distance > 0 ? RouteScorer.estimateFlightSeconds(distance, speed) : 0;
+	}
+
+	/**
+	 * The credits made by filling a ship at a site and selling the load, and the
+	 * time spent at the site and flying on to market
+	 */
+	private record SiteEstimate(Waypoint site, double creditsPerLoad, double siteSeconds) {
+
+		/**
+		 * @param toSiteSeconds the time taken to fly to the site
+		 * @return the credits made per hour, counting the flight to the site
+		 */
+		double creditsPerHour(final double toSiteSeconds) {
+			// Never score a site as instantaneous
+			return creditsPerLoad / (Math.max(1, siteSeconds + toSiteSeconds) / SECONDS_PER_HOUR);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package org.psu.miningmanager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.psu.miningmanager.dto.ExtractResponse;
+import org.psu.spacetraders.dto.Cargo;
+import org.psu.spacetraders.dto.CargoItem;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Records what every extraction yields at each mining site, so sites can be
+ * compared by what they have actually produced rather than by their traits
+ */
+@ApplicationScoped
+public class SiteYieldTracker {
+
+	private final Map<String, SiteYield> yieldsBySite;
+	private SiteYield totalYield;
+
+	public SiteYieldTracker() {
+		this.yieldsBySite = new HashMap<>();
+		this.totalYield = SiteYield.NONE;
+	}
+
+	/**
+	 * @param waypointSymbol the symbol of the site extracted from
+	 * @param cargoBefore    the ship's cargo before the extraction, may be null
+	 *                       if the ship was empty
+	 * @param response       the result of the extraction
+	 */
+	public synchronized void recordExtraction(final String waypointSymbol, final Cargo cargoBefore,
+			final ExtractResponse response) {
+		final Map<String, Integer> extracted = getUnitsByProduct(response.getCargo());
+		getUnitsByProduct(cargoBefore).forEach((product, units) -> extracted.merge(product, -units, Integer::sum));
+		extracted.values().removeIf(units -> units <= 0);
+
+		final SiteYield extraction = new SiteYield(1, response.getCooldown().getTotalSeconds(), extracted);
+		yieldsBySite.merge(waypointSymbol, extraction, SiteYield::plus);
+		totalYield = totalYield.plus(extraction);
+	}
+
+	/**
+	 * @param waypointSymbol the symbol of a site
+	 * @return Everything extracted at the site so far, null if nothing has been
+	 *         extracted there
+	 */
+	public synchronized SiteYield getYield(final String waypointSymbol) {
+		return yieldsBySite.get(waypointSymbol);
+	}
+
+	/**
+	 * @return Everything extracted at every site so far, null if nothing has been
+	 *         extracted yet
+	 */
+	public synchronized SiteYield getTotalYield() {
+		return totalYield.extractions() == 0 ? null : totalYield;
+	}
+
+	private static Map<String, Integer> getUnitsByProduct(final Cargo cargo) {
+		final Map<String, Integer> unitsByProduct = new HashMap<>();
+		final List<CargoItem> inventory = cargo == null ? null : cargo.getInventory();
+		if (inventory != null) {
+			inventory.forEach(item -> unitsByProduct.merge(item.getSymbol(), item.getUnits(), Integer::sum));
+		}
+		return unitsByProduct;
+	}
+
+	/**
+	 * The combined results of a number of extractions
+	 *
+	 * @param extractions     the number of extractions
+	 * @param cooldownSeconds the total cooldown after the extractions
+	 * @param unitsByProduct  the units extracted of each product, by symbol
+	 */
+	public record SiteYield(int extractions, long cooldownSeconds, Map<String, Integer> unitsByProduct) {
+
+		static final SiteYield NONE = new SiteYield(0, 0, Map.of());
+
+		public SiteYield {
+			unitsByProduct = Map.copyOf(unitsByProduct);
+		}
+
+		/**
+		 * @return The total units extracted
+		 */
+		public int units() {
+			return unitsByProduct.values().stream().mapToInt(Integer::intValue).sum();
+		}
+
+		/**
+		 * @return The average units yielded by an extraction
+		 */
+		public double unitsPerExtraction() {
+			return extractions == 0 ? 0 : (double) units() / extractions;
+		}
+
+		/**
+		 * @return The average cooldown after an extraction
+		 */
+		public double secondsPerExtraction() {
+			return extractions == 0 ? 0 : (double) cooldownSeconds / extractions;
+		}
+
+		SiteYield plus(final SiteYield other) {
+			final Map<String, Integer> combined = new HashMap<>(unitsByProduct);
+			other.unitsByProduct.forEach((product, units) -> combined.merge(product, units, Integer::sum));
+			return new SiteYield(extractions + other.extractions, cooldownSeconds + other.cooldownSeconds, combined);
+		}
+
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.psu.miningmanager;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.psu.miningmanager.dto.Survey;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Holds the live surveys of every mining site, so that every miner at a site
+ * can extract with surveys any of them made. A survey can be extracted from
+ * repeatedly until it expires, so one survey serves a whole fleet of miners.
+ */
+@ApplicationScoped
+public class SurveyPool {
+
+	private static final Comparator<Survey> BY_EXPIRATION = Comparator.comparing(Survey::getExpiration)
+			.thenComparing(Survey::getSignature, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+	private final int minSurveys;
+
+	/**
+	 * The live surveys of each site, by waypoint symbol, soonest to expire first
+	 */
+	private final Map<String, NavigableSet<Survey>> surveysBySite;
+
+	/**
+	 * @param minSurveys a site with fewer live surveys than this should be
+	 *                   surveyed again
+	 */
+	@Inject
+	public SurveyPool(@ConfigProperty(name = "app.survey-pool.min-surveys") final int minSurveys) {
+		this.minSurveys = minSurveys;
+		this.surveysBySite = new HashMap<>();
+	}
+
+	/**
+	 * @param waypointSymbol the symbol of the surveyed site
+	 * @param surveys        new surveys of the site
+	 */
+	public synchronized void addSurveys(final String waypointSymbol, final List<Survey> surveys) {
+		surveysBySite.computeIfAbsent(waypointSymbol, s -> new TreeSet<>(BY_EXPIRATION)).addAll(surveys);
+	}
+
+	/**
+	 * @param waypointSymbol the symbol of a site
+	 * @return True if a miner at the site should survey it before extracting
+	 */
+	public synchronized boolean needsSurvey(final String waypointSymbol) {
+		return getLiveSurveys(waypointSymbol).size() < minSurveys;
+	}
+
+	/**
+	 * @param waypointSymbol the symbol of a site
+	 * @return The live surveys of the site, soonest to expire first
+	 */
+	public synchronized List<Survey> getSurveys(final String waypointSymbol) {
+		return List.copyOf(getLiveSurveys(waypointSymbol));
+	}
+
+	/**
+	 * Removes a survey before it expires, for when the server will no longer
+	 * accept it
+	 *
+	 * @param waypointSymbol the symbol of the surveyed site
+	 * @param survey         the survey to remove
+	 */
+	public synchronized void removeSurvey(final String waypointSymbol, final Survey survey) {
+		final NavigableSet<Survey> surveys = surveysBySite.get(waypointSymbol);
+		if (surveys != null) {
+			surveys.remove(survey);
+		}
+	}
+
+	/**
+	 * @param waypointSymbol the symbol of a site
+	 * @return The surveys of the site which have not expired
+	 */
+	private NavigableSet<Survey> getLiveSurveys(final String waypointSymbol) {
+		final NavigableSet<Survey> surveys = surveysBySite.getOrDefault(waypointSymbol, new TreeSet<>(BY_EXPIRATION));
+		final Instant now = Instant.now();
+		while (!surveys.isEmpty() && !surveys.first().getExpiration().isAfter(now)) {
+			surveys.pollFirst();
+		}
+		return surveys;
+	}
+
+}
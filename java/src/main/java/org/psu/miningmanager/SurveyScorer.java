@@ -0,0 +1,109 @@
+package org.psu.miningmanager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.psu.miningmanager.dto.Survey;
+import org.psu.spacetraders.dto.Product;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.trademanager.MarketplaceManager;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Ranks surveys by the credits an extraction with them is expected to earn.
+ * <p>
+ * Scores are computed from current market prices every time a survey is
+ * chosen, so the ranking follows prices as they change.
+ */
+@ApplicationScoped
+public class SurveyScorer {
+
+	// Larger deposits yield more per extraction
+	private static final Map<String, Double> SIZE_MULTIPLIERS = Map.of("SMALL", 1.0, "MODERATE", 1.5, "LARGE", 2.0);
+	private static final double DEFAULT_SIZE_MULTIPLIER = 1.0;
+
+	private final MarketplaceManager marketplaceManager;
+	private final Duration expiryHorizon;
+
+	/**
+	 * @param marketplaceManager   provides the prices deposits sell for
+	 * @param expiryHorizonSeconds surveys expiring sooner than this are scored
+	 *                             down in proportion to their remaining time
+	 */
+	@Inject
+	public SurveyScorer(final MarketplaceManager marketplaceManager,
+			@ConfigProperty(name = "app.survey-scorer.expiry-horizon-s") final int expiryHorizonSeconds) {
+		this.marketplaceManager = marketplaceManager;
+		this.expiryHorizon = Duration.ofSeconds(expiryHorizonSeconds);
+	}
+
+	/**
+	 * @param ship    the {@link Ship} which will extract
+	 * @param surveys surveys of the site the ship is at
+	 * @return The survey with the highest score, the one expiring last among
+	 *         equals, null if there are no surveys
+	 */
+	public Survey getBestSurvey(final Ship ship, final List<Survey> surveys) {
+		final Instant now = Instant.now();
+		// Each product is priced once, however many surveys contain it
+		final Map<String, Integer> prices = new HashMap<>();
+		Survey bestSurvey = null;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (final Survey survey : surveys) {
+			final double score = score(survey, now, product -> prices.computeIfAbsent(product.getSymbol(),
+					s -> marketplaceManager.getBestSellPrice(ship, product)));
+			if (score > bestScore || (score == bestScore
+					&& survey.getExpiration().isAfter(bestSurvey.getExpiration()))) {
+				bestSurvey = survey;
+				bestScore = score;
+			}
+		}
+		return bestSurvey;
+	}
+
+	/**
+	 * @param ship   the {@link Ship} which will extract
+	 * @param survey a {@link Survey}
+	 * @return The expected credits earned by extracting once with the survey
+	 */
+	public double score(final Ship ship, final Survey survey) {
+		return score(survey, Instant.now(), product -> marketplaceManager.getBestSellPrice(ship, product));
+	}
+
+	/**
+	 * The average price of the deposits, which appear once per share of the
+	 * yield, scaled by the size of the deposit and by how soon it expires
+	 */
+	private double score(final Survey survey, final Instant now, final ToIntFunction<Product> prices) {
+		final List<Product> deposits = survey.getDeposits();
+		if (deposits == null || deposits.isEmpty()) {
+			return 0;
+		}
+		final double averagePrice = deposits.stream().mapToInt(prices).average().getAsDouble();
+		final double sizeMultiplier = SIZE_MULTIPLIERS.getOrDefault(survey.getSize(), DEFAULT_SIZE_MULTIPLIER);
+		return averagePrice * sizeMultiplier * getExpiryFactor(survey, now);
+	}
+
+	/**
+	 * An extraction with a survey which expires before the request arrives fails,
+	 * so surveys close to expiring are worth less
+	 */
+	private double getExpiryFactor(final Survey survey, final Instant now) {
+		final Duration remaining = Duration.between(now, survey.getExpiration());
+		if (remaining.isNegative() || remaining.isZero()) {
+			return 0;
+		}
+		if (expiryHorizon.isZero() || remaining.compareTo(expiryHorizon) >= 0) {
+			return 1;
+		}
+		return (double) remaining.toMillis() / expiryHorizon.toMillis();
+	}
+
+}
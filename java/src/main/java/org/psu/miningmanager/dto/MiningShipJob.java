@@ -3,7 +3,6 @@ package org.psu.miningmanager.dto;
 import java.time.Instant;
 import java.util.Deque;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.Queue;
 
 import org.psu.shiporchestrator.ShipJob;
@@ -26,10 +25,6 @@ public class MiningShipJob implements ShipJob {
 	private Queue<Waypoint> extractionPath;
 	private Waypoint extractionPoint;
 	private Instant nextAction;
-	/**
-	 * This will only be populated after surveying has occurred
-	 */
-	private List<Survey> surveys;
 	/**
 	 * The selling path and point will only be populated after resources have been extracted
 	 */
@@ -42,7 +37,6 @@ public class MiningShipJob implements ShipJob {
 		this.extractionPath = extractionPath;
 		this.extractionPoint = extractionPath.peekLast();
 		this.nextAction = Instant.now();
-		this.surveys = null;
 		this.sellingPath = new LinkedList<>();
 		this.sellingPoint = null;
 		this.state = State.NOT_STARTED;
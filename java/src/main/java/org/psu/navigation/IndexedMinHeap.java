@@ -0,0 +1,126 @@
+package org.psu.navigation;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min heap over the integer ids 0 to size - 1, keyed by a double. Ids
+ * can have their key decreased while in the heap, which is what Dijkstra's
+ * algorithm needs. The heap is backed by primitive arrays and can be reused
+ * after {@link #clear()} without allocating.
+ */
+class IndexedMinHeap {
+
+	private final int[] heap;
+	private final int[] positions;
+	private final double[] keys;
+	private int size;
+
+	/**
+	 * @param capacity the number of ids which can be stored in the heap
+	 */
+	IndexedMinHeap(final int capacity) {
+		this.heap = new int[capacity];
+		this.positions = new int[capacity];
+		this.keys = new double[capacity];
+		clear();
+	}
+
+	/**
+	 * Removes all ids from the heap
+	 */
+	void clear() {
+		Arrays.fill(positions, -1);
+		size = 0;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param id an id
+	 * @return true if the id is currently in the heap
+	 */
+	boolean contains(final int id) {
+		return positions[id] >= 0;
+	}
+
+	/**
+	 * Adds the id to the heap, or lowers its key if it is already in the heap with
+	 * a larger key
+	 *
+	 * @param id  the id
+	 * @param key the key for the id
+	 */
+	void insertOrDecrease(final int id, final double key) {
+		if (contains(id)) {
+			if (key < keys[id]) {
+				keys[id] = key;
+				siftUp(positions[id]);
+			}
+			return;
+		}
+		keys[id] = key;
+		heap[size] = id;
+		positions[id] = size;
+		siftUp(size++);
+	}
+
+	/**
+	 * @return The id with the smallest key, which is removed from the heap
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	int poll() {
+		if (size == 0) {
+			throw new NoSuchElementException("The heap is empty");
+		}
+		final int min = heap[0];
+		positions[min] = -1;
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			positions[heap[0]] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	private void siftUp(int index) {
+		final int id = heap[index];
+		while (index > 0) {
+			final int parent = (index - 1) / 2;
+			if (keys[heap[parent]] <= keys[id]) {
+				break;
+			}
+			move(heap[parent], index);
+			index = parent;
+		}
+		move(id, index);
+	}
+
+	private void siftDown(int index) {
+		final int id = heap[index];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+				child++;
+			}
+			if (keys[id] <= keys[heap[child]]) {
+				break;
+			}
+			move(heap[child], index);
+			index = child;
+		}
+		move(id, index);
+	}
+
+	private void move(final int id, final int index) {
+		heap[index] = id;
+		positions[id] = index;
+	}
+
+}
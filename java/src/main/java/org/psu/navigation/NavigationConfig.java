@@ -0,0 +1,31 @@
+package org.psu.navigation;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * The configuration for how the {@link RefuelPathCalculator} chooses and caches routes
+ */
+@ConfigMapping(prefix = "app.navigation")
+public interface NavigationConfig {
+
+	@WithDefault("DISTANCE")
+	RouteCostMode costMode();
+
+	// The cost of each unit of distance traveled, which is proportional to travel time
+	@WithDefault("1")
+	double distanceWeight();
+
+	// The cost of each credit spent refueling
+	@WithDefault("0")
+	double creditWeight();
+
+	// The cost of each api call needed to travel the route
+	@WithDefault("0")
+	double apiCallWeight();
+
+	// The number of paths to remember, the least recently used paths are forgotten first
+	@WithDefault("4096")
+	int pathCacheSize();
+
+}
@@ -0,0 +1,71 @@
+package org.psu.navigation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.psu.spacetraders.dto.Waypoint;
+
+/**
+ * A bounded cache of routes, the least recently used route is evicted first
+ */
+class PathCache {
+
+	private final Map<Key, CachedPath> paths;
+
+	/**
+	 * @param maxSize the maximum number of routes to hold
+	 */
+	PathCache(final int maxSize) {
+		this.paths = new LinkedHashMap<>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Key, CachedPath> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * @param key a route key
+	 * @return The cached route, or null if the route is not cached
+	 */
+	synchronized CachedPath get(final Key key) {
+		return paths.get(key);
+	}
+
+	synchronized void put(final Key key, final CachedPath path) {
+		paths.put(key, path);
+	}
+
+	synchronized int size() {
+		return paths.size();
+	}
+
+	/**
+	 * Identifies a route. The origin and destination are identified by their
+	 * station id, or by their position when they are not stations. Current fuel
+	 * usually only matters through which first hops it allows, so the fuel bucket
+	 * is the number of hops out of the origin within the current fuel. When the
+	 * fuel a ship is missing is priced, the bucket is the current fuel itself.
+	 */
+	record Key(int originId, int originX, int originY, int destinationId, int destinationX, int destinationY,
+			int fuelBucket, int fuelCapacity) {
+	}
+
+	/**
+	 * A cached route, immutable so it can be shared between callers
+	 *
+	 * @param length   the distance traveled along the route, not used if the route
+	 *                 is infeasible
+	 * @param stations the stations to stop at before the destination, null if the
+	 *                 route is infeasible
+	 */
+	record CachedPath(double length, Waypoint[] stations) {
+
+		static final CachedPath INFEASIBLE = new CachedPath(0, null);
+
+	}
+
+}
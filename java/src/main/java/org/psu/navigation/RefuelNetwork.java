@@ -0,0 +1,172 @@
+package org.psu.navigation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.psu.spacetraders.dto.Waypoint;
+
+/**
+ * The waypoints which sell fuel, indexed by integer ids with their coordinates
+ * and pairwise distances held in primitive arrays
+ */
+class RefuelNetwork {
+
+	private final Waypoint[] stations;
+	private final int[] xs;
+	private final int[] ys;
+	private final double[][] distances;
+	private final Map<Waypoint, Integer> idsByIdentity;
+	private final Map<String, Integer> idsBySymbol;
+
+	RefuelNetwork(final List<Waypoint> refuelWaypoints) {
+		final int size = refuelWaypoints.size();
+		this.stations = refuelWaypoints.toArray(new Waypoint[size]);
+		this.xs = new int[size];
+		this.ys = new int[size];
+		this.idsByIdentity = new IdentityHashMap<>(size);
+		this.idsBySymbol = new HashMap<>(size);
+		for (int id = 0; id < size; id++) {
+			xs[id] = stations[id].getX();
+			ys[id] = stations[id].getY();
+			idsByIdentity.put(stations[id], id);
+			if (stations[id].getSymbol() != null) {
+				idsBySymbol.put(stations[id].getSymbol(), id);
+			}
+		}
+
+		this.distances = new double[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = i + 1; j < size; j++) {
+				final double distance = distance(xs[i], ys[i], xs[j], ys[j]);
+				distances[i][j] = distance;
+				distances[j][i] = distance;
+			}
+		}
+	}
+
+	/**
+	 * @return The number of stations in the network
+	 */
+	int size() {
+		return stations.length;
+	}
+
+	/**
+	 * @param id a station id
+	 * @return The station's waypoint
+	 */
+	Waypoint getStation(final int id) {
+		return stations[id];
+	}
+
+	/**
+	 * @param waypoint a waypoint
+	 * @return The id of the station for this waypoint, or -1 if the waypoint does
+	 *         not sell fuel. Matches on identity first, then on symbol.
+	 */
+	int indexOf(final Waypoint waypoint) {
+		Integer id = idsByIdentity.get(waypoint);
+		if (id == null && waypoint.getSymbol() != null) {
+			id = idsBySymbol.get(waypoint.getSymbol());
+		}
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * @param id a station id
+	 * @param x  the x coordinate of a point
+	 * @param y  the y coordinate of a point
+	 * @return The distance from the station to the point
+	 */
+	double distanceTo(final int id, final int x, final int y) {
+		return distance(xs[id], ys[id], x, y);
+	}
+
+	/**
+	 * @param fuelCapacity the fuel capacity of a ship
+	 * @param costModel    the cost of each hop between stations
+	 * @return The cheapest paths between every pair of stations using only hops
+	 *         which a ship with this capacity can make on a full tank
+	 */
+	StationPaths computeStationPaths(final int fuelCapacity, final RouteCostModel costModel) {
+		final int size = size();
+		final double[][] costs = new double[size][size];
+		final double[][] lengths = new double[size][size];
+		final int[][] previous = new int[size][size];
+		final IndexedMinHeap heap = new IndexedMinHeap(size);
+
+		for (int source = 0; source < size; source++) {
+			final double[] sourceCosts = costs[source];
+			final double[] sourceLengths = lengths[source];
+			final int[] sourcePrevious = previous[source];
+			Arrays.fill(sourceCosts, Double.POSITIVE_INFINITY);
+			Arrays.fill(sourceLengths, Double.POSITIVE_INFINITY);
+			Arrays.fill(sourcePrevious, -1);
+			sourceCosts[source] = 0;
+			sourceLengths[source] = 0;
+
+			heap.clear();
+			heap.insertOrDecrease(source, 0);
+			while (!heap.isEmpty()) {
+				final int current = heap.poll();
+				final double[] hops = distances[current];
+				for (int next = 0; next < size; next++) {
+					if (next == current || hops[next] > fuelCapacity) {
+						continue;
+					}
+					final double cost = sourceCosts[current] + costModel.hopCost(hops[next])
+							+ costModel.refuelCost(next, hops[next]);
+					if (cost < sourceCosts[next]) {
+						sourceCosts[next] = cost;
+						sourceLengths[next] = sourceLengths[current] + hops[next];
+						sourcePrevious[next] = current;
+						heap.insertOrDecrease(next, cost);
+					}
+				}
+			}
+		}
+		return new StationPaths(costs, lengths, previous);
+	}
+
+	/**
+	 * @param paths the station paths for a fuel capacity
+	 * @param from  the id of the first station
+	 * @param to    the id of the last station
+	 * @return The stations on the cheapest path, including both the first and last
+	 *         station
+	 */
+	Waypoint[] getPath(final StationPaths paths, final int from, final int to) {
+		int stops = 0;
+		for (int id = to; id != -1; id = paths.previous()[from][id]) {
+			stops++;
+		}
+		final Waypoint[] path = new Waypoint[stops];
+		for (int id = to; id != -1; id = paths.previous()[from][id]) {
+			path[--stops] = stations[id];
+		}
+		return path;
+	}
+
+	static double distance(final int x1, final int y1, final int x2, final int y2) {
+		final double dx = x1 - x2;
+		final double dy = y1 - y2;
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+	/**
+	 * The cheapest paths between every pair of stations for a single fuel capacity
+	 *
+	 * @param costs    the cost of the cheapest path from one station to another,
+	 *                 including refueling at every station after the first,
+	 *                 infinite if there is no path
+	 * @param lengths  the distance traveled along the cheapest path
+	 * @param previous the station visited before reaching the second station on the
+	 *                 cheapest path from the first station, -1 if there is none
+	 */
+	record StationPaths(double[][] costs, double[][] lengths, int[][] previous) {
+	}
+
+}
@@ -1,15 +1,16 @@
 package org.psu.navigation;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
-import org.jgrapht.GraphPath;
-import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleWeightedGraph;
+import org.psu.navigation.PathCache.CachedPath;
+import org.psu.navigation.RefuelNetwork.StationPaths;
 import org.psu.spacetraders.dto.Ship;
 import org.psu.spacetraders.dto.ShipRoute.RoutePoint;
 import org.psu.spacetraders.dto.Waypoint;
@@ -25,33 +26,43 @@ import lombok.extern.jbosslog.JBossLog;
 @ApplicationScoped
 public class RefuelPathCalculator {
 
-	private SimpleWeightedGraph<Waypoint, DefaultWeightedEdge> refuelGraph;
+	private final NavigationConfig navigationConfig;
+	private final Map<String, Integer> fuelPricesBySymbol;
+	private final LongAdder cacheHits;
+	private final LongAdder cacheMisses;
+	private volatile RoutingState routingState;
 
 	@Inject
-	public RefuelPathCalculator() {
-		this.refuelGraph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+	public RefuelPathCalculator(final NavigationConfig navigationConfig) {
+		this.navigationConfig = navigationConfig;
+		this.fuelPricesBySymbol = new ConcurrentHashMap<>();
+		this.cacheHits = new LongAdder();
+		this.cacheMisses = new LongAdder();
+		this.routingState = makeRoutingState(new RefuelNetwork(List.of()));
 	}
 
-	public void loadRefuelWaypoints(final List<Waypoint> refuelWaypoints) {
-		// Reset the refuel graph
-		this.refuelGraph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
-
-		refuelWaypoints.forEach(w -> this.refuelGraph.addVertex(w));
-
-		// Add weighted edges
-		for (final Waypoint way1 : refuelWaypoints) {
-			for (final Waypoint way2 : refuelWaypoints) {
-				if (way1 != way2) {
-					final DefaultWeightedEdge newEdge = this.refuelGraph.addEdge(way1, way2);
-					if (newEdge != null) {
-						// Non-null indicates that this is a new edge
-						this.refuelGraph.setEdgeWeight(newEdge, way1.distTo(way2));
-					}
-				}
-			}
-		}
+	public synchronized void loadRefuelWaypoints(final List<Waypoint> refuelWaypoints) {
+		// Replacing the state drops the station paths and routes computed for the old refuel waypoints
+		this.routingState = makeRoutingState(new RefuelNetwork(refuelWaypoints));
+		log.infof("Loaded Graph, path cache had %s hits and %s misses", getCacheHits(), getCacheMisses());
+	}
 
-		log.info("Loaded Graph");
+	/**
+	 * Records the price of fuel at a waypoint, used when routes are weighted by
+	 * credits spent
+	 *
+	 * @param waypointSymbol the symbol of the waypoint which sells fuel
+	 * @param price          the purchase price of one market unit of fuel
+	 */
+	public synchronized void updateFuelPrice(final String waypointSymbol, final int price) {
+		if (waypointSymbol == null) {
+			return;
+		}
+		final Integer oldPrice = fuelPricesBySymbol.put(waypointSymbol, price);
+		if (navigationConfig.costMode() == RouteCostMode.WEIGHTED && !Objects.equals(oldPrice, price)) {
+			// The cheapest station paths depend on fuel prices, they will be recomputed as needed
+			this.routingState = makeRoutingState(this.routingState.network());
+		}
 	}
 
 	/**
@@ -79,61 +90,175 @@ public class RefuelPathCalculator {
 	 * @return A path object containing the total distance to travel and a list of
 	 *         waypoints containing the optimal path from the origin to the
 	 *         destination, this list will not include the origin. Will return null
-	 *         if there is no feasible path to the destination.
+	 *         if there is no feasible path to the destination. When routes are
+	 *         weighted the path is the cheapest one rather than the shortest, but
+	 *         its length is still the distance traveled.
 	 */
 	public NavigationPath determineShortestRoute(final Waypoint origin, final Waypoint destination,
 			final int currentFuel, final int fuelCapacity) {
 
-		@SuppressWarnings("unchecked")
-		final SimpleWeightedGraph<Waypoint, DefaultWeightedEdge> tempGraph =
-				(SimpleWeightedGraph<Waypoint, DefaultWeightedEdge>) this.refuelGraph.clone();
-		if (!tempGraph.containsVertex(origin)) {
-			addVertex(tempGraph, origin);
-		}
-		if (!tempGraph.containsVertex(destination)) {
-			addVertex(tempGraph, destination);
+		final RoutingState state = this.routingState;
+		final RefuelNetwork network = state.network();
+		final int originId = network.indexOf(origin);
+		final int destinationId = network.indexOf(destination);
+		if (origin == destination || (originId != -1 && originId == destinationId)) {
+			return new NavigationPath(0, new LinkedList<>());
 		}
 
-		final List<DefaultWeightedEdge> edgesToRemove = new ArrayList<>();
-		for (final DefaultWeightedEdge edge : tempGraph.edgeSet()) {
-			final double edgeWeight = tempGraph.getEdgeWeight(edge);
-			final boolean containsOrigin = origin.equals(tempGraph.getEdgeSource(edge))
-					|| origin.equals(tempGraph.getEdgeTarget(edge));
-			// Remove the edges that the ship cannot traverse from its current location given its current fuel
-			// Remove the edges that the ship cannot traverse with its max fuel
-			if ((containsOrigin && edgeWeight > currentFuel) || (edgeWeight > fuelCapacity)) {
-				edgesToRemove.add(edge);
-			}
+		final PathCache.Key key = new PathCache.Key(originId, origin.getX(), origin.getY(), destinationId,
+				destination.getX(), destination.getY(),
+				getFuelBucket(state, origin, destination, currentFuel, fuelCapacity), fuelCapacity);
+		CachedPath path = state.pathCache().get(key);
+		if (path == null) {
+			cacheMisses.increment();
+			path = findCheapestPath(state, originId, origin, destinationId, destination, currentFuel, fuelCapacity);
+			state.pathCache().put(key, path);
+		}
+		else {
+			cacheHits.increment();
 		}
-		tempGraph.removeAllEdges(edgesToRemove);
-
-		final DijkstraShortestPath<Waypoint, DefaultWeightedEdge> dijk = new DijkstraShortestPath<>(tempGraph);
-		final GraphPath<Waypoint, DefaultWeightedEdge> shortestPath = dijk.getPath(origin, destination);
 
-		if (shortestPath == null) {
+		if (path == CachedPath.INFEASIBLE) {
 			return null;
 		}
+		// Callers consume the waypoints, so every caller gets its own copy
+		final Deque<Waypoint> waypoints = new LinkedList<>(Arrays.asList(path.stations()));
+		waypoints.add(destination);
+		return new NavigationPath(path.length(), waypoints);
+	}
 
-		final Deque<Waypoint> waypoints = shortestPath.getVertexList().stream()
-				.collect(Collectors.toCollection(LinkedList::new));
-		final double totalLength = shortestPath.getWeight();
+	/**
+	 * @param distance a distance flown
+	 * @return The credits spent replacing the fuel burned over the distance, at
+	 *         the average known fuel price, 0 if no fuel prices are known
+	 */
+	public double estimateFuelCost(final double distance) {
+		final double averagePrice = fuelPricesBySymbol.values().stream().mapToInt(Integer::intValue).average()
+				.orElse(0);
+		return distance * averagePrice / RouteCostModel.FUEL_PER_MARKET_UNIT;
+	}
 
-		// Be sure to strip out the origin
-		waypoints.remove();
-		return new NavigationPath(totalLength, waypoints);
+	/**
+	 * @return The number of routes which were answered from the cache
+	 */
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
 
+	/**
+	 * @return The number of routes which had to be computed
+	 */
+	public long getCacheMisses() {
+		return cacheMisses.sum();
 	}
 
-	private void addVertex(final SimpleWeightedGraph<Waypoint, DefaultWeightedEdge> graph, final Waypoint waypoint) {
-		graph.addVertex(waypoint);
-		for (final Waypoint way : graph.vertexSet()) {
-			if (way != waypoint) {
-				final DefaultWeightedEdge newEdge = graph.addEdge(waypoint, way);
-				if (newEdge != null) {
-					graph.setEdgeWeight(newEdge, waypoint.distTo(way));
+	private int getFuelBucket(final RoutingState state, final Waypoint origin, final Waypoint destination,
+			final int currentFuel, final int fuelCapacity) {
+		if (state.costModel().pricesFuel()) {
+			return currentFuel;
+		}
+		// Every current fuel level which allows the same first hops leads to the same route
+		final RefuelNetwork network = state.network();
+		final double firstHopLimit = Math.min(currentFuel, fuelCapacity);
+		int reachable = origin.distTo(destination) <= firstHopLimit ? 1 : 0;
+		for (int station = 0; station < network.size(); station++) {
+			if (network.distanceTo(station, origin.getX(), origin.getY()) <= firstHopLimit) {
+				reachable++;
+			}
+		}
+		return reachable;
+	}
+
+	private CachedPath findCheapestPath(final RoutingState state, final int originId, final Waypoint origin,
+			final int destinationId, final Waypoint destination, final int currentFuel, final int fuelCapacity) {
+
+		final RefuelNetwork network = state.network();
+		final RouteCostModel costModel = state.costModel();
+		final StationPaths stationPaths = state.getStationPaths(fuelCapacity);
+		final double[][] stationCosts = stationPaths.costs();
+		final int originX = origin.getX();
+		final int originY = origin.getY();
+		final int destinationX = destination.getX();
+		final int destinationY = destination.getY();
+		// The first hop is limited by the fuel in the tank, every later hop starts from a full tank
+		final double firstHopLimit = Math.min(currentFuel, fuelCapacity);
+		// Fuel the ship is already missing gets bought at the first stop
+		final int missingFuel = Math.max(0, fuelCapacity - currentFuel);
+
+		double bestCost = Double.POSITIVE_INFINITY;
+		int bestFirstStation = -1;
+		int bestLastStation = -1;
+
+		final double directLength = RefuelNetwork.distance(originX, originY, destinationX, destinationY);
+		if (directLength <= firstHopLimit) {
+			bestCost = costModel.hopCost(directLength) + costModel.unpricedFuelCost(directLength);
+		}
+
+		for (int lastStation = 0; lastStation < network.size(); lastStation++) {
+			if (lastStation == destinationId) {
+				// Ships don't refuel at the destination, so the final hop always starts from another station
+				continue;
+			}
+			final double lastLeg = network.distanceTo(lastStation, destinationX, destinationY);
+			if (lastLeg > fuelCapacity) {
+				continue;
+			}
+			final double lastLegCost = costModel.hopCost(lastLeg) + costModel.unpricedFuelCost(lastLeg);
+			for (int firstStation = 0; firstStation < network.size(); firstStation++) {
+				if (firstStation == originId || firstStation == destinationId) {
+					// Leaving the origin is limited by current fuel, though a route may come back to refuel there
+					continue;
+				}
+				final double firstLeg = network.distanceTo(firstStation, originX, originY);
+				if (firstLeg > firstHopLimit) {
+					continue;
+				}
+				final double cost = costModel.hopCost(firstLeg)
+						+ costModel.refuelCost(firstStation, missingFuel + firstLeg)
+						+ stationCosts[firstStation][lastStation] + lastLegCost;
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestFirstStation = firstStation;
+					bestLastStation = lastStation;
 				}
 			}
 		}
+
+		if (bestCost == Double.POSITIVE_INFINITY) {
+			return CachedPath.INFEASIBLE;
+		}
+		if (bestFirstStation == -1) {
+			return new CachedPath(directLength, new Waypoint[0]);
+		}
+		final double length = network.distanceTo(bestFirstStation, originX, originY)
+				+ stationPaths.lengths()[bestFirstStation][bestLastStation]
+				+ network.distanceTo(bestLastStation, destinationX, destinationY);
+		return new CachedPath(length, network.getPath(stationPaths, bestFirstStation, bestLastStation));
+	}
+
+	private RoutingState makeRoutingState(final RefuelNetwork network) {
+		final RouteCostModel costModel = navigationConfig.costMode() == RouteCostMode.WEIGHTED
+				? new RouteCostModel(navigationConfig.distanceWeight(), navigationConfig.creditWeight(),
+						navigationConfig.apiCallWeight(), network, fuelPricesBySymbol)
+				: RouteCostModel.distanceOnly(network);
+		return new RoutingState(network, costModel, new ConcurrentHashMap<>(),
+				new PathCache(navigationConfig.pathCacheSize()));
+	}
+
+	/**
+	 * The refuel network along with the cheapest paths between its stations for
+	 * each fuel capacity which has been asked for, and the routes found so far
+	 */
+	private record RoutingState(RefuelNetwork network, RouteCostModel costModel,
+			Map<Integer, StationPaths> pathsByCapacity, PathCache pathCache) {
+
+		StationPaths getStationPaths(final int fuelCapacity) {
+			return pathsByCapacity.computeIfAbsent(fuelCapacity, capacity -> {
+				log.debugf("Computing refuel paths for fuel capacity %s", capacity);
+				return network.computeStationPaths(capacity, costModel);
+			});
+		}
+
 	}
 
 }
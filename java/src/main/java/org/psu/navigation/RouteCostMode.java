@@ -0,0 +1,20 @@
+package org.psu.navigation;
+
+/**
+ * The quantity which the {@link RefuelPathCalculator} minimizes when choosing a
+ * route
+ */
+public enum RouteCostMode {
+
+	/**
+	 * Minimize the total distance traveled
+	 */
+	DISTANCE,
+
+	/**
+	 * Minimize a weighted sum of distance traveled, credits spent on fuel, and api
+	 * calls made along the route, see {@link NavigationConfig}
+	 */
+	WEIGHTED,
+
+}
@@ -0,0 +1,100 @@
+package org.psu.navigation;
+
+import java.util.Map;
+
+/**
+ * Assigns a cost to each hop of a route through a {@link RefuelNetwork}. Ships
+ * refuel to full at every stop along a route, so the fuel bought at a station
+ * is the fuel burned on the hop into it.
+ */
+class RouteCostModel {
+
+	// Every hop requires an orbit and a navigate call
+	static final int NAVIGATE_CALLS = 2;
+	// Every stop along the way requires a refuel call
+	static final int REFUEL_CALLS = 1;
+	// One unit of fuel bought at a market fills this much of a ship's tank
+	static final double FUEL_PER_MARKET_UNIT = 100;
+
+	private final double distanceWeight;
+	private final double creditWeight;
+	private final double apiCallWeight;
+	private final double[] fuelPrices;
+	private final double defaultFuelPrice;
+
+	/**
+	 * @param distanceWeight the cost of each unit of distance
+	 * @param creditWeight   the cost of each credit spent on fuel
+	 * @param apiCallWeight  the cost of each api call
+	 * @param network        the network the route passes through
+	 * @param pricesBySymbol the price of one market unit of fuel, by waypoint
+	 *                       symbol, stations without a known price are assumed to
+	 *                       charge the average known price
+	 */
+	RouteCostModel(final double distanceWeight, final double creditWeight, final double apiCallWeight,
+			final RefuelNetwork network, final Map<String, Integer> pricesBySymbol) {
+		this.distanceWeight = distanceWeight;
+		this.creditWeight = creditWeight;
+		this.apiCallWeight = apiCallWeight;
+		this.fuelPrices = new double[network.size()];
+
+		double knownTotal = 0;
+		int knownCount = 0;
+		for (int id = 0; id < network.size(); id++) {
+			final String symbol = network.getStation(id).getSymbol();
+			final Integer price = symbol == null ? null : pricesBySymbol.get(symbol);
+			fuelPrices[id] = price == null ? Double.NaN : price;
+			if (price != null) {
+				knownTotal += price;
+				knownCount++;
+			}
+		}
+		this.defaultFuelPrice = knownCount == 0 ? 0 : knownTotal / knownCount;
+		for (int id = 0; id < fuelPrices.length; id++) {
+			if (Double.isNaN(fuelPrices[id])) {
+				fuelPrices[id] = defaultFuelPrice;
+			}
+		}
+	}
+
+	/**
+	 * @param network a network
+	 * @return A model whose costs are exactly the distance traveled
+	 */
+	static RouteCostModel distanceOnly(final RefuelNetwork network) {
+		return new RouteCostModel(1, 0, 0, network, Map.of());
+	}
+
+	/**
+	 * @return true if the cost of a route depends on the price of fuel
+	 */
+	boolean pricesFuel() {
+		return creditWeight != 0;
+	}
+
+	/**
+	 * @param distance the length of a hop
+	 * @return The cost of traveling the hop, not including fuel
+	 */
+	double hopCost(final double distance) {
+		return distanceWeight * distance + apiCallWeight * NAVIGATE_CALLS;
+	}
+
+	/**
+	 * @param station the id of the station the ship stops at
+	 * @param fuel    the amount of fuel bought there
+	 * @return The cost of stopping to refuel at the station
+	 */
+	double refuelCost(final int station, final double fuel) {
+		return creditWeight * fuel * fuelPrices[station] / FUEL_PER_MARKET_UNIT + apiCallWeight * REFUEL_CALLS;
+	}
+
+	/**
+	 * @param fuel an amount of fuel which will be replaced after the route ends
+	 * @return The cost of the fuel, at the average price
+	 */
+	double unpricedFuelCost(final double fuel) {
+		return creditWeight * fuel * defaultFuelPrice / FUEL_PER_MARKET_UNIT;
+	}
+
+}
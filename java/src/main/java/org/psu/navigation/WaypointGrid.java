@@ -0,0 +1,182 @@
+package org.psu.navigation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.ShipRoute.RoutePoint;
+import org.psu.spacetraders.dto.Waypoint;
+
+/**
+ * A uniform grid over the coordinates of a fixed set of waypoints, used to find
+ * the shortest path to any one of them without computing a path to every one.
+ * <p>
+ * No path is shorter than the straight line to its destination, so waypoints
+ * are visited nearest first, and the search stops once the straight line
+ * distance to the next waypoint is no shorter than the best path found.
+ */
+public class WaypointGrid {
+
+	// Aim for a couple of waypoints in each cell, so the rings searched are neither empty nor crowded
+	private static final double WAYPOINTS_PER_CELL = 2;
+
+	private final int size;
+	private final double minX;
+	private final double minY;
+	private final double cellSize;
+	private final int columns;
+	private final int rows;
+	private final Waypoint[][] cells;
+
+	/**
+	 * @param waypoints the waypoints to index, their coordinates must not change
+	 */
+	public WaypointGrid(final Collection<Waypoint> waypoints) {
+		this.size = waypoints.size();
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (final Waypoint waypoint : waypoints) {
+			minX = Math.min(minX, waypoint.getX());
+			minY = Math.min(minY, waypoint.getY());
+			maxX = Math.max(maxX, waypoint.getX());
+			maxY = Math.max(maxY, waypoint.getY());
+		}
+		if (size == 0) {
+			minX = minY = maxX = maxY = 0;
+		}
+		this.minX = minX;
+		this.minY = minY;
+
+		final double area = Math.max(maxX - minX, 1) * Math.max(maxY - minY, 1);
+		this.cellSize = Math.max(1, Math.sqrt(area * WAYPOINTS_PER_CELL / Math.max(size, 1)));
+		this.columns = (int) ((maxX - minX) / cellSize) + 1;
+		this.rows = (int) ((maxY - minY) / cellSize) + 1;
+
+		final List<List<Waypoint>> buckets = new ArrayList<>(columns * rows);
+		for (int i = 0; i < columns * rows; i++) {
+			buckets.add(new ArrayList<>());
+		}
+		for (final Waypoint waypoint : waypoints) {
+			buckets.get(cellIndex(column(waypoint.getX()), row(waypoint.getY()))).add(waypoint);
+		}
+		this.cells = buckets.stream().map(bucket -> bucket.toArray(Waypoint[]::new)).toArray(Waypoint[][]::new);
+	}
+
+	/**
+	 * @return The number of waypoints in the grid
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param ship       a ship, paths start from its current position
+	 * @param candidates which of the grid's waypoints may be the destination
+	 * @param pathFinder finds the ship's path to a waypoint, or returns null if
+	 *                   it can't be reached
+	 * @return The shortest path to any candidate, null if none can be reached
+	 */
+	public NavigationPath findShortestPath(final Ship ship, final Predicate<Waypoint> candidates,
+			final Function<Waypoint, NavigationPath> pathFinder) {
+		final RoutePoint shipPosition = ship.getNav().getRoute().getDestination();
+		return findShortestPath(shipPosition.getX(), shipPosition.getY(), candidates, pathFinder);
+	}
+
+	/**
+	 * @param x          the x coordinate paths start from
+	 * @param y          the y coordinate paths start from
+	 * @param candidates which of the grid's waypoints may be the destination
+	 * @param pathFinder finds the path to a waypoint, or returns null if it can't
+	 *                   be reached
+	 * @return The shortest path to any candidate, null if none can be reached
+	 */
+	public NavigationPath findShortestPath(final double x, final double y, final Predicate<Waypoint> candidates,
+			final Function<Waypoint, NavigationPath> pathFinder) {
+		if (size == 0) {
+			return null;
+		}
+		final int originColumn = column(x);
+		final int originRow = row(y);
+		final int lastRing = Math.max(Math.max(Math.abs(originColumn), Math.abs(columns - 1 - originColumn)),
+				Math.max(Math.abs(originRow), Math.abs(rows - 1 - originRow)));
+
+		final PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance));
+		NavigationPath bestPath = null;
+		for (int ring = 0; ring <= lastRing; ring++) {
+			addRing(queue, originColumn, originRow, ring, x, y, candidates);
+
+			// Every waypoint in a later ring is at least this far away, so nearer ones can be searched now
+			final double laterRingDistance = ring * cellSize;
+			while (!queue.isEmpty() && (queue.peek().distance() <= laterRingDistance || ring == lastRing)) {
+				final Candidate candidate = queue.poll();
+				if (bestPath != null && candidate.distance() >= bestPath.getLength()) {
+					return bestPath;
+				}
+				final NavigationPath path = pathFinder.apply(candidate.waypoint());
+				if (path != null && (bestPath == null || path.getLength() < bestPath.getLength())) {
+					bestPath = path;
+				}
+			}
+			if (bestPath != null && laterRingDistance >= bestPath.getLength()) {
+				return bestPath;
+			}
+		}
+		return bestPath;
+	}
+
+	/**
+	 * Adds the candidates in the cells whose column or row is exactly ring cells
+	 * from the origin's cell
+	 */
+	private void addRing(final PriorityQueue<Candidate> queue, final int originColumn, final int originRow,
+			final int ring, final double x, final double y, final Predicate<Waypoint> candidates) {
+		if (ring == 0) {
+			addCell(queue, originColumn, originRow, x, y, candidates);
+			return;
+		}
+		for (int column = Math.max(originColumn - ring, 0); column <= Math.min(originColumn + ring,
+				columns - 1); column++) {
+			addCell(queue, column, originRow - ring, x, y, candidates);
+			addCell(queue, column, originRow + ring, x, y, candidates);
+		}
+		for (int row = Math.max(originRow - ring + 1, 0); row <= Math.min(originRow + ring - 1, rows - 1); row++) {
+			addCell(queue, originColumn - ring, row, x, y, candidates);
+			addCell(queue, originColumn + ring, row, x, y, candidates);
+		}
+	}
+
+	private void addCell(final PriorityQueue<Candidate> queue, final int column, final int row, final double x,
+			final double y, final Predicate<Waypoint> candidates) {
+		if (column < 0 || column >= columns || row < 0 || row >= rows) {
+			return;
+		}
+		for (final Waypoint waypoint : cells[cellIndex(column, row)]) {
+			if (candidates.test(waypoint)) {
+				queue.add(new Candidate(waypoint, Math.hypot(waypoint.getX() - x, waypoint.getY() - y)));
+			}
+		}
+	}
+
+	private int column(final double x) {
+		return (int) Math.floor((x - minX) / cellSize);
+	}
+
+	private int row(final double y) {
+		return (int) Math.floor((y - minY) / cellSize);
+	}
+
+	private int cellIndex(final int column, final int row) {
+		return row * columns + column;
+	}
+
+	private record Candidate(Waypoint waypoint, double distance) {
+	}
+
+}
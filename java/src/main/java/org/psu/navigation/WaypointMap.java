@@ -0,0 +1,156 @@
+package org.psu.navigation;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.psu.spacetraders.dto.Waypoint;
+
+/**
+ * A map from {@link Waypoint}s to values, stored in an array indexed by the
+ * waypoints' {@link WaypointRegistry} ids. Waypoints are matched by symbol, so a
+ * lookup hashes only the symbol rather than the whole waypoint.
+ * <p>
+ * Safe for concurrent use, iteration never fails but may miss concurrent
+ * changes. Null values are not allowed.
+ *
+ * @param <V> the type of the values
+ */
+public class WaypointMap<V> extends AbstractMap<Waypoint, V> {
+
+	private final WaypointRegistry registry;
+	private volatile AtomicReferenceArray<V> values;
+	private volatile int size;
+
+	public WaypointMap(final WaypointRegistry registry) {
+		this.registry = registry;
+		this.values = new AtomicReferenceArray<>(registry.size());
+		this.size = 0;
+	}
+
+	@Override
+	public V get(final Object key) {
+		return key instanceof Waypoint waypoint ? get(waypoint.getSymbol()) : null;
+	}
+
+	/**
+	 * @param waypointSymbol the symbol of a waypoint
+	 * @return The value for the waypoint, null if there is none
+	 */
+	public V get(final String waypointSymbol) {
+		return getById(registry.getId(waypointSymbol));
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public synchronized V put(final Waypoint key, final V value) {
+		Objects.requireNonNull(value);
+		final int id = registry.register(key);
+		if (id >= values.length()) {
+			final AtomicReferenceArray<V> grown = new AtomicReferenceArray<>(Math.max(id + 1, 2 * values.length()));
+			for (int i = 0; i < values.length(); i++) {
+				grown.set(i, values.get(i));
+			}
+			values = grown;
+		}
+		final V previous = values.getAndSet(id, value);
+		if (previous == null) {
+			size++;
+		}
+		return previous;
+	}
+
+	@Override
+	public V remove(final Object key) {
+		return key instanceof Waypoint waypoint ? removeById(registry.getId(waypoint.getSymbol())) : null;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Set<Entry<Waypoint, V>> entrySet() {
+		return new AbstractSet<>() {
+			@Override
+			public Iterator<Entry<Waypoint, V>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private V getById(final int id) {
+		final AtomicReferenceArray<V> current = values;
+		return id >= 0 && id < current.length() ? current.get(id) : null;
+	}
+
+	private synchronized V removeById(final int id) {
+		if (id < 0 || id >= values.length()) {
+			return null;
+		}
+		final V previous = values.getAndSet(id, null);
+		if (previous != null) {
+			size--;
+		}
+		return previous;
+	}
+
+	private class EntryIterator implements Iterator<Entry<Waypoint, V>> {
+
+		private final AtomicReferenceArray<V> snapshot = values;
+		private int nextId = -1;
+		private V nextValue;
+		private int lastId = -1;
+
+		private EntryIterator() {
+			advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextValue != null;
+		}
+
+		@Override
+		public Entry<Waypoint, V> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastId = nextId;
+			final Entry<Waypoint, V> entry = new SimpleImmutableEntry<>(registry.getWaypoint(lastId), nextValue);
+			advance();
+			return entry;
+		}
+
+		@Override
+		public void remove() {
+			if (lastId < 0) {
+				throw new IllegalStateException();
+			}
+			removeById(lastId);
+			lastId = -1;
+		}
+
+		private void advance() {
+			nextValue = null;
+			while (nextValue == null && ++nextId < snapshot.length()) {
+				nextValue = snapshot.get(nextId);
+			}
+		}
+	}
+
+}
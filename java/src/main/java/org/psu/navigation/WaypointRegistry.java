@@ -0,0 +1,93 @@
+package org.psu.navigation;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.psu.spacetraders.dto.Waypoint;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Gives every waypoint a small dense id, shared by all managers, so data about
+ * waypoints can be kept in arrays indexed by id rather than in maps which hash
+ * the whole waypoint, orbitals and traits included.
+ * <p>
+ * The first waypoint registered with a symbol is the one every later lookup
+ * returns.
+ */
+@ApplicationScoped
+public class WaypointRegistry {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final Map<String, Integer> idsBySymbol;
+	private volatile Waypoint[] waypointsById;
+	private int size;
+
+	public WaypointRegistry() {
+		this.idsBySymbol = new ConcurrentHashMap<>();
+		this.waypointsById = new Waypoint[INITIAL_CAPACITY];
+		this.size = 0;
+	}
+
+	/**
+	 * @param waypoint a {@link Waypoint}, must have a symbol
+	 * @return The id of the waypoint, assigning the next free id if the waypoint
+	 *         has not been seen before
+	 */
+	public int register(final Waypoint waypoint) {
+		final Integer id = idsBySymbol.get(waypoint.getSymbol());
+		if (id != null) {
+			return id;
+		}
+		synchronized (this) {
+			final Integer existingId = idsBySymbol.get(waypoint.getSymbol());
+			if (existingId != null) {
+				return existingId;
+			}
+			if (size == waypointsById.length) {
+				waypointsById = Arrays.copyOf(waypointsById, size * 2);
+			}
+			// Store the waypoint before publishing its id, so anyone who finds the id finds the waypoint
+			waypointsById[size] = waypoint;
+			idsBySymbol.put(waypoint.getSymbol(), size);
+			return size++;
+		}
+	}
+
+	/**
+	 * @param waypointSymbol the symbol of a waypoint
+	 * @return The id of the waypoint, -1 if it has not been registered
+	 */
+	public int getId(final String waypointSymbol) {
+		final Integer id = waypointSymbol == null ? null : idsBySymbol.get(waypointSymbol);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * @param id the id of a registered waypoint
+	 * @return The {@link Waypoint} with the id
+	 */
+	public Waypoint getWaypoint(final int id) {
+		return waypointsById[id];
+	}
+
+	/**
+	 * @param waypointSymbol the symbol of a waypoint
+	 * @return The registered {@link Waypoint} with the symbol, null if there is
+	 *         none
+	 */
+	public Waypoint getWaypoint(final String waypointSymbol) {
+		final int id = getId(waypointSymbol);
+		return id < 0 ? null : getWaypoint(id);
+	}
+
+	/**
+	 * @return The number of registered waypoints, every id is less than this
+	 */
+	public int size() {
+		return idsBySymbol.size();
+	}
+
+}
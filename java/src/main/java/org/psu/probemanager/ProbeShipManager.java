@@ -0,0 +1,131 @@
+package org.psu.probemanager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.psu.probemanager.dto.ProbeShipJob;
+import org.psu.probemanager.dto.ProbeShipJob.State;
+import org.psu.spacetraders.api.NavigationHelper;
+import org.psu.spacetraders.api.RequestPriority;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.trademanager.MarketRefresher;
+import org.psu.trademanager.MarketplaceManager;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+
+/**
+ * Stations probe ships at markets, where their presence lets us see live
+ * prices.
+ * <p>
+ * A stationed probe keeps its market's prices fresh, while a probe cycling
+ * between markets spends most of its time in transit where it sees nothing. So
+ * each probe is stationed at the most valuable market without a probe, which
+ * keeps the fleet's value weighted staleness lowest. Stations are chosen again
+ * after a number of refreshes, as market values change with prices.
+ */
+@JBossLog
+@ApplicationScoped
+public class ProbeShipManager {
+
+	private final Duration refreshInterval;
+	private final int refreshesPerStation;
+	private final NavigationHelper navigationHelper;
+	private final MarketplaceManager marketplaceManager;
+	private final MarketRefresher marketRefresher;
+
+	/**
+	 * The station of each probe, by ship symbol
+	 */
+	private final Map<String, Waypoint> stations;
+
+	@Inject
+	public ProbeShipManager(@ConfigProperty(name = "app.probes.refresh-interval-s") final int refreshIntervalSeconds,
+			@ConfigProperty(name = "app.probes.refreshes-per-station") final int refreshesPerStation,
+			final NavigationHelper navigationHelper, final MarketplaceManager marketplaceManager,
+			final MarketRefresher marketRefresher) {
+		this.refreshInterval = Duration.ofSeconds(refreshIntervalSeconds);
+		this.refreshesPerStation = refreshesPerStation;
+		this.navigationHelper = navigationHelper;
+		this.marketplaceManager = marketplaceManager;
+		this.marketRefresher = marketRefresher;
+		this.stations = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @param ship a probe ship
+	 * @return A job to station the probe at a market, null if every market already
+	 *         has a probe
+	 */
+	public ProbeShipJob createJob(final Ship ship) {
+		final Waypoint station = chooseStation(ship);
+		if (station == null) {
+			log.infof("Every market has a probe, ship %s has no station", ship.getSymbol());
+			return null;
+		}
+		log.infof("Stationing ship %s at market %s", ship.getSymbol(), station.getSymbol());
+		return new ProbeShipJob(ship, station);
+	}
+
+	/**
+	 * Performs the next step in a {@link ProbeShipJob}
+	 *
+	 * @param job the {@link ProbeShipJob}
+	 * @return The updated {@link ProbeShipJob}, with an updated nextAction time,
+	 *         or null if the probe should be given a new station
+	 */
+	public ProbeShipJob manageProbeShip(final ProbeShipJob job) {
+		final Ship ship = job.getShip();
+
+		switch (job.getState()) {
+		case NOT_STARTED:
+			log.infof("Ship %s traveling to waypoint %s", ship.getSymbol(), job.getStation().getSymbol());
+			job.setNextAction(navigationHelper.navigate(ship, job.getStation()));
+			job.setState(State.TRAVELING);
+			break;
+		case TRAVELING, STATIONED:
+			if (job.getRefreshes() >= refreshesPerStation) {
+				// Let the queue make a new job, which may move the probe to a more valuable market
+				return null;
+			}
+			marketplaceManager.updateMarketInfo(job.getStation(), RequestPriority.BACKGROUND);
+			job.setRefreshes(job.getRefreshes() + 1);
+			job.setNextAction(Instant.now().plus(refreshInterval));
+			job.setState(State.STATIONED);
+			break;
+		}
+
+		return job;
+	}
+
+	/**
+	 * @param ship a probe ship, its previous station is released
+	 * @return The most valuable market which no other probe is stationed at,
+	 *         preferring the closest of equally valuable markets, null if every
+	 *         market has a probe
+	 */
+	synchronized Waypoint chooseStation(final Ship ship) {
+		stations.remove(ship.getSymbol());
+		final Set<Waypoint> claimedStations = new HashSet<>(stations.values());
+		final Map<Waypoint, Double> values = marketRefresher.getMarketValues();
+
+		final Waypoint station = marketplaceManager.getAllMarketInfo().keySet().stream()
+				.filter(waypoint -> !claimedStations.contains(waypoint))
+				.max(Comparator.<Waypoint>comparingDouble(waypoint -> values.getOrDefault(waypoint, 1.0))
+						.thenComparing(Comparator.<Waypoint>comparingDouble(ship::distTo).reversed()))
+				.orElse(null);
+		if (station != null) {
+			stations.put(ship.getSymbol(), station);
+		}
+		return station;
+	}
+
+}
@@ -0,0 +1,45 @@
+package org.psu.probemanager.dto;
+
+import java.time.Instant;
+
+import org.psu.shiporchestrator.ShipJob;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.Waypoint;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A job that can be performed by a probe ship, which keeps the prices at one
+ * market up to date by staying there
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+public class ProbeShipJob implements ShipJob {
+
+	private Ship ship;
+	private Waypoint station;
+	private Instant nextAction;
+	/**
+	 * The number of times the market at the station has been refreshed
+	 */
+	private int refreshes;
+	private State state;
+
+	public ProbeShipJob(final Ship ship, final Waypoint station) {
+		this.ship = ship;
+		this.station = station;
+		this.nextAction = Instant.now();
+		this.refreshes = 0;
+		this.state = State.NOT_STARTED;
+	}
+
+	public static enum State {
+		NOT_STARTED,
+		TRAVELING,
+		STATIONED
+	}
+
+}
@@ -0,0 +1,25 @@
+package org.psu.shiporchestrator;
+
+/**
+ * The ways in which the {@link ShipJobQueue} can execute ship jobs
+ */
+public enum JobQueueMode {
+
+	/**
+	 * Every job is performed on the thread which runs the queue, one at a time
+	 */
+	SEQUENTIAL,
+
+	/**
+	 * Due jobs are handed to a pool of worker threads, with at most one job in
+	 * flight for any given ship
+	 */
+	CONCURRENT,
+
+	/**
+	 * Each ship runs its own job loop on a virtual thread, blocking calls such as
+	 * navigation and throttled requests only block that ship
+	 */
+	VIRTUAL_THREAD,
+
+}
@@ -2,21 +2,33 @@ package org.psu.shiporchestrator;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.psu.init.ShipJobCreator;
 import org.psu.miningmanager.MiningShipManager;
 import org.psu.miningmanager.dto.MiningShipJob;
+import org.psu.probemanager.ProbeShipManager;
+import org.psu.probemanager.dto.ProbeShipJob;
 import org.psu.shippurchase.ShipPurchaseJob;
 import org.psu.shippurchase.ShipPurchaseManager;
 import org.psu.shippurchase.ShipPurchaseManager.ShipPurchaseManagerResponse;
 import org.psu.spacetraders.dto.Ship;
 import org.psu.spacetraders.dto.ShipType;
+import org.psu.trademanager.MarketRefresher;
 import org.psu.trademanager.TradeShipManager;
 import org.psu.trademanager.dto.TradeShipJob;
 import org.psu.websocket.WebsocketReporter;
@@ -32,26 +44,49 @@ import lombok.extern.jbosslog.JBossLog;
 @ApplicationScoped
 public class ShipJobQueue {
 
+	/**
+	 * How long to wait before retrying a job whose ship is still busy, or whose
+	 * manager failed
+	 */
+	static final Duration BUSY_SHIP_DELAY = Duration.ofMillis(100);
+	static final Duration FAILED_JOB_DELAY = Duration.ofSeconds(10);
+
+	private JobQueueMode mode;
+	private int workerThreads;
 	private MiningShipManager miningShipManager;
 	private TradeShipManager tradeShipManager;
+	private ProbeShipManager probeShipManager;
 	private ShipPurchaseManager shipPurchaseManager;
 	private ShipJobCreator shipJobCreator;
 	private WebsocketReporter websocketReporter;
+	private MarketRefresher marketRefresher;
 
-	final TreeMap<Instant, Deque<ShipJob>> queue;
+	final DelayQueue<ScheduledJob> queue;
 	final AtomicReference<ShipType> shipTypeToBuy;
+	private final AtomicLong sequence;
+	private final Set<Ship> shipsInFlight;
 
 	@Inject
-	public ShipJobQueue(final MiningShipManager miningShipManager, final TradeShipManager tradeShipManager,
+	public ShipJobQueue(@ConfigProperty(name = "app.job-queue.mode", defaultValue = "SEQUENTIAL") final JobQueueMode mode,
+			@ConfigProperty(name = "app.job-queue.worker-threads", defaultValue = "4") final int workerThreads,
+			final MiningShipManager miningShipManager, final TradeShipManager tradeShipManager,
 			final ShipPurchaseManager shipPurchaseManager, final ShipJobCreator shipJobCreator,
-			final WebsocketReporter websocketReporter) {
+			final WebsocketReporter websocketReporter, final MarketRefresher marketRefresher,
+			final ProbeShipManager probeShipManager) {
+		this.mode = mode;
+		this.workerThreads = workerThreads;
 		this.miningShipManager = miningShipManager;
 		this.tradeShipManager = tradeShipManager;
+		this.probeShipManager = probeShipManager;
 		this.shipPurchaseManager = shipPurchaseManager;
 		this.shipJobCreator = shipJobCreator;
 		this.websocketReporter = websocketReporter;
-		this.queue = new TreeMap<>();
+		this.marketRefresher = marketRefresher;
+		this.queue = new DelayQueue<>();
 		this.shipTypeToBuy = new AtomicReference<ShipType>();
+		this.sequence = new AtomicLong();
+		// Ships are mutable lombok objects, so track them by identity rather than equality
+		this.shipsInFlight = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
 	}
 
 	/**
@@ -69,77 +104,247 @@ public class ShipJobQueue {
 	 */
 	public void establishJobs(final List<? extends ShipJob> jobs) {
 		log.infof("Loading %s jobs into the queue", jobs.size());
-		jobs.forEach(j -> queue.computeIfAbsent(j.getNextAction(), i -> new LinkedList<>()).add(j));
+		jobs.forEach(this::schedule);
 	}
 
+	/**
+	 * Runs the job queue until the calling thread is interrupted. Jobs are either
+	 * performed inline or handed to a worker pool depending on the configured
+	 * {@link JobQueueMode}
+	 */
 	public void beginJobQueue() {
 		if (queue.isEmpty()) {
 			throw new IllegalStateException("The job queue must contain jobs");
 		}
-		while (true) {
-			log.debugf("Queue: %s", queue);
-			final Instant nextAction = this.queue.firstKey();
-			final Duration timeUntilNextAction = Duration.between(Instant.now(), nextAction);
-			log.debugf("Time until next action: %s", timeUntilNextAction);
-			if (timeUntilNextAction.isPositive()) {
-				// Next action is in the future, sleep until its ready
-				try {
-					Thread.sleep(timeUntilNextAction);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
+		log.infof("Starting job queue in %s mode", mode);
+		try {
+			if (mode == JobQueueMode.CONCURRENT) {
+				runConcurrently();
+			}
+			else if (mode == JobQueueMode.VIRTUAL_THREAD) {
+				runOnVirtualThreads();
+			}
+			else {
+				runSequentially();
+			}
+		} catch (InterruptedException e) {
+			log.info("Job queue interrupted, stopping");
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void runSequentially() throws InterruptedException {
+		while (!Thread.currentThread().isInterrupted()) {
+			final ShipJob jobToPerform = queue.take().job();
+			performJob(jobToPerform).jobs().forEach(this::schedule);
+		}
+	}
+
+	private void runConcurrently() throws InterruptedException {
+		final ExecutorService workers = Executors.newFixedThreadPool(workerThreads);
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				final ShipJob jobToPerform = queue.take().job();
+				final Ship ship = jobToPerform.getShip();
+				if (!shipsInFlight.add(ship)) {
+					// This ship is still busy with a previous job, try again shortly
+					schedule(jobToPerform, Instant.now().plus(BUSY_SHIP_DELAY));
+					continue;
 				}
+				workers.execute(() -> performConcurrentJob(jobToPerform));
 			}
+		} finally {
+			workers.shutdownNow();
+		}
+	}
 
-			final Entry<Instant, Deque<ShipJob>> entryToPerform = this.queue.pollFirstEntry();
-			final ShipJob jobToPerform = entryToPerform.getValue().pop();
-			if (!entryToPerform.getValue().isEmpty()) {
-				// Put it back into the queue
-				this.queue.put(entryToPerform.getKey(), entryToPerform.getValue());
+	private void runOnVirtualThreads() {
+		final List<ScheduledJob> initialJobs = new ArrayList<>(queue);
+		queue.clear();
+		// Closing the executor waits for every ship loop, and stops them if this thread is interrupted
+		try (final ExecutorService shipThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+			initialJobs.stream().sorted().map(ScheduledJob::job)
+					.forEach(job -> shipThreads.execute(() -> runShipLoop(job, shipThreads)));
+		}
+	}
+
+	/**
+	 * Performs every job for a single ship, sleeping until each job is due
+	 *
+	 * @param firstJob    the ship's first job
+	 * @param shipThreads the executor to start loops for newly purchased ships on
+	 */
+	private void runShipLoop(final ShipJob firstJob, final ExecutorService shipThreads) {
+		ShipJob job = firstJob;
+		try {
+			while (job != null && !Thread.currentThread().isInterrupted()) {
+				final Duration timeUntilNextAction = Duration.between(Instant.now(), job.getNextAction());
+				if (timeUntilNextAction.isPositive()) {
+					Thread.sleep(timeUntilNextAction);
+				}
+				final Ship ship = job.getShip();
+				try {
+					final JobOutcome outcome = performJob(job);
+					if (outcome.jobForNewShip() != null) {
+						final ShipJob jobForNewShip = outcome.jobForNewShip();
+						shipThreads.execute(() -> runShipLoop(jobForNewShip, shipThreads));
+					}
+					job = outcome.nextJob();
+				} catch (RuntimeException e) {
+					log.errorf(e, "Job failed for ship %s, starting a new job", ship == null ? null : ship.getSymbol());
+					Thread.sleep(FAILED_JOB_DELAY);
+					job = createRetryJob(ship);
+				}
 			}
-			final Ship ship = jobToPerform.getShip();
-			ShipJob nextJob = null;
-			if (jobToPerform instanceof TradeShipJob tradeJob) {
-				nextJob = tradeShipManager.manageTradeShip(tradeJob);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void performConcurrentJob(final ShipJob jobToPerform) {
+		final Ship ship = jobToPerform.getShip();
+		List<ShipJob> nextJobs;
+		try {
+			nextJobs = performJob(jobToPerform).jobs();
+		} catch (RuntimeException e) {
+			log.errorf(e, "Job failed for ship %s, starting a new job", ship == null ? null : ship.getSymbol());
+			nextJobs = List.of();
+			final ShipJob retryJob = createRetryJob(ship);
+			if (retryJob != null) {
+				schedule(retryJob, Instant.now().plus(FAILED_JOB_DELAY));
 			}
-			else if (jobToPerform instanceof MiningShipJob miningJob) {
-				nextJob = miningShipManager.manageMiningShip(miningJob);
+		} finally {
+			// Release the ship before queueing its next job so the dispatcher never sees it as busy
+			shipsInFlight.remove(ship);
+		}
+		nextJobs.forEach(this::schedule);
+	}
+
+	/**
+	 * @param ship a ship whose job failed
+	 * @return A fresh job for the ship, or null if none could be created
+	 */
+	private ShipJob createRetryJob(final Ship ship) {
+		try {
+			return shipJobCreator.createShipJob(ship);
+		} catch (RuntimeException e) {
+			log.errorf(e, "Unable to create a new job, dropping ship %s", ship == null ? null : ship.getSymbol());
+			return null;
+		}
+	}
+
+	/**
+	 * Performs a single job
+	 *
+	 * @param jobToPerform the job to perform
+	 * @return The ship's next job and the job for any newly purchased ship
+	 */
+	JobOutcome performJob(final ShipJob jobToPerform) {
+		final Ship ship = jobToPerform.getShip();
+		ShipJob nextJob = null;
+		ShipJob jobForNewShip = null;
+		if (jobToPerform instanceof TradeShipJob tradeJob) {
+			nextJob = tradeShipManager.manageTradeShip(tradeJob);
+		}
+		else if (jobToPerform instanceof MiningShipJob miningJob) {
+			nextJob = miningShipManager.manageMiningShip(miningJob);
+		}
+		else if (jobToPerform instanceof ProbeShipJob probeJob) {
+			nextJob = probeShipManager.manageProbeShip(probeJob);
+		}
+		else if (jobToPerform instanceof ShipPurchaseJob purchaseJob) {
+			final ShipPurchaseManagerResponse purchaseResponse = shipPurchaseManager.manageShipPurchase(purchaseJob);
+			if (purchaseResponse.nextJob() != null) {
+				// The purchase job has not yet been finished
+				nextJob = purchaseResponse.nextJob();
 			}
-			else if (jobToPerform instanceof ShipPurchaseJob purchaseJob) {
-				final ShipPurchaseManagerResponse purchaseResponse = shipPurchaseManager.manageShipPurchase(purchaseJob);
-				if (purchaseResponse.nextJob() != null) {
-					// The purchase job has not yet been finished
-					nextJob = purchaseResponse.nextJob();
-				}
-				else {
-					// The purchase job has finished, keeping nextJob null will result in a new job
-					// for ship, but we still need to make an additional job for the new ship
-					websocketReporter.addShip(purchaseResponse.newShip());
-					websocketReporter
-							.firePurchaseStatusEvent("Purchased Ship " + purchaseResponse.newShip().getSymbol());
-					final ShipJob jobForNewShip = shipJobCreator.createShipJob(purchaseResponse.newShip());
+			else {
+				// The purchase job has finished, keeping nextJob null will result in a new job
+				// for ship, but we still need to make an additional job for the new ship
+				websocketReporter.addShip(purchaseResponse.newShip());
+				marketRefresher.addShip(purchaseResponse.newShip());
+				websocketReporter
+						.firePurchaseStatusEvent("Purchased Ship " + purchaseResponse.newShip().getSymbol());
+				jobForNewShip = shipJobCreator.createShipJob(purchaseResponse.newShip());
+				if (jobForNewShip != null) {
 					log.infof("Created new job for ship %s", jobForNewShip.getShip().getSymbol());
-					this.queue.computeIfAbsent(jobForNewShip.getNextAction(), i -> new LinkedList<>())
-							.add(jobForNewShip);
 				}
 			}
-			else {
-				log.warnf("Unknown job type, %s", jobToPerform);
+		}
+		else {
+			log.warnf("Unknown job type, %s", jobToPerform);
+		}
+		if (nextJob == null) {
+			// Job has finished, make a new one
+			nextJob = createNextJob(ship);
+		}
+		return new JobOutcome(nextJob, jobForNewShip);
+	}
+
+	private ShipJob createNextJob(final Ship ship) {
+		// Claim the pending purchase atomically so only one ship can pick it up
+		final ShipType typeToBuy = this.shipTypeToBuy.getAndSet(null);
+		if (typeToBuy != null) {
+			final ShipPurchaseJob purchaseJob = shipPurchaseManager.createShipPurchaseJob(ship, typeToBuy);
+			if (purchaseJob != null) {
+				log.infof("Created Job for ship %s to Purchase %s", ship.getSymbol(), typeToBuy);
+				websocketReporter.firePurchaseStatusEvent(
+						"Ship " + ship.getSymbol() + " beginning job to purchase new ship");
+				return purchaseJob;
 			}
-			if (nextJob == null) {
-				// Job has finished, make a new one
-				if (this.shipTypeToBuy.get() != null) {
-					nextJob = shipPurchaseManager.createShipPurchaseJob(ship, this.shipTypeToBuy.get());
-					log.infof("Created Job for ship %s to Purchase %s", ship.getSymbol(), this.shipTypeToBuy.get());
-					websocketReporter.firePurchaseStatusEvent(
-							"Ship " + ship.getSymbol() + " beginning job to purchase new ship");
-					this.shipTypeToBuy.set(null);
-				}
-				else {
-					nextJob = shipJobCreator.createShipJob(ship);
-				}
+			// This ship can't make the purchase, leave it for the next ship unless a newer request arrived
+			this.shipTypeToBuy.compareAndSet(null, typeToBuy);
+		}
+		return shipJobCreator.createShipJob(ship);
+	}
+
+	private void schedule(final ShipJob job) {
+		schedule(job, job.getNextAction());
+	}
+
+	private void schedule(final ShipJob job, final Instant time) {
+		queue.add(new ScheduledJob(job, time, sequence.getAndIncrement()));
+	}
+
+	/**
+	 * The result of performing a job
+	 *
+	 * @param nextJob       the next job for the ship which performed the job, null
+	 *                      if no job could be created
+	 * @param jobForNewShip the first job for a ship which was just purchased, null
+	 *                      if no ship was purchased
+	 */
+	record JobOutcome(ShipJob nextJob, ShipJob jobForNewShip) {
+
+		/**
+		 * @return The non-null jobs from this outcome
+		 */
+		List<ShipJob> jobs() {
+			return Stream.of(jobForNewShip, nextJob).filter(Objects::nonNull).toList();
+		}
+
+	}
+
+	/**
+	 * A job waiting in the queue, ordered by its scheduled time and then by the
+	 * order in which it was added
+	 */
+	record ScheduledJob(ShipJob job, Instant time, long order) implements Delayed {
+
+		@Override
+		public long getDelay(final TimeUnit unit) {
+			return unit.convert(Duration.between(Instant.now(), time));
+		}
+
+		@Override
+		public int compareTo(final Delayed other) {
+			if (other instanceof ScheduledJob otherJob) {
+				final int timeComparison = time.compareTo(otherJob.time);
+				return timeComparison != 0 ? timeComparison : Long.compare(order, otherJob.order);
 			}
-			this.queue.computeIfAbsent(nextJob.getNextAction(), i -> new LinkedList<>()).add(nextJob);
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
 		}
+
 	}
 
 }
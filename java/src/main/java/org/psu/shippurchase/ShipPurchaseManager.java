@@ -1,14 +1,12 @@
 package org.psu.shippurchase;
 
 import java.time.Instant;
-import java.util.Comparator;
 import java.util.Deque;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
 
 import org.psu.navigation.NavigationPath;
 import org.psu.navigation.RefuelPathCalculator;
+import org.psu.navigation.WaypointGrid;
 import org.psu.shiporchestrator.ShipJob;
 import org.psu.spacetraders.api.MarketplaceRequester;
 import org.psu.spacetraders.api.NavigationHelper;
@@ -45,16 +43,15 @@ public class ShipPurchaseManager {
 
 		final List<Waypoint> shipyardsWhichSellShip = shipyardManager.getShipyardsWhichSell(shipType);
 
-		final Optional<NavigationPath> shortestPathToShipyard = shipyardsWhichSellShip.stream()
-				.map(w -> refuelPathCalculator.determineShortestRoute(ship, w)).filter(Objects::nonNull)
-				.min(Comparator.comparing(NavigationPath::getLength));
+		final NavigationPath shortestPathToShipyard = new WaypointGrid(shipyardsWhichSellShip).findShortestPath(ship,
+				w -> true, w -> refuelPathCalculator.determineShortestRoute(ship, w));
 
-		if (shortestPathToShipyard.isEmpty()) {
+		if (shortestPathToShipyard == null) {
 			log.warnf("Unable to find a path to a shipyard which sells %s", shipType);
 			return null;
 		}
 
-		final Deque<Waypoint> path = shortestPathToShipyard.get().getWaypoints();
+		final Deque<Waypoint> path = shortestPathToShipyard.getWaypoints();
 		final Instant nextAction = Instant.now();
 
 		return new ShipPurchaseJob(ship, path, path.getLast(), shipType, nextAction);
@@ -1,15 +1,16 @@
 package org.psu.shippurchase;
 
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+import org.psu.navigation.WaypointMap;
+import org.psu.navigation.WaypointRegistry;
 import org.psu.spacetraders.api.AccountManager;
 import org.psu.spacetraders.api.ClientProducer;
+import org.psu.spacetraders.api.RequestPriority;
 import org.psu.spacetraders.api.RequestThrottler;
 import org.psu.spacetraders.api.ShipyardClient;
 import org.psu.spacetraders.dto.ShipPurchaseRequest;
@@ -36,17 +37,22 @@ public class ShipyardManager {
 	private RequestThrottler requestThrottler;
 	private AccountManager accountManager;
 	private WebsocketReporter websocketReporter;
+	private WaypointRegistry waypointRegistry;
 
-	private Map<Waypoint, List<ShipType>> shipsByShipyard;
+	private WaypointMap<List<ShipType>> shipsByShipyard;
+	private Map<ShipType, List<Waypoint>> shipyardsByShipType;
 
 	@Inject
 	public ShipyardManager(final ClientProducer clientProducer, final RequestThrottler requestThrottler,
-			final AccountManager accountManager, final WebsocketReporter websocketReporter) {
+			final AccountManager accountManager, final WebsocketReporter websocketReporter,
+			final WaypointRegistry waypointRegistry) {
 		this.shipyardClient = clientProducer.produceShipyardClient();
 		this.requestThrottler = requestThrottler;
 		this.accountManager = accountManager;
 		this.websocketReporter = websocketReporter;
-		this.shipsByShipyard = null;
+		this.waypointRegistry = waypointRegistry;
+		this.shipsByShipyard = new WaypointMap<>(waypointRegistry);
+		this.shipyardsByShipType = new EnumMap<>(ShipType.class);
 	}
 
 	public void loadData(final List<Waypoint> systemWaypoints) {
@@ -56,29 +62,29 @@ public class ShipyardManager {
 		final List<Waypoint> shipyards = systemWaypoints.stream().filter(w -> w.getTraits().contains(Trait.SHIPYARD))
 				.toList();
 
-		this.shipsByShipyard = new HashMap<>();
+		this.shipsByShipyard = new WaypointMap<>(waypointRegistry);
+		final Map<ShipType, List<Waypoint>> shipyardsByShipType = new EnumMap<>(ShipType.class);
 		for (final Waypoint shipyard : shipyards) {
-			final ShipyardResponse shipyardResponse = requestThrottler.throttle(
+			final ShipyardResponse shipyardResponse = requestThrottler.throttle(RequestPriority.BACKGROUND,
 					() -> shipyardClient.getShipyardData(shipyard.getSystemSymbol(), shipyard.getSymbol()).getData());
 			final List<ShipType> shipTypes = shipyardResponse.getShipTypes().stream().map(ShipTypeContainer::getType).toList();
 			this.shipsByShipyard.put(shipyard, shipTypes);
+			shipTypes.forEach(type -> shipyardsByShipType.computeIfAbsent(type, t -> new ArrayList<>()).add(shipyard));
 		}
+		this.shipyardsByShipType = shipyardsByShipType;
 
-		final Set<ShipType> allTypes = this.shipsByShipyard.values().stream().flatMap(Collection::stream)
-				.collect(Collectors.toSet());
-		websocketReporter.addShipTypes(allTypes);
+		websocketReporter.addShipTypes(Set.copyOf(shipyardsByShipType.keySet()));
 
 		log.infof("Loaded Shipyard Data for %s shipyards", this.shipsByShipyard.size());
 	}
 
 	public List<Waypoint> getShipyardsWhichSell(final ShipType shipType) {
-		return this.shipsByShipyard.entrySet().stream().filter(e -> e.getValue().contains(shipType)).map(Entry::getKey)
-				.toList();
+		return this.shipyardsByShipType.getOrDefault(shipType, List.of());
 	}
 
 	public ShipPurchaseResponse purchaseShip(final ShipPurchaseRequest purchaseRequest) {
 		final ShipPurchaseResponse response = this.requestThrottler
-				.throttle(() -> shipyardClient.purchaseShip(purchaseRequest)).getData();
+				.throttle(RequestPriority.CRITICAL, () -> shipyardClient.purchaseShip(purchaseRequest)).getData();
 		accountManager.updateAgent(response.getAgent());
 		log.infof("Purchased Ship %s", response.getShip().getSymbol());
 		return response;
@@ -17,7 +17,7 @@ public class AccountManager {
 	private AgentClient agentClient;
 	private WebsocketReporter creditReporter;
 
-	private Agent agent;
+	private volatile Agent agent;
 
 	@Inject
 	public AccountManager(final ClientProducer clientProducer, final WebsocketReporter creditReporter) {
@@ -1,5 +1,6 @@
 package org.psu.spacetraders.api;
 
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import org.psu.spacetraders.dto.Agent;
 import org.psu.spacetraders.dto.DataWrapper;
@@ -13,6 +14,7 @@ import jakarta.ws.rs.Path;
  */
 @Dependent
 @RegisterRestClient(configKey="spacetraders-api")
+@RegisterProvider(RateLimitResponseFilter.class)
 public interface AgentClient {
 
 	/**
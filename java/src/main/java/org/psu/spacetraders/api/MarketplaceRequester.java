@@ -13,6 +13,8 @@ import org.psu.spacetraders.dto.TradeRequest;
 import org.psu.spacetraders.dto.TradeResponse;
 import org.psu.spacetraders.dto.Waypoint;
 import org.psu.trademanager.MarketplaceManager;
+import org.psu.trademanager.PriceImpactModel;
+import org.psu.trademanager.PriceImpactModel.TradeType;
 import org.psu.websocket.WebsocketReporter;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -34,12 +36,14 @@ public class MarketplaceRequester {
 	private MarketplaceManager marketplaceManager;
 	private NavigationHelper navHelper;
 	private WebsocketReporter websocketReporter;
+	private PriceImpactModel priceImpactModel;
 
 	@Inject
 	public MarketplaceRequester(@ConfigProperty(name = "app.marketupdate-delay-ms") final int marketUpdateDelay,
 			final ClientProducer clientProducer, final RequestThrottler throttler,
 			final AccountManager accountManager, final MarketplaceManager marketplaceManager,
-			final NavigationHelper navHelper, final WebsocketReporter websocketReporter) {
+			final NavigationHelper navHelper, final WebsocketReporter websocketReporter,
+			final PriceImpactModel priceImpactModel) {
 		this.marketUpdateDelay = Duration.ofMillis(marketUpdateDelay);
 		this.marketplaceClient = clientProducer.produceMarketplaceClient();
 		this.throttler = throttler;
@@ -47,6 +51,7 @@ public class MarketplaceRequester {
 		this.marketplaceManager = marketplaceManager;
 		this.navHelper = navHelper;
 		this.websocketReporter = websocketReporter;
+		this.priceImpactModel = priceImpactModel;
 	}
 
 	/**
@@ -57,10 +62,12 @@ public class MarketplaceRequester {
 	 * @return a {@link TradeResponse}
 	 */
 	public TradeResponse sell(final Ship ship, final TradeRequest tradeRequest) {
-		final TradeResponse response = throttler.throttle(() -> marketplaceClient.sell(ship.getSymbol(), tradeRequest))
+		final TradeResponse response = throttler
+				.throttle(RequestPriority.CRITICAL, () -> marketplaceClient.sell(ship.getSymbol(), tradeRequest))
 				.getData();
 		ship.setCargo(response.getCargo());
 		this.accountManager.updateAgent(response.getAgent());
+		this.priceImpactModel.recordTrade(tradeRequest.getSymbol(), TradeType.SELL, response.getTransaction());
 		return response;
 	}
 
@@ -73,9 +80,11 @@ public class MarketplaceRequester {
 	 */
 	public TradeResponse purchase(final Ship ship, final TradeRequest tradeRequest) {
 		final TradeResponse response = throttler
-				.throttle(() -> marketplaceClient.purchase(ship.getSymbol(), tradeRequest)).getData();
+				.throttle(RequestPriority.CRITICAL, () -> marketplaceClient.purchase(ship.getSymbol(), tradeRequest))
+				.getData();
 		ship.setCargo(response.getCargo());
 		this.accountManager.updateAgent(response.getAgent());
+		this.priceImpactModel.recordTrade(tradeRequest.getSymbol(), TradeType.PURCHASE, response.getTransaction());
 		return response;
 	}
 
@@ -86,7 +95,8 @@ public class MarketplaceRequester {
 	 * @return a wrapped {@link RefuelResponse}
 	 */
 	public RefuelResponse refuel(final Ship ship) {
-		final RefuelResponse response = throttler.throttle(() -> marketplaceClient.refuel(ship.getSymbol())).getData();
+		final RefuelResponse response = throttler
+				.throttle(RequestPriority.CRITICAL, () -> marketplaceClient.refuel(ship.getSymbol())).getData();
 		ship.setFuel(response.getFuel());
 		this.accountManager.updateAgent(response.getAgent());
 		return response;
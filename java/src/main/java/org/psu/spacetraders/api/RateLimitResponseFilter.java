@@ -0,0 +1,132 @@
+package org.psu.spacetraders.api;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.function.Function;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import lombok.extern.jbosslog.JBossLog;
+
+/**
+ * Reads the rate limit headers from every space traders API response and
+ * reports them to the {@link RequestThrottler}
+ */
+@JBossLog
+@ApplicationScoped
+public class RateLimitResponseFilter implements ClientResponseFilter {
+
+	static final String REMAINING_HEADER = "x-ratelimit-remaining";
+	static final String RESET_HEADER = "x-ratelimit-reset";
+	static final String BURST_LIMIT_HEADER = "x-ratelimit-limit-burst";
+	static final String PER_SECOND_LIMIT_HEADER = "x-ratelimit-limit-per-second";
+	static final String RETRY_AFTER_HEADER = "retry-after";
+
+	private static final int TOO_MANY_REQUESTS = 429;
+	/**
+	 * How long to wait after a rejected request if the server doesn't say
+	 */
+	private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+	private RequestThrottler throttler;
+
+	@Inject
+	public RateLimitResponseFilter(final RequestThrottler throttler) {
+		this.throttler = throttler;
+	}
+
+	@Override
+	public void filter(final ClientRequestContext requestContext, final ClientResponseContext responseContext) {
+		final RateLimitStatus status = parseStatus(responseContext.getStatus(), responseContext::getHeaderString);
+		if (status != null) {
+			throttler.updateRateLimitStatus(status);
+		}
+	}
+
+	/**
+	 * @param statusCode   The HTTP status code of the response
+	 * @param headerLookup Provides the value of a response header, or null if the
+	 *                     header is not present
+	 * @return The {@link RateLimitStatus} described by the headers, null if the
+	 *         response did not contain any rate limit information
+	 */
+	static RateLimitStatus parseStatus(final int statusCode, final Function<String, String> headerLookup) {
+		final Integer remaining = parseInteger(headerLookup.apply(REMAINING_HEADER));
+		final Instant reset = parseInstant(headerLookup.apply(RESET_HEADER));
+		final Integer burstLimit = parseInteger(headerLookup.apply(BURST_LIMIT_HEADER));
+		final Integer perSecondLimit = parseInteger(headerLookup.apply(PER_SECOND_LIMIT_HEADER));
+
+		Duration retryAfter = null;
+		if (statusCode == TOO_MANY_REQUESTS) {
+			retryAfter = parseRetryAfter(headerLookup.apply(RETRY_AFTER_HEADER));
+			if (retryAfter == null && reset != null) {
+				retryAfter = Duration.between(Instant.now(), reset);
+			}
+			if (retryAfter == null || retryAfter.isNegative()) {
+				retryAfter = DEFAULT_RETRY_AFTER;
+			}
+		}
+
+		if (remaining == null && reset == null && burstLimit == null && perSecondLimit == null
+				&& retryAfter == null) {
+			return null;
+		}
+		return new RateLimitStatus(remaining, reset, burstLimit, perSecondLimit, retryAfter);
+	}
+
+	private static Integer parseInteger(final String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return Integer.valueOf(value.trim());
+		} catch (NumberFormatException e) {
+			log.debugf("Unable to parse rate limit header value %s", value);
+			return null;
+		}
+	}
+
+	private static Instant parseInstant(final String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return Instant.parse(value.trim());
+		} catch (DateTimeParseException e) {
+			log.debugf("Unable to parse rate limit reset time %s", value);
+			return null;
+		}
+	}
+
+	/**
+	 * @param value The value of the Retry-After header, either a number of seconds
+	 *              or an HTTP date
+	 * @return The time to wait before retrying, null if it cannot be determined
+	 */
+	private static Duration parseRetryAfter(final String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			final double seconds = Double.parseDouble(value.trim());
+			return Duration.ofMillis((long) Math.ceil(seconds * 1000));
+		} catch (NumberFormatException e) {
+			// Not a number of seconds, try an HTTP date
+		}
+		try {
+			final Instant retryTime = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+					.toInstant();
+			return Duration.between(Instant.now(), retryTime);
+		} catch (DateTimeParseException e) {
+			log.debugf("Unable to parse Retry-After header value %s", value);
+			return null;
+		}
+	}
+
+}
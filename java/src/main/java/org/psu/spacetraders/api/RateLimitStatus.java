@@ -0,0 +1,21 @@
+package org.psu.spacetraders.api;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The rate limit state reported by the space traders API in its response
+ * headers, any of the fields may be null if the server did not report them
+ *
+ * @param remaining      The number of requests remaining in the server's current
+ *                       window
+ * @param reset          The time at which the server's current window resets
+ * @param burstLimit     The number of requests allowed in a burst
+ * @param perSecondLimit The number of requests allowed per second
+ * @param retryAfter     Only present if the request was rejected for exceeding
+ *                       the rate limit, the time to wait before sending another
+ *                       request
+ */
+public record RateLimitStatus(Integer remaining, Instant reset, Integer burstLimit, Integer perSecondLimit,
+		Duration retryAfter) {
+}
@@ -0,0 +1,23 @@
+package org.psu.spacetraders.api;
+
+/**
+ * The priority of a request to the space traders API. When the rate limit is
+ * saturated, the {@link RequestThrottler} will always grant a permit to a
+ * higher priority request before a lower priority one
+ */
+public enum RequestPriority {
+	/**
+	 * Requests which directly make or spend credits, such as buying and selling
+	 * goods
+	 */
+	CRITICAL,
+	/**
+	 * Requests which keep ships moving, such as navigation and extraction
+	 */
+	NORMAL,
+	/**
+	 * Bookkeeping requests which can wait, such as startup paging and market
+	 * refreshes
+	 */
+	BACKGROUND
+}
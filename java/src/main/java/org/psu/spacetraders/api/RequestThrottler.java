@@ -2,21 +2,46 @@ package org.psu.spacetraders.api;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import org.psu.spacetraders.api.ThrottlerConfig.RateLimiterConfig;
 
-import com.google.common.collect.EvictingQueue;
-
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import lombok.extern.jbosslog.JBossLog;
 
 /**
- * Throttles requests to the space traders API based on the configured RateLimiters
+ * Throttles requests to the space traders API based on the configured RateLimiters.
+ * <p>
+ * Permits are handed out by a single dispatcher. Each {@link RequestPriority}
+ * has its own lane, a permit is always granted to the highest priority lane
+ * with a waiting request, and within a lane permits are granted in the order
+ * they were requested. Blocking callers park until their permit is granted,
+ * while asynchronous callers are never parked, their API interaction is run on
+ * a dedicated executor once the permit is granted.
+ * <p>
+ * The configured RateLimiters are only a starting point, they are tightened or
+ * relaxed live based on the {@link RateLimitStatus} reported by the server, see
+ * {@link RateLimitResponseFilter}.
  */
 @JBossLog
 @ApplicationScoped
@@ -25,10 +50,47 @@ public class RequestThrottler {
 	private final boolean enabled;
 	private final List<RateLimiter> rateLimiters;
 
+	/**
+	 * Permits which have been requested but not yet granted, in request order,
+	 * grouped by priority
+	 */
+	private final Map<RequestPriority, Queue<CompletableFuture<Void>>> pendingPermits;
+	/**
+	 * Only used to wake the dispatcher up when the next permit becomes available
+	 */
+	private final ScheduledExecutorService dispatcher;
+	/**
+	 * Runs the API interactions of asynchronous requests
+	 */
+	private final ExecutorService requestExecutor;
+	/**
+	 * True if the dispatcher has already been scheduled to run again
+	 */
+	private boolean dispatchScheduled;
+	/**
+	 * The number of requests which have been granted a permit but have not yet
+	 * returned, the server may not have counted these yet
+	 */
+	private int inFlightRequests;
+	/**
+	 * If the server has rejected a request for exceeding the rate limit, no
+	 * permits will be granted until this time
+	 */
+	private Instant pausedUntil;
+
 	@Inject
 	public RequestThrottler(final ThrottlerConfig config) {
 		this.enabled = config.enabled();
 		this.rateLimiters = config.rateLimiters().stream().map(c -> new RateLimiter(c)).toList();
+		this.pendingPermits = new EnumMap<>(RequestPriority.class);
+		for (final RequestPriority priority : RequestPriority.values()) {
+			this.pendingPermits.put(priority, new LinkedList<>());
+		}
+		this.dispatcher = Executors.newSingleThreadScheduledExecutor(new ThrottlerThreadFactory("throttler-dispatch"));
+		this.requestExecutor = Executors.newCachedThreadPool(new ThrottlerThreadFactory("throttler-request"));
+		this.dispatchScheduled = false;
+		this.inFlightRequests = 0;
+		this.pausedUntil = null;
 	}
 
 	/**
@@ -42,52 +104,250 @@ public class RequestThrottler {
 	 * @return The result of invoking the supplier.
 	 */
 	public <T> T throttle(Supplier<T> apiInteraction) {
+		return throttle(RequestPriority.NORMAL, apiInteraction);
+	}
+
+	/**
+	 * Note that this method will block until the rate limit has passed
+	 *
+	 * @param <T>            The type that is expected to be returned by the API
+	 *                       interaction
+	 * @param priority       The priority of the request
+	 * @param apiInteraction The action to perform that hits the API. This supplier
+	 *                       should perform exactly one API call, this supplier will
+	 *                       be invoked once the configured rate limit has passed
+	 * @return The result of invoking the supplier.
+	 */
+	public <T> T throttle(RequestPriority priority, Supplier<T> apiInteraction) {
 		if (!this.enabled) {
 			return apiInteraction.get();
 		}
 
-		// The time when the api interaction can be performed.
-		// If empty, the interaction can be performed immediately
-		final Optional<Instant> whenToCall = rateLimiters.stream().map(RateLimiter::nextValidTime)
-				.filter(Objects::nonNull).max(Instant::compareTo);
+		// Park until the dispatcher grants this request a permit
+		acquirePermit(priority).join();
+		try {
+			return apiInteraction.get();
+		} finally {
+			requestFinished();
+		}
+	}
+
+	/**
+	 * Does not block the calling thread
+	 *
+	 * @param <T>            The type that is expected to be returned by the API
+	 *                       interaction
+	 * @param apiInteraction The action to perform that hits the API. This supplier
+	 *                       should perform exactly one API call, this supplier will
+	 *                       be invoked on the throttler's executor once the
+	 *                       configured rate limit has passed
+	 * @return A {@link CompletionStage} which will complete with the result of
+	 *         invoking the supplier, or exceptionally if the supplier throws
+	 */
+	public <T> CompletionStage<T> throttleAsync(Supplier<T> apiInteraction) {
+		return throttleAsync(RequestPriority.NORMAL, apiInteraction);
+	}
 
-		// Sleep until the API is available again
-		whenToCall.ifPresent(time -> {
+	/**
+	 * Does not block the calling thread
+	 *
+	 * @param <T>            The type that is expected to be returned by the API
+	 *                       interaction
+	 * @param priority       The priority of the request
+	 * @param apiInteraction The action to perform that hits the API. This supplier
+	 *                       should perform exactly one API call, this supplier will
+	 *                       be invoked on the throttler's executor once the
+	 *                       configured rate limit has passed
+	 * @return A {@link CompletionStage} which will complete with the result of
+	 *         invoking the supplier, or exceptionally if the supplier throws
+	 */
+	public <T> CompletionStage<T> throttleAsync(RequestPriority priority, Supplier<T> apiInteraction) {
+		if (!this.enabled) {
+			return CompletableFuture.supplyAsync(apiInteraction, requestExecutor);
+		}
+		return acquirePermit(priority).thenApplyAsync(permit -> {
 			try {
-				final Duration timeToSleep = Duration.between(Instant.now(), time);
-				if (timeToSleep.compareTo(Duration.ofSeconds(1)) > 0) {
-					log.infof("API Limit reached, next request can be processed in %s", timeToSleep);
+				return apiInteraction.get();
+			} finally {
+				requestFinished();
+			}
+		}, requestExecutor);
+	}
+
+	/**
+	 * Adjusts the rate limiters to match the state reported by the server
+	 *
+	 * @param status The {@link RateLimitStatus} from the server's most recent
+	 *               response
+	 */
+	public void updateRateLimitStatus(final RateLimitStatus status) {
+		if (!this.enabled || this.rateLimiters.isEmpty()) {
+			return;
+		}
+		synchronized (this) {
+			final Instant now = Instant.now();
+			if (status.retryAfter() != null) {
+				// The server rejected a request, stop sending until it says we can
+				final Instant retryTime = now.plus(status.retryAfter());
+				if (this.pausedUntil == null || retryTime.isAfter(this.pausedUntil)) {
+					this.pausedUntil = retryTime;
+				}
+				log.warnf("API rate limit exceeded, pausing requests until %s", this.pausedUntil);
+			}
+
+			final RateLimiter shortestLimiter = this.rateLimiters.stream()
+					.min(Comparator.comparing(RateLimiter::getPeriod)).get();
+			final RateLimiter longestLimiter = this.rateLimiters.stream()
+					.max(Comparator.comparing(RateLimiter::getPeriod)).get();
+			if (status.perSecondLimit() != null) {
+				final long periodSeconds = shortestLimiter.getPeriod().toSeconds();
+				shortestLimiter.setMaxMessages((int) (status.perSecondLimit() * periodSeconds));
+			}
+			if (status.burstLimit() != null && shortestLimiter != longestLimiter) {
+				longestLimiter.setMaxMessages(status.burstLimit());
+			}
+			if (status.remaining() != null && status.reset() != null && status.reset().isAfter(now)) {
+				// The server's window is tracked by the shortest limiter which covers it
+				final Duration timeUntilReset = Duration.between(now, status.reset());
+				final RateLimiter windowLimiter = this.rateLimiters.stream()
+						.filter(l -> l.getPeriod().compareTo(timeUntilReset) >= 0)
+						.min(Comparator.comparing(RateLimiter::getPeriod)).orElse(longestLimiter);
+				windowLimiter.resync(status.remaining(), status.reset(), this.inFlightRequests);
+			}
+		}
+		// The limits may have been relaxed, see if anything can be sent now
+		dispatch();
+	}
+
+	/**
+	 * @return The number of requests which are waiting for a permit
+	 */
+	public synchronized int getPendingRequests() {
+		return this.pendingPermits.values().stream().mapToInt(Queue::size).sum();
+	}
+
+	/**
+	 * @param priority The priority of the request
+	 * @return A future which will be completed once the request is allowed to be
+	 *         sent
+	 */
+	CompletableFuture<Void> acquirePermit(final RequestPriority priority) {
+		final CompletableFuture<Void> permit = new CompletableFuture<>();
+		synchronized (this) {
+			this.pendingPermits.get(priority).add(permit);
+		}
+		dispatch();
+		return permit;
+	}
+
+	/**
+	 * Grants as many pending permits as the rate limiters allow, and schedules
+	 * itself to run again once the next permit becomes available
+	 */
+	private void dispatch() {
+		final List<CompletableFuture<Void>> grantedPermits = new ArrayList<>();
+		synchronized (this) {
+			Queue<CompletableFuture<Void>> lane;
+			while ((lane = nextLane()) != null) {
+				// The time when the next permit can be granted.
+				// If empty, the permit can be granted immediately
+				final Optional<Instant> whenToGrant = nextValidTime();
+				if (whenToGrant.isPresent()) {
+					scheduleDispatch(whenToGrant.get());
+					break;
 				}
-				Thread.sleep(timeToSleep);
-			} catch (InterruptedException e) {
-				log.warn("Request Throttler interrupted, you may see API requests fail");
-				log.warn(e);
+				// Let the rate limiters know that another API call is being made
+				final Instant now = Instant.now();
+				rateLimiters.forEach(limiter -> limiter.requestSent(now));
+				this.inFlightRequests++;
+				grantedPermits.add(lane.remove());
 			}
-		});
+		}
+		// Complete outside of the lock so that waiting callers don't run while holding it
+		grantedPermits.forEach(permit -> permit.complete(null));
+	}
 
-		final T response = apiInteraction.get();
-		// Let the rate limiters know that another API call has been made
-		rateLimiters.forEach(limiter -> limiter.requestSent(Instant.now()));
+	/**
+	 * @return The highest priority lane which has a waiting request, null if no
+	 *         requests are waiting
+	 */
+	private Queue<CompletableFuture<Void>> nextLane() {
+		for (final RequestPriority priority : RequestPriority.values()) {
+			final Queue<CompletableFuture<Void>> lane = this.pendingPermits.get(priority);
+			if (!lane.isEmpty()) {
+				return lane;
+			}
+		}
+		return null;
+	}
 
-		return response;
+	private Optional<Instant> nextValidTime() {
+		if (this.pausedUntil != null) {
+			if (this.pausedUntil.isAfter(Instant.now())) {
+				return Optional.of(this.pausedUntil);
+			}
+			this.pausedUntil = null;
+		}
+		return rateLimiters.stream().map(RateLimiter::nextValidTime).filter(Objects::nonNull)
+				.max(Instant::compareTo);
+	}
+
+	private synchronized void requestFinished() {
+		this.inFlightRequests--;
+	}
+
+	private void scheduleDispatch(final Instant dispatchTime) {
+		if (this.dispatchScheduled) {
+			return;
+		}
+		final Duration timeToWait = Duration.between(Instant.now(), dispatchTime);
+		if (timeToWait.compareTo(Duration.ofSeconds(1)) > 0) {
+			log.infof("API Limit reached, next request can be processed in %s", timeToWait);
+		}
+		this.dispatchScheduled = true;
+		this.dispatcher.schedule(() -> {
+			synchronized (this) {
+				this.dispatchScheduled = false;
+			}
+			dispatch();
+		}, Math.max(timeToWait.toNanos(), 0), TimeUnit.NANOSECONDS);
 	}
 
 	/**
-	 * Defines a message rate which cannot be surpassed
+	 * Defines a message rate which cannot be surpassed. This acts as a token
+	 * bucket holding maxMessages tokens, where each token is returned to the bucket
+	 * one period after it was spent
 	 */
 	private class RateLimiter {
 
-		private final int maxMessages;
+		private int maxMessages;
 		private final Duration period;
 		/**
-		 * Holds the most recent message times, it only holds maxMessages elements.
+		 * Holds the most recent message times, oldest first, it only holds
+		 * maxMessages elements.
 		 */
-		private final EvictingQueue<Instant> pastRequests;
+		private final Deque<Instant> pastRequests;
 
 		public RateLimiter(final RateLimiterConfig config) {
 			this.maxMessages = config.requests();
 			this.period = Duration.ofSeconds(config.period());
-			this.pastRequests = EvictingQueue.create(maxMessages);
+			this.pastRequests = new ArrayDeque<>(maxMessages);
+		}
+
+		public Duration getPeriod() {
+			return this.period;
+		}
+
+		/**
+		 * @param maxMessages The new number of messages which can be sent per period
+		 */
+		public void setMaxMessages(final int maxMessages) {
+			if (maxMessages > 0 && maxMessages != this.maxMessages) {
+				log.infof("Rate limit of %s requests per %s changed to %s requests", this.maxMessages, this.period,
+						maxMessages);
+				this.maxMessages = maxMessages;
+				trim();
+			}
 		}
 
 		/**
@@ -101,7 +361,7 @@ public class RequestThrottler {
 				return null;
 			}
 			final Instant now = Instant.now();
-			final Instant nextTime = pastRequests.peek().plus(period);
+			final Instant nextTime = pastRequests.peekFirst().plus(period);
 			if (nextTime.isBefore(now)) {
 				// We've passed the limiting period
 				return null;
@@ -114,7 +374,79 @@ public class RequestThrottler {
 		 * @param sentTime the time the message was sent
 		 */
 		public void requestSent(final Instant sentTime) {
-			pastRequests.add(sentTime);
+			pastRequests.addLast(sentTime);
+			trim();
+		}
+
+		/**
+		 * Brings the messages counted in the current period in line with the count
+		 * reported by the server
+		 *
+		 * @param remaining The number of requests the server will still accept in
+		 *                  its current window
+		 * @param reset     The time when the server's current window resets
+		 * @param inFlight  The number of requests which have been sent but may not
+		 *                  have been counted by the server yet
+		 */
+		public void resync(final int remaining, final Instant reset, final int inFlight) {
+			final Instant now = Instant.now();
+			// Requests which have left the period no longer count against the limit
+			pastRequests.removeIf(sentTime -> !sentTime.plus(period).isAfter(now));
+
+			final int serverCount = Math.max(maxMessages - remaining, 0);
+			final int localCount = pastRequests.size();
+			if (serverCount > localCount) {
+				// The server has counted requests we don't know about, tighten the limit by
+				// assuming they were sent such that they are returned to the bucket on reset
+				final List<Instant> allRequests = new ArrayList<>(pastRequests);
+				for (int i = 0; i < serverCount - localCount; i++) {
+					allRequests.add(reset.minus(period));
+				}
+				allRequests.sort(Instant::compareTo);
+				pastRequests.clear();
+				pastRequests.addAll(allRequests);
+			}
+			else if (serverCount + inFlight < localCount) {
+				// The server has counted fewer requests than we have, relax the limit by
+				// forgetting about the oldest ones
+				for (int i = 0; i < localCount - serverCount - inFlight; i++) {
+					pastRequests.removeFirst();
+				}
+			}
+			trim();
+		}
+
+		/**
+		 * Only the most recent maxMessages requests limit when the next request can be
+		 * sent
+		 */
+		private void trim() {
+			while (pastRequests.size() > maxMessages) {
+				pastRequests.removeFirst();
+			}
+		}
+
+	}
+
+	/**
+	 * Creates named daemon threads so that the throttler never keeps the
+	 * application alive on its own
+	 */
+	private static class ThrottlerThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+		private final AtomicInteger threadCount;
+
+		public ThrottlerThreadFactory(final String prefix) {
+			this.prefix = prefix;
+			this.threadCount = new AtomicInteger();
+		}
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(runnable, prefix + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
 		}
 
 	}
@@ -2,6 +2,7 @@ package org.psu.spacetraders.api;
 
 import java.util.List;
 
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import org.psu.spacetraders.dto.DataWrapper;
 import org.psu.spacetraders.dto.Ship;
@@ -16,6 +17,7 @@ import jakarta.ws.rs.QueryParam;
  */
 @Dependent
 @RegisterRestClient(configKey="spacetraders-api")
+@RegisterProvider(RateLimitResponseFilter.class)
 public interface ShipsClient {
 
 	@GET
@@ -1,5 +1,6 @@
 package org.psu.spacetraders.api;
 
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import org.psu.spacetraders.dto.DataWrapper;
 import org.psu.spacetraders.dto.ShipPurchaseRequest;
@@ -17,6 +18,7 @@ import jakarta.ws.rs.PathParam;
  */
 @Dependent
 @RegisterRestClient(configKey="spacetraders-api")
+@RegisterProvider(RateLimitResponseFilter.class)
 public interface ShipyardClient {
 
 	@GET
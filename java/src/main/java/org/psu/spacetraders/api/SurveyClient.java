@@ -1,5 +1,6 @@
 package org.psu.spacetraders.api;
 
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import org.psu.miningmanager.dto.ExtractResponse;
 import org.psu.miningmanager.dto.Survey;
@@ -16,6 +17,7 @@ import jakarta.ws.rs.PathParam;
  */
 @Dependent
 @RegisterRestClient(configKey="spacetraders-api")
+@RegisterProvider(RateLimitResponseFilter.class)
 public interface SurveyClient {
 
 	@POST
@@ -0,0 +1,131 @@
+package org.psu.spacetraders.dto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Chooses how many units of each good to buy so that a trade makes as much
+ * profit as possible, without exceeding the ship's cargo space, the budget, or
+ * the most units of a good which can be bought in one transaction.
+ * <p>
+ * Every unit takes the same cargo space, so when the budget is not the limit
+ * buying the goods with the best margins first is optimal. When the budget is
+ * the limit, each credit spent is given a value which is taken off the margins,
+ * and the value is raised until the best purchase fits the budget. The best
+ * purchase allowing partial units lies between that purchase and the one before
+ * it, which spent too much. Rounding it down loses less than one unit of each
+ * good whose quantity differs between the two, usually two goods, and what is
+ * left of the budget and cargo space is then filled greedily.
+ */
+final class CargoPacker {
+
+	private CargoPacker() {
+	}
+
+	/**
+	 * @param margins  the profit made on each unit of each good
+	 * @param prices   the price of one unit of each good, must be positive
+	 * @param limits   the most units of each good which can be bought
+	 * @param capacity the most units which can be bought in total
+	 * @param budget   the most credits which can be spent in total
+	 * @return The number of units of each good to buy
+	 */
+	static int[] pack(final int[] margins, final int[] prices, final int[] limits, final int capacity,
+			final int budget) {
+		final int[] byMargin = fill(margins, prices, limits, capacity, 0);
+		if (cost(byMargin, prices) <= budget) {
+			return byMargin;
+		}
+
+		// The cheapest and most expensive solutions swap places at these budget prices
+		final List<Double> budgetPrices = new ArrayList<>();
+		for (int i = 0; i < margins.length; i++) {
+			budgetPrices.add((double) margins[i] / prices[i]);
+			for (int j = 0; j < i; j++) {
+				if (prices[i] != prices[j]) {
+					budgetPrices.add((double) (margins[i] - margins[j]) / (prices[i] - prices[j]));
+				}
+			}
+		}
+		final double[] breakpoints = budgetPrices.stream().mapToDouble(Double::doubleValue).filter(p -> p > 0)
+				.sorted().distinct().toArray();
+
+		// The solution for budget prices below the current breakpoint, which spends too much
+		int[] overBudget = byMargin;
+		for (int i = 0; i < breakpoints.length; i++) {
+			final double nextBudgetPrice = i + 1 < breakpoints.length ? (breakpoints[i] + breakpoints[i + 1]) / 2
+					: breakpoints[i] + 1;
+			final int[] underBudget = fill(margins, prices, limits, capacity, nextBudgetPrice);
+			final long underCost = cost(underBudget, prices);
+			if (underCost <= budget) {
+				// Spending exactly the budget lies between the two solutions
+				final double fraction = (double) (budget - underCost) / (cost(overBudget, prices) - underCost);
+				final int[] quantities = new int[margins.length];
+				for (int good = 0; good < margins.length; good++) {
+					quantities[good] = (int) Math
+							.floor(underBudget[good] + fraction * (overBudget[good] - underBudget[good]));
+				}
+				return topUp(quantities, margins, prices, limits, capacity, budget);
+			}
+			overBudget = underBudget;
+		}
+		// Not reachable, above the last breakpoint no good is worth its price
+		return new int[margins.length];
+	}
+
+	/**
+	 * @param budgetPrice the value of one credit, taken off the margin of each
+	 *                    credit spent
+	 * @return The quantities which make the most profit, less the value of the
+	 *         credits spent, ignoring the budget
+	 */
+	private static int[] fill(final int[] margins, final int[] prices, final int[] limits, final int capacity,
+			final double budgetPrice) {
+		final int[] quantities = new int[margins.length];
+		final List<Integer> order = IntStream.range(0, margins.length).boxed()
+				.sorted(Comparator.comparingDouble(good -> budgetPrice * prices[good] - margins[good])).toList();
+		int remainingCapacity = capacity;
+		for (final int good : order) {
+			if (margins[good] - budgetPrice * prices[good] <= 0) {
+				break;
+			}
+			quantities[good] = Math.min(limits[good], remainingCapacity);
+			remainingCapacity -= quantities[good];
+		}
+		return quantities;
+	}
+
+	/**
+	 * Buys more of the goods with the best margins while there is space and
+	 * budget left
+	 */
+	private static int[] topUp(final int[] quantities, final int[] margins, final int[] prices, final int[] limits,
+			final int capacity, final int budget) {
+		long remainingBudget = budget - cost(quantities, prices);
+		int remainingCapacity = capacity - IntStream.of(quantities).sum();
+		final List<Integer> order = IntStream.range(0, margins.length).boxed()
+				.sorted(Comparator.comparingInt(good -> -margins[good])).toList();
+		for (final int good : order) {
+			if (margins[good] <= 0) {
+				break;
+			}
+			final int extra = (int) Math.min(Math.min(limits[good] - quantities[good], remainingCapacity),
+					remainingBudget / prices[good]);
+			quantities[good] += extra;
+			remainingCapacity -= extra;
+			remainingBudget -= (long) extra * prices[good];
+		}
+		return quantities;
+	}
+
+	private static long cost(final int[] quantities, final int[] prices) {
+		long cost = 0;
+		for (int good = 0; good < quantities.length; good++) {
+			cost += (long) quantities[good] * prices[good];
+		}
+		return cost;
+	}
+
+}
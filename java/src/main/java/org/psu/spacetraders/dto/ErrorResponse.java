@@ -0,0 +1,19 @@
+package org.psu.spacetraders.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * The body of a rejected space traders API request
+ * @param error The reason the request was rejected
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ErrorResponse(ApiError error) {
+
+	/**
+	 * @param message A description of the error
+	 * @param code The space traders error code
+	 */
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public record ApiError(String message, int code) {}
+
+}
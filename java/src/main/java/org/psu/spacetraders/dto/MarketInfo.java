@@ -1,22 +1,27 @@
 package org.psu.spacetraders.dto;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * Encapsulates the products that a marketplace trades
  */
 @Data
-@AllArgsConstructor
 @RequiredArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class MarketInfo {
@@ -27,12 +32,65 @@ public class MarketInfo {
 	private List<Product> exchange;
 	private List<TradeGood> tradeGoods;
 
+	/**
+	 * Built from the lists above on first use, and dropped whenever one of them is
+	 * replaced
+	 */
+	@JsonIgnore
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private transient volatile ProductIndex index;
+
+	public MarketInfo(final String symbol, final List<Product> imports, final List<Product> exports,
+			final List<Product> exchange, final List<TradeGood> tradeGoods) {
+		this.symbol = symbol;
+		this.imports = imports;
+		this.exports = exports;
+		this.exchange = exchange;
+		this.tradeGoods = tradeGoods;
+	}
+
+	public void setImports(final List<Product> imports) {
+		this.imports = imports;
+		this.index = null;
+	}
+
+	public void setExports(final List<Product> exports) {
+		this.exports = exports;
+		this.index = null;
+	}
+
+	public void setExchange(final List<Product> exchange) {
+		this.exchange = exchange;
+		this.index = null;
+	}
+
+	public void setTradeGoods(final List<TradeGood> tradeGoods) {
+		this.tradeGoods = tradeGoods;
+		this.index = null;
+	}
+
+	/**
+	 * @param importingMarket the market the products would be sold at
+	 * @return The products exported here which the importing market imports
+	 */
 	public List<Product> getPotentialExports(final MarketInfo importingMarket) {
-		return this.exports.stream().filter(product -> importingMarket.getImports().contains(product)).toList();
+		return getIndex().getExportsImportedBy(importingMarket.getIndex());
 	}
 
 	public boolean sellsProduct(final Product product) {
-		return exchange.contains(product) || exports.contains(product) || imports.contains(product);
+		return getIndex().trades(product.getSymbol());
+	}
+
+	/**
+	 * @param productSymbol the symbol of a product
+	 * @return The prices of the product at this market, null if the product isn't
+	 *         traded here or prices are unknown
+	 */
+	public TradeGood getTradeGood(final String productSymbol) {
+		return getIndex().getTradeGood(productSymbol);
 	}
 
 	/**
@@ -48,8 +106,34 @@ public class MarketInfo {
 	 */
 	public List<TradeRequest> buildPurchaseRequest(final List<Product> productsToBuy, final int capacity,
 			final int totalCredits, final boolean knownRoute) {
+		return buildPurchaseRequest(productsToBuy, capacity, totalCredits, knownRoute, null);
+	}
+
+	/**
+	 * Finds the most profitable {@link TradeRequest}s at this market. When the
+	 * prices at the importing market are known, the goods are chosen to make the
+	 * most profit when sold there, otherwise the most expensive goods are bought
+	 * first. Makes at most one request per product, each within the product's
+	 * trade volume.
+	 *
+	 * @param productsToBuy   The products which can be bought
+	 * @param capacity        The total number of items to buy
+	 * @param totalCredits    the number of credits the user has, should not spend
+	 *                        more than half of their total
+	 * @param knownRoute      If the route is known, if not, just buy one of every
+	 *                        item
+	 * @param importingMarket the market the goods will be sold at, can be null
+	 * @return The {@link TradeRequest}s
+	 */
+	public List<TradeRequest> buildPurchaseRequest(final List<Product> productsToBuy, final int capacity,
+			final int totalCredits, final boolean knownRoute, final MarketInfo importingMarket) {
 		final Set<String> productSymbolsToBuy = productsToBuy.stream().map(Product::getSymbol)
 				.collect(Collectors.toSet());
+		if (knownRoute && importingMarket != null && importingMarket.getTradeGoods() != null) {
+			return buildMostProfitablePurchaseRequest(productSymbolsToBuy, capacity, totalCredits / 2,
+					importingMarket);
+		}
+
 		final List<TradeGood> sortedTradeGoods = this.tradeGoods.stream()
 				.filter(t -> productSymbolsToBuy.contains(t.getSymbol()))
 				// Sort by purchase price, negate so that the most expensive item is first
@@ -77,6 +161,33 @@ public class MarketInfo {
 		return output;
 	}
 
+	private List<TradeRequest> buildMostProfitablePurchaseRequest(final Set<String> productSymbolsToBuy,
+			final int capacity, final int budget, final MarketInfo importingMarket) {
+		final Map<String, Integer> sellPrices = importingMarket.getTradeGoods().stream()
+				.collect(Collectors.toMap(TradeGood::getSymbol, TradeGood::getSellPrice, (p1, p2) -> p1));
+		// Only goods which sell for more than they cost are worth carrying, best margin first
+		final List<TradeGood> goods = this.tradeGoods.stream()
+				.filter(t -> productSymbolsToBuy.contains(t.getSymbol()) && sellPrices.containsKey(t.getSymbol()))
+				.filter(t -> sellPrices.get(t.getSymbol()) > t.getPurchasePrice())
+				.sorted(Comparator.comparingInt(t -> t.getPurchasePrice() - sellPrices.get(t.getSymbol())))
+				.toList();
+
+		final int[] margins = goods.stream().mapToInt(t -> sellPrices.get(t.getSymbol()) - t.getPurchasePrice())
+				.toArray();
+		final int[] prices = goods.stream().mapToInt(TradeGood::getPurchasePrice).toArray();
+		final int[] limits = goods.stream().mapToInt(TradeGood::getTradeVolume).toArray();
+		final int[] quantities = CargoPacker.pack(margins, prices, limits, capacity, budget);
+
+		final List<TradeRequest> output = new ArrayList<>();
+		for (int i = 0; i < goods.size(); i++) {
+			// Every request is an api call, so don't make empty ones
+			if (quantities[i] > 0) {
+				output.add(new TradeRequest(goods.get(i).getSymbol(), quantities[i]));
+			}
+		}
+		return output;
+	}
+
 	/**
 	 * @param cargoItems the {@link CargoItem}s which are in the ship's cargo that
 	 *                   are to be sold
@@ -87,13 +198,11 @@ public class MarketInfo {
 		final List<TradeRequest> output = new ArrayList<>();
 		for (CargoItem item : cargoItems) {
 
-			final Optional<TradeGood> optionalTradeGood = this.tradeGoods.stream()
-					.filter(t -> item.getSymbol().equals(t.getSymbol())).findFirst();
-			if (optionalTradeGood.isEmpty()) {
+			final TradeGood tradeGood = getTradeGood(item.getSymbol());
+			if (tradeGood == null) {
 				// Item in cargo isn't traded here, skip
 				continue;
 			}
-			final TradeGood tradeGood = optionalTradeGood.get();
 
 			// Floor division, the number of full requests to make
 			final int numFullRequestsToMake = item.getUnits() / tradeGood.getTradeVolume();
@@ -110,4 +219,14 @@ public class MarketInfo {
 		return output;
 	}
 
+	private ProductIndex getIndex() {
+		ProductIndex current = index;
+		if (current == null) {
+			// Racing threads build identical indexes, so either may win
+			current = new ProductIndex(imports, exports, exchange, tradeGoods);
+			index = current;
+		}
+		return current;
+	}
+
 }
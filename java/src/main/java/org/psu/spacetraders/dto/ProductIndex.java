@@ -0,0 +1,137 @@
+package org.psu.spacetraders.dto;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The products traded at a market, indexed by product id. Every product symbol
+ * is interned to a small dense id, so which products a market trades are kept
+ * as bit sets and its prices as an array, making lookups constant time and
+ * comparing two markets a bit set intersection.
+ */
+final class ProductIndex {
+
+	private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+	private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+	private final BitSet imports;
+	private final BitSet exports;
+	private final BitSet traded;
+	private final Product[] productsById;
+	private final TradeGood[] tradeGoodsById;
+
+	ProductIndex(final List<Product> imports, final List<Product> exports, final List<Product> exchange,
+			final List<TradeGood> tradeGoods) {
+		this.imports = new BitSet();
+		this.exports = new BitSet();
+		final BitSet exchanged = new BitSet();
+		final int size = Math.max(addAll(imports, this.imports),
+				Math.max(addAll(exports, this.exports), addAll(exchange, exchanged)));
+		this.traded = new BitSet();
+		this.traded.or(this.imports);
+		this.traded.or(this.exports);
+		this.traded.or(exchanged);
+
+		this.productsById = new Product[size];
+		addProducts(imports);
+		addProducts(exports);
+		addProducts(exchange);
+
+		if (tradeGoods == null) {
+			this.tradeGoodsById = new TradeGood[0];
+			return;
+		}
+		int tradeGoodsSize = 0;
+		for (final TradeGood good : tradeGoods) {
+			tradeGoodsSize = Math.max(tradeGoodsSize, intern(good.getSymbol()) + 1);
+		}
+		this.tradeGoodsById = new TradeGood[tradeGoodsSize];
+		for (final TradeGood good : tradeGoods) {
+			final int id = intern(good.getSymbol());
+			// Keep the first listing of a product, as a linear search would find
+			if (tradeGoodsById[id] == null) {
+				tradeGoodsById[id] = good;
+			}
+		}
+	}
+
+	/**
+	 * @param symbol a product symbol
+	 * @return True if the market imports, exports or exchanges the product
+	 */
+	boolean trades(final String symbol) {
+		final int id = find(symbol);
+		return id >= 0 && traded.get(id);
+	}
+
+	/**
+	 * @param symbol a product symbol
+	 * @return The market's prices for the product, null if they are not known
+	 */
+	TradeGood getTradeGood(final String symbol) {
+		final int id = find(symbol);
+		return id >= 0 && id < tradeGoodsById.length ? tradeGoodsById[id] : null;
+	}
+
+	/**
+	 * @param importingMarket the index of another market
+	 * @return The products exported here and imported by the other market
+	 */
+	List<Product> getExportsImportedBy(final ProductIndex importingMarket) {
+		final BitSet common = (BitSet) exports.clone();
+		common.and(importingMarket.imports);
+		final List<Product> output = new ArrayList<>(common.cardinality());
+		for (int id = common.nextSetBit(0); id >= 0; id = common.nextSetBit(id + 1)) {
+			output.add(productsById[id]);
+		}
+		return output;
+	}
+
+	/**
+	 * @return The id of the product, assigning the next free id to new products
+	 */
+	static int intern(final String symbol) {
+		return IDS.computeIfAbsent(symbol, s -> NEXT_ID.getAndIncrement());
+	}
+
+	/**
+	 * @return The id of the product, -1 if no market has listed it
+	 */
+	static int find(final String symbol) {
+		final Integer id = symbol == null ? null : IDS.get(symbol);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * @return One more than the largest id added
+	 */
+	private static int addAll(final List<Product> products, final BitSet bits) {
+		int size = 0;
+		if (products == null) {
+			return size;
+		}
+		for (final Product product : products) {
+			final int id = intern(product.getSymbol());
+			bits.set(id);
+			size = Math.max(size, id + 1);
+		}
+		return size;
+	}
+
+	private void addProducts(final List<Product> products) {
+		if (products == null) {
+			return;
+		}
+		for (final Product product : products) {
+			final int id = find(product.getSymbol());
+			if (productsById[id] == null) {
+				productsById[id] = product;
+			}
+		}
+	}
+
+}
@@ -25,6 +25,7 @@ public class Ship {
 	private List<ShipComponent> mounts;
 	private FuelStatus fuel;
 	private Cargo cargo;
+	private ShipEngine engine;
 
 	/**
 	 * @param waypoint a {@link Waypoint}
@@ -0,0 +1,11 @@
+package org.psu.spacetraders.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * The engine of a ship
+ * @param symbol The engine's symbol
+ * @param speed The engine's speed, faster engines make shorter flights
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ShipEngine(String symbol, int speed) {}
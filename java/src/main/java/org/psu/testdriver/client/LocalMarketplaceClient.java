@@ -75,8 +75,7 @@ public class LocalMarketplaceClient implements MarketplaceClient {
 				.setUnits(ship.getCargo().getInventory().stream().collect(Collectors.summingInt(CargoItem::getUnits)));
 
 		// Update the agent's credit total
-		final TradeGood tradeGood = market.getTradeGoods().stream()
-				.filter(t -> t.getSymbol().equals(tradeRequest.getSymbol())).findFirst().get();
+		final TradeGood tradeGood = market.getTradeGood(tradeRequest.getSymbol());
 		final int sellPrice = tradeGood.getPurchasePrice() * tradeRequest.getUnits();
 		final Agent agent = agentManager.getAgent();
 		final int newCreditTotal = agent.getCredits() + sellPrice;
@@ -118,8 +117,7 @@ public class LocalMarketplaceClient implements MarketplaceClient {
 				.setUnits(ship.getCargo().getInventory().stream().collect(Collectors.summingInt(CargoItem::getUnits)));
 
 		// Update the agent's credit total
-		final TradeGood tradeGood = market.getTradeGoods().stream()
-				.filter(t -> t.getSymbol().equals(tradeRequest.getSymbol())).findFirst().get();
+		final TradeGood tradeGood = market.getTradeGood(tradeRequest.getSymbol());
 		final int sellPrice = tradeGood.getSellPrice() * tradeRequest.getUnits();
 		final Agent agent = agentManager.getAgent();
 		final int newCreditTotal = agent.getCredits() - sellPrice;
@@ -149,8 +147,7 @@ public class LocalMarketplaceClient implements MarketplaceClient {
 		final int unitsToRefuel = currentFuelStatus.capacity() - currentFuelStatus.current();
 		// Each unit of fuel is 100 units in the fuel tank, need to round up to the nearest unit of fuel
 		final int unitsToPurchase = (unitsToRefuel / 100) + 1;
-		final TradeGood tradeGood = market.getTradeGoods().stream()
-				.filter(t -> t.getSymbol().equals(Product.FUEL.getSymbol())).findFirst().get();
+		final TradeGood tradeGood = market.getTradeGood(Product.FUEL.getSymbol());
 		final int sellPrice = tradeGood.getSellPrice() * unitsToPurchase;
 		final Agent agent = agentManager.getAgent();
 		final int newCreditTotal = agent.getCredits() - sellPrice;
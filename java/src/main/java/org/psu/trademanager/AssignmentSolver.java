@@ -0,0 +1,99 @@
+package org.psu.trademanager;
+
+import java.util.Arrays;
+
+/**
+ * Solves the assignment problem using the Hungarian algorithm
+ */
+class AssignmentSolver {
+
+	// Assignments which are not allowed cost more than any allowed assignment
+	private static final double FORBIDDEN_COST = 1e15;
+
+	private AssignmentSolver() {
+	}
+
+	/**
+	 * @param values the value of assigning each row to each column, there must be
+	 *               at least as many columns as rows. Assignments which are not
+	 *               allowed have a value of negative infinity.
+	 * @return The column assigned to each row, such that no two rows share a column
+	 *         and the total value is as large as possible
+	 */
+	static int[] maximize(final double[][] values) {
+		final int rows = values.length;
+		if (rows == 0) {
+			return new int[0];
+		}
+		final int columns = values[0].length;
+		if (columns < rows) {
+			throw new IllegalArgumentException("Cannot assign " + rows + " rows to " + columns + " columns");
+		}
+
+		// Potentials for rows and columns, with 1 based indices and column 0 as a placeholder
+		final double[] rowPotential = new double[rows + 1];
+		final double[] columnPotential = new double[columns + 1];
+		final int[] rowOfColumn = new int[columns + 1];
+		final int[] previousColumn = new int[columns + 1];
+		final double[] minSlack = new double[columns + 1];
+		final boolean[] visited = new boolean[columns + 1];
+
+		for (int row = 1; row <= rows; row++) {
+			rowOfColumn[0] = row;
+			int column = 0;
+			Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+			Arrays.fill(visited, false);
+			do {
+				visited[column] = true;
+				final int currentRow = rowOfColumn[column];
+				double delta = Double.POSITIVE_INFINITY;
+				int nextColumn = 0;
+				for (int j = 1; j <= columns; j++) {
+					if (visited[j]) {
+						continue;
+					}
+					final double slack = cost(values, currentRow - 1, j - 1) - rowPotential[currentRow]
+							- columnPotential[j];
+					if (slack < minSlack[j]) {
+						minSlack[j] = slack;
+						previousColumn[j] = column;
+					}
+					if (minSlack[j] < delta) {
+						delta = minSlack[j];
+						nextColumn = j;
+					}
+				}
+				for (int j = 0; j <= columns; j++) {
+					if (visited[j]) {
+						rowPotential[rowOfColumn[j]] += delta;
+						columnPotential[j] -= delta;
+					} else {
+						minSlack[j] -= delta;
+					}
+				}
+				column = nextColumn;
+			} while (rowOfColumn[column] != 0);
+
+			// Flip the augmenting path
+			do {
+				final int previous = previousColumn[column];
+				rowOfColumn[column] = rowOfColumn[previous];
+				column = previous;
+			} while (column != 0);
+		}
+
+		final int[] assignment = new int[rows];
+		for (int j = 1; j <= columns; j++) {
+			if (rowOfColumn[j] != 0) {
+				assignment[rowOfColumn[j] - 1] = j - 1;
+			}
+		}
+		return assignment;
+	}
+
+	private static double cost(final double[][] values, final int row, final int column) {
+		final double value = values[row][column];
+		return value == Double.NEGATIVE_INFINITY ? FORBIDDEN_COST : -value;
+	}
+
+}
@@ -0,0 +1,190 @@
+package org.psu.trademanager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.psu.spacetraders.api.RequestPriority;
+import org.psu.spacetraders.api.RequestThrottler;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.ShipNavigation;
+import org.psu.spacetraders.dto.ShipNavigation.Status;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.trademanager.TradeRouteIndex.IndexedRoute;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+
+/**
+ * Refreshes market prices in the background using API calls which would
+ * otherwise go unused. Markets are refreshed in order of how stale their prices
+ * are and how much the routes through them are worth.
+ * <p>
+ * Prices are only visible while one of our ships is at the market, so only
+ * those markets are refreshed.
+ */
+@JBossLog
+@ApplicationScoped
+public class MarketRefresher {
+
+	/**
+	 * Markets whose prices have never been seen are treated as this stale
+	 */
+	static final Duration NEVER_PRICED_AGE = Duration.ofDays(1);
+
+	private final Duration interval;
+	private final Duration minimumAge;
+	private final RequestThrottler throttler;
+	private final MarketplaceManager marketplaceManager;
+	private final TradeRouteIndex tradeRouteIndex;
+
+	private final Set<Ship> ships;
+	private ScheduledExecutorService executor;
+
+	@Inject
+	public MarketRefresher(@ConfigProperty(name = "app.market-refresh.interval-ms") final long intervalMs,
+			@ConfigProperty(name = "app.market-refresh.minimum-age-s") final long minimumAgeSeconds,
+			final RequestThrottler throttler, final MarketplaceManager marketplaceManager,
+			final TradeRouteIndex tradeRouteIndex) {
+		this.interval = Duration.ofMillis(intervalMs);
+		this.minimumAge = Duration.ofSeconds(minimumAgeSeconds);
+		this.throttler = throttler;
+		this.marketplaceManager = marketplaceManager;
+		this.tradeRouteIndex = tradeRouteIndex;
+		// Ships are mutable lombok objects, so track them by identity rather than equality
+		this.ships = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+	}
+
+	/**
+	 * Begins refreshing markets on a background thread
+	 *
+	 * @param fleet the ships whose locations determine which markets can be
+	 *              refreshed
+	 */
+	public synchronized void start(final Collection<Ship> fleet) {
+		ships.addAll(fleet);
+		if (executor != null) {
+			return;
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "market-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::refreshSafely, interval.toMillis(), interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+		log.infof("Refreshing markets in the background every %s", interval);
+	}
+
+	/**
+	 * @param ship a newly purchased ship
+	 */
+	public void addShip(final Ship ship) {
+		ships.add(ship);
+	}
+
+	/**
+	 * Refreshes the most valuable stale market, as long as no other requests are
+	 * waiting for the API
+	 *
+	 * @return The waypoint of the refreshed market, null if nothing was refreshed
+	 */
+	Waypoint refreshMarket() {
+		if (throttler.getPendingRequests() > 0) {
+			// Every permit is already spoken for
+			return null;
+		}
+		final Waypoint waypoint = chooseMarket(Instant.now());
+		if (waypoint != null) {
+			log.debugf("Refreshing market at %s", waypoint.getSymbol());
+			marketplaceManager.updateMarketInfo(waypoint, RequestPriority.BACKGROUND);
+		}
+		return waypoint;
+	}
+
+	/**
+	 * @param now the current time
+	 * @return The market with a ship present whose staleness weighted by value is
+	 *         the highest, null if no market needs refreshing
+	 */
+	Waypoint chooseMarket(final Instant now) {
+		final Set<String> occupiedWaypoints = getOccupiedWaypoints();
+		if (occupiedWaypoints.isEmpty()) {
+			return null;
+		}
+		final Map<Waypoint, Double> values = getMarketValues();
+
+		Waypoint bestWaypoint = null;
+		double bestPriority = 0;
+		for (final Waypoint waypoint : marketplaceManager.getAllMarketInfo().keySet()) {
+			if (!occupiedWaypoints.contains(waypoint.getSymbol())) {
+				continue;
+			}
+			final Instant pricesUpdated = marketplaceManager.getPricesUpdated(waypoint);
+			final Duration age = pricesUpdated == null ? NEVER_PRICED_AGE : Duration.between(pricesUpdated, now);
+			if (age.compareTo(minimumAge) < 0) {
+				continue;
+			}
+			final double priority = values.getOrDefault(waypoint, 1.0) * age.toMillis();
+			if (priority > bestPriority) {
+				bestWaypoint = waypoint;
+				bestPriority = priority;
+			}
+		}
+		return bestWaypoint;
+	}
+
+	/**
+	 * The value of a market is the per unit profit of every route which starts or
+	 * ends there. Routes whose profit is unknown are valued like the best known
+	 * route, since pricing them may reveal a better one.
+	 *
+	 * @return The value of each market on at least one route, every market is
+	 *         worth at least 1
+	 */
+	public Map<Waypoint, Double> getMarketValues() {
+		final List<IndexedRoute> routes = tradeRouteIndex.getRoutes();
+		final int bestProfit = routes.stream().filter(route -> route.profit() != null)
+				.mapToInt(route -> route.profit().profit()).max().orElse(0);
+
+		final Map<Waypoint, Double> values = new HashMap<>();
+		for (final IndexedRoute route : routes) {
+			final int profit = route.profit() == null ? bestProfit : route.profit().profit();
+			final double value = Math.max(profit, 0);
+			values.merge(route.exportWaypoint(), value, Double::sum);
+			values.merge(route.importWaypoint(), value, Double::sum);
+		}
+		values.replaceAll((waypoint, value) -> value + 1);
+		return values;
+	}
+
+	private Set<String> getOccupiedWaypoints() {
+		synchronized (ships) {
+			return ships.stream().map(Ship::getNav)
+					.filter(nav -> nav != null && nav.getStatus() != Status.IN_TRANSIT)
+					.map(ShipNavigation::getWaypointSymbol).collect(Collectors.toSet());
+		}
+	}
+
+	private void refreshSafely() {
+		try {
+			refreshMarket();
+		} catch (RuntimeException e) {
+			// An exception would cancel all future refreshes
+			log.warnf(e, "Unable to refresh market");
+		}
+	}
+
+}
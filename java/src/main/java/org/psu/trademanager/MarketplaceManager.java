@@ -1,21 +1,27 @@
 package org.psu.trademanager;
 
-import java.util.Comparator;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Deque;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 
 import org.psu.navigation.NavigationPath;
 import org.psu.navigation.RefuelPathCalculator;
+import org.psu.navigation.WaypointGrid;
+import org.psu.navigation.WaypointMap;
+import org.psu.navigation.WaypointRegistry;
 import org.psu.spacetraders.api.ClientProducer;
 import org.psu.spacetraders.api.MarketplaceClient;
+import org.psu.spacetraders.api.RequestPriority;
 import org.psu.spacetraders.api.RequestThrottler;
 import org.psu.spacetraders.dto.MarketInfo;
 import org.psu.spacetraders.dto.Product;
 import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.TradeGood;
 import org.psu.spacetraders.dto.Waypoint;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -30,17 +36,28 @@ public class MarketplaceManager {
 	private RequestThrottler throttler;
 	private MarketplaceClient marketClient;
 	private RefuelPathCalculator pathCalculator;
+	private TradeRouteIndex tradeRouteIndex;
+	private PriceHistoryStore priceHistoryStore;
 
-	private Map<Waypoint, MarketInfo> marketData;
+	private WaypointRegistry waypointRegistry;
+	private WaypointMap<MarketInfo> marketData;
+	private WaypointMap<Instant> priceUpdateTimes;
+	private volatile WaypointGrid marketGrid;
 
 	@Inject
 	public MarketplaceManager(final RequestThrottler throttler, final ClientProducer clientProducer,
-			final RefuelPathCalculator pathCalculator) {
+			final RefuelPathCalculator pathCalculator, final TradeRouteIndex tradeRouteIndex,
+			final PriceHistoryStore priceHistoryStore, final WaypointRegistry waypointRegistry) {
 		this.throttler = throttler;
 		this.marketClient = clientProducer.produceMarketplaceClient();
 		this.pathCalculator = pathCalculator;
+		this.tradeRouteIndex = tradeRouteIndex;
+		this.priceHistoryStore = priceHistoryStore;
+		this.waypointRegistry = waypointRegistry;
 
-		this.marketData = new HashMap<>();
+		// Ship jobs may update market data from several threads at once
+		this.marketData = new WaypointMap<>(waypointRegistry);
+		this.priceUpdateTimes = new WaypointMap<>(waypointRegistry);
 	}
 
 	/**
@@ -50,6 +67,7 @@ public class MarketplaceManager {
 	 */
 	public void updateMarketData(final Map<Waypoint, MarketInfo> currentInfo) {
 		marketData.putAll(currentInfo);
+		currentInfo.forEach(this::reportMarketInfo);
 	}
 
 	/**
@@ -59,9 +77,21 @@ public class MarketplaceManager {
 	 *         method will update the cached value for this waypoint
 	 */
 	public MarketInfo updateMarketInfo(final Waypoint waypoint) {
-		final MarketInfo marketInfo = throttler.throttle(
+		return updateMarketInfo(waypoint, RequestPriority.NORMAL);
+	}
+
+	/**
+	 * @param waypoint a {@link Waypoint}
+	 * @param priority the priority of the request to the space traders api
+	 * @return the {@link MarketInfo} for this waypoint pulled directly from the
+	 *         space traders api, this method will not use the cached result. This
+	 *         method will update the cached value for this waypoint
+	 */
+	public MarketInfo updateMarketInfo(final Waypoint waypoint, final RequestPriority priority) {
+		final MarketInfo marketInfo = throttler.throttle(priority,
 				() -> marketClient.getMarketInfo(waypoint.getSystemSymbol(), waypoint.getSymbol()).getData());
 		marketData.put(waypoint, marketInfo);
+		reportMarketInfo(waypoint, marketInfo);
 		return marketInfo;
 	}
 
@@ -83,8 +113,11 @@ public class MarketplaceManager {
 	 * @apiNote It is recommended to use getMarketInfo when possible
 	 */
 	public Optional<Entry<Waypoint, MarketInfo>> getMarketInfoById(final String waypointId) {
-		return this.marketData.entrySet().stream().filter(entry -> entry.getKey().getSymbol().equals(waypointId))
-				.findAny();
+		final MarketInfo marketInfo = this.marketData.get(waypointId);
+		if (marketInfo == null) {
+			return Optional.empty();
+		}
+		return Optional.of(Map.entry(waypointRegistry.getWaypoint(waypointId), marketInfo));
 	}
 
 	/**
@@ -94,6 +127,15 @@ public class MarketplaceManager {
 		return marketData;
 	}
 
+	/**
+	 * @param waypoint a {@link Waypoint}
+	 * @return the last time prices were seen at this waypoint, null if they never
+	 *         have been
+	 */
+	public Instant getPricesUpdated(final Waypoint waypoint) {
+		return priceUpdateTimes.get(waypoint);
+	}
+
 	/**
 	 * @param ship    The {@link Ship} which has the product
 	 * @param product The {@link Product} being sold
@@ -101,9 +143,100 @@ public class MarketplaceManager {
 	 *         product
 	 */
 	public Optional<Deque<Waypoint>> getClosestTradingWaypointPath(final Ship ship, final Product product) {
-		return this.marketData.entrySet().stream().filter(entry -> entry.getValue().sellsProduct(product))
-				.map(entry -> this.pathCalculator.determineShortestRoute(ship, entry.getKey())).filter(Objects::nonNull)
-				.min(Comparator.comparing(path -> path.getLength())).map(NavigationPath::getWaypoints);
+		final NavigationPath path = getMarketGrid().findShortestPath(ship,
+				waypoint -> this.marketData.get(waypoint).sellsProduct(product),
+				waypoint -> this.pathCalculator.determineShortestRoute(ship, waypoint));
+		return Optional.ofNullable(path).map(NavigationPath::getWaypoints);
+	}
+
+	/**
+	 * @param ship    The {@link Ship} which has the product
+	 * @param product The {@link Product} being sold
+	 * @return The highest known price paid for the product at a market the ship
+	 *         can reach, 0 if there is none
+	 */
+	public int getBestSellPrice(final Ship ship, final Product product) {
+		return findBestSale(product, market -> this.pathCalculator.determineShortestRoute(ship, market))
+				.map(Sale::price).orElse(0);
+	}
+
+	/**
+	 * @param origin       The {@link Waypoint} the product would be carried from
+	 * @param fuelCapacity The fuel capacity of the ship carrying it, which is
+	 *                     assumed to start with a full tank
+	 * @param product      The {@link Product} being sold
+	 * @return The market reachable from the origin which pays the most for the
+	 *         product, empty if there is none
+	 */
+	public Optional<Sale> getBestSale(final Waypoint origin, final int fuelCapacity, final Product product) {
+		return findBestSale(product,
+				market -> this.pathCalculator.determineShortestRoute(origin, market, fuelCapacity, fuelCapacity));
+	}
+
+	private Optional<Sale> findBestSale(final Product product, final Function<Waypoint, NavigationPath> pathFinder) {
+		final List<Entry<Waypoint, Integer>> prices = new ArrayList<>();
+		for (final Entry<Waypoint, MarketInfo> market : this.marketData.entrySet()) {
+			final TradeGood tradeGood = market.getValue().getTradeGood(product.getSymbol());
+			if (tradeGood != null) {
+				prices.add(Map.entry(market.getKey(), tradeGood.getSellPrice()));
+			}
+		}
+		// Only find paths until one of the best paying markets is reachable
+		prices.sort(Entry.<Waypoint, Integer>comparingByValue().reversed());
+		for (final Entry<Waypoint, Integer> price : prices) {
+			final NavigationPath path = pathFinder.apply(price.getKey());
+			if (path != null) {
+				return Optional.of(new Sale(price.getKey(), price.getValue(), path));
+			}
+		}
+		return Optional.empty();
+	}
+
+	private WaypointGrid getMarketGrid() {
+		WaypointGrid grid = this.marketGrid;
+		// Markets are never removed, so a new market is the only way the count changes
+		if (grid == null || grid.size() != this.marketData.size()) {
+			grid = new WaypointGrid(this.marketData.keySet());
+			this.marketGrid = grid;
+		}
+		return grid;
+	}
+
+	/**
+	 * Passes new market info on to the trade route index and the price history,
+	 * and the price of fuel at this waypoint on to the path calculator
+	 */
+	private void reportMarketInfo(final Waypoint waypoint, final MarketInfo marketInfo) {
+		final Instant now = Instant.now();
+		if (marketInfo != null && marketInfo.getTradeGoods() != null) {
+			priceUpdateTimes.put(waypoint, now);
+		}
+		tradeRouteIndex.updateMarket(waypoint, marketInfo);
+		priceHistoryStore.record(waypoint, marketInfo, now);
+		reportFuelPrice(waypoint, marketInfo);
+	}
+
+	/**
+	 * Prices are only known when a ship is present at the market
+	 */
+	private void reportFuelPrice(final Waypoint waypoint, final MarketInfo marketInfo) {
+		if (marketInfo == null) {
+			return;
+		}
+		final TradeGood fuel = marketInfo.getTradeGood(Product.FUEL.getSymbol());
+		if (fuel != null) {
+			pathCalculator.updateFuelPrice(waypoint.getSymbol(), fuel.getPurchasePrice());
+		}
+	}
+
+	/**
+	 * A market to sell a product at
+	 *
+	 * @param market the market's waypoint
+	 * @param price  the price the market pays for each unit
+	 * @param path   the path to the market
+	 */
+	public record Sale(Waypoint market, int price, NavigationPath path) {
 	}
 
 }
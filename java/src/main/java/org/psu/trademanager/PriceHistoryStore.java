@@ -0,0 +1,127 @@
+package org.psu.trademanager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.psu.spacetraders.dto.MarketInfo;
+import org.psu.spacetraders.dto.TradeGood;
+import org.psu.spacetraders.dto.Waypoint;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Keeps the recent price history of every product at every market, so that
+ * decisions can be based on how prices are trending rather than only on the
+ * latest prices
+ */
+@ApplicationScoped
+public class PriceHistoryStore {
+
+	private final int capacity;
+	private final double smoothing;
+	private final Map<String, PriceSeries> seriesByKey;
+
+	@Inject
+	public PriceHistoryStore(@ConfigProperty(name = "app.price-history.capacity") final int capacity,
+			@ConfigProperty(name = "app.price-history.smoothing") final double smoothing) {
+		this.capacity = capacity;
+		this.smoothing = smoothing;
+		// Market updates arrive from several ship jobs at once
+		this.seriesByKey = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Records the prices of every good at a market
+	 *
+	 * @param waypoint   the market's waypoint
+	 * @param marketInfo the market's info, ignored if it has no prices
+	 * @param time       when the prices were seen
+	 */
+	void record(final Waypoint waypoint, final MarketInfo marketInfo, final Instant time) {
+		if (marketInfo == null || marketInfo.getTradeGoods() == null) {
+			return;
+		}
+		for (final TradeGood good : marketInfo.getTradeGoods()) {
+			seriesByKey.computeIfAbsent(key(waypoint.getSymbol(), good.getSymbol()),
+					k -> new PriceSeries(capacity, smoothing))
+					.append(time.toEpochMilli(), good.getPurchasePrice(), good.getSellPrice(), good.getTradeVolume());
+		}
+	}
+
+	/**
+	 * @param waypoint the market's waypoint
+	 * @param product  the symbol of the product
+	 * @param window   how far back from now to look
+	 * @return The statistics of the product's prices at the market within the
+	 *         window, or null if none were recorded
+	 */
+	public PriceStats getStats(final Waypoint waypoint, final String product, final Duration window) {
+		return getStats(waypoint, product, Instant.now().minus(window));
+	}
+
+	/**
+	 * @param waypoint the market's waypoint
+	 * @param product  the symbol of the product
+	 * @param since    the earliest time to include
+	 * @return The statistics of the product's prices at the market since the
+	 *         time, or null if none were recorded
+	 */
+	public PriceStats getStats(final Waypoint waypoint, final String product, final Instant since) {
+		final PriceSeries series = seriesByKey.get(key(waypoint.getSymbol(), product));
+		return series == null ? null : series.getStats(since.toEpochMilli());
+	}
+
+	/**
+	 * @param waypoint the market's waypoint
+	 * @param product  the symbol of the product
+	 * @return The number of prices held for the product at the market
+	 */
+	public int getSampleCount(final Waypoint waypoint, final String product) {
+		final PriceSeries series = seriesByKey.get(key(waypoint.getSymbol(), product));
+		return series == null ? 0 : series.size();
+	}
+
+	private static String key(final String waypointSymbol, final String product) {
+		return waypointSymbol + "/" + product;
+	}
+
+	/**
+	 * The prices of a product at a market over a window of time
+	 *
+	 * @param samples       the number of prices recorded in the window
+	 * @param firstTime     when the oldest price in the window was seen, in
+	 *                      epoch milliseconds
+	 * @param lastTime      when the newest price in the window was seen, in epoch
+	 *                      milliseconds
+	 * @param purchasePrice the price to buy one unit
+	 * @param sellPrice     the price one unit sells for
+	 * @param tradeVolume   the average most units traded in one transaction
+	 */
+	public record PriceStats(int samples, long firstTime, long lastTime, PriceRange purchasePrice,
+			PriceRange sellPrice, double tradeVolume) {
+	}
+
+	/**
+	 * @param latest        the newest price
+	 * @param min           the lowest price
+	 * @param max           the highest price
+	 * @param movingAverage the exponentially weighted moving average of the
+	 *                      prices, weighting the newest most
+	 */
+	public record PriceRange(int latest, int min, int max, double movingAverage) {
+
+		/**
+		 * @return How far the latest price is above its moving average, as a fraction
+		 *         of the average
+		 */
+		public double trend() {
+			return movingAverage == 0 ? 0 : (latest - movingAverage) / movingAverage;
+		}
+
+	}
+
+}
@@ -0,0 +1,161 @@
+package org.psu.trademanager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.psu.spacetraders.dto.MarketInfo;
+import org.psu.spacetraders.dto.TradeGood;
+import org.psu.spacetraders.dto.Transaction;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Learns how trades move market prices. Each transaction is charged a single
+ * price per unit, and the price moves after it, so consecutive transactions of
+ * the same product at the same market show how much each unit traded moved the
+ * price. Prices are modelled as moving by a constant factor for every unit
+ * traded, fitted with an exponentially weighted average of the observed log
+ * price change per unit.
+ */
+@ApplicationScoped
+public class PriceImpactModel {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final double smoothing;
+	private final long batchWindowMillis;
+
+	// The model state for each market, product and trade type, indexed by the ids in idsByKey
+	private final Map<String, Integer> idsByKey;
+	private double[] impactPerUnit;
+	private int[] samples;
+	private double[] lastPrice;
+	private int[] lastUnits;
+	private long[] lastTradeMillis;
+
+	@Inject
+	public PriceImpactModel(@ConfigProperty(name = "app.price-impact.smoothing") final double smoothing,
+			@ConfigProperty(name = "app.price-impact.batch-window-ms") final long batchWindowMillis) {
+		this.smoothing = smoothing;
+		this.batchWindowMillis = batchWindowMillis;
+		this.idsByKey = new HashMap<>();
+		this.impactPerUnit = new double[INITIAL_CAPACITY];
+		this.samples = new int[INITIAL_CAPACITY];
+		this.lastPrice = new double[INITIAL_CAPACITY];
+		this.lastUnits = new int[INITIAL_CAPACITY];
+		this.lastTradeMillis = new long[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Records a completed transaction
+	 *
+	 * @param product     the symbol of the product traded
+	 * @param type        whether the product was bought or sold
+	 * @param transaction the transaction, ignored if null or empty
+	 */
+	public void recordTrade(final String product, final TradeType type, final Transaction transaction) {
+		if (transaction == null || transaction.getUnits() <= 0 || transaction.getTotalPrice() <= 0) {
+			return;
+		}
+		recordTrade(transaction.getWaypointSymbol(), product, type,
+				(double) transaction.getTotalPrice() / transaction.getUnits(), transaction.getUnits(),
+				System.currentTimeMillis());
+	}
+
+	synchronized void recordTrade(final String market, final String product, final TradeType type,
+			final double unitPrice, final int units, final long tradeMillis) {
+		final int id = getOrCreateId(market, product, type);
+		// Trades far apart in time also include the market drifting back, so only compare trades in the same batch
+		if (lastUnits[id] > 0 && tradeMillis - lastTradeMillis[id] <= batchWindowMillis) {
+			final double observedImpact = Math.log(unitPrice / lastPrice[id]) / lastUnits[id];
+			impactPerUnit[id] = samples[id] == 0 ? observedImpact
+					: impactPerUnit[id] + smoothing * (observedImpact - impactPerUnit[id]);
+			samples[id]++;
+		}
+		lastPrice[id] = unitPrice;
+		lastUnits[id] = units;
+		lastTradeMillis[id] = tradeMillis;
+	}
+
+	/**
+	 * @param market      the symbol of the market's waypoint
+	 * @param product     the symbol of the product
+	 * @param type        whether the product is being bought or sold
+	 * @param quotedPrice the market's current price for one unit
+	 * @param tradeVolume the most units which can be traded in one transaction
+	 * @param units       the number of units to trade
+	 * @return The expected average price of each unit, when the units are traded
+	 *         in as few transactions as possible. The quoted price if nothing
+	 *         has been learned about the product at this market.
+	 */
+	public synchronized double expectedPrice(final String market, final String product, final TradeType type,
+			final int quotedPrice, final int tradeVolume, final int units) {
+		final Integer id = idsByKey.get(key(market, product, type));
+		if (id == null || samples[id] == 0 || units <= 0) {
+			return quotedPrice;
+		}
+		final int volume = Math.max(1, tradeVolume);
+		double totalPrice = 0;
+		double price = quotedPrice;
+		for (int remaining = units; remaining > 0; remaining -= volume) {
+			final int transactionUnits = Math.min(volume, remaining);
+			totalPrice += transactionUnits * price;
+			price *= Math.exp(impactPerUnit[id] * transactionUnits);
+		}
+		return totalPrice / units;
+	}
+
+	/**
+	 * @param market a market
+	 * @param units  the number of units of each good which would be sold
+	 * @return A copy of the market with each good's sell price replaced by the
+	 *         expected average price of selling that many units
+	 */
+	public MarketInfo withExpectedSellPrices(final MarketInfo market, final int units) {
+		if (market == null || market.getTradeGoods() == null) {
+			return market;
+		}
+		final List<TradeGood> tradeGoods = new ArrayList<>();
+		for (final TradeGood good : market.getTradeGoods()) {
+			final double sellPrice = expectedPrice(market.getSymbol(), good.getSymbol(), TradeType.SELL,
+					good.getSellPrice(), good.getTradeVolume(), units);
+			tradeGoods.add(new TradeGood(good.getSymbol(), good.getTradeVolume(), good.getPurchasePrice(),
+					(int) Math.round(sellPrice)));
+		}
+		return new MarketInfo(market.getSymbol(), market.getImports(), market.getExports(), market.getExchange(),
+				tradeGoods);
+	}
+
+	private int getOrCreateId(final String market, final String product, final TradeType type) {
+		final Integer existingId = idsByKey.get(key(market, product, type));
+		if (existingId != null) {
+			return existingId;
+		}
+		final int id = idsByKey.size();
+		if (id == impactPerUnit.length) {
+			final int capacity = id * 2;
+			impactPerUnit = Arrays.copyOf(impactPerUnit, capacity);
+			samples = Arrays.copyOf(samples, capacity);
+			lastPrice = Arrays.copyOf(lastPrice, capacity);
+			lastUnits = Arrays.copyOf(lastUnits, capacity);
+			lastTradeMillis = Arrays.copyOf(lastTradeMillis, capacity);
+		}
+		idsByKey.put(key(market, product, type), id);
+		return id;
+	}
+
+	private static String key(final String market, final String product, final TradeType type) {
+		return market + "/" + product + "/" + type;
+	}
+
+	public static enum TradeType {
+		PURCHASE,
+		SELL
+	}
+
+}
@@ -0,0 +1,110 @@
+package org.psu.trademanager;
+
+import org.psu.trademanager.PriceHistoryStore.PriceRange;
+import org.psu.trademanager.PriceHistoryStore.PriceStats;
+
+/**
+ * The most recent prices of one product at one market, held in fixed capacity
+ * ring buffers so that appending never allocates and old prices are
+ * overwritten
+ */
+class PriceSeries {
+
+	private final double smoothing;
+	private final long[] timestamps;
+	private final int[] purchasePrices;
+	private final int[] sellPrices;
+	private final int[] tradeVolumes;
+	// The index the next price is written to, and the number of prices held
+	private int next;
+	private int size;
+
+	/**
+	 * @param capacity  the number of prices to keep
+	 * @param smoothing the weight of each price in the moving averages, between 0
+	 *                  and 1
+	 */
+	PriceSeries(final int capacity, final double smoothing) {
+		this.smoothing = smoothing;
+		this.timestamps = new long[capacity];
+		this.purchasePrices = new int[capacity];
+		this.sellPrices = new int[capacity];
+		this.tradeVolumes = new int[capacity];
+	}
+
+	synchronized void append(final long timestamp, final int purchasePrice, final int sellPrice,
+			final int tradeVolume) {
+		timestamps[next] = timestamp;
+		purchasePrices[next] = purchasePrice;
+		sellPrices[next] = sellPrice;
+		tradeVolumes[next] = tradeVolume;
+		next = (next + 1) % timestamps.length;
+		size = Math.min(size + 1, timestamps.length);
+	}
+
+	/**
+	 * @param since the earliest timestamp to include
+	 * @return The statistics of the prices recorded at or after the timestamp, or
+	 *         null if there are none
+	 */
+	synchronized PriceStats getStats(final long since) {
+		// Walk back from the newest price to find the oldest one in the window
+		int count = 0;
+		while (count < size && timestamps[index(count)] >= since) {
+			count++;
+		}
+		if (count == 0) {
+			return null;
+		}
+
+		final Aggregate purchase = new Aggregate(purchasePrices[index(count - 1)]);
+		final Aggregate sell = new Aggregate(sellPrices[index(count - 1)]);
+		long totalVolume = 0;
+		// Then forward again, so the moving averages weight the newest prices most
+		for (int age = count - 1; age >= 0; age--) {
+			final int i = index(age);
+			purchase.add(purchasePrices[i]);
+			sell.add(sellPrices[i]);
+			totalVolume += tradeVolumes[i];
+		}
+		return new PriceStats(count, timestamps[index(count - 1)], timestamps[index(0)], purchase.toRange(),
+				sell.toRange(), (double) totalVolume / count);
+	}
+
+	synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * @param age 0 for the newest price, 1 for the one before it and so on
+	 * @return The index of the price in the buffers
+	 */
+	private int index(final int age) {
+		return Math.floorMod(next - 1 - age, timestamps.length);
+	}
+
+	private class Aggregate {
+
+		private int latest;
+		private int min = Integer.MAX_VALUE;
+		private int max = Integer.MIN_VALUE;
+		private double movingAverage;
+
+		Aggregate(final int oldest) {
+			this.movingAverage = oldest;
+		}
+
+		void add(final int price) {
+			latest = price;
+			min = Math.min(min, price);
+			max = Math.max(max, price);
+			movingAverage += smoothing * (price - movingAverage);
+		}
+
+		PriceRange toRange() {
+			return new PriceRange(latest, min, max, movingAverage);
+		}
+
+	}
+
+}
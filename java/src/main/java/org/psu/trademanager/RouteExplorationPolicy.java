@@ -0,0 +1,126 @@
+package org.psu.trademanager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.psu.init.RandomProvider;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.trademanager.RouteScorer.RouteScore;
+import org.psu.trademanager.TradeRouteIndex.IndexedRoute;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Decides whether a ship should explore a route with unknown prices or fly a
+ * known route, using Thompson sampling.
+ * <p>
+ * Every route gets a sampled credits per hour. Unknown routes are sampled from
+ * a log-normal prior fitted to the known routes, and known routes are sampled
+ * around their estimate with a spread which grows with the age of their
+ * prices. The ship explores if an unknown route has the best sample. As more
+ * routes become known there are fewer unknown samples to beat the best known
+ * route, so the policy settles on exploiting.
+ */
+@ApplicationScoped
+public class RouteExplorationPolicy {
+
+	private final double priceDrift;
+	private final double minPriorSpread;
+	private final MarketplaceManager marketplaceManager;
+	private final RandomProvider randomProvider;
+
+	/**
+	 * @param priceDrift     the fraction prices are expected to move in one hour,
+	 *                       growing with the square root of time
+	 * @param minPriorSpread the smallest standard deviation of the log of the
+	 *                       credits per hour of unknown routes, so a few similar
+	 *                       known routes don't rule out exploring
+	 */
+	@Inject
+	public RouteExplorationPolicy(@ConfigProperty(name = "app.route-exploration.price-drift") final double priceDrift,
+			@ConfigProperty(name = "app.route-exploration.min-prior-spread") final double minPriorSpread,
+			final MarketplaceManager marketplaceManager, final RandomProvider randomProvider) {
+		this.priceDrift = priceDrift;
+		this.minPriorSpread = minPriorSpread;
+		this.marketplaceManager = marketplaceManager;
+		this.randomProvider = randomProvider;
+	}
+
+	/**
+	 * @param knownScores   the scores of the known routes the ship can fly
+	 * @param unknownRoutes the number of unknown routes the ship can fly
+	 * @return True if the ship should explore an unknown route
+	 */
+	boolean shouldExplore(final Map<IndexedRoute, RouteScore> knownScores, final int unknownRoutes) {
+		final Instant now = Instant.now();
+		final double[] creditsPerHour = new double[knownScores.size()];
+		final double[] ageHours = new double[knownScores.size()];
+		int i = 0;
+		for (final Entry<IndexedRoute, RouteScore> entry : knownScores.entrySet()) {
+			creditsPerHour[i] = entry.getValue().creditsPerHour();
+			// The route is only as fresh as the older of its two markets
+			ageHours[i] = Math.max(getAgeHours(entry.getKey().exportWaypoint(), now),
+					getAgeHours(entry.getKey().importWaypoint(), now));
+			i++;
+		}
+		return shouldExplore(creditsPerHour, ageHours, unknownRoutes);
+	}
+
+	/**
+	 * @param creditsPerHour the estimated credits per hour of each known route
+	 * @param ageHours       how old the prices behind each estimate are, in hours
+	 * @param unknownRoutes  the number of unknown routes
+	 * @return True if the best sample belongs to an unknown route
+	 */
+	boolean shouldExplore(final double[] creditsPerHour, final double[] ageHours, final int unknownRoutes) {
+		if (unknownRoutes == 0) {
+			return false;
+		}
+
+		double bestKnownSample = Double.NEGATIVE_INFINITY;
+		double logSum = 0;
+		int profitableRoutes = 0;
+		for (int i = 0; i < creditsPerHour.length; i++) {
+			final double spread = Math.abs(creditsPerHour[i]) * Math.min(priceDrift * Math.sqrt(ageHours[i]), 1);
+			bestKnownSample = Math.max(bestKnownSample, creditsPerHour[i] + spread * randomProvider.nextGaussian());
+			if (creditsPerHour[i] > 0) {
+				logSum += Math.log(creditsPerHour[i]);
+				profitableRoutes++;
+			}
+		}
+		if (profitableRoutes == 0) {
+			// There is nothing worth exploiting
+			return true;
+		}
+
+		final double logMean = logSum / profitableRoutes;
+		double squaredDeviations = 0;
+		for (final double rate : creditsPerHour) {
+			if (rate > 0) {
+				squaredDeviations += Math.pow(Math.log(rate) - logMean, 2);
+			}
+		}
+		final double logSpread = profitableRoutes > 1
+				? Math.max(Math.sqrt(squaredDeviations / (profitableRoutes - 1)), minPriorSpread)
+				: Math.max(1, minPriorSpread);
+		for (int i = 0; i < unknownRoutes; i++) {
+			if (Math.exp(logMean + logSpread * randomProvider.nextGaussian()) > bestKnownSample) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private double getAgeHours(final Waypoint waypoint, final Instant now) {
+		final Instant pricesUpdated = marketplaceManager.getPricesUpdated(waypoint);
+		if (pricesUpdated == null) {
+			return 0;
+		}
+		return Duration.between(pricesUpdated, now).toMillis() / (double) Duration.ofHours(1).toMillis();
+	}
+
+}
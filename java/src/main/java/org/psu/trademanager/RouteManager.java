@@ -3,21 +3,24 @@ package org.psu.trademanager;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
-import org.psu.init.RandomProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.psu.navigation.NavigationPath;
 import org.psu.navigation.RefuelPathCalculator;
-import org.psu.spacetraders.dto.MarketInfo;
-import org.psu.spacetraders.dto.Product;
 import org.psu.spacetraders.dto.Ship;
-import org.psu.spacetraders.dto.TradeGood;
 import org.psu.spacetraders.dto.Waypoint;
+import org.psu.trademanager.RouteScorer.RouteScore;
+import org.psu.trademanager.TradeRouteIndex.IndexedRoute;
+import org.psu.trademanager.dto.TradeLeg;
 import org.psu.trademanager.dto.TradeRoute;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -25,173 +28,269 @@ import jakarta.inject.Inject;
 import lombok.extern.jbosslog.JBossLog;
 
 /**
- * Builds and stores potential {@link TradeRoute}s for a given system
+ * Chooses {@link TradeRoute}s for ships from the routes in the
+ * {@link TradeRouteIndex}, spreading the fleet across routes so that ships
+ * don't crowd the same markets
  */
 @JBossLog
 @ApplicationScoped
 public class RouteManager {
 
-	private MarketplaceManager marketplaceManager;
+	private double crowdingFactor;
+	private TradeRouteIndex tradeRouteIndex;
+	private RouteScorer routeScorer;
+	private TradeChainPlanner tradeChainPlanner;
 	private RefuelPathCalculator refuelPathCalculator;
-	private RandomProvider randomProvider;
+	private RouteExplorationPolicy explorationPolicy;
 
-	private List<TradeRoute> tradeRoutes;
+	/**
+	 * The route each ship is currently flying, by ship symbol
+	 */
+	private final Map<String, RouteKey> assignedRoutes = new HashMap<>();
+	private final Lock routeLock = new ReentrantLock();
 
 	@Inject
-	public RouteManager(final MarketplaceManager marketplaceManager, final RefuelPathCalculator refuelPathCalculator,
-			final RandomProvider randomProvider) {
-		this.marketplaceManager = marketplaceManager;
+	public RouteManager(@ConfigProperty(name = "app.route-assignment.crowding-factor") final double crowdingFactor,
+			final TradeRouteIndex tradeRouteIndex, final RouteScorer routeScorer,
+			final TradeChainPlanner tradeChainPlanner, final RefuelPathCalculator refuelPathCalculator,
+			final RouteExplorationPolicy explorationPolicy) {
+		this.crowdingFactor = crowdingFactor;
+		this.tradeRouteIndex = tradeRouteIndex;
+		this.routeScorer = routeScorer;
+		this.tradeChainPlanner = tradeChainPlanner;
 		this.refuelPathCalculator = refuelPathCalculator;
-		this.randomProvider = randomProvider;
-		this.tradeRoutes = null;
+		this.explorationPolicy = explorationPolicy;
 	}
 
-	void buildTradeRoutes() {
+	List<TradeRoute> getTradeRoutes() {
+		return tradeRouteIndex.getRoutes().stream().map(IndexedRoute::toTradeRoute).toList();
+	}
 
-		final Map<Waypoint, MarketInfo> systemMarketInfo = marketplaceManager.getAllMarketInfo();
+	/**
+	 * @param ship a ship which is ready for a new route
+	 * @return The route for the ship, or null if it cannot reach any route
+	 */
+	public RouteResponse getBestRoute(final Ship ship) {
+		return getBestRoutes(List.of(ship)).get(0);
+	}
 
-		final List<TradeRoute> routes = new ArrayList<>();
+	/**
+	 * Assigns routes to several ships at once, so that the fleet is spread across
+	 * the most profitable routes rather than every ship picking the same one
+	 *
+	 * @param ships the ships which are ready for new routes
+	 * @return The route for each ship in the same order as the ships, null for
+	 *         ships which cannot reach any route. Every ship gets its own
+	 *         {@link TradeRoute}.
+	 */
+	public List<RouteResponse> getBestRoutes(final List<Ship> ships) {
+		// Route choice may query the api, so use a lock rather than synchronized to avoid pinning virtual threads
+		routeLock.lock();
+		try {
+			return assignRoutes(ships);
+		} finally {
+			routeLock.unlock();
+		}
+	}
 
-		for (Entry<Waypoint, MarketInfo> exportingWaypoint : systemMarketInfo.entrySet()) {
+	private List<RouteResponse> assignRoutes(final List<Ship> ships) {
+		// These ships are starting new routes, so their old routes are no longer crowded by them
+		ships.forEach(ship -> assignedRoutes.remove(ship.getSymbol()));
+		final Map<RouteKey, Integer> shipsByRoute = new HashMap<>();
+		assignedRoutes.values().forEach(key -> shipsByRoute.merge(key, 1, Integer::sum));
+
+		final List<IndexedRoute> routes = tradeRouteIndex.getRoutes();
+		final List<RouteResponse> responses = new ArrayList<>(ships.size());
+		final List<Integer> profitSeekingShips = new ArrayList<>();
+		final List<ShipOptions> profitSeekingOptions = new ArrayList<>();
+
+		for (int i = 0; i < ships.size(); i++) {
+			final Ship ship = ships.get(i);
+			responses.add(null);
+			final ShipOptions options = findOptions(ship, routes);
+			log.infof("Found %s possible routes", options.paths().size());
+			if (options.paths().isEmpty()) {
+				continue;
+			}
 
-			for (Entry<Waypoint, MarketInfo> importingWaypoint : systemMarketInfo.entrySet()) {
+			final Optional<Entry<IndexedRoute, RoutePaths>> shortestUnknownRoute = options.paths().entrySet()
+					.stream().filter(entry -> !options.scores().containsKey(entry.getKey()))
+					// Prefer unknown routes which fewer ships are already exploring
+					.min(Comparator.comparing((Entry<IndexedRoute, RoutePaths> entry) -> shipsByRoute
+							.getOrDefault(RouteKey.of(entry.getKey()), 0))
+							.thenComparing(entry -> entry.getValue().getLength()));
+
+			final Optional<Entry<IndexedRoute, RouteScore>> mostProfitableRoute = options.scores().entrySet()
+					.stream().max(Comparator.comparing(e -> e.getValue().creditsPerHour()));
+
+			if (shortestUnknownRoute.isEmpty()) {
+				// All routes are known, go with the most profitable routes
+				log.info("All routes have known profits, picking a profitable route");
+				profitSeekingShips.add(i);
+				profitSeekingOptions.add(options);
+				continue;
+			}
+			if (mostProfitableRoute.isEmpty() || mostProfitableRoute.get().getValue().creditsPerHour() < 0) {
+				// All routes are unknown or the most profitable route is not profitable, go
+				// with shortest route
+				log.info("Found no routes with known profits, picking shortest route");
+				responses.set(i, makeUnknownResponse(ship, shortestUnknownRoute.get(), shipsByRoute));
+				continue;
+			}
+			// Balance exploring and making money, exploring less as more routes are known
+			final int unknownRoutes = options.paths().size() - options.scores().size();
+			if (!explorationPolicy.shouldExplore(options.scores(), unknownRoutes)) {
+				log.info("Picking a profitable route");
+				profitSeekingShips.add(i);
+				profitSeekingOptions.add(options);
+				continue;
+			}
+			log.info("Picking shortest route");
+			responses.set(i, makeUnknownResponse(ship, shortestUnknownRoute.get(), shipsByRoute));
+		}
 
-				if (exportingWaypoint.getKey().equals(importingWaypoint.getKey())) {
-					// The same waypoint will not export to itself
-					continue;
-				}
+		final List<RouteResponse> profitableResponses = assignProfitableRoutes(
+				profitSeekingShips.stream().map(ships::get).toList(), profitSeekingOptions, routes, shipsByRoute);
+		for (int i = 0; i < profitSeekingShips.size(); i++) {
+			responses.set(profitSeekingShips.get(i), profitableResponses.get(i));
+		}
+		return responses;
+	}
 
-				final List<Product> exports = exportingWaypoint.getValue()
-						.getPotentialExports(importingWaypoint.getValue());
-				if (!exports.isEmpty()) {
-					routes.add(new TradeRoute(exportingWaypoint.getKey(), importingWaypoint.getKey(), exports));
+	/**
+	 * Solves for the assignment of ships to known routes which makes the most
+	 * credits per hour across the fleet. Each additional ship on a route makes
+	 * less than the one before it, because the ships drive down the route's
+	 * margins. Once a ship has its route, it is given the legs to fly after it.
+	 */
+	private List<RouteResponse> assignProfitableRoutes(final List<Ship> ships, final List<ShipOptions> options,
+			final List<IndexedRoute> routes, final Map<RouteKey, Integer> shipsByRoute) {
+		final List<IndexedRoute> knownRoutes = options.stream().flatMap(o -> o.scores().keySet().stream())
+				.distinct().toList();
+		// Every route gets a slot for each ship, the later slots are worth less
+		final int slots = ships.size();
+		final double[][] values = new double[ships.size()][knownRoutes.size() * slots];
+		for (int ship = 0; ship < ships.size(); ship++) {
+			for (int route = 0; route < knownRoutes.size(); route++) {
+				final IndexedRoute knownRoute = knownRoutes.get(route);
+				final RouteScore score = options.get(ship).scores().get(knownRoute);
+				final int crowding = shipsByRoute.getOrDefault(RouteKey.of(knownRoute), 0);
+				for (int slot = 0; slot < slots; slot++) {
+					values[ship][route * slots + slot] = score == null ? Double.NEGATIVE_INFINITY
+							: crowdedRate(score.creditsPerHour(), crowding + slot);
 				}
 			}
 		}
 
-		this.tradeRoutes = routes;
+		final int[] assignment = AssignmentSolver.maximize(values);
+		final List<RouteResponse> responses = new ArrayList<>(ships.size());
+		for (int ship = 0; ship < ships.size(); ship++) {
+			final IndexedRoute route = knownRoutes.get(assignment[ship] / slots);
+			final RouteScore score = options.get(ship).scores().get(route);
+			log.infof("Assigned ship %s a route with %.0f credits per hour and %.1f credits per api call trading %s",
+					ships.get(ship).getSymbol(), score.creditsPerHour(), score.creditsPerApiCall(),
+					score.prices().product());
+			final TradeRoute chosenRoute = route.toTradeRoute();
+			chosenRoute.setGoods(List.of(score.prices().product()));
+			chosenRoute.setKnown(true);
+			assignRoute(ships.get(ship), route, shipsByRoute);
+			final RoutePaths paths = options.get(ship).paths().get(route);
+			final List<TradeLeg> nextLegs = tradeChainPlanner.planNextLegs(ships.get(ship), route, score, routes);
+			if (!nextLegs.isEmpty()) {
+				log.infof("Ship %s will trade along %s more routes after its first", ships.get(ship).getSymbol(),
+						nextLegs.size());
+			}
+			responses.add(new RouteResponse(chosenRoute, paths.combine().getWaypoints(), nextLegs));
+		}
+		return responses;
 	}
 
-	List<TradeRoute> getTradeRoutes() {
-		return this.tradeRoutes;
+	private double crowdedRate(final double creditsPerHour, final int otherShips) {
+		// Losing routes don't get any less attractive with company
+		return creditsPerHour > 0 ? creditsPerHour * Math.pow(crowdingFactor, otherShips) : creditsPerHour;
 	}
 
-	public RouteResponse getBestRoute(final Ship ship) {
-		if (this.tradeRoutes == null) {
-			// Lazy load trade routes
-			buildTradeRoutes();
-		}
+	private RouteResponse makeUnknownResponse(final Ship ship, final Entry<IndexedRoute, RoutePaths> routeEntry,
+			final Map<RouteKey, Integer> shipsByRoute) {
+		final TradeRoute shortestRoute = routeEntry.getKey().toTradeRoute();
+		shortestRoute.setKnown(false);
+		assignRoute(ship, routeEntry.getKey(), shipsByRoute);
+		return new RouteResponse(shortestRoute, routeEntry.getValue().combine().getWaypoints());
+	}
 
-		// Find all possible routes
+	private void assignRoute(final Ship ship, final IndexedRoute route, final Map<RouteKey, Integer> shipsByRoute) {
+		final RouteKey key = RouteKey.of(route);
+		assignedRoutes.put(ship.getSymbol(), key);
+		shipsByRoute.merge(key, 1, Integer::sum);
+	}
 
-		final Map<TradeRoute, NavigationPath> possibleRoutes = this.tradeRoutes.stream()
-				.map(r -> new AbstractMap.SimpleEntry<TradeRoute, NavigationPath>(r, getTotalPath(r, ship)))
+	private ShipOptions findOptions(final Ship ship, final List<IndexedRoute> routes) {
+		final Map<IndexedRoute, RoutePaths> possibleRoutes = routes.stream()
+				.map(r -> new AbstractMap.SimpleEntry<IndexedRoute, RoutePaths>(r, getPaths(r, ship)))
 				.filter(e -> e.getValue() != null).collect(Collectors.toMap(Entry::getKey, Entry::getValue));
-		log.infof("Found %s possible routes", possibleRoutes.size());
-
-		if (possibleRoutes.isEmpty()) {
-			return null;
-		}
 
 		// Includes only known routes
-		final Map<TradeRoute, RouteProfit> profitByRoute = possibleRoutes.keySet().stream()
-				.map(r -> new AbstractMap.SimpleEntry<TradeRoute, RouteProfit>(r, getPotentialProfit(r)))
+		final Map<IndexedRoute, RouteScore> scoreByRoute = possibleRoutes.entrySet().stream()
+				.map(e -> new AbstractMap.SimpleEntry<IndexedRoute, RouteScore>(e.getKey(), routeScorer
+						.score(e.getKey(), ship, e.getValue().pathToExport(), e.getValue().routePath())))
 				.filter(entry -> entry.getValue() != null).collect(Collectors.toMap(Entry::getKey, Entry::getValue));
-
-		final Optional<Entry<TradeRoute, NavigationPath>> shortestUnknownRoute = possibleRoutes.entrySet().stream()
-				.filter(entry -> !profitByRoute.containsKey(entry.getKey()))
-				.min(Comparator.comparing(entry -> entry.getValue().getLength()));
-
-		final Optional<Entry<TradeRoute, RouteProfit>> mostProfitableRoute = profitByRoute.entrySet().stream()
-				.filter(e -> e.getValue() != null).max(Comparator.comparing(e -> e.getValue().profit()));
-
-		if (shortestUnknownRoute.isEmpty()) {
-			// All routes are known, go with the most profitable route
-			final Entry<TradeRoute, RouteProfit> chosenRouteEntry = mostProfitableRoute.get();
-			final TradeRoute chosenRoute = chosenRouteEntry.getKey();
-			final RouteProfit routeProfit = chosenRouteEntry.getValue();
-			log.infof("All routes have known profits, picking the route with potential profit of %s per %s",
-					routeProfit.profit(), routeProfit.itemToSell());
-			chosenRoute.setGoods(List.of(routeProfit.itemToSell()));
-			chosenRoute.setKnown(true);
-			final NavigationPath path = possibleRoutes.get(chosenRoute);
-			return new RouteResponse(chosenRoute, path.getWaypoints());
-		}
-		if (mostProfitableRoute.isEmpty() || mostProfitableRoute.get().getValue().profit() < 0) {
-			// All routes are unknown or the most profitable route is not profitable, go
-			// with shortest route
-			log.info("Found no routes with known profits, picking shortest route");
-			final TradeRoute shortestRoute = shortestUnknownRoute.get().getKey();
-			shortestRoute.setKnown(false);
-			final NavigationPath path = shortestUnknownRoute.get().getValue();
-			return new RouteResponse(shortestRoute, path.getWaypoints());
-		}
-		// For now, randomly pick the shortest or most profitable, balancing exploring and making money
-		if (randomProvider.nextDouble() < 0.5) {
-			final Entry<TradeRoute, RouteProfit> chosenRouteEntry = mostProfitableRoute.get();
-			final TradeRoute chosenRoute = chosenRouteEntry.getKey();
-			final RouteProfit routeProfit = chosenRouteEntry.getValue();
-			log.infof("Picking most profitable route, with potential profit of %s per %s",
-					routeProfit.profit(), routeProfit.itemToSell());
-			chosenRoute.setGoods(List.of(routeProfit.itemToSell()));
-			chosenRoute.setKnown(true);
-			final NavigationPath path = possibleRoutes.get(chosenRoute);
-			return new RouteResponse(chosenRoute, path.getWaypoints());
-		}
-		log.info("Picking shortest route");
-		final TradeRoute shortestRoute = shortestUnknownRoute.get().getKey();
-		shortestRoute.setKnown(false);
-		final NavigationPath path = shortestUnknownRoute.get().getValue();
-		return new RouteResponse(shortestRoute, path.getWaypoints());
+		return new ShipOptions(possibleRoutes, scoreByRoute);
 	}
 
-	private RouteProfit getPotentialProfit(final TradeRoute route) {
-		final MarketInfo exportingMarket = marketplaceManager.getMarketInfo(route.getExportWaypoint());
-		final MarketInfo importingMarket = marketplaceManager.getMarketInfo(route.getImportWaypoint());
+	private RoutePaths getPaths(final IndexedRoute route, final Ship ship) {
+		final NavigationPath pathToExport = refuelPathCalculator.determineShortestRoute(ship,
+				route.exportWaypoint());
+		final NavigationPath routePath = refuelPathCalculator.determineShortestRoute(route.exportWaypoint(),
+				// Use capacity as current fuel because we assume it refuels at the export
+				route.importWaypoint(), ship.getFuel().capacity(), ship.getFuel().capacity());
 
-		if (exportingMarket.getTradeGoods() == null || importingMarket.getTradeGoods() == null) {
-			// We don't know price information for one of the two markets, can't calculate profit
+		if (pathToExport == null || routePath == null) {
 			return null;
 		}
+		return new RoutePaths(pathToExport, routePath);
+	}
 
-		// This variable will not remain null, because we know there is at least one potential export
-		// Otherwise, this trade route would not have been originally created
-		Product mostProfitableProduct = null;
-		int maxProfit = Integer.MIN_VALUE;
-		for (final Product product : exportingMarket.getPotentialExports(importingMarket)) {
-			// We know both of these will be present because the route's goods were set based on what the
-			// two waypoints sell
-			// Assumes that markets don't change which goods they buy/sell, and I'm pretty sure they can't
-			final TradeGood exportTradeGood = exportingMarket.getTradeGoods().stream()
-					.filter(t -> t.getSymbol().equals(product.getSymbol())).findFirst().get();
-			final TradeGood importTradeGood = importingMarket.getTradeGoods().stream()
-					.filter(t -> t.getSymbol().equals(product.getSymbol())).findFirst().get();
-
-			final int productProfit = importTradeGood.getSellPrice() - exportTradeGood.getPurchasePrice();
-			if (productProfit > maxProfit) {
-				mostProfitableProduct = product;
-				maxProfit = productProfit;
-			}
+	/**
+	 * @param route     the route for the ship
+	 * @param waypoints the path to fly the route, starting with the path to its
+	 *                  export waypoint
+	 * @param nextLegs  the legs to fly after the route, each starting where the
+	 *                  one before it ends
+	 */
+	public record RouteResponse(TradeRoute route, Queue<Waypoint> waypoints, List<TradeLeg> nextLegs) {
+
+		public RouteResponse(final TradeRoute route, final Queue<Waypoint> waypoints) {
+			this(route, waypoints, List.of());
 		}
 
-		return new RouteProfit(maxProfit, mostProfitableProduct);
-	}
+	};
 
-	private NavigationPath getTotalPath(final TradeRoute route, final Ship ship) {
-		final NavigationPath pathToExport = refuelPathCalculator.determineShortestRoute(ship,
-				route.getExportWaypoint());
-		final NavigationPath routePath = refuelPathCalculator.determineShortestRoute(route.getExportWaypoint(),
-				// Use capacity as current fuel because we assume it refuels at the export
-				route.getImportWaypoint(), ship.getFuel().capacity(), ship.getFuel().capacity());
+	private record RoutePaths(NavigationPath pathToExport, NavigationPath routePath) {
 
-		if (pathToExport == null || routePath == null) {
-			return null;
+		double getLength() {
+			return pathToExport.getLength() + routePath.getLength();
 		}
-		return NavigationPath.combine(pathToExport, routePath);
-	}
 
-	public record RouteResponse(TradeRoute route, Queue<Waypoint> waypoints) {};
+		NavigationPath combine() {
+			return NavigationPath.combine(pathToExport, routePath);
+		}
+
+	};
+
+	/**
+	 * The routes a ship can reach, and the scores of those with known prices
+	 */
+	private record ShipOptions(Map<IndexedRoute, RoutePaths> paths, Map<IndexedRoute, RouteScore> scores) {};
+
+	/**
+	 * Identifies a route regardless of its current prices
+	 */
+	private record RouteKey(Waypoint exportWaypoint, Waypoint importWaypoint) {
+
+		static RouteKey of(final IndexedRoute route) {
+			return new RouteKey(route.exportWaypoint(), route.importWaypoint());
+		}
 
-	private record RouteProfit(Integer profit, Product itemToSell) {};
+	};
 
 }
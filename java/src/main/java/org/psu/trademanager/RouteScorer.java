@@ -0,0 +1,178 @@
+package org.psu.trademanager;
+
+import java.time.Duration;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.psu.navigation.NavigationPath;
+import org.psu.navigation.RefuelPathCalculator;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.ShipRoute.RoutePoint;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.trademanager.PriceHistoryStore.PriceStats;
+import org.psu.trademanager.PriceImpactModel.TradeType;
+import org.psu.trademanager.TradeRouteIndex.IndexedRoute;
+import org.psu.trademanager.TradeRouteIndex.TradePrices;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Estimates how many credits per hour a ship would make by flying a trade
+ * route, accounting for flight time, cargo space, trade volumes and fuel.
+ * Prices which have just moved in the ship's favor are expected to return to
+ * their recent average.
+ */
+@ApplicationScoped
+public class RouteScorer {
+
+	// Every hop requires an orbit and a navigate call
+	static final int NAVIGATE_CALLS = 2;
+	// Every stop along the way requires a refuel call
+	static final int REFUEL_CALLS = 1;
+	// Both ends of the route require a dock call and a market update
+	static final int MARKET_CALLS = 2;
+	// Cruising flight time is this multiplier times distance divided by engine speed
+	static final double CRUISE_MULTIPLIER = 25;
+	// Every flight takes this many seconds on top of the time spent cruising
+	static final double FLIGHT_OVERHEAD_SECONDS = 15;
+	static final double SECONDS_PER_HOUR = 3600;
+
+	private final int defaultEngineSpeed;
+	private final double secondsPerApiCall;
+	private final Duration priceWindow;
+	private final RefuelPathCalculator refuelPathCalculator;
+	private final PriceImpactModel priceImpactModel;
+	private final PriceHistoryStore priceHistoryStore;
+
+	@Inject
+	public RouteScorer(@ConfigProperty(name = "app.route-scoring.default-engine-speed") final int defaultEngineSpeed,
+			@ConfigProperty(name = "app.route-scoring.seconds-per-api-call") final double secondsPerApiCall,
+			@ConfigProperty(name = "app.route-scoring.price-window-ms") final long priceWindowMs,
+			final RefuelPathCalculator refuelPathCalculator, final PriceImpactModel priceImpactModel,
+			final PriceHistoryStore priceHistoryStore) {
+		this.defaultEngineSpeed = defaultEngineSpeed;
+		this.secondsPerApiCall = secondsPerApiCall;
+		this.priceWindow = Duration.ofMillis(priceWindowMs);
+		this.refuelPathCalculator = refuelPathCalculator;
+		this.priceImpactModel = priceImpactModel;
+		this.priceHistoryStore = priceHistoryStore;
+	}
+
+	/**
+	 * @param route        a trade route
+	 * @param ship         the ship which would fly the route
+	 * @param pathToExport the path from the ship to the route's export waypoint
+	 * @param routePath    the path from the export waypoint to the import waypoint
+	 * @return The score of the best product to trade along the route, or null if
+	 *         prices along the route are not known
+	 */
+	RouteScore score(final IndexedRoute route, final Ship ship, final NavigationPath pathToExport,
+			final NavigationPath routePath) {
+		if (route.prices() == null) {
+			return null;
+		}
+
+		final int speed = ship.getEngine() == null ? defaultEngineSpeed : ship.getEngine().speed();
+		final RoutePoint shipPosition = ship.getNav().getRoute().getDestination();
+		final Waypoint exportWaypoint = route.exportWaypoint();
+		final FlightPlan toExport = planFlights(shipPosition.getX(), shipPosition.getY(), pathToExport, speed);
+		final FlightPlan toImport = planFlights(exportWaypoint.getX(), exportWaypoint.getY(), routePath, speed);
+		final int hops = toExport.hops() + toImport.hops();
+		final double flightSeconds = toExport.seconds() + toImport.seconds();
+		final double fuelCost = refuelPathCalculator.estimateFuelCost(pathToExport.getLength() + routePath.getLength());
+		// The ship refuels at every stop before the import waypoint, and buys its cargo in a single request
+		final int fixedCalls = hops * NAVIGATE_CALLS + Math.max(0, hops - 1) * REFUEL_CALLS + 2 * MARKET_CALLS + 1;
+
+		final Waypoint importWaypoint = route.importWaypoint();
+		RouteScore bestScore = null;
+		for (final TradePrices prices : route.prices()) {
+			final int units = Math.min(ship.getCargo().getCapacity(), prices.purchaseVolume());
+			final int sellCalls = Math.ceilDiv(units, Math.max(1, prices.sellVolume()));
+			final int apiCalls = fixedCalls + sellCalls;
+			// Never score a route as instantaneous
+			final double hours = Math.max(1, flightSeconds + apiCalls * secondsPerApiCall) / SECONDS_PER_HOUR;
+			// Each transaction moves the price, so larger orders trade at worse prices on average
+			final String product = prices.product().getSymbol();
+			final double purchasePrice = priceImpactModel.expectedPrice(exportWaypoint.getSymbol(), product,
+					TradeType.PURCHASE, expectedPurchasePrice(exportWaypoint, product, prices.purchasePrice()),
+					prices.purchaseVolume(), units);
+			final double sellPrice = priceImpactModel.expectedPrice(importWaypoint.getSymbol(), product,
+					TradeType.SELL, expectedSellPrice(importWaypoint, product, prices.sellPrice()),
+					prices.sellVolume(), units);
+			final double profit = units * (sellPrice - purchasePrice) - fuelCost;
+
+			final RouteScore score = new RouteScore(prices, units, profit, hours, apiCalls);
+			if (bestScore == null || score.creditsPerHour() > bestScore.creditsPerHour()) {
+				bestScore = score;
+			}
+		}
+		return bestScore;
+	}
+
+	/**
+	 * @return The higher of the quoted price and the recent average purchase price
+	 */
+	private int expectedPurchasePrice(final Waypoint market, final String product, final int quotedPrice) {
+		final PriceStats stats = priceHistoryStore.getStats(market, product, priceWindow);
+		return stats == null ? quotedPrice
+				: Math.max(quotedPrice, (int) Math.round(stats.purchasePrice().movingAverage()));
+	}
+
+	/**
+	 * @return The lower of the quoted price and the recent average sell price
+	 */
+	private int expectedSellPrice(final Waypoint market, final String product, final int quotedPrice) {
+		final PriceStats stats = priceHistoryStore.getStats(market, product, priceWindow);
+		return stats == null ? quotedPrice : Math.min(quotedPrice, (int) Math.round(stats.sellPrice().movingAverage()));
+	}
+
+	/**
+	 * @param distance the distance flown, greater than 0
+	 * @param speed    the speed of the ship's engine
+	 * @return The seconds taken by a cruising flight over the distance
+	 */
+	public static double estimateFlightSeconds(final double distance, final int speed) {
+		return Math.round(Math.max(1, distance) * CRUISE_MULTIPLIER / speed) + FLIGHT_OVERHEAD_SECONDS;
+	}
+
+	private FlightPlan planFlights(final int startX, final int startY, final NavigationPath path, final int speed) {
+		int hops = 0;
+		double seconds = 0;
+		int x = startX;
+		int y = startY;
+		for (final Waypoint waypoint : path.getWaypoints()) {
+			final double distance = Math.sqrt(Math.pow(waypoint.getX() - x, 2) + Math.pow(waypoint.getY() - y, 2));
+			if (distance > 0) {
+				hops++;
+				seconds += estimateFlightSeconds(distance, speed);
+			}
+			x = waypoint.getX();
+			y = waypoint.getY();
+		}
+		return new FlightPlan(hops, seconds);
+	}
+
+	private record FlightPlan(int hops, double seconds) {};
+
+	/**
+	 * The expected result of trading one product along a route
+	 *
+	 * @param prices   the prices of the product
+	 * @param units    the number of units bought and sold
+	 * @param profit   the credits made after paying for fuel
+	 * @param hours    the time taken, including flights and api calls
+	 * @param apiCalls the number of api calls made
+	 */
+	record RouteScore(TradePrices prices, int units, double profit, double hours, int apiCalls) {
+
+		double creditsPerHour() {
+			return profit / hours;
+		}
+
+		double creditsPerApiCall() {
+			return profit / apiCalls;
+		}
+
+	}
+
+}
@@ -0,0 +1,154 @@
+package org.psu.trademanager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.psu.navigation.NavigationPath;
+import org.psu.navigation.RefuelPathCalculator;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.trademanager.RouteScorer.RouteScore;
+import org.psu.trademanager.TradeRouteIndex.IndexedRoute;
+import org.psu.trademanager.dto.TradeLeg;
+import org.psu.trademanager.dto.TradeRoute;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Chains trade routes together, so that a ship which sells its goods at a
+ * market can buy goods for the next route at the same market instead of
+ * flying empty to the next export waypoint
+ */
+@ApplicationScoped
+public class TradeChainPlanner {
+
+	private final int maxLegs;
+	private final int beamWidth;
+	private final RouteScorer routeScorer;
+	private final RefuelPathCalculator refuelPathCalculator;
+
+	@Inject
+	public TradeChainPlanner(@ConfigProperty(name = "app.trade-chains.max-legs") final int maxLegs,
+			@ConfigProperty(name = "app.trade-chains.beam-width") final int beamWidth,
+			final RouteScorer routeScorer, final RefuelPathCalculator refuelPathCalculator) {
+		this.maxLegs = maxLegs;
+		this.beamWidth = beamWidth;
+		this.routeScorer = routeScorer;
+		this.refuelPathCalculator = refuelPathCalculator;
+	}
+
+	/**
+	 * Searches for the legs to fly after a ship's first route using a beam
+	 * search, keeping the chains with the most credits per hour at each depth.
+	 * Legs which lose money, or which would lower the credits per hour of the
+	 * chain so far, are pruned.
+	 *
+	 * @param ship       the ship flying the routes
+	 * @param firstRoute the route the ship will fly first
+	 * @param firstScore the score of the first route, including the flight to its
+	 *                   export waypoint
+	 * @param routes     all known routes
+	 * @return The legs to fly after the first route, in order, empty if the ship
+	 *         should stop after the first route
+	 */
+	List<TradeLeg> planNextLegs(final Ship ship, final IndexedRoute firstRoute, final RouteScore firstScore,
+			final List<IndexedRoute> routes) {
+		if (maxLegs <= 1) {
+			return List.of();
+		}
+		final Map<Waypoint, List<IndexedRoute>> routesByExport = routes.stream().filter(r -> r.prices() != null)
+				.collect(Collectors.groupingBy(IndexedRoute::exportWaypoint));
+		// The score of a leg doesn't depend on the legs before it, so each route is only scored once
+		final Map<IndexedRoute, Leg> legs = new HashMap<>();
+
+		Chain bestChain = new Chain(List.of(firstRoute), List.of(), firstScore.profit(), firstScore.hours());
+		List<Chain> beam = List.of(bestChain);
+		for (int depth = 1; depth < maxLegs && !beam.isEmpty(); depth++) {
+			final List<Chain> extensions = new ArrayList<>();
+			for (final Chain chain : beam) {
+				for (final IndexedRoute route : routesByExport.getOrDefault(chain.end(), List.of())) {
+					// A route's prices won't have recovered by the time the ship flies it again
+					if (chain.routes().contains(route)) {
+						continue;
+					}
+					if (!legs.containsKey(route)) {
+						legs.put(route, makeLeg(ship, route));
+					}
+					final Leg leg = legs.get(route);
+					if (leg == null || leg.score().profit() <= 0) {
+						continue;
+					}
+					final Chain extension = chain.extend(leg);
+					if (extension.creditsPerHour() >= chain.creditsPerHour()) {
+						extensions.add(extension);
+					}
+				}
+			}
+			beam = extensions.stream().sorted(Comparator.comparingDouble(Chain::creditsPerHour).reversed())
+					.limit(beamWidth).toList();
+			// Prefer the longer chain on a tie, it saves the ship a flight to its next route
+			if (!beam.isEmpty() && beam.get(0).creditsPerHour() >= bestChain.creditsPerHour()) {
+				bestChain = beam.get(0);
+			}
+		}
+		return bestChain.legs().stream().map(Leg::toTradeLeg).toList();
+	}
+
+	private Leg makeLeg(final Ship ship, final IndexedRoute route) {
+		final NavigationPath routePath = refuelPathCalculator.determineShortestRoute(route.exportWaypoint(),
+				// Use capacity as current fuel because we assume it refuels at the export
+				route.importWaypoint(), ship.getFuel().capacity(), ship.getFuel().capacity());
+		if (routePath == null) {
+			return null;
+		}
+		// The ship is already at the export waypoint, having sold its goods from the previous leg
+		final NavigationPath noPath = new NavigationPath(0, new LinkedList<>());
+		final RouteScore score = routeScorer.score(route, ship, noPath, routePath);
+		return score == null ? null : new Leg(route, routePath, score);
+	}
+
+	private record Leg(IndexedRoute route, NavigationPath routePath, RouteScore score) {
+
+		TradeLeg toTradeLeg() {
+			final TradeRoute tradeRoute = route.toTradeRoute();
+			tradeRoute.setGoods(List.of(score.prices().product()));
+			tradeRoute.setKnown(true);
+			return new TradeLeg(tradeRoute, new LinkedList<>(routePath.getWaypoints()));
+		}
+
+	};
+
+	/**
+	 * @param routes the routes in the chain, including the first route
+	 * @param legs   the legs after the first route
+	 * @param profit the expected profit of the whole chain
+	 * @param hours  the expected time taken by the whole chain
+	 */
+	private record Chain(List<IndexedRoute> routes, List<Leg> legs, double profit, double hours) {
+
+		Waypoint end() {
+			return routes.get(routes.size() - 1).importWaypoint();
+		}
+
+		double creditsPerHour() {
+			return profit / hours;
+		}
+
+		Chain extend(final Leg leg) {
+			final List<IndexedRoute> newRoutes = new ArrayList<>(routes);
+			newRoutes.add(leg.route());
+			final List<Leg> newLegs = new ArrayList<>(legs);
+			newLegs.add(leg);
+			return new Chain(newRoutes, newLegs, profit + leg.score().profit(), hours + leg.score().hours());
+		}
+
+	};
+
+}
@@ -0,0 +1,212 @@
+package org.psu.trademanager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.psu.spacetraders.dto.MarketInfo;
+import org.psu.spacetraders.dto.Product;
+import org.psu.spacetraders.dto.TradeGood;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.trademanager.dto.TradeRoute;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Indexes the {@link TradeRoute}s between the markets in the system, kept up
+ * to date as market information arrives. Only the routes which start or end at
+ * an updated market are recomputed.
+ */
+@ApplicationScoped
+public class TradeRouteIndex {
+
+	private final Map<Waypoint, MarketInfo> markets;
+	private final Map<String, Set<Waypoint>> exportersByProduct;
+	private final Map<String, Set<Waypoint>> importersByProduct;
+	private final Map<Waypoint, Map<Waypoint, IndexedRoute>> routesByExport;
+	private final Map<Waypoint, Map<Waypoint, IndexedRoute>> routesByImport;
+
+	public TradeRouteIndex() {
+		this.markets = new HashMap<>();
+		this.exportersByProduct = new HashMap<>();
+		this.importersByProduct = new HashMap<>();
+		this.routesByExport = new HashMap<>();
+		this.routesByImport = new HashMap<>();
+	}
+
+	/**
+	 * Replaces the market information for a waypoint, recomputing the routes to
+	 * and from it
+	 *
+	 * @param waypoint   the {@link Waypoint} of the market
+	 * @param marketInfo the latest {@link MarketInfo} for the waypoint
+	 */
+	synchronized void updateMarket(final Waypoint waypoint, final MarketInfo marketInfo) {
+		if (marketInfo == null) {
+			return;
+		}
+		final MarketInfo oldInfo = markets.put(waypoint, marketInfo);
+		if (oldInfo != null) {
+			removeFromIndex(waypoint, oldInfo.getExports(), exportersByProduct);
+			removeFromIndex(waypoint, oldInfo.getImports(), importersByProduct);
+		}
+		addToIndex(waypoint, marketInfo.getExports(), exportersByProduct);
+		addToIndex(waypoint, marketInfo.getImports(), importersByProduct);
+
+		// Existing routes are included in case the market stopped trading one of their goods
+		final Set<Waypoint> importers = new HashSet<>(routesByExport.getOrDefault(waypoint, Map.of()).keySet());
+		for (final Product product : nullToEmpty(marketInfo.getExports())) {
+			importers.addAll(importersByProduct.getOrDefault(product.getSymbol(), Set.of()));
+		}
+		final Set<Waypoint> exporters = new HashSet<>(routesByImport.getOrDefault(waypoint, Map.of()).keySet());
+		for (final Product product : nullToEmpty(marketInfo.getImports())) {
+			exporters.addAll(exportersByProduct.getOrDefault(product.getSymbol(), Set.of()));
+		}
+
+		importers.forEach(importer -> updateRoute(waypoint, importer));
+		exporters.forEach(exporter -> updateRoute(exporter, waypoint));
+	}
+
+	/**
+	 * @return Every route in the system, with the goods which can be traded along
+	 *         it and its profit if known
+	 */
+	synchronized List<IndexedRoute> getRoutes() {
+		final List<IndexedRoute> routes = new ArrayList<>();
+		routesByExport.values().forEach(routesFromExport -> routes.addAll(routesFromExport.values()));
+		return routes;
+	}
+
+	private void updateRoute(final Waypoint exportWaypoint, final Waypoint importWaypoint) {
+		if (exportWaypoint.equals(importWaypoint)) {
+			// The same waypoint will not export to itself
+			return;
+		}
+		final MarketInfo exportingMarket = markets.get(exportWaypoint);
+		final MarketInfo importingMarket = markets.get(importWaypoint);
+
+		final List<Product> goods = exportingMarket.getPotentialExports(importingMarket);
+		if (goods.isEmpty()) {
+			removeRoute(exportWaypoint, importWaypoint);
+			return;
+		}
+
+		final List<TradePrices> prices = getPrices(exportingMarket, importingMarket, goods);
+		final IndexedRoute route = new IndexedRoute(exportWaypoint, importWaypoint, goods, getBestProfit(prices),
+				prices);
+		routesByExport.computeIfAbsent(exportWaypoint, w -> new HashMap<>()).put(importWaypoint, route);
+		routesByImport.computeIfAbsent(importWaypoint, w -> new HashMap<>()).put(exportWaypoint, route);
+	}
+
+	private void removeRoute(final Waypoint exportWaypoint, final Waypoint importWaypoint) {
+		final Map<Waypoint, IndexedRoute> routesFromExport = routesByExport.get(exportWaypoint);
+		if (routesFromExport != null) {
+			routesFromExport.remove(importWaypoint);
+		}
+		final Map<Waypoint, IndexedRoute> routesToImport = routesByImport.get(importWaypoint);
+		if (routesToImport != null) {
+			routesToImport.remove(exportWaypoint);
+		}
+	}
+
+	private static List<TradePrices> getPrices(final MarketInfo exportingMarket, final MarketInfo importingMarket,
+			final List<Product> goods) {
+		if (exportingMarket.getTradeGoods() == null || importingMarket.getTradeGoods() == null) {
+			// We don't know price information for one of the two markets, can't calculate profit
+			return null;
+		}
+		final List<TradePrices> prices = new ArrayList<>();
+		for (final Product product : goods) {
+			final TradeGood exportTradeGood = exportingMarket.getTradeGood(product.getSymbol());
+			final TradeGood importTradeGood = importingMarket.getTradeGood(product.getSymbol());
+			if (exportTradeGood != null && importTradeGood != null) {
+				prices.add(new TradePrices(product, exportTradeGood.getPurchasePrice(),
+						exportTradeGood.getTradeVolume(), importTradeGood.getSellPrice(),
+						importTradeGood.getTradeVolume()));
+			}
+		}
+		return prices.isEmpty() ? null : prices;
+	}
+
+	private static RouteProfit getBestProfit(final List<TradePrices> prices) {
+		if (prices == null) {
+			return null;
+		}
+		Product mostProfitableProduct = null;
+		int maxProfit = Integer.MIN_VALUE;
+		for (final TradePrices productPrices : prices) {
+			final int productProfit = productPrices.sellPrice() - productPrices.purchasePrice();
+			if (productProfit > maxProfit) {
+				mostProfitableProduct = productPrices.product();
+				maxProfit = productProfit;
+			}
+		}
+		return new RouteProfit(maxProfit, mostProfitableProduct);
+	}
+
+	private static void addToIndex(final Waypoint waypoint, final List<Product> products,
+			final Map<String, Set<Waypoint>> index) {
+		for (final Product product : nullToEmpty(products)) {
+			index.computeIfAbsent(product.getSymbol(), s -> new HashSet<>()).add(waypoint);
+		}
+	}
+
+	private static void removeFromIndex(final Waypoint waypoint, final List<Product> products,
+			final Map<String, Set<Waypoint>> index) {
+		for (final Product product : nullToEmpty(products)) {
+			final Set<Waypoint> waypoints = index.get(product.getSymbol());
+			if (waypoints != null) {
+				waypoints.remove(waypoint);
+			}
+		}
+	}
+
+	private static <T> List<T> nullToEmpty(final List<T> list) {
+		return list == null ? List.of() : list;
+	}
+
+	/**
+	 * A route between two markets as currently known
+	 *
+	 * @param exportWaypoint the waypoint which exports the goods
+	 * @param importWaypoint the waypoint which imports the goods
+	 * @param goods          the products exported at one and imported at the other
+	 * @param profit         the most profitable product to trade per unit, null if
+	 *                       prices are not known at both markets
+	 * @param prices         the prices of each good which has known prices at both
+	 *                       markets, null if there are none
+	 */
+	record IndexedRoute(Waypoint exportWaypoint, Waypoint importWaypoint, List<Product> goods, RouteProfit profit,
+			List<TradePrices> prices) {
+
+		/**
+		 * @return A new {@link TradeRoute} for this route, which the caller is free to
+		 *         modify
+		 */
+		TradeRoute toTradeRoute() {
+			return new TradeRoute(exportWaypoint, importWaypoint, goods);
+		}
+
+	}
+
+	/**
+	 * @param profit     the profit per unit of the most profitable product
+	 * @param itemToSell the most profitable product
+	 */
+	record RouteProfit(int profit, Product itemToSell) {
+	}
+
+	/**
+	 * @param product        the product being traded
+	 * @param purchasePrice  the price of one unit at the exporting market
+	 * @param purchaseVolume the most units which can be bought in one transaction
+	 * @param sellPrice      the price one unit sells for at the importing market
+	 * @param sellVolume     the most units which can be sold in one transaction
+	 */
+	record TradePrices(Product product, int purchasePrice, int purchaseVolume, int sellPrice, int sellVolume) {
+	}
+
+}
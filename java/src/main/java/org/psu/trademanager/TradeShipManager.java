@@ -2,6 +2,7 @@ package org.psu.trademanager;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
@@ -21,6 +22,7 @@ import org.psu.spacetraders.dto.TradeRequest;
 import org.psu.spacetraders.dto.TradeResponse;
 import org.psu.spacetraders.dto.Waypoint;
 import org.psu.trademanager.RouteManager.RouteResponse;
+import org.psu.trademanager.dto.TradeLeg;
 import org.psu.trademanager.dto.TradeRoute;
 import org.psu.trademanager.dto.TradeShipJob;
 import org.psu.trademanager.dto.TradeShipJob.State;
@@ -46,6 +48,7 @@ public class TradeShipManager {
 	private MarketplaceManager marketplaceManager;
 	private RouteManager routeManager;
 	private WebsocketReporter websocketReporter;
+	private PriceImpactModel priceImpactModel;
 
 	@Inject
 	public TradeShipManager(@ConfigProperty(name = "app.cooldown-pad-ms") final int navigationPad,
@@ -53,7 +56,7 @@ public class TradeShipManager {
 			final NavigationHelper navigationHelper,
 			final AccountManager accountManager, final MarketplaceRequester marketplaceRequester,
 			final MarketplaceManager marketplaceManager, final RouteManager routeManager,
-			final WebsocketReporter websocketReporter) {
+			final WebsocketReporter websocketReporter, final PriceImpactModel priceImpactModel) {
 		this.navigationPad = Duration.ofMillis(navigationPad);
 		this.marketUpdateDelay = Duration.ofMillis(marketUpdateDelay);
 		this.navigationHelper = navigationHelper;
@@ -62,9 +65,62 @@ public class TradeShipManager {
 		this.marketplaceManager = marketplaceManager;
 		this.routeManager = routeManager;
 		this.websocketReporter = websocketReporter;
+		this.priceImpactModel = priceImpactModel;
 	}
 
 	public TradeShipJob createJob(final Ship ship) {
+		final TradeShipJob sellJob = createSellJob(ship);
+		if (sellJob != null) {
+			return sellJob;
+		}
+
+		// Nothing in the cargo bay, let's go and make normal trade routes
+		final RouteResponse bestRoute = routeManager.getBestRoute(ship);
+		return makeRouteJob(ship, bestRoute);
+	}
+
+	/**
+	 * Creates jobs for several ships at once, so that their trade routes can be
+	 * assigned together
+	 *
+	 * @param ships the ships
+	 * @return The jobs, in the same order as the ships
+	 */
+	public List<TradeShipJob> createJobs(final List<Ship> ships) {
+		final List<TradeShipJob> jobs = new ArrayList<>(ships.size());
+		final List<Integer> shipsNeedingRoutes = new ArrayList<>();
+		for (int i = 0; i < ships.size(); i++) {
+			final TradeShipJob sellJob = createSellJob(ships.get(i));
+			jobs.add(sellJob);
+			if (sellJob == null) {
+				shipsNeedingRoutes.add(i);
+			}
+		}
+		if (shipsNeedingRoutes.isEmpty()) {
+			return jobs;
+		}
+
+		final List<RouteResponse> routes = routeManager
+				.getBestRoutes(shipsNeedingRoutes.stream().map(ships::get).toList());
+		for (int i = 0; i < shipsNeedingRoutes.size(); i++) {
+			final Ship ship = ships.get(shipsNeedingRoutes.get(i));
+			jobs.set(shipsNeedingRoutes.get(i), makeRouteJob(ship, routes.get(i)));
+		}
+		return jobs;
+	}
+
+	private static TradeShipJob makeRouteJob(final Ship ship, final RouteResponse bestRoute) {
+		final TradeShipJob job = new TradeShipJob(ship, bestRoute.route(), bestRoute.waypoints());
+		job.getNextLegs().addAll(bestRoute.nextLegs());
+		return job;
+	}
+
+	/**
+	 * @param ship a ship
+	 * @return A job to sell the goods in the ship's cargo at its destination, or
+	 *         null if its destination doesn't buy any of them
+	 */
+	private TradeShipJob createSellJob(final Ship ship) {
 
 		// If the ship has goods in its cargo hold, see if we can sell them
 		if (ship.getCargo().getUnits() > 0) {
@@ -99,9 +155,7 @@ public class TradeShipManager {
 			}
 		}
 
-		// Nothing in the cargo bay, let's go and make normal trade routes
-		final RouteResponse bestRoute = routeManager.getBestRoute(ship);
-		return new TradeShipJob(ship, bestRoute.route(), bestRoute.waypoints());
+		return null;
 	}
 
 	/**
@@ -135,11 +189,19 @@ public class TradeShipManager {
 			if (ship.getNav().getWaypointSymbol().equals(job.getRoute().getImportWaypoint().getSymbol())) {
 				// We're currently at the import waypoint
 				sellGoods(job);
-				// We've finished the job, now return null for the queue to determine what to do next
-				return null;
+				final TradeLeg nextLeg = job.getNextLegs().poll();
+				if (nextLeg == null) {
+					// We've finished the job, now return null for the queue to determine what to do next
+					return null;
+				}
+				// This import waypoint is the export waypoint of the next leg, so buy its goods before leaving
+				log.infof("Ship %s starting the next leg of its trade route", ship.getSymbol());
+				job.setRoute(nextLeg.route());
+				job.setWaypoints(nextLeg.waypoints());
+				purchaseGoods(job);
 			}
 
-			// So long as we're not at the import waypoint, there is at least one more waypoint to travel to
+			// So long as we're not at the final import waypoint, there is at least one more waypoint to travel to
 			final Waypoint travelDestination = job.getWaypoints().peek();
 
 			// The only waypoints in a route should be the ones which sell fuel
@@ -174,8 +236,14 @@ public class TradeShipManager {
 		final MarketInfo exportMarketInfo = marketplaceManager.updateMarketInfo(route.getExportWaypoint());
 		final int totalCredits = accountManager.getCredits();
 
+		// Known routes have prices at the import waypoint, buy what will sell there for the most profit. Selling a
+		// full hold moves the price, so use the price expected over the whole sale.
+		final MarketInfo importMarketInfo = route.isKnown()
+				? priceImpactModel.withExpectedSellPrices(marketplaceManager.getMarketInfo(route.getImportWaypoint()),
+						ship.getRemainingCargo())
+				: null;
 		final List<TradeRequest> purchaseRequests = exportMarketInfo.buildPurchaseRequest(route.getGoods(),
-				ship.getRemainingCargo(), totalCredits, route.isKnown());
+				ship.getRemainingCargo(), totalCredits, route.isKnown(), importMarketInfo);
 
 		int total = 0;
 		for (final TradeRequest tradeRequest : purchaseRequests) {
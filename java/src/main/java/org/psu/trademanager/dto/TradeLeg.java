@@ -0,0 +1,16 @@
+package org.psu.trademanager.dto;
+
+import java.util.Queue;
+
+import org.psu.spacetraders.dto.Waypoint;
+
+/**
+ * One leg of a multi-stop trade plan, which starts at the import waypoint of
+ * the leg before it
+ *
+ * @param route     the route to trade along
+ * @param waypoints the path from the route's export waypoint to its import
+ *                  waypoint, not including the export waypoint
+ */
+public record TradeLeg(TradeRoute route, Queue<Waypoint> waypoints) {
+}
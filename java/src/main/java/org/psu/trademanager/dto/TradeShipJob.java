@@ -1,6 +1,7 @@
 package org.psu.trademanager.dto;
 
 import java.time.Instant;
+import java.util.LinkedList;
 import java.util.Queue;
 
 import org.psu.shiporchestrator.ShipJob;
@@ -25,6 +26,10 @@ public class TradeShipJob implements ShipJob {
 	 * The path to take for this trade route. Can be null if the route is being started in the middle
 	 */
 	private Queue<Waypoint> waypoints;
+	/**
+	 * The legs to trade along after this route, each starting at the import waypoint of the one before it
+	 */
+	private Queue<TradeLeg> nextLegs;
 	private Instant nextAction;
 	private int profit;
 	private State state;
@@ -33,6 +38,7 @@ public class TradeShipJob implements ShipJob {
 		this.ship = ship;
 		this.route = route;
 		this.waypoints = waypoints;
+		this.nextLegs = new LinkedList<>();
 		this.nextAction = Instant.now();
 		this.profit = 0;
 		this.state = State.NOT_STARTED;
@@ -2,9 +2,10 @@ package org.psu.websocket;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.psu.shiporchestrator.ShipRoleManager;
 import org.psu.spacetraders.dto.Ship;
@@ -39,10 +40,11 @@ public class WebsocketReporter {
 	@Inject
 	private ShipRoleManager shipRoleManager;
 
-	private final Set<Session> sessions = new HashSet<>();
-	private int creditTotal = 0;
-	private List<Ship> ships = new ArrayList<>();
-	private Collection<ShipType> shipTypes = new ArrayList<>();
+	private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+	private volatile int creditTotal = 0;
+	// Ships are added from job threads while sessions read them on the websocket thread
+	private volatile List<Ship> ships = new CopyOnWriteArrayList<>();
+	private volatile Collection<ShipType> shipTypes = new ArrayList<>();
 
 	@OnOpen
     public void onOpen(Session session) {
@@ -79,7 +81,7 @@ public class WebsocketReporter {
     }
 
     public void updateShips(final List<Ship> ships) {
-		this.ships = ships;
+		this.ships = new CopyOnWriteArrayList<>(ships);
 		for (Session session : this.sessions) {
 			sendShipUpdate(session);
 		}
@@ -1,5 +1,9 @@
 package org.psu.init;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 
 /**
@@ -19,4 +23,16 @@ public class RandomProviderTest {
 		randomProvider.nextDouble();
 	}
 
+	/**
+	 * Tests nextGaussian
+	 */
+	@Test
+	public void nextGaussian() {
+
+		final RandomProvider randomProvider = new RandomProvider();
+
+		// The same seed every time, so choices can be reproduced
+		assertEquals(new Random(0).nextGaussian(), randomProvider.nextGaussian());
+	}
+
 }
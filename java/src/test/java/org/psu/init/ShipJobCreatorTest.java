@@ -1,10 +1,11 @@
 package org.psu.init;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -12,6 +13,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.psu.miningmanager.MiningShipManager;
 import org.psu.miningmanager.dto.MiningShipJob;
+import org.psu.probemanager.ProbeShipManager;
+import org.psu.probemanager.dto.ProbeShipJob;
 import org.psu.shiporchestrator.ShipJob;
 import org.psu.shiporchestrator.ShipRole;
 import org.psu.shiporchestrator.ShipRoleManager;
@@ -34,6 +37,9 @@ public class ShipJobCreatorTest {
 	@Mock
 	private TradeShipManager tradeShipManager;
 
+	@Mock
+	private ProbeShipManager probeShipManager;
+
 	@InjectMocks
 	private ShipJobCreator shipJobCreator;
 
@@ -80,9 +86,42 @@ public class ShipJobCreatorTest {
 		final Ship ship = mock();
 		when(shipRoleManager.determineRole(ship)).thenReturn(ShipRole.PROBE);
 
+		final ProbeShipJob job = mock();
+		when(probeShipManager.createJob(ship)).thenReturn(job);
+
 		final ShipJob createdJob = shipJobCreator.createShipJob(ship);
 
-		assertNull(createdJob);
+		assertEquals(job, createdJob);
+	}
+
+	/**
+	 * Tests createShipJobs with a mix of ships
+	 */
+	@Test
+	public void createShipJobs() {
+
+		final Ship miningShip = mock();
+		when(shipRoleManager.determineRole(miningShip)).thenReturn(ShipRole.MINING);
+		final Ship tradeShip1 = mock();
+		when(shipRoleManager.determineRole(tradeShip1)).thenReturn(ShipRole.TRADE);
+		final Ship probeShip = mock();
+		when(shipRoleManager.determineRole(probeShip)).thenReturn(ShipRole.PROBE);
+		final Ship tradeShip2 = mock();
+		when(shipRoleManager.determineRole(tradeShip2)).thenReturn(ShipRole.TRADE);
+
+		final MiningShipJob miningJob = mock();
+		when(miningShipManager.createJob(miningShip)).thenReturn(miningJob);
+		final ProbeShipJob probeJob = mock();
+		when(probeShipManager.createJob(probeShip)).thenReturn(probeJob);
+		// The trade ships get their jobs together
+		final TradeShipJob tradeJob1 = mock();
+		final TradeShipJob tradeJob2 = mock();
+		when(tradeShipManager.createJobs(List.of(tradeShip1, tradeShip2))).thenReturn(List.of(tradeJob1, tradeJob2));
+
+		final List<ShipJob> createdJobs = shipJobCreator
+				.createShipJobs(List.of(miningShip, tradeShip1, probeShip, tradeShip2));
+
+		assertEquals(List.of(miningJob, probeJob, tradeJob1, tradeJob2), createdJobs);
 	}
 
 }
@@ -27,6 +27,7 @@ import org.psu.spacetraders.dto.Ship;
 import org.psu.spacetraders.dto.ShipNavigation;
 import org.psu.spacetraders.dto.Waypoint;
 import org.psu.testutils.TestRequestThrottler;
+import org.psu.trademanager.MarketRefresher;
 import org.psu.trademanager.MarketplaceManager;
 import org.psu.trademanager.dto.TradeShipJob;
 import org.psu.websocket.WebsocketReporter;
@@ -64,9 +65,11 @@ public class ShipLoaderTest {
 		final ShipyardManager shipyardManager = mock();
 		final RefuelPathCalculator pathCalculator = mock();
 		final WebsocketReporter websocketReporter = mock();
+		final MarketRefresher marketRefresher = mock();
 		final RequestThrottler throttler = TestRequestThrottler.get();
 		final ShipLoader shipLoader = new ShipLoader(limit, clientProducer, throttler, null, null,
-				marketplaceManager, miningSiteManager, shipyardManager, jobQueue, pathCalculator, websocketReporter);
+				marketplaceManager, miningSiteManager, shipyardManager, jobQueue, pathCalculator, websocketReporter,
+				marketRefresher);
 
 		final List<Ship> ships = shipLoader.gatherShips();
 
@@ -107,10 +110,9 @@ public class ShipLoaderTest {
 		final ShipJobCreator shipJobCreator = mock();
 
 		final TradeShipJob tradeJob = mock();
-		when(shipJobCreator.createShipJob(tradeShip)).thenReturn(tradeJob);
-
 		final MiningShipJob miningJob = mock(MiningShipJob.class);
-		when(shipJobCreator.createShipJob(miningShip)).thenReturn(miningJob);
+		when(shipJobCreator.createShipJobs(List.of(tradeShip, miningShip, probeShip)))
+				.thenReturn(List.of(tradeJob, miningJob));
 
 		final MarketplaceManager marketplaceManager = mock(MarketplaceManager.class);
 
@@ -125,16 +127,19 @@ public class ShipLoaderTest {
 		final ShipyardManager shipyardManager = mock();
 		final RefuelPathCalculator pathCalculator = mock();
 		final WebsocketReporter websocketReporter = mock();
+		final MarketRefresher marketRefresher = mock();
 
 		final RequestThrottler throttler = TestRequestThrottler.get();
 		final ShipLoader shipLoader = new ShipLoader(limit, clientProducer, throttler, systemBuilder, shipJobCreator,
-				marketplaceManager, miningSiteManager, shipyardManager, jobQueue, pathCalculator, websocketReporter);
+				marketplaceManager, miningSiteManager, shipyardManager, jobQueue, pathCalculator, websocketReporter,
+				marketRefresher);
 
 		shipLoader.run();
 
 		verify(systemBuilder).gatherWaypoints(systemId);
 		verify(marketplaceManager).updateMarketData(Map.of(waypoint, marketInfo));
 		verify(jobQueue).establishJobs(List.of(tradeJob, miningJob));
+		verify(marketRefresher).start(List.of(tradeShip, miningShip, probeShip));
 		verify(jobQueue).beginJobQueue();
 		verify(miningSiteManager).addSites(List.of(waypoint));
 		verify(shipyardManager).loadData(List.of(waypoint));
@@ -163,10 +168,12 @@ public class ShipLoaderTest {
 		final ShipyardManager shipyardManager = mock();
 		final RefuelPathCalculator pathCalculator = mock();
 		final WebsocketReporter websocketReporter = mock();
+		final MarketRefresher marketRefresher = mock();
 
 		final RequestThrottler throttler = TestRequestThrottler.get();
 		final ShipLoader shipLoader = new ShipLoader(limit, clientProducer, throttler, systemBuilder, null,
-				marketplaceManager, miningSiteManager, shipyardManager, jobQueue, pathCalculator, websocketReporter);
+				marketplaceManager, miningSiteManager, shipyardManager, jobQueue, pathCalculator, websocketReporter,
+				marketRefresher);
 
 		assertThrows(IllegalStateException.class, () -> shipLoader.run());
 	}
@@ -2,8 +2,11 @@ package org.psu.miningmanager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -31,6 +34,8 @@ import org.psu.spacetraders.api.SurveyClient;
 import org.psu.spacetraders.dto.Cargo;
 import org.psu.spacetraders.dto.CargoItem;
 import org.psu.spacetraders.dto.DataWrapper;
+import org.psu.spacetraders.dto.ErrorResponse;
+import org.psu.spacetraders.dto.ErrorResponse.ApiError;
 import org.psu.spacetraders.dto.MarketInfo;
 import org.psu.spacetraders.dto.Product;
 import org.psu.spacetraders.dto.Ship;
@@ -41,6 +46,8 @@ import org.psu.testutils.TestUtils;
 import org.psu.trademanager.MarketplaceManager;
 import org.psu.websocket.WebsocketReporter;
 
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
 
 /**
  * Tests for {@link MiningShipManager}
@@ -60,7 +67,8 @@ public class MiningShipManagerTest {
 		final Waypoint way = mock(Waypoint.class);
 		final MiningSiteManager miningSiteManager = mock(MiningSiteManager.class);
 		when(miningSiteManager.getMiningSite(destination)).thenReturn(null);
-		when(miningSiteManager.getClosestMiningSite(ship)).thenReturn(Optional.of(TestUtils.makeQueue(way)));
+		final MiningSiteSelector siteSelector = mock(MiningSiteSelector.class);
+		when(siteSelector.selectSite(ship)).thenReturn(Optional.of(TestUtils.makeQueue(way)));
 
 		final MarketplaceManager marketManager = mock(MarketplaceManager.class);
 		when(marketManager.getMarketInfoById(destination)).thenReturn(Optional.empty());
@@ -68,7 +76,7 @@ public class MiningShipManagerTest {
 		final WebsocketReporter reporter = mock(WebsocketReporter.class);
 
 		final MiningShipManager manager = new MiningShipManager(1, mock(ClientProducer.class), null, miningSiteManager,
-				null, marketManager, null, reporter);
+				null, marketManager, null, reporter, new SurveyPool(1), null, siteSelector, null);
 
 		final MiningShipJob job = manager.createJob(ship);
 
@@ -109,7 +117,7 @@ public class MiningShipManagerTest {
 		final WebsocketReporter reporter = mock(WebsocketReporter.class);
 
 		final MiningShipManager manager = new MiningShipManager(1, mock(ClientProducer.class), null, miningSiteManager,
-				null, marketManager, null, reporter);
+				null, marketManager, null, reporter, new SurveyPool(1), null, null, null);
 
 		final MiningShipJob job = manager.createJob(ship);
 
@@ -140,7 +148,8 @@ public class MiningShipManagerTest {
 		final Waypoint way = mock(Waypoint.class);
 		final MiningSiteManager miningSiteManager = mock(MiningSiteManager.class);
 		when(miningSiteManager.getMiningSite(destination)).thenReturn(null);
-		when(miningSiteManager.getClosestMiningSite(ship)).thenReturn(Optional.of(TestUtils.makeQueue(way)));
+		final MiningSiteSelector siteSelector = mock(MiningSiteSelector.class);
+		when(siteSelector.selectSite(ship)).thenReturn(Optional.of(TestUtils.makeQueue(way)));
 
 		final MarketInfo market = mock(MarketInfo.class);
 		// Does not sell anything in the ship's cargo
@@ -153,7 +162,7 @@ public class MiningShipManagerTest {
 		final WebsocketReporter reporter = mock(WebsocketReporter.class);
 
 		final MiningShipManager manager = new MiningShipManager(1, mock(ClientProducer.class), null, miningSiteManager,
-				null, marketManager, null, reporter);
+				null, marketManager, null, reporter, new SurveyPool(1), null, siteSelector, null);
 
 		final MiningShipJob job = manager.createJob(ship);
 
@@ -182,8 +191,10 @@ public class MiningShipManagerTest {
 
 		final WebsocketReporter reporter = mock(WebsocketReporter.class);
 
+		final MiningSiteSelector siteSelector = mock(MiningSiteSelector.class);
+
 		final MiningShipManager manager = new MiningShipManager(1000, mock(ClientProducer.class), null,
-				miningSiteManager, null, null, null, reporter);
+				miningSiteManager, null, null, null, reporter, new SurveyPool(1), null, siteSelector, null);
 
 		final MiningShipJob job = manager.createJob(ship);
 
@@ -194,6 +205,8 @@ public class MiningShipManagerTest {
 		assertEquals(miningSite, job.getExtractionPoint());
 		assertEquals(State.TRAVELING_TO_RESOURCE, job.getState());
 		assertEquals(expectedArrivalTime, job.getNextAction());
+		// The resumed ship counts against the site it is traveling to
+		verify(siteSelector).claim(ship, miningSite);
 	}
 
 	/**
@@ -217,11 +230,14 @@ public class MiningShipManagerTest {
 
 		final WebsocketReporter reporter = mock(WebsocketReporter.class);
 
+		final MiningSiteSelector siteSelector = mock(MiningSiteSelector.class);
+
 		final MiningShipManager manager = new MiningShipManager(1, mock(ClientProducer.class), null, miningSiteManager,
-				null, null, null, reporter);
+				null, null, null, reporter, new SurveyPool(1), null, siteSelector, null);
 
 		final MiningShipJob job = manager.createJob(ship);
 
+		verify(siteSelector).claim(ship, miningSite);
 		assertEquals(ship, job.getShip());
 		assertEquals(miningSite, job.getExtractionPoint());
 		assertEquals(State.TRAVELING_TO_RESOURCE, job.getState());
@@ -248,11 +264,14 @@ public class MiningShipManagerTest {
 
 		final WebsocketReporter reporter = mock(WebsocketReporter.class);
 
+		final MiningSiteSelector siteSelector = mock(MiningSiteSelector.class);
+
 		final MiningShipManager manager = new MiningShipManager(1, mock(ClientProducer.class), null, miningSiteManager,
-				null, null, null, reporter);
+				null, null, null, reporter, new SurveyPool(1), null, siteSelector, null);
 
 		final MiningShipJob job = manager.createJob(ship);
 
+		verify(siteSelector).claim(ship, miningSite);
 		assertEquals(ship, job.getShip());
 		assertEquals(miningSite, job.getExtractionPoint());
 		assertEquals(State.EXTRACTING, job.getState());
@@ -285,7 +304,7 @@ public class MiningShipManagerTest {
 		final MiningShipJob job = new MiningShipJob(ship, TestUtils.makeQueue(extractionSite));
 
 		final MiningShipManager manager = new MiningShipManager(1, clientProducer, throttler, null, navigationHelper,
-				null, null, reporter);
+				null, null, reporter, new SurveyPool(1), null, null, null);
 
 		final MiningShipJob nextJob = manager.manageMiningShip(job);
 
@@ -329,7 +348,7 @@ public class MiningShipManagerTest {
 		job.setState(State.TRAVELING_TO_RESOURCE);
 
 		final MiningShipManager manager = new MiningShipManager(0, clientProducer, throttler, null, navigationHelper,
-				null, marketRequester, reporter);
+				null, marketRequester, reporter, new SurveyPool(1), null, null, null);
 
 		final MiningShipJob nextJob = manager.manageMiningShip(job);
 
@@ -365,6 +384,7 @@ public class MiningShipManagerTest {
 
 		final SurveyResponse surveyResponse = mock(SurveyResponse.class);
 		final Survey survey = mock(Survey.class);
+		when(survey.getExpiration()).thenReturn(Instant.now().plus(Duration.ofDays(1)));
 		when(surveyResponse.getSurveys()).thenReturn(List.of(survey));
 		final int cooldownSeconds = 50;
 		final Cooldown cooldown = new Cooldown(cooldownSeconds);
@@ -375,13 +395,14 @@ public class MiningShipManagerTest {
 		final MiningShipJob job = new MiningShipJob(ship, TestUtils.makeQueue(extractionSite));
 		job.setState(State.TRAVELING_TO_RESOURCE);
 
+		final SurveyPool surveyPool = new SurveyPool(1);
 		final MiningShipManager manager = new MiningShipManager(0, clientProducer, throttler, null, navigationHelper,
-				null, null, reporter);
+				null, null, reporter, surveyPool, null, null, null);
 
 		final MiningShipJob nextJob = manager.manageMiningShip(job);
 
 		assertEquals(State.SURVEYING, nextJob.getState());
-		assertEquals(List.of(survey), job.getSurveys());
+		assertEquals(List.of(survey), surveyPool.getSurveys(extractionSiteId));
 
 		// Cooldown will be 50 seconds in the future, to account for test runtime lets just asset that
 		// its between 45 and 55 seconds in the future
@@ -389,6 +410,46 @@ public class MiningShipManagerTest {
 		assertTrue(Duration.between(Instant.now(), nextJob.getNextAction()).compareTo(Duration.ofSeconds(55)) < 0);
 	}
 
+	/**
+	 * Tests manageMiningShip when the ship reaches a resource another ship has
+	 * already surveyed
+	 */
+	@Test
+	public void manageMiningShipAtSurveyedResource() {
+
+		final SurveyClient surveyClient = mock(SurveyClient.class);
+		final ClientProducer clientProducer = mock();
+		when(clientProducer.produceSurveyClient()).thenReturn(surveyClient);
+
+		final String extractionSiteId = "waypoint";
+		final Waypoint extractionSite = mock(Waypoint.class);
+		when(extractionSite.getSymbol()).thenReturn(extractionSiteId);
+
+		final ShipNavigation shipNav = mock();
+		when(shipNav.getWaypointSymbol()).thenReturn(extractionSiteId);
+		final Ship ship = mock();
+		when(ship.getSymbol()).thenReturn("shippy");
+		when(ship.getNav()).thenReturn(shipNav);
+
+		final Survey survey = mock(Survey.class);
+		when(survey.getExpiration()).thenReturn(Instant.now().plus(Duration.ofDays(1)));
+		final SurveyPool surveyPool = new SurveyPool(1);
+		surveyPool.addSurveys(extractionSiteId, List.of(survey));
+
+		final MiningShipJob job = new MiningShipJob(ship, TestUtils.makeQueue(extractionSite));
+		job.setState(State.TRAVELING_TO_RESOURCE);
+
+		final MiningShipManager manager = new MiningShipManager(0, clientProducer, TestRequestThrottler.get(), null,
+				mock(NavigationHelper.class), null, null, mock(WebsocketReporter.class), surveyPool, null, null, null);
+
+		final MiningShipJob nextJob = manager.manageMiningShip(job);
+
+		// The ship can start extracting right away with the other ship's survey
+		assertEquals(State.SURVEYING, nextJob.getState());
+		assertTrue(Duration.between(Instant.now(), nextJob.getNextAction()).compareTo(Duration.ofSeconds(1)) < 0);
+		verifyNoInteractions(surveyClient);
+	}
+
 	/**
 	 * Tests manageMiningShip when the ship has finished surveying
 	 */
@@ -425,15 +486,19 @@ public class MiningShipManagerTest {
 
 		final MiningShipJob job = new MiningShipJob(ship, TestUtils.makeQueue(extractionSite));
 		job.setState(State.SURVEYING);
-		job.setSurveys(List.of(survey));
 
+		final SurveyPool surveyPool = new SurveyPool(1);
+		surveyPool.addSurveys(extractionSiteId, List.of(survey));
+		final SiteYieldTracker yieldTracker = new SiteYieldTracker();
 		final MiningShipManager manager = new MiningShipManager(0, clientProducer, throttler, null, navigationHelper,
-				null, null, reporter);
+				null, null, reporter, surveyPool,
+				new SurveyScorer(mock(MarketplaceManager.class), 60), null, yieldTracker);
 
 		final MiningShipJob nextJob = manager.manageMiningShip(job);
 
 		assertEquals(State.EXTRACTING, nextJob.getState());
 		verify(ship).setCargo(cargo);
+		assertEquals(1, yieldTracker.getYield(extractionSiteId).extractions());
 
 		// Cooldown will be 50 seconds in the future, to account for test runtime lets just asset that
 		// its between 45 and 55 seconds in the future
@@ -469,10 +534,12 @@ public class MiningShipManagerTest {
 
 		final MiningShipJob job = new MiningShipJob(ship, TestUtils.makeQueue(extractionSite));
 		job.setState(State.SURVEYING);
-		job.setSurveys(List.of(survey));
 
+		final SurveyPool surveyPool = new SurveyPool(1);
+		surveyPool.addSurveys(extractionSiteId, List.of(survey));
 		final MiningShipManager manager = new MiningShipManager(0, clientProducer, throttler, null, navigationHelper,
-				null, null, reporter);
+				null, null, reporter, surveyPool,
+				new SurveyScorer(mock(MarketplaceManager.class), 60), null, new SiteYieldTracker());
 
 		final MiningShipJob nextJob = manager.manageMiningShip(job);
 
@@ -480,6 +547,86 @@ public class MiningShipManagerTest {
 		verifyNoInteractions(surveyClient);
 	}
 
+	/**
+	 * Tests manageMiningShip when the server rejects the survey, as it does once
+	 * the surveyed deposit is exhausted
+	 */
+	@Test
+	public void manageMiningShipSurveyingRejectedSurvey() {
+
+		final SurveyClient surveyClient = mock(SurveyClient.class);
+		final SurveyPool surveyPool = new SurveyPool(1);
+		final Survey survey = mock(Survey.class);
+		final Ship ship = mock(Ship.class);
+		final MiningShipJob job = makeRejectedSurveyJob(ship, survey, surveyPool, surveyClient,
+				makeRejection(400, MiningShipManager.SURVEY_EXHAUSTED_ERROR));
+		final MiningShipManager manager = makeRejectedSurveyManager(surveyPool, surveyClient);
+
+		final MiningShipJob nextJob = manager.manageMiningShip(job);
+
+		// The survey is gone, so the ship will survey again rather than retry it
+		assertEquals(State.TRAVELING_TO_RESOURCE, nextJob.getState());
+		assertTrue(surveyPool.getSurveys("waypoint").isEmpty());
+		assertTrue(surveyPool.needsSurvey("waypoint"));
+		verify(ship, never()).setCargo(any());
+	}
+
+	/**
+	 * Tests manageMiningShip when an extraction is rate limited
+	 */
+	@Test
+	public void manageMiningShipSurveyingRateLimited() {
+
+		final SurveyClient surveyClient = mock(SurveyClient.class);
+		final SurveyPool surveyPool = new SurveyPool(1);
+		final Survey survey = mock(Survey.class);
+		final Ship ship = mock(Ship.class);
+		final MiningShipJob job = makeRejectedSurveyJob(ship, survey, surveyPool, surveyClient,
+				makeRejection(429, 429));
+		final MiningShipManager manager = makeRejectedSurveyManager(surveyPool, surveyClient);
+
+		assertThrows(WebApplicationException.class, () -> manager.manageMiningShip(job));
+
+		// The survey is still good, the job queue will retry the ship
+		assertEquals(List.of(survey), surveyPool.getSurveys("waypoint"));
+		verify(ship, never()).setCargo(any());
+	}
+
+	private static WebApplicationException makeRejection(final int status, final int code) {
+		final Response response = mock();
+		when(response.getStatus()).thenReturn(status);
+		when(response.hasEntity()).thenReturn(true);
+		when(response.readEntity(ErrorResponse.class)).thenReturn(new ErrorResponse(new ApiError("rejected", code)));
+		return new WebApplicationException("rejected", response);
+	}
+
+	private static MiningShipJob makeRejectedSurveyJob(final Ship ship, final Survey survey,
+			final SurveyPool surveyPool, final SurveyClient surveyClient, final WebApplicationException rejection) {
+		final String shipId = "shippy";
+		when(ship.getSymbol()).thenReturn(shipId);
+		when(ship.getRemainingCargo()).thenReturn(8);
+
+		when(survey.getExpiration()).thenReturn(Instant.now().plus(Duration.ofDays(1)));
+		surveyPool.addSurveys("waypoint", List.of(survey));
+		when(surveyClient.extractSurvey(shipId, survey)).thenThrow(rejection);
+
+		final Waypoint extractionSite = mock(Waypoint.class);
+		when(extractionSite.getSymbol()).thenReturn("waypoint");
+
+		final MiningShipJob job = new MiningShipJob(ship, TestUtils.makeQueue(extractionSite));
+		job.setState(State.EXTRACTING);
+		return job;
+	}
+
+	private static MiningShipManager makeRejectedSurveyManager(final SurveyPool surveyPool,
+			final SurveyClient surveyClient) {
+		final ClientProducer clientProducer = mock();
+		when(clientProducer.produceSurveyClient()).thenReturn(surveyClient);
+		return new MiningShipManager(0, clientProducer, TestRequestThrottler.get(), null,
+				mock(NavigationHelper.class), null, null, mock(WebsocketReporter.class), surveyPool,
+				new SurveyScorer(mock(MarketplaceManager.class), 60), null, new SiteYieldTracker());
+	}
+
 	/**
 	 * Tests manageMiningShip when the ship has finished extracting
 	 */
@@ -538,10 +685,11 @@ public class MiningShipManagerTest {
 
 		final MiningShipJob job = new MiningShipJob(ship, TestUtils.makeQueue(extractionSite));
 		job.setState(State.EXTRACTING);
-		job.setSurveys(List.of(survey));
 
+		final SurveyPool surveyPool = new SurveyPool(1);
+		surveyPool.addSurveys(extractionSiteId, List.of(survey));
 		final MiningShipManager manager = new MiningShipManager(0, clientProducer, throttler, null, navigationHelper,
-				marketplaceManager, null, reporter);
+				marketplaceManager, null, reporter, surveyPool, null, null, null);
 
 		final MiningShipJob nextJob = manager.manageMiningShip(job);
 
@@ -590,7 +738,7 @@ public class MiningShipManagerTest {
 		job.setSellingPath(TestUtils.makeQueue(intermediateWaypoint, sellingWaypoint));
 
 		final MiningShipManager manager = new MiningShipManager(1, clientProducer, throttler, miningSiteManager,
-				navigationHelper, marketManager, marketRequester, reporter);
+				navigationHelper, marketManager, marketRequester, reporter, new SurveyPool(1), null, null, null);
 
 		final MiningShipJob nextJob = manager.manageMiningShip(job);
 
@@ -642,12 +790,17 @@ public class MiningShipManagerTest {
 		job.setState(State.TRAVELING_TO_MARKET);
 		job.setSellingPoint(extractionSite);
 
+		final MiningSiteSelector siteSelector = mock(MiningSiteSelector.class);
+
 		final MiningShipManager manager = new MiningShipManager(1, clientProducer, throttler, miningSiteManager,
-				navigationHelper, marketManager, marketRequester, reporter);
+				navigationHelper, marketManager, marketRequester, reporter, new SurveyPool(1), null, siteSelector,
+				null);
 
 		final MiningShipJob nextJob = manager.manageMiningShip(job);
 
 		verify(marketRequester).dockAndSellItems(ship, extractionSite, cargoItems);
+		// The ship no longer counts against its site once it has sold its load
+		verify(siteSelector).release(ship);
 		assertNull(nextJob);
 	}
 
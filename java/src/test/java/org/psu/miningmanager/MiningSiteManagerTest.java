@@ -12,8 +12,10 @@ import java.util.Optional;
 import java.util.Queue;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
 import org.psu.navigation.NavigationPath;
 import org.psu.navigation.RefuelPathCalculator;
+import org.psu.navigation.WaypointRegistry;
 import org.psu.spacetraders.dto.Ship;
 import org.psu.spacetraders.dto.Trait;
 import org.psu.spacetraders.dto.Trait.Type;
@@ -35,7 +37,8 @@ public class MiningSiteManagerTest {
 		final Trait nonMiningTrait = new Trait(Type.DEEP_CRATERS);
 
 		final RefuelPathCalculator pathCalculator = mock();
-		final Ship ship = mock();
+		// Deep stubs place the ship at the origin
+		final Ship ship = mock(Ship.class, Answers.RETURNS_DEEP_STUBS);
 
 		final String closeMiningSiteId = "closeMiningSite";
 		final Waypoint closeMiningSite = mock(Waypoint.class);
@@ -64,7 +67,7 @@ public class MiningSiteManagerTest {
 		when(nonMiningSite.getTraits()).thenReturn(List.of(nonMiningTrait));
 		when(ship.distTo(nonMiningSite)).thenReturn(0.1);
 
-		final MiningSiteManager manager = new MiningSiteManager(pathCalculator);
+		final MiningSiteManager manager = new MiningSiteManager(pathCalculator, new WaypointRegistry());
 		manager.addSites(List.of(nonMiningSite, closeMiningSite, mediumMiningSite, farMiningSite));
 
 		final Optional<Deque<Waypoint>> closestMiningSite = manager.getClosestMiningSite(ship);
@@ -73,6 +76,12 @@ public class MiningSiteManagerTest {
 		assertEquals(closeMiningSite, path.poll());
 		assertNull(path.poll());
 
+		// Only the medium site is a candidate
+		final Optional<Deque<Waypoint>> mediumPath = manager.getClosestMiningSite(ship,
+				w -> w.getSymbol().equals(mediumMiningSiteId));
+		assertEquals(mediumMiningSite, mediumPath.get().poll());
+		assertEquals(3, manager.getMiningSites().size());
+
 		assertEquals(closeMiningSite, manager.getMiningSite(closeMiningSiteId));
 		assertEquals(mediumMiningSite, manager.getMiningSite(mediumMiningSiteId));
 		assertEquals(farMiningSite, manager.getMiningSite(farMiningSiteId));
@@ -0,0 +1,177 @@
+package org.psu.miningmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.psu.miningmanager.dto.Cooldown;
+import org.psu.miningmanager.dto.ExtractResponse;
+import org.psu.navigation.NavigationPath;
+import org.psu.navigation.RefuelPathCalculator;
+import org.psu.spacetraders.dto.Cargo;
+import org.psu.spacetraders.dto.CargoItem;
+import org.psu.spacetraders.dto.FuelStatus;
+import org.psu.spacetraders.dto.Product;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.ShipEngine;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.testutils.TestUtils;
+import org.psu.trademanager.MarketplaceManager;
+import org.psu.trademanager.MarketplaceManager.Sale;
+
+/**
+ * Tests for {@link MiningSiteSelector}
+ */
+public class MiningSiteSelectorTest {
+
+	/**
+	 * Tests that the closest site is chosen before anything has been extracted
+	 */
+	@Test
+	public void selectSiteWithoutYields() {
+
+		final Ship ship = makeShip("ship");
+		final Waypoint site = TestUtils.makeWaypoint("site", 10, 0);
+		final MiningSiteManager siteManager = mock();
+		when(siteManager.getClosestMiningSite(eq(ship), any())).thenReturn(Optional.of(TestUtils.makeQueue(site)));
+
+		final MiningSiteSelector selector = new MiningSiteSelector(30, 2, siteManager, new SiteYieldTracker(),
+				mock(MarketplaceManager.class), mock(RefuelPathCalculator.class));
+
+		assertEquals(site, selector.selectSite(ship).get().peekLast());
+	}
+
+	/**
+	 * Tests that sites are chosen by expected credits per hour, and that no site
+	 * gets more ships than it can take unless every site is full
+	 */
+	@Test
+	public void selectSite() {
+
+		final Ship ship1 = makeShip("ship1");
+		final Ship ship2 = makeShip("ship2");
+		final Ship ship3 = makeShip("ship3");
+
+		// The gold site is further away, but gold is worth so much more than iron that it's worth the trip
+		final Waypoint ironSite = TestUtils.makeWaypoint("ironSite", 10, 0);
+		final Waypoint goldSite = TestUtils.makeWaypoint("goldSite", 100, 0);
+		final MiningSiteManager siteManager = mock();
+		when(siteManager.getMiningSites()).thenReturn(List.of(ironSite, goldSite));
+
+		final SiteYieldTracker yieldTracker = new SiteYieldTracker();
+		yieldTracker.recordExtraction("ironSite", null,
+				new ExtractResponse(new Cooldown(60), new Cargo(20, 5, List.of(new CargoItem("IRON", 5)))));
+		yieldTracker.recordExtraction("goldSite", null,
+				new ExtractResponse(new Cooldown(60), new Cargo(20, 5, List.of(new CargoItem("GOLD", 5)))));
+
+		// Both sites sell to a market at the origin
+		final Waypoint market = TestUtils.makeWaypoint("market", 0, 0);
+		final MarketplaceManager marketplaceManager = mock();
+		when(marketplaceManager.getBestSale(eq(ironSite), anyInt(), eq(new Product("IRON"))))
+				.thenReturn(Optional.of(new Sale(market, 10, new NavigationPath(10, TestUtils.makeQueue(market)))));
+		when(marketplaceManager.getBestSale(eq(goldSite), anyInt(), eq(new Product("GOLD"))))
+				.thenReturn(Optional.of(new Sale(market, 100, new NavigationPath(100, TestUtils.makeQueue(market)))));
+		final RefuelPathCalculator pathCalculator = mock();
+		for (final Ship ship : List.of(ship1, ship2, ship3)) {
+			when(pathCalculator.determineShortestRoute(ship, ironSite))
+					.thenReturn(new NavigationPath(10, TestUtils.makeQueue(ironSite)));
+			when(pathCalculator.determineShortestRoute(ship, goldSite))
+					.thenReturn(new NavigationPath(100, TestUtils.makeQueue(goldSite)));
+		}
+
+		final MiningSiteSelector selector = new MiningSiteSelector(30, 1, siteManager, yieldTracker,
+				marketplaceManager, pathCalculator);
+
+		assertEquals(goldSite, selector.selectSite(ship1).get().peekLast());
+		// The gold site is full
+		assertEquals(ironSite, selector.selectSite(ship2).get().peekLast());
+		// Every site is full, so the best one is overloaded
+		assertEquals(goldSite, selector.selectSite(ship3).get().peekLast());
+		// A ship choosing again is not counted against the site it is leaving
+		assertEquals(ironSite, selector.selectSite(ship2).get().peekLast());
+	}
+
+	/**
+	 * Tests that no path is found to a site which can't beat the best site even
+	 * when flying to it in a straight line
+	 */
+	@Test
+	public void selectSiteSkipsDistantSites() {
+
+		final Ship ship = makeShip("ship");
+		final Waypoint nearSite = TestUtils.makeWaypoint("nearSite", 10, 0);
+		final Waypoint farSite = TestUtils.makeWaypoint("farSite", 5000, 0);
+		final MiningSiteManager siteManager = mock();
+		when(siteManager.getMiningSites()).thenReturn(List.of(farSite, nearSite));
+
+		final SiteYieldTracker yieldTracker = new SiteYieldTracker();
+		for (final String site : List.of("nearSite", "farSite")) {
+			yieldTracker.recordExtraction(site, null,
+					new ExtractResponse(new Cooldown(60), new Cargo(20, 5, List.of(new CargoItem("IRON", 5)))));
+		}
+
+		final Waypoint market = TestUtils.makeWaypoint("market", 0, 0);
+		final MarketplaceManager marketplaceManager = mock();
+		when(marketplaceManager.getBestSale(any(), anyInt(), eq(new Product("IRON"))))
+				.thenReturn(Optional.of(new Sale(market, 10, new NavigationPath(10, TestUtils.makeQueue(market)))));
+		final RefuelPathCalculator pathCalculator = mock();
+		when(pathCalculator.determineShortestRoute(ship, nearSite))
+				.thenReturn(new NavigationPath(10, TestUtils.makeQueue(nearSite)));
+
+		final MiningSiteSelector selector = new MiningSiteSelector(30, 3, siteManager, yieldTracker,
+				marketplaceManager, pathCalculator);
+
+		assertEquals(nearSite, selector.selectSite(ship).get().peekLast());
+		verify(pathCalculator, never()).determineShortestRoute(ship, farSite);
+	}
+
+	/**
+	 * Tests that claimed ships count against their site until they are released
+	 */
+	@Test
+	public void claimAndRelease() {
+
+		final Ship ship = makeShip("ship");
+		final Ship resumedShip = makeShip("resumedShip");
+		final Waypoint nearSite = TestUtils.makeWaypoint("nearSite", 10, 0);
+		final Waypoint farSite = TestUtils.makeWaypoint("farSite", 100, 0);
+		final MiningSiteManager siteManager = mock();
+		when(siteManager.getClosestMiningSite(eq(ship), any())).thenAnswer(invocation -> {
+			final Predicate<Waypoint> hasCapacity = invocation.getArgument(1);
+			return Stream.of(nearSite, farSite).filter(hasCapacity).findFirst().map(TestUtils::makeQueue);
+		});
+
+		final MiningSiteSelector selector = new MiningSiteSelector(30, 1, siteManager, new SiteYieldTracker(),
+				mock(MarketplaceManager.class), mock(RefuelPathCalculator.class));
+
+		// A ship which was mining when the application started fills the near site
+		selector.claim(resumedShip, nearSite);
+		assertEquals(farSite, selector.selectSite(ship).get().peekLast());
+
+		selector.release(resumedShip);
+		assertEquals(nearSite, selector.selectSite(ship).get().peekLast());
+	}
+
+	private static Ship makeShip(final String symbol) {
+		// Deep stubs place the ship at the origin
+		final Ship ship = mock(Ship.class, Answers.RETURNS_DEEP_STUBS);
+		when(ship.getSymbol()).thenReturn(symbol);
+		when(ship.getEngine()).thenReturn(new ShipEngine("engine", 30));
+		when(ship.getCargo()).thenReturn(new Cargo(20, 0, List.of()));
+		when(ship.getFuel()).thenReturn(new FuelStatus(100, 100));
+		return ship;
+	}
+
+}
@@ -0,0 +1,57 @@
+package org.psu.miningmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.psu.miningmanager.SiteYieldTracker.SiteYield;
+import org.psu.miningmanager.dto.Cooldown;
+import org.psu.miningmanager.dto.ExtractResponse;
+import org.psu.spacetraders.dto.Cargo;
+import org.psu.spacetraders.dto.CargoItem;
+
+/**
+ * Tests for {@link SiteYieldTracker}
+ */
+public class SiteYieldTrackerTest {
+
+	/**
+	 * Tests that extractions are recorded as the change in the ship's cargo
+	 */
+	@Test
+	public void recordExtraction() {
+
+		final SiteYieldTracker tracker = new SiteYieldTracker();
+		assertNull(tracker.getYield("site"));
+		assertNull(tracker.getTotalYield());
+
+		// An empty ship extracts 4 iron
+		final Cargo afterFirst = new Cargo(20, 4, List.of(new CargoItem("IRON", 4)));
+		tracker.recordExtraction("site", null, new ExtractResponse(new Cooldown(60), afterFirst));
+
+		// The same ship then extracts 2 iron and 4 copper
+		final Cargo afterSecond = new Cargo(20, 10, List.of(new CargoItem("IRON", 6), new CargoItem("COPPER", 4)));
+		tracker.recordExtraction("site", afterFirst, new ExtractResponse(new Cooldown(80), afterSecond));
+
+		final SiteYield siteYield = tracker.getYield("site");
+		assertEquals(2, siteYield.extractions());
+		assertEquals(Map.of("IRON", 6, "COPPER", 4), siteYield.unitsByProduct());
+		assertEquals(10, siteYield.units());
+		assertEquals(5.0, siteYield.unitsPerExtraction());
+		assertEquals(70.0, siteYield.secondsPerExtraction());
+
+		// Another site's extractions count towards the total
+		final Cargo otherCargo = new Cargo(20, 5, List.of(new CargoItem("GOLD", 5)));
+		tracker.recordExtraction("other site", null, new ExtractResponse(new Cooldown(60), otherCargo));
+
+		assertEquals(Map.of("GOLD", 5), tracker.getYield("other site").unitsByProduct());
+		final SiteYield totalYield = tracker.getTotalYield();
+		assertEquals(3, totalYield.extractions());
+		assertEquals(15, totalYield.units());
+		assertEquals(200, totalYield.cooldownSeconds());
+	}
+
+}
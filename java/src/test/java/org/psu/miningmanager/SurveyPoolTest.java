@@ -0,0 +1,73 @@
+package org.psu.miningmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.psu.miningmanager.dto.Survey;
+
+/**
+ * Tests for {@link SurveyPool}
+ */
+public class SurveyPoolTest {
+
+	/**
+	 * Tests that surveys are shared by site and handed out until they expire
+	 */
+	@Test
+	public void getSurveys() {
+
+		final SurveyPool pool = new SurveyPool(2);
+		assertTrue(pool.needsSurvey("site"));
+		assertTrue(pool.getSurveys("site").isEmpty());
+
+		final Survey expired = makeSurvey("expired", Duration.ofMinutes(-1));
+		final Survey shortLived = makeSurvey("short", Duration.ofMinutes(5));
+		final Survey longLived = makeSurvey("long", Duration.ofMinutes(10));
+		pool.addSurveys("site", List.of(shortLived, expired));
+
+		// Only one of the surveys is still live
+		assertTrue(pool.needsSurvey("site"));
+		assertEquals(List.of(shortLived), pool.getSurveys("site"));
+
+		pool.addSurveys("site", List.of(longLived));
+		assertFalse(pool.needsSurvey("site"));
+		assertEquals(List.of(shortLived, longLived), pool.getSurveys("site"));
+		// Surveys aren't used up by handing them out
+		assertEquals(List.of(shortLived, longLived), pool.getSurveys("site"));
+
+		// Surveys of one site are no use at another
+		assertTrue(pool.needsSurvey("other site"));
+		assertTrue(pool.getSurveys("other site").isEmpty());
+	}
+
+	/**
+	 * Tests that a removed survey is no longer handed out
+	 */
+	@Test
+	public void removeSurvey() {
+
+		final SurveyPool pool = new SurveyPool(1);
+		final Survey exhausted = makeSurvey("exhausted", Duration.ofMinutes(10));
+		final Survey other = makeSurvey("other", Duration.ofMinutes(5));
+		pool.addSurveys("site", List.of(exhausted, other));
+
+		pool.removeSurvey("site", exhausted);
+		assertEquals(List.of(other), pool.getSurveys("site"));
+
+		pool.removeSurvey("site", other);
+		assertTrue(pool.needsSurvey("site"));
+		// Removing from a site with no surveys does nothing
+		pool.removeSurvey("other site", other);
+	}
+
+	private static Survey makeSurvey(final String signature, final Duration timeToExpiration) {
+		return new Survey(signature, "site", List.of(), Instant.now().plus(timeToExpiration), "SMALL");
+	}
+
+}
@@ -0,0 +1,100 @@
+package org.psu.miningmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.psu.miningmanager.dto.Survey;
+import org.psu.spacetraders.dto.Product;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.trademanager.MarketplaceManager;
+
+/**
+ * Tests for {@link SurveyScorer}
+ */
+public class SurveyScorerTest {
+
+	private static final Product IRON = new Product("IRON_ORE");
+	private static final Product GOLD = new Product("GOLD_ORE");
+
+	/**
+	 * Tests that a survey is scored by the average price of its deposits and its
+	 * size
+	 */
+	@Test
+	public void score() {
+
+		final Ship ship = mock();
+		final MarketplaceManager marketplaceManager = mock();
+		when(marketplaceManager.getBestSellPrice(ship, IRON)).thenReturn(10);
+		when(marketplaceManager.getBestSellPrice(ship, GOLD)).thenReturn(40);
+		final SurveyScorer scorer = new SurveyScorer(marketplaceManager, 60);
+
+		// Three quarters of the yield is iron
+		final Survey small = makeSurvey(List.of(IRON, IRON, IRON, GOLD), "SMALL", Duration.ofHours(1));
+		assertEquals(17.5, scorer.score(ship, small), 1e-9);
+		final Survey large = makeSurvey(List.of(IRON, IRON, IRON, GOLD), "LARGE", Duration.ofHours(1));
+		assertEquals(35.0, scorer.score(ship, large), 1e-9);
+
+		// A survey about to expire is worth less, an expired one is worthless
+		final Survey expiring = makeSurvey(List.of(GOLD), "SMALL", Duration.ofSeconds(30));
+		final double expiringScore = scorer.score(ship, expiring);
+		assertTrue(expiringScore > 0 && expiringScore <= 20);
+		final Survey expired = makeSurvey(List.of(GOLD), "SMALL", Duration.ofSeconds(-30));
+		assertEquals(0, scorer.score(ship, expired));
+	}
+
+	/**
+	 * Tests that the best survey follows the prices of its deposits
+	 */
+	@Test
+	public void getBestSurvey() {
+
+		final Ship ship = mock();
+		final MarketplaceManager marketplaceManager = mock();
+		when(marketplaceManager.getBestSellPrice(ship, IRON)).thenReturn(10);
+		when(marketplaceManager.getBestSellPrice(ship, GOLD)).thenReturn(40);
+		final SurveyScorer scorer = new SurveyScorer(marketplaceManager, 60);
+
+		final Survey ironSurvey = makeSurvey(List.of(IRON, IRON), "LARGE", Duration.ofHours(1));
+		final Survey goldSurvey = makeSurvey(List.of(IRON, GOLD), "SMALL", Duration.ofHours(1));
+		assertNull(scorer.getBestSurvey(ship, List.of()));
+		assertEquals(goldSurvey, scorer.getBestSurvey(ship, List.of(ironSurvey, goldSurvey)));
+		// Each product is only priced once
+		verify(marketplaceManager, times(2)).getBestSellPrice(any(), any());
+
+		// Gold crashes, so the large iron deposit is now worth more
+		when(marketplaceManager.getBestSellPrice(ship, GOLD)).thenReturn(5);
+		assertEquals(ironSurvey, scorer.getBestSurvey(ship, List.of(ironSurvey, goldSurvey)));
+	}
+
+	/**
+	 * Tests that the survey expiring last is chosen among equally valuable surveys
+	 */
+	@Test
+	public void getBestSurveyTie() {
+
+		final SurveyScorer scorer = new SurveyScorer(mock(MarketplaceManager.class), 60);
+
+		final Survey shortLived = makeSurvey(List.of(IRON), "SMALL", Duration.ofHours(1));
+		final Survey longLived = makeSurvey(List.of(IRON), "SMALL", Duration.ofHours(2));
+		assertEquals(longLived, scorer.getBestSurvey(mock(), List.of(shortLived, longLived)));
+		assertEquals(longLived, scorer.getBestSurvey(mock(), List.of(longLived, shortLived)));
+	}
+
+	private static Survey makeSurvey(final List<Product> deposits, final String size,
+			final Duration timeToExpiration) {
+		return new Survey("signature", "site", deposits, Instant.now().plus(timeToExpiration), size);
+	}
+
+}
@@ -0,0 +1,79 @@
+package org.psu.navigation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link IndexedMinHeap}
+ */
+public class IndexedMinHeapTest {
+
+	/**
+	 * Tests that ids are polled in order of their keys
+	 */
+	@Test
+	public void poll() {
+
+		final IndexedMinHeap heap = new IndexedMinHeap(5);
+		heap.insertOrDecrease(0, 4.0);
+		heap.insertOrDecrease(1, 1.0);
+		heap.insertOrDecrease(2, 3.0);
+		heap.insertOrDecrease(3, 0.5);
+		heap.insertOrDecrease(4, 2.0);
+
+		assertEquals(3, heap.poll());
+		assertEquals(1, heap.poll());
+		assertEquals(4, heap.poll());
+		assertEquals(2, heap.poll());
+		assertEquals(0, heap.poll());
+		assertTrue(heap.isEmpty());
+		assertThrows(NoSuchElementException.class, () -> heap.poll());
+	}
+
+	/**
+	 * Tests that keys can be decreased but not increased
+	 */
+	@Test
+	public void insertOrDecrease() {
+
+		final IndexedMinHeap heap = new IndexedMinHeap(3);
+		heap.insertOrDecrease(0, 1.0);
+		heap.insertOrDecrease(1, 2.0);
+		heap.insertOrDecrease(2, 3.0);
+
+		// Larger key is ignored
+		heap.insertOrDecrease(0, 10.0);
+		// Smaller key moves the id to the front
+		heap.insertOrDecrease(2, 0.5);
+
+		assertEquals(2, heap.poll());
+		assertFalse(heap.contains(2));
+		assertEquals(0, heap.poll());
+		assertEquals(1, heap.poll());
+	}
+
+	/**
+	 * Tests that the heap can be reused after being cleared
+	 */
+	@Test
+	public void clear() {
+
+		final IndexedMinHeap heap = new IndexedMinHeap(2);
+		heap.insertOrDecrease(0, 1.0);
+		heap.insertOrDecrease(1, 2.0);
+		heap.clear();
+
+		assertTrue(heap.isEmpty());
+		assertFalse(heap.contains(0));
+
+		heap.insertOrDecrease(1, 5.0);
+		assertEquals(1, heap.poll());
+	}
+
+}
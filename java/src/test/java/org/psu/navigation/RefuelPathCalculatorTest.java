@@ -2,6 +2,7 @@ package org.psu.navigation;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -37,7 +38,7 @@ public class RefuelPathCalculatorTest {
 		final Waypoint destination = makeWaypoint(200, 0);
 
 		// Quickest route is through way3
-		final RefuelPathCalculator calculator = new RefuelPathCalculator();
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
 		calculator.loadRefuelWaypoints(List.of(origin, way1, way2, way3, way4, way5, destination));
 
 		// Enough fuel to go from origin to any of the intermediate waypoints, but not
@@ -66,7 +67,7 @@ public class RefuelPathCalculatorTest {
 		final Waypoint destination = makeWaypoint(200, 0);
 
 		// Quickest route is through way3
-		final RefuelPathCalculator calculator = new RefuelPathCalculator();
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
 		calculator.loadRefuelWaypoints(List.of(way1, way2, way3, way4, way5));
 
 		// Enough fuel to go from origin to any of the intermediate waypoints, but not
@@ -94,7 +95,7 @@ public class RefuelPathCalculatorTest {
 		final Waypoint destination = makeWaypoint(200, 0);
 
 		// Quickest route is through way3
-		final RefuelPathCalculator calculator = new RefuelPathCalculator();
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
 		calculator.loadRefuelWaypoints(List.of(way1, way2, way3, way4, way5));
 
 		final Ship ship = mock(Ship.class, Answers.RETURNS_DEEP_STUBS);
@@ -133,7 +134,7 @@ public class RefuelPathCalculatorTest {
 		final Waypoint destination = makeWaypoint(2000, 0);
 
 		// Quickest route is through way3
-		final RefuelPathCalculator calculator = new RefuelPathCalculator();
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
 		calculator.loadRefuelWaypoints(List.of(way1, way2, way3, way4, way5));
 
 		// Enough fuel to reach the intermediate points, but not the destination
@@ -160,7 +161,7 @@ public class RefuelPathCalculatorTest {
 		final Waypoint destination = makeWaypoint(200, 0);
 
 		// Quickest route is through way3
-		final RefuelPathCalculator calculator = new RefuelPathCalculator();
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
 		calculator.loadRefuelWaypoints(List.of(way1, way2, way3, way4, way5));
 
 		// Not enough current fuel to go anywhere, but would be enough if we could refuel
@@ -187,7 +188,7 @@ public class RefuelPathCalculatorTest {
 
 		final Waypoint destination = makeWaypoint(200, 0);
 
-		final RefuelPathCalculator calculator = new RefuelPathCalculator();
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
 		calculator.loadRefuelWaypoints(List.of(way1, way2, way3, way4, way5));
 
 		// Has enough fuel to go right to the destination
@@ -197,6 +198,254 @@ public class RefuelPathCalculatorTest {
 		assertEquals(List.of(destination), path.getWaypoints());
 	}
 
+	/**
+	 * Tests the case where the origin is the destination
+	 */
+	@Test
+	public void originIsDestination() {
+
+		final Waypoint origin = makeWaypoint(0, 0);
+
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
+		calculator.loadRefuelWaypoints(List.of(origin));
+
+		final NavigationPath path = calculator.determineShortestRoute(origin, origin, 0, 100);
+
+		assertEquals(0, path.getLength(), 1e-9);
+		assertTrue(path.getWaypoints().isEmpty());
+	}
+
+	/**
+	 * Tests a route which must refuel at several stations, and that each fuel
+	 * capacity gets its own station paths
+	 */
+	@Test
+	public void multipleRefuelStops() {
+
+		final Waypoint origin = makeWaypoint(0, 0);
+
+		// Stations every 50 units along the x axis, and one off the axis which is never worth visiting
+		final Waypoint way1 = makeWaypoint(50, 0);
+		final Waypoint way2 = makeWaypoint(100, 0);
+		final Waypoint way3 = makeWaypoint(150, 0);
+		final Waypoint offAxis = makeWaypoint(100, 80);
+
+		final Waypoint destination = makeWaypoint(200, 0);
+
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
+		calculator.loadRefuelWaypoints(List.of(way1, way2, way3, offAxis));
+
+		// Small tank, must stop at every station along the axis
+		final NavigationPath smallTankPath = calculator.determineShortestRoute(origin, destination, 50, 50);
+		assertEquals(200, smallTankPath.getLength(), 1e-9);
+		assertEquals(List.of(way1, way2, way3, destination), smallTankPath.getWaypoints());
+
+		// Larger tank, can skip stations but the first hop is limited by the current fuel
+		final NavigationPath largeTankPath = calculator.determineShortestRoute(origin, destination, 50, 150);
+		assertEquals(200, largeTankPath.getLength(), 1e-9);
+		assertEquals(List.of(way1, destination), largeTankPath.getWaypoints());
+	}
+
+	/**
+	 * Tests that loading new refuel waypoints replaces the old ones
+	 */
+	@Test
+	public void reloadRefuelWaypoints() {
+
+		final Waypoint origin = makeWaypoint(0, 0);
+		final Waypoint way1 = makeWaypoint(100, 0);
+		final Waypoint destination = makeWaypoint(200, 0);
+
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
+		calculator.loadRefuelWaypoints(List.of(way1));
+		assertEquals(List.of(way1, destination),
+				calculator.determineShortestRoute(origin, destination, 100, 100).getWaypoints());
+
+		calculator.loadRefuelWaypoints(List.of());
+		assertNull(calculator.determineShortestRoute(origin, destination, 100, 100));
+	}
+
+	/**
+	 * Tests that a copy of a refuel waypoint is recognized by its symbol
+	 */
+	@Test
+	public void destinationMatchedBySymbol() {
+
+		final Waypoint origin = makeWaypoint(0, 0);
+		final Waypoint way1 = makeWaypoint(100, 0);
+		final Waypoint station = makeWaypoint(200, 0);
+		station.setSymbol("X1-STATION");
+
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
+		calculator.loadRefuelWaypoints(List.of(way1, station));
+
+		final Waypoint destination = makeWaypoint(200, 0);
+		destination.setSymbol("X1-STATION");
+		final NavigationPath path = calculator.determineShortestRoute(origin, destination, 100, 100);
+
+		assertEquals(200, path.getLength(), 1e-9);
+		assertEquals(List.of(way1, station), path.getWaypoints());
+	}
+
+	/**
+	 * Tests that weighting api calls prefers a longer route with fewer stops
+	 */
+	@Test
+	public void weightedFewerStops() {
+
+		final Waypoint origin = makeWaypoint(0, 0);
+		final Waypoint way1 = makeWaypoint(60, 0);
+		final Waypoint way2 = makeWaypoint(120, 0);
+		// Slightly out of the way, but only one stop is needed
+		final Waypoint way3 = makeWaypoint(100, 30);
+		final Waypoint destination = makeWaypoint(200, 0);
+
+		final RefuelPathCalculator distanceCalculator = new RefuelPathCalculator(
+				makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
+		distanceCalculator.loadRefuelWaypoints(List.of(way1, way2, way3));
+		final NavigationPath shortestPath = distanceCalculator.determineShortestRoute(origin, destination, 110, 110);
+		assertEquals(200, shortestPath.getLength(), 1e-9);
+		assertEquals(List.of(way1, way2, destination), shortestPath.getWaypoints());
+
+		final RefuelPathCalculator weightedCalculator = new RefuelPathCalculator(
+				makeConfig(RouteCostMode.WEIGHTED, 1, 0, 10));
+		weightedCalculator.loadRefuelWaypoints(List.of(way1, way2, way3));
+		final NavigationPath cheapestPath = weightedCalculator.determineShortestRoute(origin, destination, 110, 110);
+		// The length is still the distance traveled
+		assertEquals(2 * way3.distTo(origin), cheapestPath.getLength(), 1e-9);
+		assertEquals(List.of(way3, destination), cheapestPath.getWaypoints());
+	}
+
+	/**
+	 * Tests that weighting credits prefers cheaper fuel, and that the route changes
+	 * when the fuel price does
+	 */
+	@Test
+	public void weightedFuelPrice() {
+
+		final Waypoint origin = makeWaypoint(0, 0);
+		final Waypoint way1 = makeWaypoint(100, 10);
+		way1.setSymbol("X1-WAY1");
+		// Slightly farther than way1
+		final Waypoint way2 = makeWaypoint(100, -12);
+		way2.setSymbol("X1-WAY2");
+		final Waypoint destination = makeWaypoint(200, 0);
+
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.WEIGHTED, 1, 1, 0));
+		calculator.loadRefuelWaypoints(List.of(way1, way2));
+
+		// No prices are known yet
+		assertEquals(List.of(way1, destination),
+				calculator.determineShortestRoute(origin, destination, 150, 150).getWaypoints());
+
+		calculator.updateFuelPrice("X1-WAY1", 1000);
+		calculator.updateFuelPrice("X1-WAY2", 100);
+		// Repeating a price doesn't change anything
+		calculator.updateFuelPrice("X1-WAY2", 100);
+		calculator.updateFuelPrice(null, 1);
+		assertEquals(List.of(way2, destination),
+				calculator.determineShortestRoute(origin, destination, 150, 150).getWaypoints());
+	}
+
+	/**
+	 * Tests that fuel prices don't affect routes which only consider distance
+	 */
+	@Test
+	public void distanceIgnoresFuelPrice() {
+
+		final Waypoint origin = makeWaypoint(0, 0);
+		final Waypoint way1 = makeWaypoint(100, 10);
+		way1.setSymbol("X1-WAY1");
+		final Waypoint way2 = makeWaypoint(100, -12);
+		way2.setSymbol("X1-WAY2");
+		final Waypoint destination = makeWaypoint(200, 0);
+
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 1, 0));
+		calculator.loadRefuelWaypoints(List.of(way1, way2));
+		calculator.updateFuelPrice("X1-WAY1", 1000);
+		calculator.updateFuelPrice("X1-WAY2", 100);
+
+		assertEquals(List.of(way1, destination),
+				calculator.determineShortestRoute(origin, destination, 150, 150).getWaypoints());
+	}
+
+	/**
+	 * Tests that repeated routes come from the cache, and that each caller gets its
+	 * own waypoints
+	 */
+	@Test
+	public void pathCache() {
+
+		final Waypoint origin = makeWaypoint(0, 0);
+		final Waypoint way1 = makeWaypoint(100, 0);
+		final Waypoint way2 = makeWaypoint(100, 40);
+		final Waypoint destination = makeWaypoint(200, 0);
+
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
+		calculator.loadRefuelWaypoints(List.of(way1, way2));
+
+		final NavigationPath path1 = calculator.determineShortestRoute(origin, destination, 100, 150);
+		path1.getWaypoints().clear();
+		// Different current fuel, but the same stations are in range
+		final NavigationPath path2 = calculator.determineShortestRoute(origin, destination, 105, 150);
+		assertEquals(List.of(way1, destination), path2.getWaypoints());
+		assertEquals(1, calculator.getCacheHits());
+		assertEquals(1, calculator.getCacheMisses());
+
+		// Now the second station is also in range, so the route must be found again
+		calculator.determineShortestRoute(origin, destination, 110, 150);
+		assertEquals(2, calculator.getCacheMisses());
+
+		// Infeasible routes are cached as well
+		assertNull(calculator.determineShortestRoute(origin, destination, 10, 150));
+		assertNull(calculator.determineShortestRoute(origin, destination, 10, 150));
+		assertEquals(2, calculator.getCacheHits());
+		assertEquals(3, calculator.getCacheMisses());
+
+		// Loading waypoints clears the cache
+		calculator.loadRefuelWaypoints(List.of(way1, way2));
+		calculator.determineShortestRoute(origin, destination, 100, 150);
+		assertEquals(4, calculator.getCacheMisses());
+	}
+
+	/**
+	 * Tests that the least recently used route is evicted from the cache
+	 */
+	@Test
+	public void pathCacheEviction() {
+
+		final Waypoint origin = makeWaypoint(0, 0);
+		final Waypoint destination1 = makeWaypoint(10, 0);
+		final Waypoint destination2 = makeWaypoint(20, 0);
+
+		final NavigationConfig config = makeConfig(RouteCostMode.DISTANCE, 1, 0, 0);
+		when(config.pathCacheSize()).thenReturn(1);
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(config);
+		calculator.loadRefuelWaypoints(List.of());
+
+		calculator.determineShortestRoute(origin, destination1, 100, 100);
+		calculator.determineShortestRoute(origin, destination2, 100, 100);
+		calculator.determineShortestRoute(origin, destination1, 100, 100);
+		assertEquals(0, calculator.getCacheHits());
+		assertEquals(3, calculator.getCacheMisses());
+	}
+
+	/**
+	 * Tests {@link RefuelPathCalculator#estimateFuelCost}
+	 */
+	@Test
+	public void estimateFuelCost() {
+
+		final RefuelPathCalculator calculator = new RefuelPathCalculator(makeConfig(RouteCostMode.DISTANCE, 1, 0, 0));
+		// No prices are known yet
+		assertEquals(0, calculator.estimateFuelCost(200));
+
+		calculator.updateFuelPrice("X1-WAY1", 60);
+		calculator.updateFuelPrice("X1-WAY2", 80);
+		// Two market units of fuel at the average price of 70
+		assertEquals(140, calculator.estimateFuelCost(200), 1e-9);
+	}
+
 	private Waypoint makeWaypoint(final int x, final int y) {
 		final Waypoint way = new Waypoint();
 		way.setX(x);
@@ -204,4 +453,15 @@ public class RefuelPathCalculatorTest {
 		return way;
 	}
 
+	private NavigationConfig makeConfig(final RouteCostMode mode, final double distanceWeight,
+			final double creditWeight, final double apiCallWeight) {
+		final NavigationConfig config = mock();
+		when(config.costMode()).thenReturn(mode);
+		when(config.distanceWeight()).thenReturn(distanceWeight);
+		when(config.creditWeight()).thenReturn(creditWeight);
+		when(config.apiCallWeight()).thenReturn(apiCallWeight);
+		when(config.pathCacheSize()).thenReturn(16);
+		return config;
+	}
+
 }
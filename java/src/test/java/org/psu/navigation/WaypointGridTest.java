@@ -0,0 +1,100 @@
+package org.psu.navigation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.testutils.TestUtils;
+
+/**
+ * Tests for {@link WaypointGrid}
+ */
+public class WaypointGridTest {
+
+	/**
+	 * Tests that the shortest path is found, even when the nearest waypoint is
+	 * unreachable or only reachable by a long detour
+	 */
+	@Test
+	public void findShortestPath() {
+
+		final Waypoint unreachable = makeWaypoint(1, 0);
+		final Waypoint detour = makeWaypoint(0, 2);
+		final Waypoint best = makeWaypoint(5, 5);
+		final Waypoint notCandidate = makeWaypoint(3, 3);
+		final Waypoint far = makeWaypoint(100, 100);
+		final WaypointGrid grid = new WaypointGrid(List.of(unreachable, detour, best, notCandidate, far));
+
+		final AtomicInteger pathsFound = new AtomicInteger();
+		final Function<Waypoint, NavigationPath> pathFinder = waypoint -> {
+			pathsFound.incrementAndGet();
+			if (waypoint == unreachable) {
+				return null;
+			}
+			final double length = waypoint == detour ? 20 : distance(waypoint, 0, 0);
+			return new NavigationPath(length, null);
+		};
+
+		final NavigationPath path = grid.findShortestPath(0, 0, waypoint -> waypoint != notCandidate, pathFinder);
+		assertEquals(distance(best, 0, 0), path.getLength());
+		// The far waypoint can't beat the best path
+		assertEquals(3, pathsFound.get());
+
+		assertNull(grid.findShortestPath(0, 0, waypoint -> waypoint == unreachable, pathFinder));
+		assertNull(new WaypointGrid(List.of()).findShortestPath(0, 0, waypoint -> true, pathFinder));
+	}
+
+	/**
+	 * Tests that searching from anywhere, in or out of the grid, finds the same
+	 * path as computing a path to every waypoint, with far fewer paths computed
+	 */
+	@Test
+	public void findShortestPathRandom() {
+
+		final Random random = new Random(0);
+		final List<Waypoint> waypoints = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			waypoints.add(makeWaypoint(random.nextInt(1000) - 500, random.nextInt(1000) - 500));
+		}
+		final WaypointGrid grid = new WaypointGrid(waypoints);
+
+		int totalPathsFound = 0;
+		for (int trial = 0; trial < 100; trial++) {
+			final double x = random.nextInt(1400) - 700;
+			final double y = random.nextInt(1400) - 700;
+			// Paths detour by up to half of the straight line distance, some waypoints can't be reached
+			final Function<Waypoint, NavigationPath> pathFinder = waypoint -> {
+				final int hash = Math.floorMod(waypoint.getX() * 31 + waypoint.getY(), 10);
+				return hash == 0 ? null : new NavigationPath(distance(waypoint, x, y) * (1 + hash / 20.0), null);
+			};
+
+			final double expected = waypoints.stream().map(pathFinder).filter(path -> path != null)
+					.mapToDouble(NavigationPath::getLength).min().getAsDouble();
+			final AtomicInteger pathsFound = new AtomicInteger();
+			final NavigationPath path = grid.findShortestPath(x, y, waypoint -> true, waypoint -> {
+				pathsFound.incrementAndGet();
+				return pathFinder.apply(waypoint);
+			});
+			assertEquals(expected, path.getLength());
+			totalPathsFound += pathsFound.get();
+		}
+		assertTrue(totalPathsFound < 100 * waypoints.size() / 10);
+	}
+
+	private static double distance(final Waypoint waypoint, final double x, final double y) {
+		return Math.hypot(waypoint.getX() - x, waypoint.getY() - y);
+	}
+
+	private static Waypoint makeWaypoint(final int x, final int y) {
+		return TestUtils.makeWaypoint(x + "," + y, x, y);
+	}
+
+}
@@ -0,0 +1,80 @@
+package org.psu.navigation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.jupiter.api.Test;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.testutils.TestUtils;
+
+/**
+ * Tests for {@link WaypointMap}
+ */
+public class WaypointMapTest {
+
+	/**
+	 * Tests that values are found by waypoint symbol
+	 */
+	@Test
+	public void putAndGet() {
+
+		final WaypointRegistry registry = new WaypointRegistry();
+		final WaypointMap<String> map = new WaypointMap<>(registry);
+		final Waypoint way1 = TestUtils.makeWaypoint("way1", 1, 0);
+		final Waypoint way2 = TestUtils.makeWaypoint("way2", 2, 0);
+
+		assertNull(map.put(way1, "a"));
+		assertNull(map.put(way2, "b"));
+		assertEquals("a", map.put(way1, "c"));
+		assertEquals(2, map.size());
+
+		// A copy of a waypoint with different coordinates is still the same waypoint
+		assertEquals("c", map.get(TestUtils.makeWaypoint("way1", 5, 0)));
+		assertEquals("b", map.get("way2"));
+		assertTrue(map.containsKey(way2));
+		assertNull(map.get(TestUtils.makeWaypoint("way3", 3, 0)));
+		assertNull(map.get("some string"));
+
+		// Another map sharing the registry only holds its own values
+		final WaypointMap<String> otherMap = new WaypointMap<>(registry);
+		otherMap.put(way2, "d");
+		assertEquals(1, otherMap.size());
+		assertNull(otherMap.get(way1));
+	}
+
+	/**
+	 * Tests iterating and removing entries
+	 */
+	@Test
+	public void entrySet() {
+
+		final WaypointMap<Integer> map = new WaypointMap<>(new WaypointRegistry());
+		final Waypoint way1 = TestUtils.makeWaypoint("way1", 1, 0);
+		final Waypoint way2 = TestUtils.makeWaypoint("way2", 2, 0);
+		final Waypoint way3 = TestUtils.makeWaypoint("way3", 3, 0);
+		map.putAll(Map.of(way1, 1, way2, 2, way3, 3));
+
+		assertEquals(2, map.remove(way2));
+		assertNull(map.remove(way2));
+		assertEquals(Map.of(way1, 1, way3, 3), map);
+
+		int total = 0;
+		for (final Entry<Waypoint, Integer> entry : map.entrySet()) {
+			assertEquals(entry.getKey().getX(), entry.getValue());
+			total += entry.getValue();
+		}
+		assertEquals(4, total);
+
+		map.entrySet().removeIf(entry -> entry.getValue() == 1);
+		assertFalse(map.containsKey(way1));
+		assertSame(way3, map.keySet().iterator().next());
+		assertEquals(1, map.size());
+	}
+
+}
@@ -0,0 +1,53 @@
+package org.psu.navigation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.testutils.TestUtils;
+
+/**
+ * Tests for {@link WaypointRegistry}
+ */
+public class WaypointRegistryTest {
+
+	/**
+	 * Tests that waypoints get dense ids, and that the first waypoint registered
+	 * with a symbol is kept
+	 */
+	@Test
+	public void register() {
+
+		final WaypointRegistry registry = new WaypointRegistry();
+		final Waypoint way1 = TestUtils.makeWaypoint("way1");
+		final Waypoint way2 = TestUtils.makeWaypoint("way2");
+
+		assertEquals(0, registry.register(way1));
+		assertEquals(1, registry.register(way2));
+		assertEquals(0, registry.register(TestUtils.makeWaypoint("way1")));
+		assertEquals(2, registry.size());
+
+		assertEquals(1, registry.getId("way2"));
+		assertEquals(-1, registry.getId("way3"));
+		assertSame(way1, registry.getWaypoint(0));
+		assertSame(way1, registry.getWaypoint("way1"));
+		assertNull(registry.getWaypoint("way3"));
+	}
+
+	/**
+	 * Tests that the registry grows to hold any number of waypoints
+	 */
+	@Test
+	public void registerMany() {
+
+		final WaypointRegistry registry = new WaypointRegistry();
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, registry.register(TestUtils.makeWaypoint("way" + i)));
+		}
+		assertEquals(1000, registry.size());
+		assertEquals("way999", registry.getWaypoint(999).getSymbol());
+	}
+
+}
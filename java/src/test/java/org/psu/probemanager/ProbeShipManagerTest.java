@@ -0,0 +1,102 @@
+package org.psu.probemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.psu.probemanager.dto.ProbeShipJob;
+import org.psu.probemanager.dto.ProbeShipJob.State;
+import org.psu.spacetraders.api.NavigationHelper;
+import org.psu.spacetraders.api.RequestPriority;
+import org.psu.spacetraders.dto.MarketInfo;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.testutils.TestUtils;
+import org.psu.trademanager.MarketRefresher;
+import org.psu.trademanager.MarketplaceManager;
+
+/**
+ * Tests for {@link ProbeShipManager}
+ */
+public class ProbeShipManagerTest {
+
+	/**
+	 * Tests that each probe is stationed at the most valuable market without a
+	 * probe
+	 */
+	@Test
+	public void createJob() {
+
+		final Waypoint way1 = TestUtils.makeWaypoint("way1");
+		final Waypoint way2 = TestUtils.makeWaypoint("way2");
+		final Waypoint way3 = TestUtils.makeWaypoint("way3");
+
+		final MarketplaceManager marketplaceManager = mock();
+		when(marketplaceManager.getAllMarketInfo())
+				.thenReturn(Map.of(way1, new MarketInfo(), way2, new MarketInfo(), way3, new MarketInfo()));
+		final MarketRefresher marketRefresher = mock();
+		when(marketRefresher.getMarketValues()).thenReturn(Map.of(way1, 30.0, way2, 10.0, way3, 10.0));
+		final ProbeShipManager manager = new ProbeShipManager(60, 5, null, marketplaceManager, marketRefresher);
+
+		final Ship probe1 = TestUtils.makeShip("probe1");
+		final Ship probe2 = TestUtils.makeShip("probe2");
+		// way2 and way3 are worth the same, but probe2 is closer to way3
+		when(probe2.distTo(way2)).thenReturn(20.0);
+		when(probe2.distTo(way3)).thenReturn(10.0);
+		final Ship probe3 = TestUtils.makeShip("probe3");
+		final Ship probe4 = TestUtils.makeShip("probe4");
+
+		final ProbeShipJob job1 = manager.createJob(probe1);
+		assertEquals(way1, job1.getStation());
+		assertEquals(State.NOT_STARTED, job1.getState());
+		assertEquals(way3, manager.createJob(probe2).getStation());
+		// A probe which is given a new job is free to keep its station
+		assertEquals(way1, manager.createJob(probe1).getStation());
+		assertEquals(way2, manager.createJob(probe3).getStation());
+		// Every market has a probe
+		assertNull(manager.createJob(probe4));
+	}
+
+	/**
+	 * Tests that a probe travels to its station and refreshes its market until it
+	 * is time to choose a new station
+	 */
+	@Test
+	public void manageProbeShip() {
+
+		final Waypoint station = TestUtils.makeWaypoint("station");
+		final Ship probe = TestUtils.makeShip("probe");
+
+		final Instant arrival = Instant.now().plusSeconds(100);
+		final NavigationHelper navigationHelper = mock();
+		when(navigationHelper.navigate(probe, station)).thenReturn(arrival);
+		final MarketplaceManager marketplaceManager = mock();
+		final ProbeShipManager manager = new ProbeShipManager(60, 2, navigationHelper, marketplaceManager,
+				mock(MarketRefresher.class));
+
+		final ProbeShipJob job = new ProbeShipJob(probe, station);
+		assertEquals(job, manager.manageProbeShip(job));
+		assertEquals(State.TRAVELING, job.getState());
+		assertEquals(arrival, job.getNextAction());
+
+		assertEquals(job, manager.manageProbeShip(job));
+		assertEquals(State.STATIONED, job.getState());
+		assertEquals(1, job.getRefreshes());
+		assertTrue(job.getNextAction().isAfter(Instant.now().plusSeconds(50)));
+
+		assertEquals(job, manager.manageProbeShip(job));
+		verify(marketplaceManager, times(2)).updateMarketInfo(station, RequestPriority.BACKGROUND);
+
+		// The probe has refreshed its station enough times
+		assertNull(manager.manageProbeShip(job));
+	}
+
+}
@@ -1,25 +1,34 @@
 package org.psu.shiporchestrator;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
+import org.mockito.stubbing.Answer;
 import org.psu.init.ShipJobCreator;
 import org.psu.miningmanager.MiningShipManager;
 import org.psu.miningmanager.dto.MiningShipJob;
+import org.psu.probemanager.ProbeShipManager;
+import org.psu.probemanager.dto.ProbeShipJob;
 import org.psu.shippurchase.ShipPurchaseJob;
 import org.psu.shippurchase.ShipPurchaseManager;
 import org.psu.shippurchase.ShipPurchaseManager.ShipPurchaseManagerResponse;
 import org.psu.spacetraders.dto.Ship;
 import org.psu.spacetraders.dto.ShipType;
+import org.psu.trademanager.MarketRefresher;
 import org.psu.trademanager.TradeShipManager;
 import org.psu.trademanager.dto.TradeShipJob;
 import org.psu.websocket.WebsocketReporter;
@@ -35,7 +44,8 @@ public class ShipJobQueueTest {
 	@Test
 	public void emptyQueue() {
 
-		final ShipJobQueue queue = new ShipJobQueue(null, null, null, null, null);
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.SEQUENTIAL, 1, null, null, null, null, null, null,
+				null);
 
 		assertThrows(IllegalStateException.class, () -> queue.beginJobQueue());
 	}
@@ -52,8 +62,10 @@ public class ShipJobQueueTest {
 		final ShipPurchaseManager shipPurchaseManager = mock();
 		final ShipJobCreator shipJobCreator = mock();
 		final WebsocketReporter websocketReporter = mock();
-		final ShipJobQueue queue = new ShipJobQueue(miningShipManager, tradeShipManager, shipPurchaseManager,
-				shipJobCreator, websocketReporter);
+		final MarketRefresher marketRefresher = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.SEQUENTIAL, 1, miningShipManager,
+				tradeShipManager, shipPurchaseManager, shipJobCreator, websocketReporter,
+				marketRefresher, null);
 
 		final TradeShipJob tradeJob = mock();
 		when(tradeJob.getNextAction()).thenReturn(Instant.now());
@@ -73,6 +85,7 @@ public class ShipJobQueueTest {
 		when(tradeShipManager.manageTradeShip(tradeJob)).thenReturn(laterTradeJob).thenThrow(RuntimeException.class);
 		when(miningShipManager.manageMiningShip(miningJob)).thenReturn(laterMiningJob)
 				.thenThrow(RuntimeException.class);
+		when(tradeShipManager.manageTradeShip(laterTradeJob)).thenThrow(RuntimeException.class);
 
 		queue.establishJobs(List.of(tradeJob, miningJob, otherShipJob));
 		// By asserting it throws, we ensure that it was called twice
@@ -90,8 +103,10 @@ public class ShipJobQueueTest {
 		final ShipPurchaseManager shipPurchaseManager = mock();
 		final ShipJobCreator shipJobCreator = mock();
 		final WebsocketReporter websocketReporter = mock();
-		final ShipJobQueue queue = new ShipJobQueue(miningShipManager, tradeShipManager, shipPurchaseManager,
-				shipJobCreator, websocketReporter);
+		final MarketRefresher marketRefresher = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.SEQUENTIAL, 1, miningShipManager,
+				tradeShipManager, shipPurchaseManager, shipJobCreator, websocketReporter,
+				marketRefresher, null);
 
 		final ShipPurchaseJob purchaseJob = mock();
 		when(purchaseJob.getNextAction()).thenReturn(Instant.now());
@@ -119,8 +134,10 @@ public class ShipJobQueueTest {
 		final ShipPurchaseManager shipPurchaseManager = mock();
 		final ShipJobCreator shipJobCreator = mock();
 		final WebsocketReporter websocketReporter = mock();
-		final ShipJobQueue queue = new ShipJobQueue(miningShipManager, tradeShipManager, shipPurchaseManager,
-				shipJobCreator, websocketReporter);
+		final MarketRefresher marketRefresher = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.SEQUENTIAL, 1, miningShipManager,
+				tradeShipManager, shipPurchaseManager, shipJobCreator, websocketReporter,
+				marketRefresher, null);
 
 		final Ship ship = mock();
 
@@ -151,6 +168,7 @@ public class ShipJobQueueTest {
 		queue.establishJobs(List.of(purchaseJob));
 		assertThrows(IllegalArgumentException.class, () -> queue.beginJobQueue());
 		verify(websocketReporter).addShip(newShip);
+		verify(marketRefresher).addShip(newShip);
 	}
 
 	/**
@@ -164,8 +182,10 @@ public class ShipJobQueueTest {
 		final ShipPurchaseManager shipPurchaseManager = mock();
 		final ShipJobCreator shipJobCreator = mock();
 		final WebsocketReporter websocketReporter = mock();
-		final ShipJobQueue queue = new ShipJobQueue(miningShipManager, tradeShipManager, shipPurchaseManager,
-				shipJobCreator, websocketReporter);
+		final MarketRefresher marketRefresher = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.SEQUENTIAL, 1, miningShipManager,
+				tradeShipManager, shipPurchaseManager, shipJobCreator, websocketReporter,
+				marketRefresher, null);
 
 		final Ship ship = mock();
 
@@ -203,8 +223,10 @@ public class ShipJobQueueTest {
 		final ShipPurchaseManager shipPurchaseManager = mock();
 		final ShipJobCreator shipJobCreator = mock();
 		final WebsocketReporter websocketReporter = mock();
-		final ShipJobQueue queue = new ShipJobQueue(miningShipManager, tradeShipManager, shipPurchaseManager,
-				shipJobCreator, websocketReporter);
+		final MarketRefresher marketRefresher = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.SEQUENTIAL, 1, miningShipManager,
+				tradeShipManager, shipPurchaseManager, shipJobCreator, websocketReporter,
+				marketRefresher, null);
 
 		final TradeShipJob job = mock(TradeShipJob.class);
 		// Give it enough time that it will have to wait
@@ -218,4 +240,266 @@ public class ShipJobQueueTest {
 		assertThrows(RuntimeException.class, () -> queue.beginJobQueue());
 	}
 
+	/**
+	 * Tests that a purchase which the ship cannot perform is left for the next ship
+	 */
+	@Test
+	public void performJobPurchaseUnavailable() {
+
+		final TradeShipManager tradeShipManager = mock();
+		final ShipPurchaseManager shipPurchaseManager = mock();
+		final ShipJobCreator shipJobCreator = mock();
+		final WebsocketReporter websocketReporter = mock();
+		final MarketRefresher marketRefresher = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.SEQUENTIAL, 1, null, tradeShipManager,
+				shipPurchaseManager, shipJobCreator, websocketReporter, marketRefresher, null);
+
+		final Ship ship = mock();
+		final TradeShipJob tradeJob = mock();
+		when(tradeJob.getShip()).thenReturn(ship);
+		final TradeShipJob nextJob = mock();
+		when(shipJobCreator.createShipJob(ship)).thenReturn(nextJob);
+
+		queue.setShipTypeToBuy(ShipType.SHIP_EXPLORER);
+		when(shipPurchaseManager.createShipPurchaseJob(ship, ShipType.SHIP_EXPLORER)).thenReturn(null);
+
+		assertEquals(List.of(nextJob), queue.performJob(tradeJob).jobs());
+		assertEquals(ShipType.SHIP_EXPLORER, queue.shipTypeToBuy.get());
+	}
+
+	/**
+	 * Tests that probe jobs are performed by the probe manager
+	 */
+	@Test
+	public void performJobProbe() {
+
+		final ProbeShipManager probeShipManager = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.SEQUENTIAL, 1, null, null, null, null, null, null,
+				probeShipManager);
+
+		final ProbeShipJob probeJob = mock();
+		final ProbeShipJob nextJob = mock();
+		when(probeShipManager.manageProbeShip(probeJob)).thenReturn(nextJob);
+
+		assertEquals(List.of(nextJob), queue.performJob(probeJob).jobs());
+	}
+
+	/**
+	 * Tests that interrupting the thread running the queue stops it
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void beginJobQueueInterrupted() throws InterruptedException {
+
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.SEQUENTIAL, 1, null, null, null, null, null, null,
+				null);
+
+		final TradeShipJob job = mock();
+		when(job.getNextAction()).thenReturn(Instant.now().plus(Duration.ofMinutes(10)));
+		queue.establishJobs(List.of(job));
+
+		final Thread queueThread = new Thread(queue::beginJobQueue);
+		queueThread.start();
+		queueThread.interrupt();
+		queueThread.join();
+		assertEquals(1, queue.queue.size());
+	}
+
+	/**
+	 * Tests that the concurrent queue does not let one slow ship hold up another
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void beginJobQueueConcurrent() throws InterruptedException {
+
+		final TradeShipManager tradeShipManager = mock();
+		final ShipJobCreator shipJobCreator = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.CONCURRENT, 2, null, tradeShipManager, null,
+				shipJobCreator, null, null, null);
+
+		final Ship slowShip = mock();
+		final TradeShipJob slowJob = mock();
+		when(slowJob.getShip()).thenReturn(slowShip);
+		when(slowJob.getNextAction()).thenReturn(Instant.now());
+		final Ship fastShip = mock();
+		final TradeShipJob fastJob = mock();
+		when(fastJob.getShip()).thenReturn(fastShip);
+		when(fastJob.getNextAction()).thenReturn(Instant.now());
+		final TradeShipJob laterJob = mock();
+		when(laterJob.getShip()).thenReturn(fastShip);
+		when(laterJob.getNextAction()).thenReturn(Instant.now().plus(Duration.ofMinutes(10)));
+
+		// The slow ship can only finish once the fast ship has been managed
+		final CountDownLatch fastShipManaged = new CountDownLatch(1);
+		when(tradeShipManager.manageTradeShip(slowJob)).thenAnswer(invocation -> {
+			fastShipManaged.await();
+			return laterJob;
+		});
+		when(tradeShipManager.manageTradeShip(fastJob)).thenAnswer(invocation -> {
+			fastShipManaged.countDown();
+			return laterJob;
+		});
+
+		queue.establishJobs(List.of(slowJob, fastJob));
+		final Thread queueThread = new Thread(queue::beginJobQueue);
+		queueThread.start();
+
+		verify(tradeShipManager, timeout(2000)).manageTradeShip(fastJob);
+		verify(tradeShipManager, timeout(2000)).manageTradeShip(slowJob);
+		queueThread.interrupt();
+		queueThread.join();
+	}
+
+	/**
+	 * Tests that the concurrent queue never runs two jobs for the same ship at once
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void beginJobQueueConcurrentSameShip() throws InterruptedException {
+
+		final TradeShipManager tradeShipManager = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.CONCURRENT, 2, null, tradeShipManager, null,
+				null, null, null, null);
+
+		final Ship ship = mock();
+		final TradeShipJob firstJob = mock();
+		when(firstJob.getShip()).thenReturn(ship);
+		when(firstJob.getNextAction()).thenReturn(Instant.now());
+		final TradeShipJob secondJob = mock();
+		when(secondJob.getShip()).thenReturn(ship);
+		when(secondJob.getNextAction()).thenReturn(Instant.now());
+		final TradeShipJob laterJob = mock();
+		when(laterJob.getShip()).thenReturn(ship);
+		when(laterJob.getNextAction()).thenReturn(Instant.now().plus(Duration.ofMinutes(10)));
+
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final Answer<ShipJob> answer = invocation -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(200);
+			running.decrementAndGet();
+			return laterJob;
+		};
+		when(tradeShipManager.manageTradeShip(firstJob)).thenAnswer(answer);
+		when(tradeShipManager.manageTradeShip(secondJob)).thenAnswer(answer);
+
+		queue.establishJobs(List.of(firstJob, secondJob));
+		final Thread queueThread = new Thread(queue::beginJobQueue);
+		queueThread.start();
+
+		verify(tradeShipManager, timeout(2000)).manageTradeShip(secondJob);
+		queueThread.interrupt();
+		queueThread.join();
+		assertEquals(1, maxRunning.get());
+	}
+
+	/**
+	 * Tests that a failing job in the concurrent queue results in a new job for the ship
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void beginJobQueueConcurrentFailure() throws InterruptedException {
+
+		final MiningShipManager miningShipManager = mock();
+		final ShipJobCreator shipJobCreator = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.CONCURRENT, 1, miningShipManager, null, null,
+				shipJobCreator, null, null, null);
+
+		final Ship ship = mock();
+		final MiningShipJob job = mock();
+		when(job.getShip()).thenReturn(ship);
+		when(job.getNextAction()).thenReturn(Instant.now());
+		when(miningShipManager.manageMiningShip(job)).thenThrow(IllegalStateException.class);
+		final MiningShipJob retryJob = mock();
+		when(retryJob.getShip()).thenReturn(ship);
+		when(shipJobCreator.createShipJob(ship)).thenReturn(retryJob);
+
+		queue.establishJobs(List.of(job));
+		final Thread queueThread = new Thread(queue::beginJobQueue);
+		queueThread.start();
+
+		verify(shipJobCreator, timeout(2000)).createShipJob(ship);
+		queueThread.interrupt();
+		queueThread.join();
+		assertTrue(queue.queue.stream().anyMatch(j -> j.job() == retryJob));
+	}
+
+	/**
+	 * Tests that ships on virtual threads do not wait on each other
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void beginJobQueueVirtualThreads() throws InterruptedException {
+
+		final TradeShipManager tradeShipManager = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.VIRTUAL_THREAD, 1, null, tradeShipManager, null,
+				null, null, null, null);
+
+		final TradeShipJob slowJob = mock();
+		when(slowJob.getNextAction()).thenReturn(Instant.now());
+		final TradeShipJob fastJob = mock();
+		// Due slightly later, so the slow ship's loop has already started
+		when(fastJob.getNextAction()).thenReturn(Instant.now().plus(Duration.ofMillis(50)));
+		final TradeShipJob laterJob = mock();
+		when(laterJob.getNextAction()).thenReturn(Instant.now().plus(Duration.ofMinutes(10)));
+
+		final CountDownLatch fastShipManaged = new CountDownLatch(1);
+		when(tradeShipManager.manageTradeShip(slowJob)).thenAnswer(invocation -> {
+			fastShipManaged.await();
+			return laterJob;
+		});
+		when(tradeShipManager.manageTradeShip(fastJob)).thenAnswer(invocation -> {
+			fastShipManaged.countDown();
+			return laterJob;
+		});
+
+		queue.establishJobs(List.of(slowJob, fastJob));
+		final Thread queueThread = new Thread(queue::beginJobQueue);
+		queueThread.start();
+
+		verify(tradeShipManager, timeout(2000)).manageTradeShip(fastJob);
+		verify(tradeShipManager, timeout(2000)).manageTradeShip(slowJob);
+		queueThread.interrupt();
+		queueThread.join();
+	}
+
+	/**
+	 * Tests that a ship purchased on a virtual thread gets its own job loop, and
+	 * that a ship with no further jobs ends its loop
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void beginJobQueueVirtualThreadsPurchase() {
+
+		final MiningShipManager miningShipManager = mock();
+		final ShipPurchaseManager shipPurchaseManager = mock();
+		final ShipJobCreator shipJobCreator = mock();
+		final WebsocketReporter websocketReporter = mock();
+		final MarketRefresher marketRefresher = mock();
+		final ShipJobQueue queue = new ShipJobQueue(JobQueueMode.VIRTUAL_THREAD, 1, miningShipManager, null,
+				shipPurchaseManager, shipJobCreator, websocketReporter,
+				marketRefresher, null);
+
+		final Ship ship = mock();
+		final ShipPurchaseJob purchaseJob = mock();
+		when(purchaseJob.getShip()).thenReturn(ship);
+		when(purchaseJob.getNextAction()).thenReturn(Instant.now());
+
+		final Ship newShip = mock();
+		final MiningShipJob jobForNewShip = mock();
+		when(jobForNewShip.getShip()).thenReturn(newShip);
+		when(jobForNewShip.getNextAction()).thenReturn(Instant.now());
+		when(shipJobCreator.createShipJob(newShip)).thenReturn(jobForNewShip).thenReturn(null);
+		when(shipPurchaseManager.manageShipPurchase(purchaseJob))
+				.thenReturn(new ShipPurchaseManagerResponse(null, newShip));
+
+		// Neither ship gets another job, so both loops end and the queue returns
+		queue.establishJobs(List.of(purchaseJob));
+		queue.beginJobQueue();
+
+		verify(miningShipManager).manageMiningShip(jobForNewShip);
+		verify(websocketReporter).addShip(newShip);
+		verify(marketRefresher).addShip(newShip);
+	}
+
 }
@@ -12,6 +12,7 @@ import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -58,7 +59,8 @@ public class ShipPurchaseManagerTest {
 		final Waypoint way1 = mock();
 		final Waypoint way2 = mock();
 
-		final Ship ship = mock();
+		// Deep stubs place the ship at the origin
+		final Ship ship = mock(Ship.class, Answers.RETURNS_DEEP_STUBS);
 		final ShipType shipType = ShipType.SHIP_ORE_HOUND;
 
 		when(shipyardManager.getShipyardsWhichSell(shipType)).thenReturn(List.of(way1, way2));
@@ -80,7 +82,8 @@ public class ShipPurchaseManagerTest {
 		final Waypoint way1 = mock();
 		final Waypoint way2 = mock();
 
-		final Ship ship = mock();
+		// Deep stubs place the ship at the origin
+		final Ship ship = mock(Ship.class, Answers.RETURNS_DEEP_STUBS);
 		final ShipType shipType = ShipType.SHIP_ORE_HOUND;
 
 		when(shipyardManager.getShipyardsWhichSell(shipType)).thenReturn(List.of(way1, way2));
@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
+import org.psu.navigation.WaypointRegistry;
 import org.psu.spacetraders.api.AccountManager;
 import org.psu.spacetraders.api.ClientProducer;
 import org.psu.spacetraders.api.RequestThrottler;
@@ -74,7 +75,7 @@ public class ShipyardManagerTest {
 		when(shipyardClient.getShipyardData(systemSymbol, way3Id)).thenReturn(new DataWrapper<>(shipyardResponse3, null));
 
 		final ShipyardManager shipyardManager = new ShipyardManager(clientProducer, requestThrottler, accountManager,
-				websocketReporter);
+				websocketReporter, new WaypointRegistry());
 
 		shipyardManager.loadData(List.of(way1, way2, way3));
 
@@ -115,7 +116,7 @@ public class ShipyardManagerTest {
 		when(shipyardClient.purchaseShip(request)).thenReturn(new DataWrapper<>(response, null));
 
 		final ShipyardManager shipyardManager = new ShipyardManager(clientProducer, requestThrottler, accountManager,
-				websocketReporter);
+				websocketReporter, new WaypointRegistry());
 
 		final ShipPurchaseResponse actualResponse = shipyardManager.purchaseShip(request);
 
@@ -24,6 +24,8 @@ import org.psu.spacetraders.dto.Transaction;
 import org.psu.spacetraders.dto.Waypoint;
 import org.psu.testutils.TestRequestThrottler;
 import org.psu.trademanager.MarketplaceManager;
+import org.psu.trademanager.PriceImpactModel;
+import org.psu.trademanager.PriceImpactModel.TradeType;
 import org.psu.websocket.WebsocketReporter;
 
 /**
@@ -58,7 +60,7 @@ public class MarketplaceRequesterTest {
 
 		final RequestThrottler throttler = TestRequestThrottler.get();
 		final MarketplaceRequester requester = new MarketplaceRequester(0, clientProducer, throttler, manager, null,
-				null, reporter);
+				null, reporter, mock(PriceImpactModel.class));
 
 		final TradeResponse actualResponse = requester.purchase(ship, request);
 		assertEquals(response, actualResponse);
@@ -88,17 +90,22 @@ public class MarketplaceRequesterTest {
 		final Cargo cargo = mock(Cargo.class);
 		when(response.getAgent()).thenReturn(agent);
 		when(response.getCargo()).thenReturn(cargo);
+		final Transaction transaction = mock(Transaction.class);
+		when(response.getTransaction()).thenReturn(transaction);
+		when(request.getSymbol()).thenReturn("milk");
 
 		when(client.sell(shipId, request)).thenReturn(new DataWrapper<TradeResponse>(response, null));
 
 		final RequestThrottler throttler = TestRequestThrottler.get();
+		final PriceImpactModel priceImpactModel = mock();
 		final MarketplaceRequester requester = new MarketplaceRequester(0, clientProducer, throttler, manager, null,
-				null, reporter);
+				null, reporter, priceImpactModel);
 
 		final TradeResponse actualResponse = requester.sell(ship, request);
 		assertEquals(response, actualResponse);
 		verify(manager).updateAgent(agent);
 		verify(ship).setCargo(cargo);
+		verify(priceImpactModel).recordTrade("milk", TradeType.SELL, transaction);
 	}
 
 	/**
@@ -127,7 +134,7 @@ public class MarketplaceRequesterTest {
 
 		final RequestThrottler throttler = TestRequestThrottler.get();
 		final MarketplaceRequester requester = new MarketplaceRequester(0, clientProducer, throttler, manager, null,
-				null, reporter);
+				null, reporter, mock(PriceImpactModel.class));
 
 		final RefuelResponse actualResponse = requester.refuel(ship);
 		assertEquals(response, actualResponse);
@@ -150,7 +157,7 @@ public class MarketplaceRequesterTest {
 		when(clientProducer.produceMarketplaceClient()).thenReturn(client);
 		final RequestThrottler throttler = TestRequestThrottler.get();
 		final MarketplaceRequester requester = new MarketplaceRequester(0, clientProducer, throttler, accountManager,
-				marketplaceManager, navHelper, reporter);
+				marketplaceManager, navHelper, reporter, mock(PriceImpactModel.class));
 
 		final List<CargoItem> cargoItems = List.of(new CargoItem("eggs", 1));
 		final String shipId = "shippy";
@@ -203,7 +210,7 @@ public class MarketplaceRequesterTest {
 		when(clientProducer.produceMarketplaceClient()).thenReturn(client);
 		final RequestThrottler throttler = TestRequestThrottler.get();
 		final MarketplaceRequester requester = new MarketplaceRequester(0, clientProducer, throttler, accountManager,
-				marketplaceManager, navHelper, reporter);
+				marketplaceManager, navHelper, reporter, mock(PriceImpactModel.class));
 
 		final List<CargoItem> cargoItems = List.of(new CargoItem("eggs", 1));
 		final String shipId = "shippy";
@@ -0,0 +1,137 @@
+package org.psu.spacetraders.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import jakarta.ws.rs.client.ClientResponseContext;
+
+/**
+ * Tests for {@link RateLimitResponseFilter}
+ */
+public class RateLimitResponseFilterTest {
+
+	/**
+	 * Tests {@link RateLimitResponseFilter#filter} with a successful response
+	 */
+	@Test
+	public void filter() {
+
+		final Instant reset = Instant.parse("2024-11-05T10:15:30.123Z");
+		final ClientResponseContext response = mockResponse(200,
+				Map.of(RateLimitResponseFilter.REMAINING_HEADER, "7", RateLimitResponseFilter.RESET_HEADER,
+						reset.toString(), RateLimitResponseFilter.BURST_LIMIT_HEADER, "30",
+						RateLimitResponseFilter.PER_SECOND_LIMIT_HEADER, "2"));
+
+		final RequestThrottler throttler = mock();
+		final RateLimitResponseFilter filter = new RateLimitResponseFilter(throttler);
+		filter.filter(null, response);
+
+		final ArgumentCaptor<RateLimitStatus> captor = ArgumentCaptor.forClass(RateLimitStatus.class);
+		verify(throttler).updateRateLimitStatus(captor.capture());
+		assertEquals(new RateLimitStatus(7, reset, 30, 2, null), captor.getValue());
+	}
+
+	/**
+	 * Tests {@link RateLimitResponseFilter#filter} when the server rejects the
+	 * request
+	 */
+	@Test
+	public void filterTooManyRequests() {
+
+		final ClientResponseContext response = mockResponse(429,
+				Map.of(RateLimitResponseFilter.REMAINING_HEADER, "0", RateLimitResponseFilter.RETRY_AFTER_HEADER,
+						"1.5"));
+
+		final RequestThrottler throttler = mock();
+		final RateLimitResponseFilter filter = new RateLimitResponseFilter(throttler);
+		filter.filter(null, response);
+
+		final ArgumentCaptor<RateLimitStatus> captor = ArgumentCaptor.forClass(RateLimitStatus.class);
+		verify(throttler).updateRateLimitStatus(captor.capture());
+		assertEquals(0, captor.getValue().remaining());
+		assertEquals(Duration.ofMillis(1500), captor.getValue().retryAfter());
+	}
+
+	/**
+	 * Tests {@link RateLimitResponseFilter#filter} when the response has no rate
+	 * limit headers
+	 */
+	@Test
+	public void filterNoHeaders() {
+
+		final ClientResponseContext response = mockResponse(200, Map.of());
+
+		final RequestThrottler throttler = mock();
+		final RateLimitResponseFilter filter = new RateLimitResponseFilter(throttler);
+		filter.filter(null, response);
+
+		verify(throttler, never()).updateRateLimitStatus(any());
+	}
+
+	/**
+	 * Tests {@link RateLimitResponseFilter#parseStatus} when the server rejects a
+	 * request without a Retry-After header
+	 */
+	@Test
+	public void parseStatusTooManyRequestsNoRetryAfter() {
+
+		final Instant reset = Instant.now().plusSeconds(10);
+		final RateLimitStatus resetStatus = RateLimitResponseFilter.parseStatus(429,
+				Map.of(RateLimitResponseFilter.RESET_HEADER, reset.toString())::get);
+		// Wait until the window resets
+		assertTrue(resetStatus.retryAfter().compareTo(Duration.ofSeconds(9)) > 0);
+
+		final RateLimitStatus defaultStatus = RateLimitResponseFilter.parseStatus(429, Map.<String, String>of()::get);
+		assertEquals(Duration.ofSeconds(1), defaultStatus.retryAfter());
+	}
+
+	/**
+	 * Tests {@link RateLimitResponseFilter#parseStatus} with a Retry-After header
+	 * containing a date
+	 */
+	@Test
+	public void parseStatusRetryAfterDate() {
+
+		final RateLimitStatus status = RateLimitResponseFilter.parseStatus(429,
+				Map.of(RateLimitResponseFilter.RETRY_AFTER_HEADER, "Wed, 21 Oct 2015 07:28:00 GMT")::get);
+		// The date is in the past, so don't wait any longer than the default
+		assertEquals(Duration.ofSeconds(1), status.retryAfter());
+	}
+
+	/**
+	 * Tests {@link RateLimitResponseFilter#parseStatus} with malformed headers
+	 */
+	@Test
+	public void parseStatusMalformed() {
+
+		final RateLimitStatus status = RateLimitResponseFilter.parseStatus(200,
+				Map.of(RateLimitResponseFilter.REMAINING_HEADER, "lots", RateLimitResponseFilter.RESET_HEADER,
+						"tomorrow")::get);
+		assertNull(status);
+
+		final RateLimitStatus rejectedStatus = RateLimitResponseFilter.parseStatus(429,
+				Map.of(RateLimitResponseFilter.RETRY_AFTER_HEADER, "eventually")::get);
+		assertEquals(Duration.ofSeconds(1), rejectedStatus.retryAfter());
+	}
+
+	private ClientResponseContext mockResponse(final int status, final Map<String, String> headers) {
+		final ClientResponseContext response = mock();
+		when(response.getStatus()).thenReturn(status);
+		when(response.getHeaderString(any())).thenAnswer(invocation -> headers.get(invocation.getArgument(0)));
+		return response;
+	}
+
+}
@@ -1,11 +1,22 @@
 package org.psu.spacetraders.api;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 import org.psu.spacetraders.api.ThrottlerConfig.RateLimiterConfig;
 
 /**
@@ -57,4 +68,208 @@ public class RequestThrottlerTest {
 		}
 	}
 
+	/**
+	 * Tests {@link RequestThrottler#throttleAsync}
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void throttleAsync() {
+
+		final RequestThrottler throttler = new RequestThrottler(makeConfig(true, 5, 1));
+
+		final List<Integer> callOrder = Collections.synchronizedList(new ArrayList<>());
+		final List<CompletableFuture<Integer>> responses = new ArrayList<>();
+		final Instant start = Instant.now();
+		for (int i = 0; i < 8; i++) {
+			final int requestNumber = i;
+			responses.add(throttler.throttleAsync(() -> {
+				callOrder.add(requestNumber);
+				return requestNumber;
+			}).toCompletableFuture());
+		}
+		// None of the requests should have blocked the calling thread
+		assertTrue(Duration.between(start, Instant.now()).compareTo(Duration.ofMillis(500)) < 0);
+
+		for (int i = 0; i < 8; i++) {
+			assertEquals(i, responses.get(i).join());
+		}
+		// The last three requests had to wait for the limit to pass
+		assertTrue(Duration.between(start, Instant.now()).compareTo(Duration.ofMillis(900)) > 0);
+		assertEquals(8, callOrder.size());
+		assertEquals(0, throttler.getPendingRequests());
+	}
+
+	/**
+	 * Tests that a higher priority request is granted a permit before a lower
+	 * priority request which has been waiting longer
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void throttlePriority() {
+
+		final RequestThrottler throttler = new RequestThrottler(makeConfig(true, 1, 1));
+
+		// Use up the only permit
+		throttler.throttle(() -> 1);
+
+		final List<RequestPriority> callOrder = Collections.synchronizedList(new ArrayList<>());
+		final CompletableFuture<Boolean> background = throttler
+				.throttleAsync(RequestPriority.BACKGROUND, () -> callOrder.add(RequestPriority.BACKGROUND))
+				.toCompletableFuture();
+		final CompletableFuture<Boolean> normal = throttler
+				.throttleAsync(() -> callOrder.add(RequestPriority.NORMAL)).toCompletableFuture();
+		final CompletableFuture<Boolean> critical = throttler
+				.throttleAsync(RequestPriority.CRITICAL, () -> callOrder.add(RequestPriority.CRITICAL))
+				.toCompletableFuture();
+		assertEquals(3, throttler.getPendingRequests());
+
+		critical.join();
+		normal.join();
+		background.join();
+		assertEquals(List.of(RequestPriority.CRITICAL, RequestPriority.NORMAL, RequestPriority.BACKGROUND),
+				callOrder);
+	}
+
+	/**
+	 * Tests {@link RequestThrottler#throttleAsync} when the API interaction fails
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void throttleAsyncFailure() {
+
+		final RequestThrottler throttler = new RequestThrottler(makeConfig(true, 5, 1));
+
+		final CompletableFuture<Integer> response = throttler.<Integer>throttleAsync(() -> {
+			throw new IllegalStateException();
+		}).toCompletableFuture();
+
+		final CompletionException exception = assertThrows(CompletionException.class, () -> response.join());
+		assertTrue(exception.getCause() instanceof IllegalStateException);
+	}
+
+	/**
+	 * Tests {@link RequestThrottler#throttleAsync} when throttling is disabled
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void throttleAsyncDisabled() {
+
+		final RequestThrottler throttler = new RequestThrottler(makeConfig(false, 1, 60));
+
+		for (int i = 0; i < 15; i++) {
+			// None of these should wait for the limit
+			assertEquals(1, throttler.throttleAsync(() -> 1).toCompletableFuture().join());
+		}
+	}
+
+	/**
+	 * Tests {@link RequestThrottler#updateRateLimitStatus} when the server rejects
+	 * a request
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void updateRateLimitStatusRetryAfter() {
+
+		final RequestThrottler throttler = new RequestThrottler(makeConfig(true, 10, 1));
+
+		final Instant start = Instant.now();
+		throttler.updateRateLimitStatus(new RateLimitStatus(null, null, null, null, Duration.ofMillis(500)));
+		throttler.throttle(() -> 1);
+
+		// The request must wait for the retry period even though the limiter is empty
+		assertTrue(Duration.between(start, Instant.now()).compareTo(Duration.ofMillis(450)) > 0);
+	}
+
+	/**
+	 * Tests {@link RequestThrottler#updateRateLimitStatus} when the server has
+	 * counted more requests than the throttler
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void updateRateLimitStatusTighten() {
+
+		final RequestThrottler throttler = new RequestThrottler(makeConfig(true, 10, 1));
+
+		final Instant start = Instant.now();
+		throttler.updateRateLimitStatus(new RateLimitStatus(0, start.plusMillis(800), null, null, null));
+		throttler.throttle(() -> 1);
+
+		// The request must wait for the server's window to reset
+		assertTrue(Duration.between(start, Instant.now()).compareTo(Duration.ofMillis(750)) > 0);
+	}
+
+	/**
+	 * Tests {@link RequestThrottler#updateRateLimitStatus} when the server has
+	 * counted fewer requests than the throttler
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void updateRateLimitStatusRelax() {
+
+		final RequestThrottler throttler = new RequestThrottler(makeConfig(true, 2, 60));
+
+		// Use up both permits, without the server's status the next request would wait a minute
+		throttler.throttle(() -> 1);
+		throttler.throttle(() -> 1);
+
+		throttler.updateRateLimitStatus(new RateLimitStatus(2, Instant.now().plusSeconds(30), null, null, null));
+		assertEquals(1, throttler.throttle(() -> 1));
+	}
+
+	/**
+	 * Tests {@link RequestThrottler#updateRateLimitStatus} when the server reports
+	 * its limits
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void updateRateLimitStatusLimits() {
+
+		final RateLimiterConfig perSecondConfig = mock(RateLimiterConfig.class);
+		when(perSecondConfig.requests()).thenReturn(10);
+		when(perSecondConfig.period()).thenReturn(1);
+		final RateLimiterConfig burstConfig = mock(RateLimiterConfig.class);
+		when(burstConfig.requests()).thenReturn(100);
+		when(burstConfig.period()).thenReturn(60);
+
+		final ThrottlerConfig config = mock(ThrottlerConfig.class);
+		when(config.rateLimiters()).thenReturn(List.of(perSecondConfig, burstConfig));
+		when(config.enabled()).thenReturn(true);
+
+		final RequestThrottler throttler = new RequestThrottler(config);
+		throttler.updateRateLimitStatus(new RateLimitStatus(null, null, 20, 1, null));
+
+		final Instant start = Instant.now();
+		throttler.throttle(() -> 1);
+		throttler.throttle(() -> 1);
+
+		// Only one request can be sent per second now
+		assertTrue(Duration.between(start, Instant.now()).compareTo(Duration.ofMillis(900)) > 0);
+	}
+
+	/**
+	 * Tests {@link RequestThrottler#updateRateLimitStatus} when throttling is
+	 * disabled
+	 */
+	@Test
+	@Timeout(value = 5, unit = TimeUnit.SECONDS)
+	public void updateRateLimitStatusDisabled() {
+
+		final RequestThrottler throttler = new RequestThrottler(makeConfig(false, 10, 1));
+
+		throttler.updateRateLimitStatus(new RateLimitStatus(0, Instant.now().plusSeconds(30), null, null,
+				Duration.ofSeconds(30)));
+		assertEquals(1, throttler.throttle(() -> 1));
+	}
+
+	private ThrottlerConfig makeConfig(final boolean enabled, final int requests, final int period) {
+		final RateLimiterConfig limiterConfig = mock(RateLimiterConfig.class);
+		when(limiterConfig.requests()).thenReturn(requests);
+		when(limiterConfig.period()).thenReturn(period);
+
+		final ThrottlerConfig config = mock(ThrottlerConfig.class);
+		when(config.rateLimiters()).thenReturn(List.of(limiterConfig));
+		when(config.enabled()).thenReturn(enabled);
+		return config;
+	}
+
 }
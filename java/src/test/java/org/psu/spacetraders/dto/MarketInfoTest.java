@@ -2,6 +2,7 @@ package org.psu.spacetraders.dto;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
@@ -92,6 +93,46 @@ public class MarketInfoTest {
 		assertFalse(notSellingMarket.sellsProduct(product));
 	}
 
+	/**
+	 * Tests {@link MarketInfo#getTradeGood}
+	 */
+	@Test
+	public void getTradeGood() {
+		final TradeGood milk = new TradeGood("milk", 10, 20, 15);
+		final TradeGood eggs = new TradeGood("eggs", 10, 30, 25);
+		final MarketInfo market = new MarketInfo(null, List.of(), List.of(new Product("milk")), List.of(),
+				List.of(milk, eggs));
+
+		assertEquals(milk, market.getTradeGood("milk"));
+		assertEquals(eggs, market.getTradeGood("eggs"));
+		assertNull(market.getTradeGood("a product no market has listed"));
+
+		// Prices are unknown without a ship at the market
+		final MarketInfo unpricedMarket = new MarketInfo(null, List.of(), List.of(new Product("milk")), List.of(),
+				null);
+		assertNull(unpricedMarket.getTradeGood("milk"));
+	}
+
+	/**
+	 * Tests that lookups reflect the lists set after they were first used
+	 */
+	@Test
+	public void lookupsAfterSet() {
+		final Product product = new Product("A");
+		final MarketInfo market = new MarketInfo();
+		assertFalse(market.sellsProduct(product));
+		assertNull(market.getTradeGood("A"));
+
+		final TradeGood tradeGood = new TradeGood("A", 10, 20, 15);
+		market.setExchange(List.of(product));
+		market.setTradeGoods(List.of(tradeGood));
+		assertTrue(market.sellsProduct(product));
+		assertEquals(tradeGood, market.getTradeGood("A"));
+
+		market.setExchange(List.of());
+		assertFalse(market.sellsProduct(product));
+	}
+
 	/**
 	 * Tests {@link MarketInfo#buildPurchaseRequest}
 	 */
@@ -247,6 +288,54 @@ public class MarketInfoTest {
 		assertEquals(1, requestsByProductSymbol.get(productSymbol1).getUnits());
 	}
 
+	/**
+	 * Tests {@link MarketInfo#buildPurchaseRequest} when the prices at the
+	 * importing market are known
+	 */
+	@Test
+	public void buildPurchaseRequestImportPrices() {
+
+		final Product milk = new Product("milk");
+		final Product eggs = new Product("eggs");
+		final Product bread = new Product("bread");
+		final Product cheese = new Product("cheese");
+
+		final MarketInfo exportingMarket = new MarketInfo(null, null, null, null,
+				List.of(new TradeGood("milk", 10, 100, 90), new TradeGood("eggs", 5, 200, 190),
+						new TradeGood("bread", 1, 500, 490), new TradeGood("cheese", 10, 50, 40)));
+		// Bread is the most expensive but barely makes a profit, cheese loses money
+		final MarketInfo importingMarket = new MarketInfo(null, null, null, null,
+				List.of(new TradeGood("milk", 10, 190, 180), new TradeGood("eggs", 5, 310, 300),
+						new TradeGood("bread", 1, 520, 510), new TradeGood("cheese", 10, 45, 40)));
+
+		// The budget allows anything, eggs make 100 per unit and milk makes 80
+		final List<TradeRequest> tradeRequests = exportingMarket.buildPurchaseRequest(
+				List.of(milk, eggs, bread, cheese), 10, 10000, true, importingMarket);
+		assertEquals(List.of(new TradeRequest("eggs", 5), new TradeRequest("milk", 5)), tradeRequests);
+
+		// With only 1000 credits to spend, ten milk make more than five eggs
+		final List<TradeRequest> budgetRequests = exportingMarket.buildPurchaseRequest(
+				List.of(milk, eggs, bread, cheese), 10, 2000, true, importingMarket);
+		assertEquals(List.of(new TradeRequest("milk", 10)), budgetRequests);
+	}
+
+	/**
+	 * Tests {@link MarketInfo#buildPurchaseRequest} when nothing makes a profit at
+	 * the importing market
+	 */
+	@Test
+	public void buildPurchaseRequestNoProfit() {
+
+		final MarketInfo exportingMarket = new MarketInfo(null, null, null, null,
+				List.of(new TradeGood("milk", 10, 100, 90)));
+		final MarketInfo importingMarket = new MarketInfo(null, null, null, null,
+				List.of(new TradeGood("milk", 10, 100, 90)));
+
+		final List<TradeRequest> tradeRequests = exportingMarket.buildPurchaseRequest(
+				List.of(new Product("milk")), 10, 10000, true, importingMarket);
+		assertTrue(tradeRequests.isEmpty());
+	}
+
 	/**
 	 * Tests {@link MarketInfo#buildSellRequests}
 	 */
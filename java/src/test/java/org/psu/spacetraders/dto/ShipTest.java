@@ -90,7 +90,7 @@ public class ShipTest {
 		final RoutePoint currentShipPosition = new RoutePoint("route", shipX, shipY);
 		final ShipRoute shipRoute = new ShipRoute(currentShipPosition, currentShipPosition, null, null);
 		final ShipNavigation nav = new ShipNavigation(null, null, shipRoute, null, null);
-		final Ship ship = new Ship("Ship", nav, null, null, null, null);
+		final Ship ship = new Ship("Ship", nav, null, null, null, null, null);
 
 		final Waypoint waypoint = mock(Waypoint.class);
 		when(waypoint.getX()).thenReturn(3);
@@ -116,12 +116,12 @@ public class ShipTest {
 		when(waypoint.getY()).thenReturn(4);
 
 		final FuelStatus lowFuel = new FuelStatus(3, 3);
-		final Ship lowFuelShip = new Ship("Ship", nav, null, null, lowFuel, null);
+		final Ship lowFuelShip = new Ship("Ship", nav, null, null, lowFuel, null, null);
 
 		assertFalse(lowFuelShip.canTravelTo(waypoint));
 
 		final FuelStatus highFuel = new FuelStatus(6, 6);
-		final Ship highFuelShip = new Ship("Ship", nav, null, null, highFuel, null);
+		final Ship highFuelShip = new Ship("Ship", nav, null, null, highFuel, null, null);
 
 		assertTrue(highFuelShip.canTravelTo(waypoint));
 	}
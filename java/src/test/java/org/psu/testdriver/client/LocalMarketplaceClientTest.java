@@ -163,7 +163,8 @@ public class LocalMarketplaceClientTest {
 
 		final MarketInfo market = mock();
 		when(market.sellsProduct(product)).thenReturn(true);
-		when(market.getTradeGoods()).thenReturn(List.of(tradeGood, tradeGood2));
+		when(market.getTradeGood(productId)).thenReturn(tradeGood);
+		when(market.getTradeGood(tradeGood2.getSymbol())).thenReturn(tradeGood2);
 		when(marketplaceManager.getMarketInfo(wayId)).thenReturn(market);
 
 		final Agent agent = mock();
@@ -226,7 +227,8 @@ public class LocalMarketplaceClientTest {
 
 		final MarketInfo market = mock();
 		when(market.sellsProduct(product)).thenReturn(true);
-		when(market.getTradeGoods()).thenReturn(List.of(tradeGood, tradeGood2));
+		when(market.getTradeGood(productId)).thenReturn(tradeGood);
+		when(market.getTradeGood(tradeGood2.getSymbol())).thenReturn(tradeGood2);
 		when(marketplaceManager.getMarketInfo(wayId)).thenReturn(market);
 
 		final Agent agent = mock();
@@ -346,7 +348,8 @@ public class LocalMarketplaceClientTest {
 
 		final MarketInfo market = mock();
 		when(market.sellsProduct(product)).thenReturn(true);
-		when(market.getTradeGoods()).thenReturn(List.of(tradeGood, tradeGood2));
+		when(market.getTradeGood(productId)).thenReturn(tradeGood);
+		when(market.getTradeGood(tradeGood2.getSymbol())).thenReturn(tradeGood2);
 		when(marketplaceManager.getMarketInfo(wayId)).thenReturn(market);
 
 		final Agent agent = mock();
@@ -403,7 +406,7 @@ public class LocalMarketplaceClientTest {
 
 		final MarketInfo market = mock();
 		when(market.sellsProduct(product)).thenReturn(true);
-		when(market.getTradeGoods()).thenReturn(List.of(tradeGood));
+		when(market.getTradeGood(productId)).thenReturn(tradeGood);
 		when(marketplaceManager.getMarketInfo(wayId)).thenReturn(market);
 
 		final Agent agent = mock();
@@ -484,7 +487,7 @@ public class LocalMarketplaceClientTest {
 
 		final MarketInfo market = mock();
 		when(market.sellsProduct(product)).thenReturn(true);
-		when(market.getTradeGoods()).thenReturn(List.of(tradeGood));
+		when(market.getTradeGood(fuelId)).thenReturn(tradeGood);
 		when(marketplaceManager.getMarketInfo(wayId)).thenReturn(market);
 
 		final Agent agent = mock();
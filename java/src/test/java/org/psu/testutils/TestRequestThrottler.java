@@ -6,6 +6,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.function.Supplier;
 
+import org.psu.spacetraders.api.RequestPriority;
 import org.psu.spacetraders.api.RequestThrottler;
 
 /**
@@ -19,6 +20,10 @@ public class TestRequestThrottler {
 			final Supplier<?> supplier = invocation.getArgument(0);
             return supplier.get();
 		});
+		when(throttler.throttle(any(RequestPriority.class), any())).thenAnswer(invocation -> {
+			final Supplier<?> supplier = invocation.getArgument(1);
+			return supplier.get();
+		});
 		return throttler;
 	}
 
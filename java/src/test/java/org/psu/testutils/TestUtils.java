@@ -1,10 +1,25 @@
 package org.psu.testutils;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.psu.spacetraders.dto.Cargo;
+import org.psu.spacetraders.dto.FuelStatus;
+import org.psu.spacetraders.dto.MarketInfo;
+import org.psu.spacetraders.dto.Product;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.ShipNavigation;
+import org.psu.spacetraders.dto.ShipRoute;
+import org.psu.spacetraders.dto.ShipRoute.RoutePoint;
+import org.psu.spacetraders.dto.TradeGood;
+import org.psu.spacetraders.dto.Waypoint;
+
 /**
  * Miscellaneous test utilities
  */
@@ -20,4 +35,59 @@ public class TestUtils {
 		return Stream.of(items).collect(Collectors.toCollection(LinkedList::new));
 	}
 
+	/**
+	 * @param symbol The waypoint symbol
+	 * @return A waypoint with the symbol, at the origin
+	 */
+	public static Waypoint makeWaypoint(final String symbol) {
+		final Waypoint waypoint = new Waypoint();
+		waypoint.setSymbol(symbol);
+		return waypoint;
+	}
+
+	/**
+	 * @param symbol The waypoint symbol
+	 * @param x      The x coordinate
+	 * @param y      The y coordinate
+	 * @return A waypoint with the symbol, at the coordinates
+	 */
+	public static Waypoint makeWaypoint(final String symbol, final int x, final int y) {
+		final Waypoint waypoint = makeWaypoint(symbol);
+		waypoint.setX(x);
+		waypoint.setY(y);
+		return waypoint;
+	}
+
+	/**
+	 * @param exports    The products the market exports
+	 * @param imports    The products the market imports
+	 * @param tradeGoods The market's prices, null if no ship is present
+	 * @return A market with the products and prices, which exchanges nothing
+	 */
+	public static MarketInfo makeMarket(final List<Product> exports, final List<Product> imports,
+			final List<TradeGood> tradeGoods) {
+		final MarketInfo market = new MarketInfo();
+		market.setExports(exports);
+		market.setImports(imports);
+		market.setExchange(List.of());
+		market.setTradeGoods(tradeGoods);
+		return market;
+	}
+
+	/**
+	 * @param symbol The ship symbol
+	 * @return A mocked ship with an empty 40 unit hold and no fuel tank, whose
+	 *         route ends at the origin
+	 */
+	public static Ship makeShip(final String symbol) {
+		final Ship ship = mock();
+		when(ship.getSymbol()).thenReturn(symbol);
+		when(ship.getFuel()).thenReturn(new FuelStatus(0, 0));
+		when(ship.getCargo()).thenReturn(new Cargo(40, 0, List.of()));
+		final ShipNavigation nav = mock();
+		when(nav.getRoute()).thenReturn(new ShipRoute(null, new RoutePoint("ship", 0, 0), null, null));
+		when(ship.getNav()).thenReturn(nav);
+		return ship;
+	}
+
 }
@@ -0,0 +1,128 @@
+package org.psu.trademanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.psu.spacetraders.api.RequestPriority;
+import org.psu.spacetraders.api.RequestThrottler;
+import org.psu.spacetraders.dto.MarketInfo;
+import org.psu.spacetraders.dto.Product;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.ShipNavigation;
+import org.psu.spacetraders.dto.ShipNavigation.Status;
+import org.psu.spacetraders.dto.TradeGood;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.testutils.TestUtils;
+
+/**
+ * Tests for {@link MarketRefresher}
+ */
+public class MarketRefresherTest {
+
+	private final Product milk = new Product("milk");
+	private final Product eggs = new Product("eggs");
+
+	private final Waypoint way1 = TestUtils.makeWaypoint("way1");
+	private final Waypoint way2 = TestUtils.makeWaypoint("way2");
+	private final Waypoint way3 = TestUtils.makeWaypoint("way3");
+	private final Waypoint way4 = TestUtils.makeWaypoint("way4");
+
+	/**
+	 * Tests that markets are valued by the routes through them
+	 */
+	@Test
+	public void getMarketValues() {
+
+		final MarketRefresher refresher = new MarketRefresher(1000, 300, mock(), mock(), makeIndex());
+
+		// way1 is on the priced milk route and the unpriced egg route, which is valued like the milk route
+		assertEquals(Map.of(way1, 31.0, way2, 16.0, way3, 16.0), refresher.getMarketValues());
+	}
+
+	/**
+	 * Tests that the stalest and most valuable market with a ship present is
+	 * chosen
+	 */
+	@Test
+	public void chooseMarket() {
+
+		final Instant now = Instant.now();
+		final MarketplaceManager marketplaceManager = makeMarketplaceManager(now);
+		final MarketRefresher refresher = new MarketRefresher(1000, 300, mock(), marketplaceManager, makeIndex());
+		assertNull(refresher.chooseMarket(now));
+
+		refresher.addShip(makeShip("way1", Status.DOCKED));
+		// way2's prices are too recent to refresh
+		refresher.addShip(makeShip("way2", Status.IN_ORBIT));
+		// The ship is still on its way to way3
+		refresher.addShip(makeShip("way3", Status.IN_TRANSIT));
+		refresher.addShip(makeShip("way4", Status.DOCKED));
+
+		// way4 is older, but way1 is worth much more
+		assertEquals(way1, refresher.chooseMarket(now));
+
+		// way3 has never been priced
+		refresher.addShip(makeShip("way3", Status.DOCKED));
+		assertEquals(way3, refresher.chooseMarket(now));
+	}
+
+	/**
+	 * Tests that markets are only refreshed when no other requests are waiting
+	 */
+	@Test
+	public void refreshMarket() {
+
+		final MarketplaceManager marketplaceManager = makeMarketplaceManager(Instant.now());
+		final RequestThrottler throttler = mock();
+		when(throttler.getPendingRequests()).thenReturn(1);
+		final MarketRefresher refresher = new MarketRefresher(1000, 300, throttler, marketplaceManager,
+				makeIndex());
+		refresher.addShip(makeShip("way1", Status.DOCKED));
+
+		assertNull(refresher.refreshMarket());
+		verify(marketplaceManager, never()).updateMarketInfo(any(), any());
+
+		when(throttler.getPendingRequests()).thenReturn(0);
+		assertEquals(way1, refresher.refreshMarket());
+		verify(marketplaceManager).updateMarketInfo(way1, RequestPriority.BACKGROUND);
+	}
+
+	private TradeRouteIndex makeIndex() {
+		final TradeRouteIndex index = new TradeRouteIndex();
+		index.updateMarket(way1, TestUtils.makeMarket(List.of(milk, eggs), List.of(),
+				List.of(new TradeGood("milk", 10, 12, 10), new TradeGood("eggs", 10, 5, 4))));
+		index.updateMarket(way2,
+				TestUtils.makeMarket(List.of(), List.of(milk), List.of(new TradeGood("milk", 10, 30, 27))));
+		index.updateMarket(way3, TestUtils.makeMarket(List.of(), List.of(eggs), null));
+		index.updateMarket(way4, TestUtils.makeMarket(List.of(), List.of(), null));
+		return index;
+	}
+
+	private MarketplaceManager makeMarketplaceManager(final Instant now) {
+		final MarketplaceManager marketplaceManager = mock();
+		when(marketplaceManager.getAllMarketInfo()).thenReturn(Map.of(way1, new MarketInfo(), way2,
+				new MarketInfo(), way3, new MarketInfo(), way4, new MarketInfo()));
+		when(marketplaceManager.getPricesUpdated(way1)).thenReturn(now.minus(Duration.ofMinutes(10)));
+		when(marketplaceManager.getPricesUpdated(way2)).thenReturn(now.minus(Duration.ofMinutes(1)));
+		when(marketplaceManager.getPricesUpdated(way4)).thenReturn(now.minus(Duration.ofHours(2)));
+		return marketplaceManager;
+	}
+
+	private static Ship makeShip(final String waypointSymbol, final Status status) {
+		final Ship ship = mock();
+		when(ship.getNav()).thenReturn(new ShipNavigation("system", waypointSymbol, null, status, null));
+		return ship;
+	}
+
+}
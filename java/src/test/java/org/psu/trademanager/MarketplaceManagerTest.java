@@ -1,8 +1,12 @@
 package org.psu.trademanager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -10,14 +14,17 @@ import static org.mockito.Mockito.when;
 
 import java.util.AbstractMap.SimpleEntry;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Queue;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
 import org.psu.navigation.NavigationPath;
 import org.psu.navigation.RefuelPathCalculator;
+import org.psu.navigation.WaypointRegistry;
 import org.psu.spacetraders.api.ClientProducer;
 import org.psu.spacetraders.api.MarketplaceClient;
 import org.psu.spacetraders.api.RequestThrottler;
@@ -25,6 +32,7 @@ import org.psu.spacetraders.dto.DataWrapper;
 import org.psu.spacetraders.dto.MarketInfo;
 import org.psu.spacetraders.dto.Product;
 import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.TradeGood;
 import org.psu.spacetraders.dto.Waypoint;
 import org.psu.testutils.TestRequestThrottler;
 import org.psu.testutils.TestUtils;
@@ -45,10 +53,13 @@ public class MarketplaceManagerTest {
 		final RefuelPathCalculator pathCalculator = mock();
 		final ClientProducer clientProducer = mock();
 		when(clientProducer.produceMarketplaceClient()).thenReturn(marketClient);
-		final MarketplaceManager manager = new MarketplaceManager(throttler, clientProducer, pathCalculator);
+		final MarketplaceManager manager = new MarketplaceManager(throttler, clientProducer, pathCalculator,
+				new TradeRouteIndex(), new PriceHistoryStore(16, 0.5), new WaypointRegistry());
 
 		final Waypoint way1 = mock(Waypoint.class);
+		when(way1.getSymbol()).thenReturn("way1");
 		final Waypoint way2 = mock(Waypoint.class);
+		when(way2.getSymbol()).thenReturn("way2");
 
 		final MarketInfo market1 = mock(MarketInfo.class);
 		final MarketInfo market2 = mock(MarketInfo.class);
@@ -79,6 +90,76 @@ public class MarketplaceManagerTest {
 		assertEquals(3, allData.size());
 	}
 
+	/**
+	 * Tests that fuel prices are passed on to the path calculator
+	 */
+	@Test
+	public void updateMarketDataFuelPrice() {
+
+		final RequestThrottler throttler = TestRequestThrottler.get();
+		final MarketplaceClient marketClient = mock();
+		final RefuelPathCalculator pathCalculator = mock();
+		final ClientProducer clientProducer = mock();
+		when(clientProducer.produceMarketplaceClient()).thenReturn(marketClient);
+		final MarketplaceManager manager = new MarketplaceManager(throttler, clientProducer, pathCalculator,
+				new TradeRouteIndex(), new PriceHistoryStore(16, 0.5), new WaypointRegistry());
+
+		final Waypoint fuelWaypoint = new Waypoint();
+		fuelWaypoint.setSymbol("fuel");
+		fuelWaypoint.setSystemSymbol("system");
+		final MarketInfo fuelMarket = new MarketInfo();
+		fuelMarket.setTradeGoods(List.of(new TradeGood("IRON", 10, 50, 40), new TradeGood("FUEL", 100, 72, 68)));
+
+		// No trade goods are known when no ship is at the market
+		final Waypoint otherWaypoint = new Waypoint();
+		otherWaypoint.setSymbol("other");
+		final MarketInfo otherMarket = new MarketInfo();
+
+		manager.updateMarketData(Map.of(fuelWaypoint, fuelMarket, otherWaypoint, otherMarket));
+		verify(pathCalculator).updateFuelPrice("fuel", 72);
+
+		final MarketInfo updatedMarket = new MarketInfo();
+		updatedMarket.setTradeGoods(List.of(new TradeGood("FUEL", 100, 80, 75)));
+		when(marketClient.getMarketInfo("system", "fuel")).thenReturn(new DataWrapper<MarketInfo>(updatedMarket, null));
+
+		manager.updateMarketInfo(fuelWaypoint);
+		verify(pathCalculator).updateFuelPrice("fuel", 80);
+		verify(pathCalculator, times(2)).updateFuelPrice(any(), anyInt());
+	}
+
+	/**
+	 * Tests that market updates are passed on to the trade route index
+	 */
+	@Test
+	public void updateMarketDataTradeRoutes() {
+
+		final MarketplaceClient marketClient = mock();
+		final ClientProducer clientProducer = mock();
+		when(clientProducer.produceMarketplaceClient()).thenReturn(marketClient);
+		final TradeRouteIndex tradeRouteIndex = mock();
+		final PriceHistoryStore priceHistoryStore = mock();
+		final MarketplaceManager manager = new MarketplaceManager(TestRequestThrottler.get(), clientProducer,
+				mock(RefuelPathCalculator.class), tradeRouteIndex, priceHistoryStore, new WaypointRegistry());
+
+		final Waypoint way1 = new Waypoint();
+		way1.setSymbol("way1");
+		way1.setSystemSymbol("system");
+		final MarketInfo market1 = new MarketInfo();
+		manager.updateMarketData(Map.of(way1, market1));
+		verify(tradeRouteIndex).updateMarket(way1, market1);
+		// No ship was present, so there are no prices
+		assertNull(manager.getPricesUpdated(way1));
+
+		final MarketInfo updatedMarket = new MarketInfo();
+		updatedMarket.setSymbol("updated");
+		updatedMarket.setTradeGoods(List.of());
+		when(marketClient.getMarketInfo("system", "way1")).thenReturn(new DataWrapper<MarketInfo>(updatedMarket, null));
+		manager.updateMarketInfo(way1);
+		verify(tradeRouteIndex).updateMarket(way1, updatedMarket);
+		verify(priceHistoryStore).record(eq(way1), eq(updatedMarket), any());
+		assertNotNull(manager.getPricesUpdated(way1));
+	}
+
 	/**
 	 * Tests {@link MarkerplaceManager#getMarketInfoById}
 	 */
@@ -94,7 +175,8 @@ public class MarketplaceManagerTest {
 		when(way2.getSymbol()).thenReturn(way2Id);
 		final MarketInfo market2 = mock(MarketInfo.class);
 
-		final MarketplaceManager manager = new MarketplaceManager(null, mock(ClientProducer.class), null);
+		final MarketplaceManager manager = new MarketplaceManager(null, mock(ClientProducer.class), null,
+				new TradeRouteIndex(), new PriceHistoryStore(16, 0.5), new WaypointRegistry());
 		manager.updateMarketData(Map.of(way1, market1, way2, market2));
 
 		final Entry<Waypoint, MarketInfo> expected1 = new SimpleEntry<Waypoint, MarketInfo>(way1, market1);
@@ -111,15 +193,20 @@ public class MarketplaceManagerTest {
 	public void getClosestImport() {
 
 		final Waypoint way1 = mock();
+		when(way1.getSymbol()).thenReturn("way1");
 		final MarketInfo market1 = mock();
 		final Waypoint way2 = mock();
+		when(way2.getSymbol()).thenReturn("way2");
 		final MarketInfo market2 = mock();
 		final Waypoint way3 = mock();
+		when(way3.getSymbol()).thenReturn("way3");
 		final MarketInfo market3 = mock();
 		final Waypoint way4 = mock();
+		when(way4.getSymbol()).thenReturn("way4");
 		final MarketInfo market4 = mock();
 
-		final Ship ship = mock(Ship.class);
+		// Deep stubs place the ship at the origin
+		final Ship ship = mock(Ship.class, Answers.RETURNS_DEEP_STUBS);
 		final Product product = mock(Product.class);
 
 		// Way1 is closest to the ship, but doesn't sell the product, way2 is the closest which does sell it
@@ -138,7 +225,8 @@ public class MarketplaceManagerTest {
 				.thenReturn(new NavigationPath(3.0, TestUtils.makeQueue(way3)));
 		when(pathCalculator.determineShortestRoute(ship, way4)).thenReturn(null);
 
-		final MarketplaceManager manager = new MarketplaceManager(null, mock(ClientProducer.class), pathCalculator);
+		final MarketplaceManager manager = new MarketplaceManager(null, mock(ClientProducer.class), pathCalculator,
+				new TradeRouteIndex(), new PriceHistoryStore(16, 0.5), new WaypointRegistry());
 		manager.updateMarketData(Map.of(way1, market1, way2, market2, way3, market3, way4, market4));
 
 		final Optional<Deque<Waypoint>> closestImportPath = manager.getClosestTradingWaypointPath(ship, product);
@@ -148,4 +236,69 @@ public class MarketplaceManagerTest {
 		assertNull(path.poll());
 	}
 
+	/**
+	 * Tests {@link MarketplaceManager#getBestSellPrice}
+	 */
+	@Test
+	public void getBestSellPrice() {
+
+		final Waypoint way1 = new Waypoint();
+		way1.setSymbol("way1");
+		final MarketInfo market1 = new MarketInfo();
+		market1.setTradeGoods(List.of(new TradeGood("IRON", 10, 50, 40)));
+		final Waypoint way2 = new Waypoint();
+		way2.setSymbol("way2");
+		final MarketInfo market2 = new MarketInfo();
+		market2.setTradeGoods(List.of(new TradeGood("IRON", 10, 70, 60)));
+		final Waypoint way3 = new Waypoint();
+		way3.setSymbol("way3");
+		final MarketInfo market3 = new MarketInfo();
+		market3.setTradeGoods(List.of(new TradeGood("COPPER", 10, 90, 80)));
+
+		// Way2 pays the most for iron, but the ship can't reach it
+		final Ship ship = mock();
+		final RefuelPathCalculator pathCalculator = mock();
+		when(pathCalculator.determineShortestRoute(ship, way1))
+				.thenReturn(new NavigationPath(1.0, TestUtils.makeQueue(way1)));
+		when(pathCalculator.determineShortestRoute(ship, way2)).thenReturn(null);
+
+		final MarketplaceManager manager = new MarketplaceManager(null, mock(ClientProducer.class), pathCalculator,
+				new TradeRouteIndex(), new PriceHistoryStore(16, 0.5), new WaypointRegistry());
+		manager.updateMarketData(Map.of(way1, market1, way2, market2, way3, market3));
+
+		assertEquals(40, manager.getBestSellPrice(ship, new Product("IRON")));
+		assertEquals(0, manager.getBestSellPrice(ship, new Product("GOLD")));
+	}
+
+	/**
+	 * Tests {@link MarketplaceManager#getBestSale}
+	 */
+	@Test
+	public void getBestSale() {
+
+		final Waypoint origin = TestUtils.makeWaypoint("origin");
+		final Waypoint way1 = TestUtils.makeWaypoint("way1");
+		final MarketInfo market1 = new MarketInfo();
+		market1.setTradeGoods(List.of(new TradeGood("IRON", 10, 50, 40)));
+		final Waypoint way2 = TestUtils.makeWaypoint("way2");
+		final MarketInfo market2 = new MarketInfo();
+		market2.setTradeGoods(List.of(new TradeGood("IRON", 10, 70, 60)));
+
+		// Way2 pays the most for iron, but it can't be reached from the origin
+		final NavigationPath path = new NavigationPath(1.0, TestUtils.makeQueue(way1));
+		final RefuelPathCalculator pathCalculator = mock();
+		when(pathCalculator.determineShortestRoute(origin, way1, 100, 100)).thenReturn(path);
+		when(pathCalculator.determineShortestRoute(origin, way2, 100, 100)).thenReturn(null);
+
+		final MarketplaceManager manager = new MarketplaceManager(null, mock(ClientProducer.class), pathCalculator,
+				new TradeRouteIndex(), new PriceHistoryStore(16, 0.5), new WaypointRegistry());
+		manager.updateMarketData(Map.of(way1, market1, way2, market2));
+
+		final MarketplaceManager.Sale sale = manager.getBestSale(origin, 100, new Product("IRON")).get();
+		assertEquals(way1, sale.market());
+		assertEquals(40, sale.price());
+		assertEquals(path, sale.path());
+		assertTrue(manager.getBestSale(origin, 100, new Product("GOLD")).isEmpty());
+	}
+
 }
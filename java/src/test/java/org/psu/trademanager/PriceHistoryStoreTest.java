@@ -0,0 +1,65 @@
+package org.psu.trademanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.psu.spacetraders.dto.MarketInfo;
+import org.psu.spacetraders.dto.TradeGood;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.testutils.TestUtils;
+import org.psu.trademanager.PriceHistoryStore.PriceStats;
+
+/**
+ * Tests for {@link PriceHistoryStore}
+ */
+public class PriceHistoryStoreTest {
+
+	/**
+	 * Tests that prices are kept separately for each product at each market
+	 */
+	@Test
+	public void record() {
+
+		final Waypoint way1 = new Waypoint();
+		way1.setSymbol("way1");
+		final Waypoint way2 = new Waypoint();
+		way2.setSymbol("way2");
+
+		final PriceHistoryStore store = new PriceHistoryStore(10, 0.5);
+		final Instant now = Instant.now();
+		store.record(way1, makeMarket(new TradeGood("milk", 10, 100, 90), new TradeGood("eggs", 5, 50, 40)),
+				now.minus(Duration.ofHours(2)));
+		store.record(way1, makeMarket(new TradeGood("milk", 10, 120, 110)), now);
+		store.record(way2, makeMarket(new TradeGood("milk", 10, 80, 70)), now);
+		// Markets without prices are ignored
+		store.record(way2, new MarketInfo(), now);
+
+		assertEquals(2, store.getSampleCount(way1, "milk"));
+		assertEquals(1, store.getSampleCount(way1, "eggs"));
+		assertEquals(1, store.getSampleCount(way2, "milk"));
+		assertEquals(0, store.getSampleCount(way2, "eggs"));
+
+		final PriceStats milkStats = store.getStats(way1, "milk", now.minus(Duration.ofHours(3)));
+		assertEquals(2, milkStats.samples());
+		assertEquals(100, milkStats.purchasePrice().min());
+		assertEquals(120, milkStats.purchasePrice().latest());
+		assertEquals(100, milkStats.sellPrice().movingAverage(), 1e-9);
+		// The price is above its average
+		assertEquals(0.1, milkStats.sellPrice().trend(), 1e-9);
+
+		// Only the latest price is within the last hour
+		assertEquals(1, store.getStats(way1, "milk", Duration.ofHours(1)).samples());
+		assertNull(store.getStats(way1, "eggs", Duration.ofHours(1)));
+		assertNull(store.getStats(way2, "eggs", Duration.ofHours(1)));
+	}
+
+	private static MarketInfo makeMarket(final TradeGood... tradeGoods) {
+		return TestUtils.makeMarket(List.of(), List.of(), List.of(tradeGoods));
+	}
+
+}
@@ -0,0 +1,90 @@
+package org.psu.trademanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.psu.spacetraders.dto.MarketInfo;
+import org.psu.spacetraders.dto.TradeGood;
+import org.psu.spacetraders.dto.Transaction;
+import org.psu.trademanager.PriceImpactModel.TradeType;
+
+/**
+ * Tests for {@link PriceImpactModel}
+ */
+public class PriceImpactModelTest {
+
+	/**
+	 * Tests that the price change between transactions in a batch is learned
+	 */
+	@Test
+	public void expectedPrice() {
+
+		final PriceImpactModel model = new PriceImpactModel(0.5, 1000);
+
+		// Nothing is known yet
+		assertEquals(100, model.expectedPrice("market", "milk", TradeType.PURCHASE, 100, 10, 20));
+
+		// Buying 10 units raised the price by 10%
+		model.recordTrade("market", "milk", TradeType.PURCHASE, 100, 10, 0);
+		model.recordTrade("market", "milk", TradeType.PURCHASE, 110, 10, 500);
+
+		// The first 10 units are bought at 100, the next 10 at 110
+		assertEquals(105, model.expectedPrice("market", "milk", TradeType.PURCHASE, 100, 10, 20), 1e-6);
+		// A single transaction is charged the quoted price
+		assertEquals(100, model.expectedPrice("market", "milk", TradeType.PURCHASE, 100, 10, 10), 1e-6);
+		// Nothing is known about selling, or about other markets
+		assertEquals(100, model.expectedPrice("market", "milk", TradeType.SELL, 100, 10, 20));
+		assertEquals(100, model.expectedPrice("other market", "milk", TradeType.PURCHASE, 100, 10, 20));
+
+		// The next batch shows no change, which is averaged with the first
+		model.recordTrade("market", "milk", TradeType.PURCHASE, 100, 10, 10000);
+		model.recordTrade("market", "milk", TradeType.PURCHASE, 100, 10, 10500);
+		final double halfImpact = Math.exp(Math.log(1.1) / 2);
+		assertEquals((100 + 100 * halfImpact) / 2,
+				model.expectedPrice("market", "milk", TradeType.PURCHASE, 100, 10, 20), 1e-6);
+	}
+
+	/**
+	 * Tests that trades too far apart are not compared, as the market will have
+	 * moved on its own in between
+	 */
+	@Test
+	public void recordTradeOutsideBatch() {
+
+		final PriceImpactModel model = new PriceImpactModel(0.5, 1000);
+		model.recordTrade("market", "milk", TradeType.SELL, 100, 10, 0);
+		model.recordTrade("market", "milk", TradeType.SELL, 50, 10, 5000);
+
+		assertEquals(100, model.expectedPrice("market", "milk", TradeType.SELL, 100, 10, 20));
+
+		// Empty transactions are ignored
+		model.recordTrade("milk", TradeType.SELL, null);
+		model.recordTrade("milk", TradeType.SELL, new Transaction("market", "ship", 0, 0));
+		assertEquals(100, model.expectedPrice("market", "milk", TradeType.SELL, 100, 10, 20));
+	}
+
+	/**
+	 * Tests {@link PriceImpactModel#withExpectedSellPrices}
+	 */
+	@Test
+	public void withExpectedSellPrices() {
+
+		final PriceImpactModel model = new PriceImpactModel(0.5, 1000);
+		// Selling 10 units dropped the price by 20%
+		model.recordTrade("market", "milk", TradeType.SELL, 100, 10, 0);
+		model.recordTrade("market", "milk", TradeType.SELL, 80, 10, 500);
+
+		final MarketInfo market = new MarketInfo("market", List.of(), List.of(), List.of(),
+				List.of(new TradeGood("milk", 10, 110, 100), new TradeGood("eggs", 10, 60, 50)));
+		final MarketInfo expectedMarket = model.withExpectedSellPrices(market, 20);
+
+		assertEquals(90, expectedMarket.getTradeGoods().get(0).getSellPrice());
+		assertEquals(110, expectedMarket.getTradeGoods().get(0).getPurchasePrice());
+		assertEquals(50, expectedMarket.getTradeGoods().get(1).getSellPrice());
+		// The original market is left alone
+		assertEquals(100, market.getTradeGoods().get(0).getSellPrice());
+	}
+
+}
@@ -0,0 +1,47 @@
+package org.psu.trademanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.psu.trademanager.PriceHistoryStore.PriceRange;
+import org.psu.trademanager.PriceHistoryStore.PriceStats;
+
+/**
+ * Tests for {@link PriceSeries}
+ */
+public class PriceSeriesTest {
+
+	/**
+	 * Tests the statistics of a series which has wrapped around its buffers
+	 */
+	@Test
+	public void getStats() {
+
+		final PriceSeries series = new PriceSeries(3, 0.5);
+		assertNull(series.getStats(0));
+
+		series.append(10, 100, 90, 5);
+		series.append(20, 110, 95, 5);
+		series.append(30, 120, 80, 10);
+		// Overwrites the oldest price
+		series.append(40, 130, 85, 10);
+		assertEquals(3, series.size());
+
+		final PriceStats stats = series.getStats(0);
+		assertEquals(3, stats.samples());
+		assertEquals(20, stats.firstTime());
+		assertEquals(40, stats.lastTime());
+		// The moving average starts at 110, then moves halfway to 120 and then halfway to 130
+		assertEquals(new PriceRange(130, 110, 130, 122.5), stats.purchasePrice());
+		assertEquals(new PriceRange(85, 80, 95, 86.25), stats.sellPrice());
+		assertEquals(25.0 / 3, stats.tradeVolume(), 1e-9);
+
+		// Only the prices in the window are included
+		final PriceStats recentStats = series.getStats(30);
+		assertEquals(2, recentStats.samples());
+		assertEquals(new PriceRange(130, 120, 130, 125), recentStats.purchasePrice());
+		assertNull(series.getStats(41));
+	}
+
+}
@@ -0,0 +1,139 @@
+package org.psu.trademanager;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.psu.init.RandomProvider;
+
+/**
+ * Tests for {@link RouteExplorationPolicy}
+ */
+public class RouteExplorationPolicyTest {
+
+	private static final int ROUTES = 20;
+	private static final int TRIPS = 50;
+	private static final int RUNS = 200;
+
+	/**
+	 * Tests that a ship explores only when an unknown route samples better than
+	 * every known route
+	 */
+	@Test
+	public void shouldExplore() {
+
+		final RandomProvider randomProvider = mock();
+		// The known route is sampled first, then the unknown route
+		when(randomProvider.nextGaussian()).thenReturn(1.0, 0.5, 1.0, 0.5);
+		final RouteExplorationPolicy policy = new RouteExplorationPolicy(0.15, 1.0, null, randomProvider);
+
+		// Fresh prices are certain, the unknown route samples at 100 * e^0.5
+		assertTrue(policy.shouldExplore(new double[] { 100 }, new double[] { 0 }, 1));
+		// Prices which are 100 hours old could have doubled since
+		assertFalse(policy.shouldExplore(new double[] { 100 }, new double[] { 100 }, 1));
+
+		// There is nothing to explore
+		assertFalse(policy.shouldExplore(new double[] { 100 }, new double[] { 0 }, 0));
+		// There is nothing worth exploiting
+		assertTrue(policy.shouldExplore(new double[] { -100 }, new double[] { 0 }, 1));
+	}
+
+	/**
+	 * Simulates a ship choosing between known and unknown routes whose profits
+	 * drift over time, the policy should earn more credits per hour than choosing
+	 * by a coin flip
+	 */
+	@Test
+	public void shouldExploreSimulation() {
+
+		final RouteExplorationPolicy policy = new RouteExplorationPolicy(0.15, 1.0, null, new RandomProvider());
+		final Random coin = new Random(0);
+
+		double policyCreditsPerHour = 0;
+		double coinCreditsPerHour = 0;
+		for (int run = 0; run < RUNS; run++) {
+			policyCreditsPerHour += simulate(run, policy::shouldExplore);
+			coinCreditsPerHour += simulate(run, (rates, ages, unknownRoutes) -> coin.nextDouble() < 0.5);
+		}
+		assertTrue(policyCreditsPerHour > 1.05 * coinCreditsPerHour);
+	}
+
+	/**
+	 * Flies a ship along routes whose true credits per hour drift around a log
+	 * normally distributed base rate. A route's rate is only known once it has
+	 * been flown, exploring flies an unknown route and exploiting flies the route
+	 * with the best known rate.
+	 *
+	 * @return The credits per hour the ship made
+	 */
+	private static double simulate(final long seed, final ExplorationChoice choice) {
+		final Random random = new Random(seed);
+		final double[] baseRate = new double[ROUTES];
+		final double[] hours = new double[ROUTES];
+		final double[] drift = new double[ROUTES];
+		for (int route = 0; route < ROUTES; route++) {
+			baseRate[route] = 1000 * Math.exp(0.8 * random.nextGaussian());
+			hours[route] = 0.5 + 1.5 * random.nextDouble();
+		}
+
+		final boolean[] known = new boolean[ROUTES];
+		final double[] knownRate = new double[ROUTES];
+		final double[] timeFlown = new double[ROUTES];
+		double time = 0;
+		double credits = 0;
+		for (int trip = 0; trip < TRIPS; trip++) {
+			final List<Integer> knownRoutes = new ArrayList<>();
+			final List<Integer> unknownRoutes = new ArrayList<>();
+			for (int route = 0; route < ROUTES; route++) {
+				(known[route] ? knownRoutes : unknownRoutes).add(route);
+			}
+			final double[] rates = new double[knownRoutes.size()];
+			final double[] ages = new double[knownRoutes.size()];
+			for (int i = 0; i < knownRoutes.size(); i++) {
+				rates[i] = knownRate[knownRoutes.get(i)];
+				ages[i] = time - timeFlown[knownRoutes.get(i)];
+			}
+			final boolean explore = knownRoutes.isEmpty()
+					|| (!unknownRoutes.isEmpty() && choice.shouldExplore(rates, ages, unknownRoutes.size()));
+
+			int chosenRoute;
+			if (explore) {
+				chosenRoute = unknownRoutes.get(0);
+			}
+			else {
+				chosenRoute = knownRoutes.get(0);
+				for (final int route : knownRoutes) {
+					if (knownRate[route] > knownRate[chosenRoute]) {
+						chosenRoute = route;
+					}
+				}
+			}
+
+			final double rate = baseRate[chosenRoute] * Math.exp(drift[chosenRoute]);
+			credits += rate * hours[chosenRoute];
+			time += hours[chosenRoute];
+			known[chosenRoute] = true;
+			knownRate[chosenRoute] = rate;
+			timeFlown[chosenRoute] = time;
+
+			// Every route's rate reverts towards its base rate with a 10 hour time constant
+			final double decay = Math.exp(-hours[chosenRoute] / 10);
+			for (int route = 0; route < ROUTES; route++) {
+				drift[route] = drift[route] * decay + 0.3 * Math.sqrt(1 - decay * decay) * random.nextGaussian();
+			}
+		}
+		return credits / time;
+	}
+
+	@FunctionalInterface
+	private interface ExplorationChoice {
+		boolean shouldExplore(double[] creditsPerHour, double[] ageHours, int unknownRoutes);
+	}
+
+}
@@ -2,6 +2,7 @@ package org.psu.trademanager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -18,7 +19,6 @@ import org.junit.jupiter.api.Test;
 import org.psu.init.RandomProvider;
 import org.psu.navigation.NavigationPath;
 import org.psu.navigation.RefuelPathCalculator;
-import org.psu.spacetraders.dto.FuelStatus;
 import org.psu.spacetraders.dto.MarketInfo;
 import org.psu.spacetraders.dto.Product;
 import org.psu.spacetraders.dto.Ship;
@@ -33,46 +33,51 @@ import org.psu.trademanager.dto.TradeRoute;
  */
 public class RouteManagerTest {
 
+	private static final double CROWDING_FACTOR = 0.4;
+
 	/**
-	 * Tests {@link RouteManager#buildTradeRoutes}
+	 * Tests {@link RouteManager#getTradeRoutes}
 	 */
 	@Test
-	public void buildTradeRoutes() {
-
-		final MarketInfo market1 = mock(MarketInfo.class);
-		final MarketInfo market2 = mock(MarketInfo.class);
-		final MarketInfo market3 = mock(MarketInfo.class);
-		final Waypoint way1 = mock(Waypoint.class);
-		final Waypoint way2 = mock(Waypoint.class);
-		final Waypoint way3 = mock(Waypoint.class);
+	public void getTradeRoutes() {
 
 		final Product prod1 = new Product("Freedom");
 		final Product prod2 = new Product("Democracy");
 
 		// Valid trade routes from way1 to way3 and from way3 to way2
-		when(market1.getPotentialExports(market2)).thenReturn(List.of());
-		when(market1.getPotentialExports(market3)).thenReturn(List.of(prod1, prod2));
-		when(market2.getPotentialExports(market1)).thenReturn(List.of());
-		when(market2.getPotentialExports(market3)).thenReturn(List.of());
-		when(market3.getPotentialExports(market1)).thenReturn(List.of());
-		when(market3.getPotentialExports(market2)).thenReturn(List.of(prod1));
-
-		final Map<Waypoint, MarketInfo> marketInfo = Map.of(way1, market1, way2, market2, way3, market3);
+		final MarketInfo market1 = new MarketInfo();
+		market1.setExports(List.of(prod1, prod2));
+		market1.setImports(List.of());
+		final MarketInfo market2 = new MarketInfo();
+		market2.setExports(List.of());
+		market2.setImports(List.of(prod1));
+		final MarketInfo market3 = new MarketInfo();
+		market3.setExports(List.of(prod1));
+		market3.setImports(List.of(prod1, prod2));
 
-		final MarketplaceManager marketplaceManager = mock(MarketplaceManager.class);
-		when(marketplaceManager.getAllMarketInfo()).thenReturn(marketInfo);
+		final Waypoint way1 = new Waypoint();
+		way1.setSymbol("way1");
+		final Waypoint way2 = new Waypoint();
+		way2.setSymbol("way2");
+		final Waypoint way3 = new Waypoint();
+		way3.setSymbol("way3");
 
-		final RouteManager routeManager = new RouteManager(marketplaceManager, null, new RandomProvider());
+		final TradeRouteIndex tradeRouteIndex = makeIndex(Map.of(way1, market1, way2, market2, way3, market3));
+		final RouteManager routeManager = makeRouteManager(tradeRouteIndex, null, new RandomProvider());
 
-		routeManager.buildTradeRoutes();
 		final List<TradeRoute> routes = routeManager.getTradeRoutes();
 
 		final TradeRoute expectedRoute1 = new TradeRoute(way1, way3, List.of(prod1, prod2));
 		final TradeRoute expectedRoute2 = new TradeRoute(way3, way2, List.of(prod1));
+		// way1 also exports prod1 to way2
+		final TradeRoute expectedRoute3 = new TradeRoute(way1, way2, List.of(prod1));
 
-		assertEquals(2, routes.size());
+		assertEquals(3, routes.size());
 		assertTrue(routes.contains(expectedRoute1));
 		assertTrue(routes.contains(expectedRoute2));
+		assertTrue(routes.contains(expectedRoute3));
+		final TradeRoute route13 = routes.get(routes.indexOf(expectedRoute1));
+		assertEquals(List.of(prod1, prod2), route13.getGoods());
 	}
 
 	/**
@@ -114,8 +119,7 @@ public class RouteManagerTest {
 		final NavigationPath path23 = new NavigationPath(8, TestUtils.makeQueue(way3));
 		when(pathCalculator.determineShortestRoute(eq(way2), eq(way3), anyInt(), anyInt())).thenReturn(path23);
 
-		final Ship ship = mock();
-		when(ship.getFuel()).thenReturn(new FuelStatus(0, 0));
+		final Ship ship = TestUtils.makeShip("ship");
 
 		// Ship cannot travel to 2
 		when(pathCalculator.determineShortestRoute(ship, way2)).thenReturn(null);
@@ -124,13 +128,9 @@ public class RouteManagerTest {
 
 		// Thus, the 1-3 and 2-3 trade routes are both impossible
 
-		final MarketplaceManager marketplaceManager = mock(MarketplaceManager.class);
-		when(marketplaceManager.getAllMarketInfo()).thenReturn(Map.of(way1, market1, way2, market2, way3, market3));
-		when(marketplaceManager.getMarketInfo(way1)).thenReturn(market1);
-		when(marketplaceManager.getMarketInfo(way2)).thenReturn(market2);
-		when(marketplaceManager.getMarketInfo(way3)).thenReturn(market3);
+		final TradeRouteIndex tradeRouteIndex = makeIndex(Map.of(way1, market1, way2, market2, way3, market3));
 
-		final RouteManager routeManager = new RouteManager(marketplaceManager, pathCalculator, new RandomProvider());
+		final RouteManager routeManager = makeRouteManager(tradeRouteIndex, pathCalculator, new RandomProvider());
 
 		final RouteResponse bestRoute = routeManager.getBestRoute(ship);
 
@@ -179,8 +179,7 @@ public class RouteManagerTest {
 		final NavigationPath path23 = new NavigationPath(8, TestUtils.makeQueue(way3));
 		when(pathCalculator.determineShortestRoute(eq(way2), eq(way3), anyInt(), anyInt())).thenReturn(path23);
 
-		final Ship ship = mock();
-		when(ship.getFuel()).thenReturn(new FuelStatus(0, 0));
+		final Ship ship = TestUtils.makeShip("ship");
 
 		// Ship is at way2
 		final NavigationPath pathS2 = new NavigationPath(0, TestUtils.makeQueue(way2));
@@ -188,13 +187,9 @@ public class RouteManagerTest {
 		final NavigationPath pathS1 = new NavigationPath(1, TestUtils.makeQueue(way1));
 		when(pathCalculator.determineShortestRoute(ship, way1)).thenReturn(pathS1);
 
-		final MarketplaceManager marketplaceManager = mock(MarketplaceManager.class);
-		when(marketplaceManager.getAllMarketInfo()).thenReturn(Map.of(way1, market1, way2, market2, way3, market3));
-		when(marketplaceManager.getMarketInfo(way1)).thenReturn(market1);
-		when(marketplaceManager.getMarketInfo(way2)).thenReturn(market2);
-		when(marketplaceManager.getMarketInfo(way3)).thenReturn(market3);
+		final TradeRouteIndex tradeRouteIndex = makeIndex(Map.of(way1, market1, way2, market2, way3, market3));
 
-		final RouteManager routeManager = new RouteManager(marketplaceManager, pathCalculator, new RandomProvider());
+		final RouteManager routeManager = makeRouteManager(tradeRouteIndex, pathCalculator, new RandomProvider());
 
 		final RouteResponse bestRoute = routeManager.getBestRoute(ship);
 
@@ -253,8 +248,7 @@ public class RouteManagerTest {
 		final NavigationPath path23 = new NavigationPath(8, TestUtils.makeQueue(way3));
 		when(pathCalculator.determineShortestRoute(eq(way2), eq(way3), anyInt(), anyInt())).thenReturn(path23);
 
-		final Ship ship = mock();
-		when(ship.getFuel()).thenReturn(new FuelStatus(0, 0));
+		final Ship ship = TestUtils.makeShip("ship");
 
 		// Ship is at way2
 		final NavigationPath pathS2 = new NavigationPath(0, TestUtils.makeQueue(way2));
@@ -262,13 +256,9 @@ public class RouteManagerTest {
 		final NavigationPath pathS1 = new NavigationPath(1, TestUtils.makeQueue(way1));
 		when(pathCalculator.determineShortestRoute(ship, way1)).thenReturn(pathS1);
 
-		final MarketplaceManager marketplaceManager = mock(MarketplaceManager.class);
-		when(marketplaceManager.getAllMarketInfo()).thenReturn(Map.of(way1, market1, way2, market2, way3, market3));
-		when(marketplaceManager.getMarketInfo(way1)).thenReturn(market1);
-		when(marketplaceManager.getMarketInfo(way2)).thenReturn(market2);
-		when(marketplaceManager.getMarketInfo(way3)).thenReturn(market3);
+		final TradeRouteIndex tradeRouteIndex = makeIndex(Map.of(way1, market1, way2, market2, way3, market3));
 
-		final RouteManager routeManager = new RouteManager(marketplaceManager, pathCalculator, new RandomProvider());
+		final RouteManager routeManager = makeRouteManager(tradeRouteIndex, pathCalculator, new RandomProvider());
 
 		final RouteResponse bestRoute = routeManager.getBestRoute(ship);
 
@@ -328,8 +318,7 @@ public class RouteManagerTest {
 		final NavigationPath path23 = new NavigationPath(8, TestUtils.makeQueue(way3));
 		when(pathCalculator.determineShortestRoute(eq(way2), eq(way3), anyInt(), anyInt())).thenReturn(path23);
 
-		final Ship ship = mock();
-		when(ship.getFuel()).thenReturn(new FuelStatus(0, 0));
+		final Ship ship = TestUtils.makeShip("ship");
 
 		// Ship is at way2, so the route using way2 will be shorter
 		final NavigationPath pathS2 = new NavigationPath(0, TestUtils.makeQueue(way2));
@@ -337,13 +326,9 @@ public class RouteManagerTest {
 		final NavigationPath pathS1 = new NavigationPath(1, TestUtils.makeQueue(way1));
 		when(pathCalculator.determineShortestRoute(ship, way1)).thenReturn(pathS1);
 
-		final MarketplaceManager marketplaceManager = mock(MarketplaceManager.class);
-		when(marketplaceManager.getAllMarketInfo()).thenReturn(Map.of(way1, market1, way2, market2, way3, market3));
-		when(marketplaceManager.getMarketInfo(way1)).thenReturn(market1);
-		when(marketplaceManager.getMarketInfo(way2)).thenReturn(market2);
-		when(marketplaceManager.getMarketInfo(way3)).thenReturn(market3);
+		final TradeRouteIndex tradeRouteIndex = makeIndex(Map.of(way1, market1, way2, market2, way3, market3));
 
-		final RouteManager routeManager = new RouteManager(marketplaceManager, pathCalculator, new RandomProvider());
+		final RouteManager routeManager = makeRouteManager(tradeRouteIndex, pathCalculator, new RandomProvider());
 
 		final RouteResponse bestRoute = routeManager.getBestRoute(ship);
 
@@ -406,8 +391,7 @@ public class RouteManagerTest {
 		final NavigationPath path23 = new NavigationPath(8, TestUtils.makeQueue(way3));
 		when(pathCalculator.determineShortestRoute(eq(way2), eq(way3), anyInt(), anyInt())).thenReturn(path23);
 
-		final Ship ship = mock();
-		when(ship.getFuel()).thenReturn(new FuelStatus(0, 0));
+		final Ship ship = TestUtils.makeShip("ship");
 
 		// Ship is at way2, so the route using way2 will be shorter
 		final NavigationPath pathS2 = new NavigationPath(0, TestUtils.makeQueue(way2));
@@ -415,17 +399,14 @@ public class RouteManagerTest {
 		final NavigationPath pathS1 = new NavigationPath(1, TestUtils.makeQueue(way1));
 		when(pathCalculator.determineShortestRoute(ship, way1)).thenReturn(pathS1);
 
-		final MarketplaceManager marketplaceManager = mock(MarketplaceManager.class);
-		when(marketplaceManager.getAllMarketInfo()).thenReturn(Map.of(way1, market1, way2, market2, way3, market3));
-		when(marketplaceManager.getMarketInfo(way1)).thenReturn(market1);
-		when(marketplaceManager.getMarketInfo(way2)).thenReturn(market2);
-		when(marketplaceManager.getMarketInfo(way3)).thenReturn(market3);
+		final TradeRouteIndex tradeRouteIndex = makeIndex(Map.of(way1, market1, way2, market2, way3, market3));
 
 		final RandomProvider randomProvider = mock(RandomProvider.class);
-		// Start by returning a very small double, this means we will go with the most profitable route
-		when(randomProvider.nextDouble()).thenReturn(0.0);
+		// Start by sampling the unknown route below the known one, this means we will go with the most profitable
+		// route
+		when(randomProvider.nextGaussian()).thenReturn(-1.0);
 
-		final RouteManager routeManager = new RouteManager(marketplaceManager, pathCalculator, randomProvider);
+		final RouteManager routeManager = makeRouteManager(tradeRouteIndex, pathCalculator, randomProvider);
 
 		final RouteResponse bestRoute = routeManager.getBestRoute(ship);
 
@@ -438,8 +419,8 @@ public class RouteManagerTest {
 		assertEquals(way3, bestRoute.waypoints().poll());
 		assertNull(bestRoute.waypoints().poll());
 
-		// Now, return a large double, this means we will go with the shortest route
-		when(randomProvider.nextDouble()).thenReturn(1.0);
+		// Now, sample the unknown route above the known one, this means we will go with the shortest route
+		when(randomProvider.nextGaussian()).thenReturn(1.0);
 
 		final RouteResponse nextBestRoute = routeManager.getBestRoute(ship);
 
@@ -452,4 +433,149 @@ public class RouteManagerTest {
 		assertNull(nextBestRoute.waypoints().poll());
 	}
 
+	/**
+	 * Tests that getBestRoute prefers the route which makes the most credits per
+	 * hour over the one with the best margin per unit
+	 */
+	@Test
+	public void getBestRouteProfitPerHour() {
+
+		final Product prod1 = new Product("milk");
+
+		// Market1 has the better margin, but is much further away
+		final MarketInfo market1 = new MarketInfo();
+		market1.setExports(List.of(prod1));
+		market1.setImports(List.of());
+		market1.setExchange(List.of());
+		market1.setTradeGoods(List.of(new TradeGood(prod1.getSymbol(), 10, 10, 10)));
+
+		final MarketInfo market2 = new MarketInfo();
+		market2.setExports(List.of(prod1));
+		market2.setImports(List.of());
+		market2.setExchange(List.of());
+		market2.setTradeGoods(List.of(new TradeGood(prod1.getSymbol(), 10, 20, 20)));
+
+		final MarketInfo market3 = new MarketInfo();
+		market3.setExports(List.of());
+		market3.setImports(List.of(prod1));
+		market3.setExchange(List.of());
+		market3.setTradeGoods(List.of(new TradeGood(prod1.getSymbol(), 10, 30, 30)));
+
+		final Waypoint way1 = new Waypoint();
+		way1.setSymbol("way1");
+		way1.setX(1000);
+		final Waypoint way2 = new Waypoint();
+		way2.setSymbol("way2");
+		final Waypoint way3 = new Waypoint();
+		way3.setSymbol("way3");
+		way3.setX(100);
+
+		final RefuelPathCalculator pathCalculator = mock();
+		final NavigationPath path13 = new NavigationPath(900, TestUtils.makeQueue(way3));
+		when(pathCalculator.determineShortestRoute(eq(way1), eq(way3), anyInt(), anyInt())).thenReturn(path13);
+		final NavigationPath path23 = new NavigationPath(100, TestUtils.makeQueue(way3));
+		when(pathCalculator.determineShortestRoute(eq(way2), eq(way3), anyInt(), anyInt())).thenReturn(path23);
+
+		// Ship is at way2
+		final Ship ship = TestUtils.makeShip("ship");
+		final NavigationPath pathS2 = new NavigationPath(0, TestUtils.makeQueue(way2));
+		when(pathCalculator.determineShortestRoute(ship, way2)).thenReturn(pathS2);
+		final NavigationPath pathS1 = new NavigationPath(1000, TestUtils.makeQueue(way1));
+		when(pathCalculator.determineShortestRoute(ship, way1)).thenReturn(pathS1);
+
+		final TradeRouteIndex tradeRouteIndex = makeIndex(Map.of(way1, market1, way2, market2, way3, market3));
+		final RouteManager routeManager = makeRouteManager(tradeRouteIndex, pathCalculator, new RandomProvider());
+
+		final RouteResponse bestRoute = routeManager.getBestRoute(ship);
+
+		// The route from way2 makes half the profit in a fraction of the time
+		assertEquals(way2, bestRoute.route().getExportWaypoint());
+		assertEquals(way3, bestRoute.route().getImportWaypoint());
+		assertTrue(bestRoute.route().isKnown());
+	}
+
+	/**
+	 * Tests that ships are spread across routes rather than crowding the most
+	 * profitable one
+	 */
+	@Test
+	public void getBestRoutesSpreadsShips() {
+
+		final Product prod1 = new Product("milk");
+
+		// Market1 makes twice the profit of market2
+		final MarketInfo market1 = new MarketInfo();
+		market1.setExports(List.of(prod1));
+		market1.setImports(List.of());
+		market1.setExchange(List.of());
+		market1.setTradeGoods(List.of(new TradeGood(prod1.getSymbol(), 10, 10, 10)));
+
+		final MarketInfo market2 = new MarketInfo();
+		market2.setExports(List.of(prod1));
+		market2.setImports(List.of());
+		market2.setExchange(List.of());
+		market2.setTradeGoods(List.of(new TradeGood(prod1.getSymbol(), 10, 20, 20)));
+
+		final MarketInfo market3 = new MarketInfo();
+		market3.setExports(List.of());
+		market3.setImports(List.of(prod1));
+		market3.setExchange(List.of());
+		market3.setTradeGoods(List.of(new TradeGood(prod1.getSymbol(), 10, 30, 30)));
+
+		final Waypoint way1 = new Waypoint();
+		way1.setSymbol("way1");
+		final Waypoint way2 = new Waypoint();
+		way2.setSymbol("way2");
+		final Waypoint way3 = new Waypoint();
+		way3.setSymbol("way3");
+
+		final RefuelPathCalculator pathCalculator = mock();
+		when(pathCalculator.determineShortestRoute(eq(way1), eq(way3), anyInt(), anyInt()))
+				.thenAnswer(i -> new NavigationPath(10, TestUtils.makeQueue(way3)));
+		when(pathCalculator.determineShortestRoute(eq(way2), eq(way3), anyInt(), anyInt()))
+				.thenAnswer(i -> new NavigationPath(10, TestUtils.makeQueue(way3)));
+
+		final Ship ship1 = TestUtils.makeShip("ship1");
+		final Ship ship2 = TestUtils.makeShip("ship2");
+		for (final Ship ship : List.of(ship1, ship2)) {
+			when(pathCalculator.determineShortestRoute(ship, way1))
+					.thenAnswer(i -> new NavigationPath(0, TestUtils.makeQueue(way1)));
+		}
+		// Ship1 can't reach way2
+		when(pathCalculator.determineShortestRoute(ship2, way2))
+				.thenAnswer(i -> new NavigationPath(0, TestUtils.makeQueue(way2)));
+
+		final TradeRouteIndex tradeRouteIndex = makeIndex(Map.of(way1, market1, way2, market2, way3, market3));
+		final RouteManager routeManager = makeRouteManager(tradeRouteIndex, pathCalculator, new RandomProvider());
+
+		// A second ship on the route from way1 would make less than a ship on the route from way2
+		final List<RouteResponse> routes = routeManager.getBestRoutes(List.of(ship1, ship2));
+		assertEquals(way1, routes.get(0).route().getExportWaypoint());
+		assertEquals(way2, routes.get(1).route().getExportWaypoint());
+		assertNotSame(routes.get(0).route(), routes.get(1).route());
+
+		// Ship1 is still flying the route from way1 when ship2 asks again, and ship2's
+		// old route doesn't count against it
+		assertEquals(way2, routeManager.getBestRoute(ship2).route().getExportWaypoint());
+		assertEquals(way2, routeManager.getBestRoute(ship2).route().getExportWaypoint());
+	}
+
+	private static RouteManager makeRouteManager(final TradeRouteIndex tradeRouteIndex,
+			final RefuelPathCalculator pathCalculator, final RandomProvider randomProvider) {
+		final RouteScorer scorer = new RouteScorer(30, 0.5, 3600000, pathCalculator, new PriceImpactModel(0.2, 60000),
+				new PriceHistoryStore(16, 0.5));
+		// Routes are not chained, the chains are tested by TradeChainPlannerTest
+		final TradeChainPlanner chainPlanner = new TradeChainPlanner(1, 1, scorer, pathCalculator);
+		final RouteExplorationPolicy explorationPolicy = new RouteExplorationPolicy(0.15, 1.0,
+				mock(MarketplaceManager.class), randomProvider);
+		return new RouteManager(CROWDING_FACTOR, tradeRouteIndex, scorer, chainPlanner, pathCalculator,
+				explorationPolicy);
+	}
+
+	private static TradeRouteIndex makeIndex(final Map<Waypoint, MarketInfo> marketInfo) {
+		final TradeRouteIndex tradeRouteIndex = new TradeRouteIndex();
+		marketInfo.forEach(tradeRouteIndex::updateMarket);
+		return tradeRouteIndex;
+	}
+
 }
@@ -0,0 +1,136 @@
+package org.psu.trademanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.psu.navigation.NavigationPath;
+import org.psu.navigation.RefuelPathCalculator;
+import org.psu.spacetraders.dto.MarketInfo;
+import org.psu.spacetraders.dto.Product;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.ShipEngine;
+import org.psu.spacetraders.dto.TradeGood;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.testutils.TestUtils;
+import org.psu.trademanager.RouteScorer.RouteScore;
+import org.psu.trademanager.TradeRouteIndex.IndexedRoute;
+import org.psu.trademanager.TradeRouteIndex.TradePrices;
+
+/**
+ * Tests for {@link RouteScorer}
+ */
+public class RouteScorerTest {
+
+	/**
+	 * Tests that the score accounts for flight time, trade volumes and fuel
+	 */
+	@Test
+	public void score() {
+
+		final Product milk = new Product("milk");
+		final Product eggs = new Product("eggs");
+
+		final Waypoint exportWaypoint = TestUtils.makeWaypoint("export", 30, 40);
+		final Waypoint refuelWaypoint = TestUtils.makeWaypoint("refuel", 30, 90);
+		final Waypoint importWaypoint = TestUtils.makeWaypoint("import", 30, 140);
+
+		// Milk has the better margin but can only be sold a few units at a time
+		final TradePrices milkPrices = new TradePrices(milk, 10, 20, 20, 6);
+		final TradePrices eggPrices = new TradePrices(eggs, 10, 100, 12, 100);
+		final IndexedRoute route = new IndexedRoute(exportWaypoint, importWaypoint, List.of(milk, eggs), null,
+				List.of(milkPrices, eggPrices));
+
+		final RefuelPathCalculator pathCalculator = mock();
+		when(pathCalculator.estimateFuelCost(150)).thenReturn(30.0);
+		final RouteScorer scorer = new RouteScorer(30, 0.5, 3600000, pathCalculator, new PriceImpactModel(0.2, 60000),
+				new PriceHistoryStore(16, 0.5));
+
+		final Ship ship = makeShip(new ShipEngine("ENGINE", 10));
+		final NavigationPath pathToExport = new NavigationPath(50, TestUtils.makeQueue(exportWaypoint));
+		final NavigationPath routePath = new NavigationPath(100, TestUtils.makeQueue(refuelWaypoint, importWaypoint));
+
+		final RouteScore score = scorer.score(route, ship, pathToExport, routePath);
+
+		// Three flights of 50 units, each taking 125 seconds of cruising and 15 seconds of overhead
+		// Three orbits and navigates, two refuels, docking and updating both markets, one purchase and 4 sales
+		assertEquals(milkPrices, score.prices());
+		assertEquals(20, score.units());
+		assertEquals(17, score.apiCalls());
+		assertEquals(170, score.profit(), 1e-9);
+		assertEquals((420 + 17 * 0.5) / 3600, score.hours(), 1e-9);
+		assertEquals(10, score.creditsPerApiCall(), 1e-9);
+
+		// A ship with an unknown engine flies at the default speed, which is slower
+		final RouteScore slowScore = scorer.score(route, makeShip(null), pathToExport, routePath);
+		assertEquals((3 * (Math.round(50 * 25 / 30.0) + 15) + 17 * 0.5) / 3600, slowScore.hours(), 1e-9);
+	}
+
+	/**
+	 * Tests that prices which just moved in the ship's favor are expected to
+	 * return to their recent average
+	 */
+	@Test
+	public void scorePriceHistory() {
+
+		final Product milk = new Product("milk");
+		final Waypoint exportWaypoint = TestUtils.makeWaypoint("export", 0, 0);
+		final Waypoint importWaypoint = TestUtils.makeWaypoint("import", 100, 0);
+		final IndexedRoute route = new IndexedRoute(exportWaypoint, importWaypoint, List.of(milk), null,
+				List.of(new TradePrices(milk, 10, 20, 30, 20)));
+
+		// The purchase price just fell from 14 and the sell price just rose from 20
+		final PriceHistoryStore priceHistoryStore = new PriceHistoryStore(16, 0.5);
+		final Instant now = Instant.now();
+		priceHistoryStore.record(exportWaypoint, makeMarket(new TradeGood("milk", 20, 14, 5)),
+				now.minus(Duration.ofMinutes(10)));
+		priceHistoryStore.record(exportWaypoint, makeMarket(new TradeGood("milk", 20, 10, 4)), now);
+		priceHistoryStore.record(importWaypoint, makeMarket(new TradeGood("milk", 20, 25, 20)),
+				now.minus(Duration.ofMinutes(10)));
+		priceHistoryStore.record(importWaypoint, makeMarket(new TradeGood("milk", 20, 35, 30)), now);
+
+		final RefuelPathCalculator pathCalculator = mock();
+		when(pathCalculator.estimateFuelCost(100)).thenReturn(30.0);
+		final RouteScorer scorer = new RouteScorer(30, 0.5, 3600000, pathCalculator, new PriceImpactModel(0.2, 60000),
+				priceHistoryStore);
+
+		final NavigationPath pathToExport = new NavigationPath(0, TestUtils.makeQueue());
+		final NavigationPath routePath = new NavigationPath(100, TestUtils.makeQueue(importWaypoint));
+		final RouteScore score = scorer.score(route, makeShip(null), pathToExport, routePath);
+
+		// The averages are a purchase price of 12 and a sell price of 25
+		assertEquals(20, score.units());
+		assertEquals(20 * (25 - 12) - 30, score.profit(), 1e-9);
+	}
+
+	/**
+	 * Tests that routes without known prices are not scored
+	 */
+	@Test
+	public void scoreUnknown() {
+
+		final IndexedRoute route = new IndexedRoute(TestUtils.makeWaypoint("export", 0, 0),
+				TestUtils.makeWaypoint("import", 10, 0), List.of(new Product("milk")), null, null);
+		final RouteScorer scorer = new RouteScorer(30, 0.5, 3600000, mock(RefuelPathCalculator.class),
+				new PriceImpactModel(0.2, 60000), new PriceHistoryStore(16, 0.5));
+
+		assertNull(scorer.score(route, makeShip(null), null, null));
+	}
+
+	private static Ship makeShip(final ShipEngine engine) {
+		final Ship ship = TestUtils.makeShip("ship");
+		when(ship.getEngine()).thenReturn(engine);
+		return ship;
+	}
+
+	private static MarketInfo makeMarket(final TradeGood... tradeGoods) {
+		return TestUtils.makeMarket(List.of(), List.of(), List.of(tradeGoods));
+	}
+
+}
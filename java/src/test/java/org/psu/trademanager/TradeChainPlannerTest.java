@@ -0,0 +1,119 @@
+package org.psu.trademanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.psu.navigation.NavigationPath;
+import org.psu.navigation.RefuelPathCalculator;
+import org.psu.spacetraders.dto.Product;
+import org.psu.spacetraders.dto.Ship;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.testutils.TestUtils;
+import org.psu.trademanager.RouteScorer.RouteScore;
+import org.psu.trademanager.TradeRouteIndex.IndexedRoute;
+import org.psu.trademanager.TradeRouteIndex.TradePrices;
+import org.psu.trademanager.dto.TradeLeg;
+
+/**
+ * Tests for {@link TradeChainPlanner}
+ */
+public class TradeChainPlannerTest {
+
+	private final Product milk = new Product("milk");
+	private final Product eggs = new Product("eggs");
+	private final Product fuel = new Product("fuel");
+
+	private final Waypoint way1 = TestUtils.makeWaypoint("way1", 0, 0);
+	private final Waypoint way2 = TestUtils.makeWaypoint("way2", 0, 30);
+	private final Waypoint way3 = TestUtils.makeWaypoint("way3", 0, 60);
+	private final Waypoint way4 = TestUtils.makeWaypoint("way4", 0, 90);
+
+	// Milk is bought at way1 and sold at way2 by the first route
+	private final IndexedRoute route12 = makeRoute(way1, way2, milk, 10, 30);
+	// Milk loses money going back the other way
+	private final IndexedRoute route21 = makeRoute(way2, way1, milk, 30, 10);
+	private final IndexedRoute route23 = makeRoute(way2, way3, eggs, 10, 25);
+	private final IndexedRoute route34 = makeRoute(way3, way4, fuel, 10, 20);
+	private final List<IndexedRoute> routes = List.of(route12, route21, route23, route34);
+
+	/**
+	 * Tests that profitable routes are chained from the end of the first route
+	 */
+	@Test
+	public void planNextLegs() {
+
+		final RefuelPathCalculator pathCalculator = makePathCalculator();
+		final Ship ship = TestUtils.makeShip("ship");
+		// The first route took a long time to reach, so any profitable leg improves the chain
+		final RouteScore firstScore = new RouteScore(route12.prices().get(0), 10, 200, 1, 10);
+
+		final TradeChainPlanner planner = new TradeChainPlanner(3, 2, makeScorer(pathCalculator), pathCalculator);
+		final List<TradeLeg> legs = planner.planNextLegs(ship, route12, firstScore, routes);
+
+		assertEquals(2, legs.size());
+		assertEquals(way2, legs.get(0).route().getExportWaypoint());
+		assertEquals(way3, legs.get(0).route().getImportWaypoint());
+		assertEquals(List.of(eggs), legs.get(0).route().getGoods());
+		assertTrue(legs.get(0).route().isKnown());
+		assertEquals(way3, legs.get(0).waypoints().poll());
+		assertEquals(way3, legs.get(1).route().getExportWaypoint());
+		assertEquals(way4, legs.get(1).route().getImportWaypoint());
+		assertEquals(List.of(fuel), legs.get(1).route().getGoods());
+
+		// The chain is cut short when fewer legs are allowed
+		final TradeChainPlanner shortPlanner = new TradeChainPlanner(2, 2, makeScorer(pathCalculator),
+				pathCalculator);
+		assertEquals(1, shortPlanner.planNextLegs(ship, route12, firstScore, routes).size());
+
+		// And not made at all when only one leg is allowed
+		final TradeChainPlanner noChainPlanner = new TradeChainPlanner(1, 2, makeScorer(pathCalculator),
+				pathCalculator);
+		assertTrue(noChainPlanner.planNextLegs(ship, route12, firstScore, routes).isEmpty());
+	}
+
+	/**
+	 * Tests that legs which would lower the credits per hour of the chain are not
+	 * flown
+	 */
+	@Test
+	public void planNextLegsSlowerLeg() {
+
+		final RefuelPathCalculator pathCalculator = makePathCalculator();
+		// The first route takes under four seconds, faster than any of the other legs
+		final RouteScore firstScore = new RouteScore(route12.prices().get(0), 10, 200, 0.001, 10);
+
+		final TradeChainPlanner planner = new TradeChainPlanner(3, 2, makeScorer(pathCalculator), pathCalculator);
+
+		assertTrue(planner.planNextLegs(TestUtils.makeShip("ship"), route12, firstScore, routes).isEmpty());
+	}
+
+	private RefuelPathCalculator makePathCalculator() {
+		final RefuelPathCalculator pathCalculator = mock();
+		when(pathCalculator.determineShortestRoute(eq(way2), eq(way1), anyInt(), anyInt()))
+				.thenReturn(new NavigationPath(30, TestUtils.makeQueue(way1)));
+		when(pathCalculator.determineShortestRoute(eq(way2), eq(way3), anyInt(), anyInt()))
+				.thenReturn(new NavigationPath(30, TestUtils.makeQueue(way3)));
+		when(pathCalculator.determineShortestRoute(eq(way3), eq(way4), anyInt(), anyInt()))
+				.thenReturn(new NavigationPath(30, TestUtils.makeQueue(way4)));
+		return pathCalculator;
+	}
+
+	private static RouteScorer makeScorer(final RefuelPathCalculator pathCalculator) {
+		return new RouteScorer(30, 0.5, 3600000, pathCalculator, new PriceImpactModel(0.2, 60000),
+				new PriceHistoryStore(16, 0.5));
+	}
+
+	private static IndexedRoute makeRoute(final Waypoint exportWaypoint, final Waypoint importWaypoint,
+			final Product product, final int purchasePrice, final int sellPrice) {
+		final TradePrices prices = new TradePrices(product, purchasePrice, 10, sellPrice, 10);
+		return new IndexedRoute(exportWaypoint, importWaypoint, List.of(product), null, List.of(prices));
+	}
+
+}
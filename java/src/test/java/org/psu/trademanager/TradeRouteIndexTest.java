@@ -0,0 +1,93 @@
+package org.psu.trademanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.psu.spacetraders.dto.Product;
+import org.psu.spacetraders.dto.TradeGood;
+import org.psu.spacetraders.dto.Waypoint;
+import org.psu.testutils.TestUtils;
+import org.psu.trademanager.TradeRouteIndex.IndexedRoute;
+
+/**
+ * Tests for {@link TradeRouteIndex}
+ */
+public class TradeRouteIndexTest {
+
+	/**
+	 * Tests that routes are added, repriced and removed as markets are updated
+	 */
+	@Test
+	public void updateMarket() {
+
+		final Product milk = new Product("milk");
+		final Product eggs = new Product("eggs");
+
+		final Waypoint way1 = TestUtils.makeWaypoint("way1");
+		final Waypoint way2 = TestUtils.makeWaypoint("way2");
+		final Waypoint way3 = TestUtils.makeWaypoint("way3");
+
+		final TradeRouteIndex index = new TradeRouteIndex();
+		index.updateMarket(way1, TestUtils.makeMarket(List.of(milk, eggs), List.of(), null));
+		index.updateMarket(way2, TestUtils.makeMarket(List.of(), List.of(milk), null));
+		index.updateMarket(way3, TestUtils.makeMarket(List.of(), List.of(eggs), null));
+
+		// No prices are known yet
+		final IndexedRoute route12 = getRoute(index, way1, way2);
+		final IndexedRoute route13 = getRoute(index, way1, way3);
+		assertEquals(2, index.getRoutes().size());
+		assertEquals(List.of(milk), route12.goods());
+		assertNull(route12.profit());
+		assertEquals(List.of(eggs), route13.goods());
+
+		// Prices arrive for way2, there is still no price for way1
+		index.updateMarket(way2,
+				TestUtils.makeMarket(List.of(), List.of(milk), List.of(new TradeGood("milk", 10, 30, 27))));
+		assertNull(getRoute(index, way1, way2).profit());
+		// The route between two other markets is left alone
+		assertSame(route13, getRoute(index, way1, way3));
+
+		// Prices arrive for way1, both routes are repriced
+		index.updateMarket(way1, TestUtils.makeMarket(List.of(milk, eggs), List.of(),
+				List.of(new TradeGood("milk", 10, 12, 10), new TradeGood("eggs", 10, 5, 4))));
+		assertEquals(15, getRoute(index, way1, way2).profit().profit());
+		assertEquals(milk, getRoute(index, way1, way2).profit().itemToSell());
+		// way3 has no prices yet
+		assertNull(getRoute(index, way1, way3).profit());
+
+		// way1 stops exporting eggs, so the route to way3 is gone
+		index.updateMarket(way1, TestUtils.makeMarket(List.of(milk), List.of(),
+				List.of(new TradeGood("milk", 10, 12, 10))));
+		assertEquals(1, index.getRoutes().size());
+		assertNull(getRoute(index, way1, way3));
+		assertEquals(15, getRoute(index, way1, way2).profit().profit());
+	}
+
+	/**
+	 * Tests that a market which trades a product both ways does not route to itself
+	 */
+	@Test
+	public void updateMarketNoSelfRoute() {
+
+		final Product milk = new Product("milk");
+		final Waypoint way1 = TestUtils.makeWaypoint("way1");
+
+		final TradeRouteIndex index = new TradeRouteIndex();
+		index.updateMarket(way1, TestUtils.makeMarket(List.of(milk), List.of(milk), null));
+		index.updateMarket(TestUtils.makeWaypoint("way2"), null);
+
+		assertTrue(index.getRoutes().isEmpty());
+	}
+
+	private static IndexedRoute getRoute(final TradeRouteIndex index, final Waypoint exportWaypoint,
+			final Waypoint importWaypoint) {
+		return index.getRoutes().stream().filter(r -> r.exportWaypoint().equals(exportWaypoint)
+				&& r.importWaypoint().equals(importWaypoint)).findAny().orElse(null);
+	}
+
+}
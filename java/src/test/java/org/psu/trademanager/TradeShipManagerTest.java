@@ -35,7 +35,9 @@ import org.psu.spacetraders.dto.TradeRequest;
 import org.psu.spacetraders.dto.TradeResponse;
 import org.psu.spacetraders.dto.Transaction;
 import org.psu.spacetraders.dto.Waypoint;
+import org.psu.testutils.TestUtils;
 import org.psu.trademanager.RouteManager.RouteResponse;
+import org.psu.trademanager.dto.TradeLeg;
 import org.psu.trademanager.dto.TradeRoute;
 import org.psu.trademanager.dto.TradeShipJob;
 import org.psu.trademanager.dto.TradeShipJob.State;
@@ -66,7 +68,8 @@ public class TradeShipManagerTest {
 		when(routeManager.getBestRoute(ship)).thenReturn(routeResponse);
 		final WebsocketReporter reporter = mock();
 
-		final TradeShipManager manager = new TradeShipManager(0, 0, null, null, null, null, routeManager, reporter);
+		final TradeShipManager manager = new TradeShipManager(0, 0, null, null, null, null, routeManager, reporter,
+				mock(PriceImpactModel.class));
 
 		final TradeShipJob job = manager.createJob(ship);
 
@@ -76,6 +79,41 @@ public class TradeShipManagerTest {
 		assertEquals(State.NOT_STARTED, job.getState());
 	}
 
+	/**
+	 * Tests {@link TradeShipManager#createJobs}, ships without cargo get their
+	 * routes together
+	 */
+	@Test
+	public void createJobs() {
+
+		final Ship ship1 = mock(Ship.class);
+		when(ship1.getCargo()).thenReturn(new Cargo(10, 0, List.of()));
+		final Ship ship2 = mock(Ship.class);
+		when(ship2.getCargo()).thenReturn(new Cargo(10, 0, List.of()));
+
+		final RouteManager routeManager = mock();
+		final TradeRoute route1 = mock();
+		final TradeRoute route2 = mock();
+		final Waypoint way = mock();
+		final TradeLeg nextLeg = new TradeLeg(mock(), TestUtils.makeQueue(way));
+		final RouteResponse response1 = new RouteResponse(route1, TestUtils.makeQueue(way), List.of(nextLeg));
+		final RouteResponse response2 = new RouteResponse(route2, TestUtils.makeQueue(way));
+		when(routeManager.getBestRoutes(List.of(ship1, ship2))).thenReturn(List.of(response1, response2));
+
+		final TradeShipManager manager = new TradeShipManager(0, 0, null, null, null, null, routeManager,
+				mock(WebsocketReporter.class), mock(PriceImpactModel.class));
+
+		final List<TradeShipJob> jobs = manager.createJobs(List.of(ship1, ship2));
+
+		assertEquals(2, jobs.size());
+		assertEquals(ship1, jobs.get(0).getShip());
+		assertEquals(route1, jobs.get(0).getRoute());
+		assertEquals(nextLeg, jobs.get(0).getNextLegs().peek());
+		assertEquals(ship2, jobs.get(1).getShip());
+		assertEquals(route2, jobs.get(1).getRoute());
+		assertEquals(State.NOT_STARTED, jobs.get(1).getState());
+	}
+
 	/**
 	 * Tests {@link TradeShipManager#createJob} when the ship's goods can be sold at its destination
 	 */
@@ -84,7 +122,8 @@ public class TradeShipManagerTest {
 
 		final MarketplaceManager marketManager = mock(MarketplaceManager.class);
 		final WebsocketReporter reporter = mock(WebsocketReporter.class);
-		final TradeShipManager manager = new TradeShipManager(0, 0, null, null, null, marketManager, null, reporter);
+		final TradeShipManager manager = new TradeShipManager(0, 0, null, null, null, marketManager, null, reporter,
+				mock(PriceImpactModel.class));
 
 		final String product1 = "milk";
 		final int product1Quantity = 5;
@@ -138,7 +177,7 @@ public class TradeShipManagerTest {
 		final RouteManager routeManager = mock(RouteManager.class);
 		final WebsocketReporter reporter = mock(WebsocketReporter.class);
 		final TradeShipManager manager = new TradeShipManager(0, 0, navHelper, accountManager, marketRequester,
-				marketManager, routeManager, reporter);
+				marketManager, routeManager, reporter, mock(PriceImpactModel.class));
 
 		final Ship ship = mock(Ship.class);
 		final ShipNavigation shipNav = mock(ShipNavigation.class);
@@ -181,7 +220,7 @@ public class TradeShipManagerTest {
 		final RouteManager routeManager = mock(RouteManager.class);
 		final WebsocketReporter reporter = mock(WebsocketReporter.class);
 		final TradeShipManager manager = new TradeShipManager(0, 0, navHelper, accountManager, marketRequester,
-				marketManager, routeManager, reporter);
+				marketManager, routeManager, reporter, mock(PriceImpactModel.class));
 
 		final String exportWaypointSymbol = "export";
 		final Ship ship = mock(Ship.class);
@@ -206,7 +245,7 @@ public class TradeShipManagerTest {
 
 		final TradeRequest tradeRequest = mock(TradeRequest.class);
 		final MarketInfo marketInfo = mock(MarketInfo.class);
-		when(marketInfo.buildPurchaseRequest(any(), anyInt(), eq(credits), eq(false)))
+		when(marketInfo.buildPurchaseRequest(any(), anyInt(), eq(credits), eq(false), any()))
 				.thenReturn(List.of(tradeRequest));
 
 		when(marketManager.updateMarketInfo(exportWaypoint)).thenReturn(marketInfo);
@@ -251,7 +290,7 @@ public class TradeShipManagerTest {
 		final RouteManager routeManager = mock(RouteManager.class);
 		final WebsocketReporter reporter = mock(WebsocketReporter.class);
 		final TradeShipManager manager = new TradeShipManager(0, 0, navHelper, accountManager, marketRequester,
-				marketManager, routeManager, reporter);
+				marketManager, routeManager, reporter, mock(PriceImpactModel.class));
 
 		final String importWaypointSymbol = "import";
 		final String productName = "product";
@@ -282,4 +321,84 @@ public class TradeShipManagerTest {
 		assertNull(outputJob);
 	}
 
+	/**
+	 * Tests {@link TradeShipManager#manageTradeShip} with a job where the ship has
+	 * traveled to the import waypoint and has another leg to fly
+	 */
+	@Test
+	public void manageTradeShipNextLeg() {
+
+		final NavigationHelper navHelper = mock(NavigationHelper.class);
+		final AccountManager accountManager = mock(AccountManager.class);
+		final MarketplaceRequester marketRequester = mock(MarketplaceRequester.class);
+		final MarketplaceManager marketManager = mock(MarketplaceManager.class);
+		final RouteManager routeManager = mock(RouteManager.class);
+		final WebsocketReporter reporter = mock(WebsocketReporter.class);
+		final TradeShipManager manager = new TradeShipManager(0, 0, navHelper, accountManager, marketRequester,
+				marketManager, routeManager, reporter, mock(PriceImpactModel.class));
+
+		final String importWaypointSymbol = "import";
+		final String productName = "product";
+		final Ship ship = mock(Ship.class);
+		final ShipNavigation shipNav = mock(ShipNavigation.class);
+		when(shipNav.getWaypointSymbol()).thenReturn(importWaypointSymbol);
+		when(ship.getNav()).thenReturn(shipNav);
+		final CargoItem cargoItem = new CargoItem(productName, 1);
+		when(ship.getCargo()).thenReturn(new Cargo(10, 0, List.of(cargoItem)));
+
+		final Waypoint importWaypoint = mock(Waypoint.class);
+		when(importWaypoint.getSymbol()).thenReturn(importWaypointSymbol);
+		final TradeRoute tradeRoute = mock(TradeRoute.class);
+		when(tradeRoute.getImportWaypoint()).thenReturn(importWaypoint);
+		when(tradeRoute.getGoods()).thenReturn(List.of(new Product(productName)));
+
+		// The next leg buys goods at the import waypoint of the first
+		final Waypoint nextImportWaypoint = mock(Waypoint.class);
+		when(nextImportWaypoint.getSymbol()).thenReturn("next import");
+		final TradeRoute nextRoute = mock(TradeRoute.class);
+		when(nextRoute.getExportWaypoint()).thenReturn(importWaypoint);
+		when(nextRoute.getImportWaypoint()).thenReturn(nextImportWaypoint);
+		when(nextRoute.isKnown()).thenReturn(true);
+
+		final int credits = 5000;
+		when(accountManager.getCredits()).thenReturn(credits);
+		final TradeRequest tradeRequest = mock(TradeRequest.class);
+		final MarketInfo marketInfo = mock(MarketInfo.class);
+		when(marketInfo.buildPurchaseRequest(any(), anyInt(), eq(credits), eq(true), any()))
+				.thenReturn(List.of(tradeRequest));
+		when(marketManager.updateMarketInfo(importWaypoint)).thenReturn(marketInfo);
+
+		final Transaction transaction = mock(Transaction.class);
+		when(transaction.getTotalPrice()).thenReturn(100);
+		final TradeResponse tradeResponse = mock(TradeResponse.class);
+		when(tradeResponse.getTransaction()).thenReturn(transaction);
+		when(marketRequester.purchase(any(), same(tradeRequest))).thenReturn(tradeResponse);
+
+		final Transaction refuelTransaction = mock();
+		when(refuelTransaction.getTotalPrice()).thenReturn(10);
+		final RefuelResponse refuelResponse = mock();
+		when(refuelResponse.getTransaction()).thenReturn(refuelTransaction);
+		when(marketRequester.refuel(ship)).thenReturn(refuelResponse);
+
+		final Instant arrivalTime = Instant.now().plus(Duration.ofMillis(10));
+		when(navHelper.navigate(ship, nextImportWaypoint)).thenReturn(arrivalTime);
+		when(marketRequester.dockAndSellItems(ship, importWaypoint, List.of(cargoItem))).thenReturn(500);
+
+		final TradeShipJob job = new TradeShipJob(ship, tradeRoute, new LinkedList<>());
+		job.getNextLegs().add(new TradeLeg(nextRoute, TestUtils.makeQueue(nextImportWaypoint)));
+		job.setState(State.TRAVELING);
+
+		final TradeShipJob outputJob = manager.manageTradeShip(job);
+
+		verify(marketRequester).dockAndSellItems(ship, importWaypoint, List.of(cargoItem));
+		verify(marketRequester).purchase(ship, tradeRequest);
+		assertEquals(nextRoute, outputJob.getRoute());
+		assertTrue(outputJob.getNextLegs().isEmpty());
+		assertTrue(outputJob.getWaypoints().isEmpty());
+		assertEquals(State.TRAVELING, outputJob.getState());
+		assertEquals(arrivalTime, outputJob.getNextAction());
+		// 500 credits for the sale, less 100 for the purchase and 10 for refueling
+		assertEquals(390, outputJob.getProfit());
+	}
+
 }
@@ -1,5 +1,6 @@
 package org.psu.websocket;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -166,6 +167,23 @@ public class WebsocketReporterTest {
 		verify(async2).sendObject(expectedShipMessage);
 	}
 
+	/**
+	 * Tests that adding a ship leaves the list the ships were loaded from alone
+	 */
+	@Test
+	public void addShipCopiesShips() {
+
+		final Ship ship = mock(Ship.class);
+		final Ship ship2 = mock(Ship.class);
+		final List<Ship> ships = List.of(ship);
+
+		// The reporter keeps its own list, so an immutable one can be loaded
+		websocketReporter.updateShips(ships);
+		websocketReporter.addShip(ship2);
+
+		assertEquals(List.of(ship), ships);
+	}
+
 	/**
 	 * Tests the addShipTypes method
 	 */